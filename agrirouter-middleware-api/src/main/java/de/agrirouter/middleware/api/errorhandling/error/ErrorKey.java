@@ -52,7 +52,8 @@ public enum ErrorKey {
     ROUTER_DEVICE_ALREADY_EXISTS(ERR_ + "00040"),
     COULD_NOT_PARSE_CUSTOMER(ERR_ + "00041"),
     COULD_NOT_PARSE_FARM(ERR_ + "00043"),
-    COULD_NOT_PARSE_FIELD(ERR_ + "00044");
+    COULD_NOT_PARSE_FIELD(ERR_ + "00044"),
+    TOO_MANY_MQTT_CLIENTS(ERR_ + "00045");
 
     private final String key;
 
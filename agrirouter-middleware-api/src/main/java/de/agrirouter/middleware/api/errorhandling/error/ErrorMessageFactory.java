@@ -154,4 +154,8 @@ public final class ErrorMessageFactory {
         return new ErrorMessage(ErrorKey.ENDPOINT_NOT_FOUND, String.format("Could not find endpoint by the external endpoint ID: %s", externalEndpointId), HttpStatus.NOT_FOUND);
     }
 
+    public static ErrorMessage tooManyMqttClients(int maxClients) {
+        return new ErrorMessage(ErrorKey.TOO_MANY_MQTT_CLIENTS, String.format("The maximum number of %d MQTT clients is reached.", maxClients), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
 }
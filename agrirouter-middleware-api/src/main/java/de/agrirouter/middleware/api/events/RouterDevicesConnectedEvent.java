@@ -0,0 +1,22 @@
+package de.agrirouter.middleware.api.events;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * This event is thrown once every router device has been tried to connect after the application has started.
+ */
+@Getter
+public class RouterDevicesConnectedEvent extends ApplicationEvent {
+
+    /**
+     * The number of router devices that are connected.
+     */
+    private final int numberOfConnectedRouterDevices;
+
+    public RouterDevicesConnectedEvent(Object source, int numberOfConnectedRouterDevices) {
+        super(source);
+        this.numberOfConnectedRouterDevices = numberOfConnectedRouterDevices;
+    }
+
+}
@@ -1,43 +1,88 @@
 package de.agrirouter.middleware.api.logging.aop;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.TimeMeter;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.UUID;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * This class is used to trace the business logic.
+ * This class is used to trace the business logic. Only methods annotated with {@link Traced} or within beans annotated
+ * with {@link Traced} are traced, and only if the trace level is enabled. The traces are sampled by probability and
+ * limited per second, so tracing busy methods does not flood the log.
  */
 @Aspect
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class BusinessTraceAspect {
 
+    private static final ThreadLocal<long[]> TRACE_COUNTER = ThreadLocal.withInitial(() -> new long[1]);
+
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final double samplingProbability;
+    private final Bucket bucket;
+
+    @Autowired
+    public BusinessTraceAspect(@Value("${app.tracing.sampling-probability}") double samplingProbability,
+                               @Value("${app.tracing.max-traces-per-second}") int maxTracesPerSecond) {
+        this(samplingProbability, maxTracesPerSecond, TimeMeter.SYSTEM_MILLISECONDS);
+    }
+
+    BusinessTraceAspect(double samplingProbability, int maxTracesPerSecond, TimeMeter timeMeter) {
+        if (samplingProbability < 0.0 || samplingProbability > 1.0) {
+            throw new IllegalArgumentException("The sampling probability has to be between 0.0 and 1.0, but was " + samplingProbability + ".");
+        }
+        this.samplingProbability = samplingProbability;
+        this.bucket = maxTracesPerSecond > 0 ? Bucket.builder()
+                .withCustomTimePrecision(timeMeter)
+                .addLimit(limit -> limit.capacity(maxTracesPerSecond).refillGreedy(maxTracesPerSecond, Duration.ofSeconds(1)))
+                .build() : null;
+    }
 
     /**
-     * This method is used to trace the business logic for each public method.
+     * This method is used to trace the business logic for each traced public method.
      */
-    @Around("execution(public * de.agrirouter.middleware..*.*(..))")
+    @Around("execution(public * *(..)) && (@within(de.agrirouter.middleware.api.logging.aop.Traced) || @annotation(de.agrirouter.middleware.api.logging.aop.Traced))")
     public Object trace(ProceedingJoinPoint joinPoint) throws Throwable {
-        final var uuid = UUID.randomUUID().toString();
-        final var start = System.currentTimeMillis();
-        log.trace("[{}] Method '{}'.", uuid, joinPoint.getSignature().getName());
+        if (!log.isTraceEnabled() || !isSampled()) {
+            return joinPoint.proceed();
+        }
+        final var traceId = nextTraceId();
+        final var start = System.nanoTime();
+        log.trace("[{}] Method '{}'.", traceId, joinPoint.getSignature().getName());
         if (null != joinPoint.getArgs() && joinPoint.getArgs().length > 0) {
-            log.trace("[{}] Arguments: {}", uuid, serializeArguments(joinPoint.getArgs()));
+            log.trace("[{}] Arguments: {}", traceId, serializeArguments(joinPoint.getArgs()));
         }
         final var result = joinPoint.proceed();
-        final var executionTime = System.currentTimeMillis() - start;
-        log.trace("[{}] Method '{}' took {} ms to complete.", uuid, joinPoint.getSignature().getName(), executionTime);
+        final var executionTime = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        log.trace("[{}] Method '{}' took {} ms to complete.", traceId, joinPoint.getSignature().getName(), executionTime);
         return result;
     }
 
+    private boolean isSampled() {
+        if (samplingProbability < 1.0 && ThreadLocalRandom.current().nextDouble() >= samplingProbability) {
+            return false;
+        }
+        return null == bucket || bucket.tryConsume(1);
+    }
+
+    /**
+     * The trace ID is unique per thread, which is enough to correlate the log entries of a single call.
+     */
+    private static String nextTraceId() {
+        final var counter = TRACE_COUNTER.get();
+        return Thread.currentThread().threadId() + "-" + ++counter[0];
+    }
+
     /**
      * Serialize arguments to JSON representation.
      * Falls back to toString() if JSON serialization fails.
@@ -47,7 +92,7 @@ public class BusinessTraceAspect {
             return objectMapper.writeValueAsString(args);
         } catch (Exception e) {
             log.trace("Failed to serialize arguments to JSON, falling back to toString(): {}", e.getMessage());
-            return java.util.Arrays.toString(args);
+            return Arrays.toString(args);
         }
     }
 
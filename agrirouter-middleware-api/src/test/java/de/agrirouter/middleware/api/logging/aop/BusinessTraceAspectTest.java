@@ -0,0 +1,191 @@
+package de.agrirouter.middleware.api.logging.aop;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.github.bucket4j.TimeMeter;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+class BusinessTraceAspectTest {
+
+    private static final String COMPLETED = "[{}] Method '{}' took {} ms to complete.";
+    private static final int WARMUP_ITERATIONS = 50_000;
+    private static final int BENCHMARK_ITERATIONS = 200_000;
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(BusinessTraceAspect.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private Level originalLevel;
+    private boolean originalAdditive;
+
+    @BeforeEach
+    void setUp() {
+        originalLevel = logger.getLevel();
+        originalAdditive = logger.isAdditive();
+        logger.setAdditive(false);
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+        logger.setLevel(originalLevel);
+        logger.setAdditive(originalAdditive);
+    }
+
+    @Test
+    void givenTraceLevelDisabled_whenCallingTracedMethod_thenNothingIsTraced() {
+        logger.setLevel(Level.INFO);
+        var statistics = advised(new BusinessTraceAspect(1.0, 0));
+
+        IntStream.range(0, 1_000).forEach(i -> statistics.increaseNumberOfMessagesArrived());
+
+        assertThat(statistics.getNumberOfMessagesArrived()).isEqualTo(1_000);
+        assertThat(appender.list).isEmpty();
+    }
+
+    @Test
+    void givenMethodWithoutAnnotation_whenCalling_thenNothingIsTraced() {
+        logger.setLevel(Level.TRACE);
+        var statistics = advised(new BusinessTraceAspect(1.0, 0));
+
+        statistics.getNumberOfMessagesArrived();
+
+        assertThat(appender.list).isEmpty();
+    }
+
+    @Test
+    void givenFullTracing_whenCallingTracedMethod_thenEachCallIsTracedWithItsOwnId() {
+        logger.setLevel(Level.TRACE);
+        var statistics = advised(new BusinessTraceAspect(1.0, 0));
+
+        IntStream.range(0, 1_000).forEach(i -> statistics.increaseNumberOfMessagesArrived());
+
+        var completedCalls = appender.list.stream().filter(event -> COMPLETED.equals(event.getMessage())).toList();
+        assertThat(completedCalls).hasSize(1_000);
+        assertThat(completedCalls.stream().map(event -> event.getArgumentArray()[0]).distinct()).hasSize(1_000);
+    }
+
+    @Test
+    void givenSamplingProbability_whenCallingTracedMethod_thenOnlyAShareOfTheCallsIsTraced() {
+        logger.setLevel(Level.TRACE);
+        var statistics = advised(new BusinessTraceAspect(0.1, 0));
+
+        IntStream.range(0, 10_000).forEach(i -> statistics.increaseNumberOfMessagesArrived());
+
+        assertThat(statistics.getNumberOfMessagesArrived()).isEqualTo(10_000);
+        assertThat(numberOfTracedCalls()).isBetween(700L, 1_300L);
+    }
+
+    @Test
+    void givenRateLimit_whenCallingTracedMethod_thenTheNumberOfTracesPerSecondIsLimited() {
+        logger.setLevel(Level.TRACE);
+        var timeMeter = new FakeTimeMeter();
+        var statistics = advised(new BusinessTraceAspect(1.0, 10, timeMeter));
+
+        IntStream.range(0, 10_000).forEach(i -> statistics.increaseNumberOfMessagesArrived());
+        assertThat(numberOfTracedCalls()).isEqualTo(10);
+
+        timeMeter.nanos.addAndGet(Duration.ofSeconds(1).toNanos());
+        IntStream.range(0, 10_000).forEach(i -> statistics.increaseNumberOfMessagesArrived());
+
+        assertThat(statistics.getNumberOfMessagesArrived()).isEqualTo(20_000);
+        assertThat(numberOfTracedCalls()).isEqualTo(20);
+    }
+
+    @Test
+    void givenSamplingProbabilityOutOfRange_whenCreatingTheAspect_thenItIsRejected() {
+        assertThatThrownBy(() -> new BusinessTraceAspect(-0.1, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BusinessTraceAspect(1.1, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Benchmark of an advised hot method, comparable to the increments of the MQTT statistics. JMH is not part of the
+     * build, so the benchmark measures the average time per call after a warmup. The trace events are not written
+     * anywhere, so only the overhead of the aspect is measured. Excluded from the default build, see the tag.
+     */
+    @Test
+    @Tag("benchmark")
+    void givenHotMethod_whenBenchmarkingTheAspect_thenDisabledAndSampledTracingAreCheaperThanFullTracing() {
+        logger.detachAppender(appender);
+
+        logger.setLevel(Level.INFO);
+        var disabled = benchmark(advised(new BusinessTraceAspect(1.0, 0)));
+        logger.setLevel(Level.TRACE);
+        var sampled = benchmark(advised(new BusinessTraceAspect(0.01, 50)));
+        var full = benchmark(advised(new BusinessTraceAspect(1.0, 0)));
+
+        log.info("Average time per call: disabled {} ns, sampled {} ns, fully on {} ns.", disabled, sampled, full);
+        assertThat(disabled).isLessThan(full);
+        assertThat(sampled).isLessThan(full);
+    }
+
+    private long numberOfTracedCalls() {
+        return appender.list.stream().filter(event -> COMPLETED.equals(event.getMessage())).count();
+    }
+
+    private static double benchmark(TracedStatistics statistics) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            statistics.increaseNumberOfMessagesArrived();
+        }
+        var start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            statistics.increaseNumberOfMessagesArrived();
+        }
+        return (double) (System.nanoTime() - start) / BENCHMARK_ITERATIONS;
+    }
+
+    private static TracedStatistics advised(BusinessTraceAspect aspect) {
+        var proxyFactory = new AspectJProxyFactory(new TracedStatistics());
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(aspect);
+        return proxyFactory.getProxy();
+    }
+
+    static class FakeTimeMeter implements TimeMeter {
+
+        private final AtomicLong nanos = new AtomicLong();
+
+        @Override
+        public long currentTimeNanos() {
+            return nanos.get();
+        }
+
+        @Override
+        public boolean isWallClockBased() {
+            return false;
+        }
+
+    }
+
+    static class TracedStatistics {
+
+        private final AtomicLong numberOfMessagesArrived = new AtomicLong();
+
+        @Traced
+        public void increaseNumberOfMessagesArrived() {
+            numberOfMessagesArrived.incrementAndGet();
+        }
+
+        public long getNumberOfMessagesArrived() {
+            return numberOfMessagesArrived.get();
+        }
+
+    }
+
+}
@@ -17,10 +17,13 @@ import com.dke.data.agrirouter.impl.onboard.OnboardingServiceImpl;
 import com.dke.data.agrirouter.impl.onboard.secured.AuthorizationRequestServiceImpl;
 import com.dke.data.agrirouter.impl.revoke.RevokingServiceImpl;
 import de.agrirouter.middleware.config.env.Ar2QA;
+import de.agrirouter.middleware.integration.mqtt.IngestPipelineSettings;
+import de.agrirouter.middleware.integration.mqtt.MessageCorrelationRegistry;
 import de.agrirouter.middleware.integration.mqtt.MessageHandlingCallback;
 import de.agrirouter.middleware.integration.mqtt.MqttStatistics;
 import de.agrirouter.middleware.integration.mqtt.health.HealthStatusMessages;
 import de.agrirouter.middleware.integration.mqtt.list_endpoints.ListEndpointsMessages;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -113,7 +116,23 @@ public class AgrirouterBeanConfiguration {
     }
 
     /**
-     * Create an instance of the message handler.
+     * Create the settings for the ingest pipeline of the message handler.
+     *
+     * @param queueCapacity      The capacity of the queues between the stages.
+     * @param decodeWorkers      The number of decode workers.
+     * @param persistenceWorkers The number of persistence workers.
+     * @return -
+     */
+    @Bean
+    public IngestPipelineSettings ingestPipelineSettings(@Value("${app.agrirouter.mqtt.ingest.queue-capacity}") int queueCapacity,
+                                                         @Value("${app.agrirouter.mqtt.ingest.decode-workers}") int decodeWorkers,
+                                                         @Value("${app.agrirouter.mqtt.ingest.persistence-workers}") int persistenceWorkers) {
+        return new IngestPipelineSettings(queueCapacity, decodeWorkers, persistenceWorkers);
+    }
+
+    /**
+     * Create an instance of the message handler, there is one per MQTT client and the MQTT connection manager shuts it
+     * down as soon as the client is disconnected or replaced.
      *
      * @return -
      */
@@ -123,12 +142,16 @@ public class AgrirouterBeanConfiguration {
                                                            DecodeMessageService decodeMessageService,
                                                            MqttStatistics mqttStatistics,
                                                            ListEndpointsMessages listEndpointsMessages,
-                                                           HealthStatusMessages healthStatusMessages) {
+                                                           HealthStatusMessages healthStatusMessages,
+                                                           MessageCorrelationRegistry messageCorrelationRegistry,
+                                                           IngestPipelineSettings ingestPipelineSettings) {
         return new MessageHandlingCallback(applicationEventPublisher,
                 decodeMessageService,
                 mqttStatistics,
                 listEndpointsMessages,
-                healthStatusMessages);
+                healthStatusMessages,
+                messageCorrelationRegistry,
+                ingestPipelineSettings);
     }
 
     /**
@@ -0,0 +1,14 @@
+-- Content messages and their metadata are using pooled sequences to allow batch inserts.
+-- The sequences start well above the current IDs, since Hibernate reserves blocks of 50 IDs.
+
+set @next_id = (select coalesce(max(id), 0) + 100 from content_message);
+set @create_sequence = concat('create sequence if not exists content_message_seq start with ', @next_id, ' increment by 50');
+prepare create_sequence from @create_sequence;
+execute create_sequence;
+deallocate prepare create_sequence;
+
+set @next_id = (select coalesce(max(id), 0) + 100 from content_message_metadata);
+set @create_sequence = concat('create sequence if not exists content_message_metadata_seq start with ', @next_id, ' increment by 50');
+prepare create_sequence from @create_sequence;
+execute create_sequence;
+deallocate prepare create_sequence;
@@ -0,0 +1,10 @@
+-- Large payloads can be stored outside the database. The content message holds the name of the store and the key of
+-- the payload within the store, existing payloads stay within the database.
+
+alter table content_message
+    add column payload_store varchar(255) not null default 'jpa';
+
+alter table content_message
+    add column payload_key varchar(255) null;
+
+create index content_message_payload_key_idx on content_message (payload_key);
@@ -0,0 +1,21 @@
+# Content messages and their metadata are using pooled IDs to allow batch inserts.
+# MySQL does not support sequences, therefore Hibernate is using tables holding the next value.
+# The tables start well above the current IDs, since Hibernate reserves blocks of 50 IDs.
+
+create table if not exists content_message_seq
+(
+    next_val bigint
+);
+
+insert into content_message_seq (next_val)
+select coalesce(max(id), 0) + 100
+from content_message;
+
+create table if not exists content_message_metadata_seq
+(
+    next_val bigint
+);
+
+insert into content_message_metadata_seq (next_val)
+select coalesce(max(id), 0) + 100
+from content_message_metadata;
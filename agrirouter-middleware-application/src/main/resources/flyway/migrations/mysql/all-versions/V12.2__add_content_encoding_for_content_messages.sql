@@ -0,0 +1,18 @@
+# The message content can be stored as raw binary instead of base64. Existing content messages keep their content
+# and are converted in batches by the application after the start, therefore the encoding is stored for every row.
+# Protobuf messages have never been base64 encoded, they are marked as binary right away.
+
+alter table content_message
+    add column content_encoding varchar(255) not null default 'BASE64';
+
+update content_message cm
+    join content_message_metadata cmm on cm.content_message_metadata_id = cmm.id
+set cm.content_encoding = 'BINARY'
+where cmm.technical_message_type in ('gps:info',
+                                     'masterdata:partfield',
+                                     'masterdata:farm',
+                                     'masterdata:customer',
+                                     'iso:11783:-10:device_description:protobuf',
+                                     'iso:11783:-10:time_log:protobuf');
+
+create index content_message_content_encoding_idx on content_message (content_encoding);
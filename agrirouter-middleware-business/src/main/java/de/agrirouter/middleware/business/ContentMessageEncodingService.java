@@ -0,0 +1,118 @@
+package de.agrirouter.middleware.business;
+
+import com.google.protobuf.ByteString;
+import de.agrirouter.middleware.domain.ContentMessage;
+import de.agrirouter.middleware.domain.enums.ContentMessageEncoding;
+import de.agrirouter.middleware.domain.enums.TemporaryContentMessageType;
+import de.agrirouter.middleware.persistence.payload.PayloadStores;
+import de.agrirouter.middleware.persistence.payload.StoredPayload;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Base64InputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Service to handle the encoding of the message content of content messages. Messages that are base64 encoded by the
+ * agrirouter© are decoded before storing them if the binary storage mode is active, protobuf messages are always
+ * stored as they are. Existing content messages might still be base64 encoded, therefore the content has to be read
+ * using this service. Large binary payloads are routed to the payload stores, protobuf messages are always kept within
+ * the database, since they are parsed directly from the message content.
+ */
+@Service
+@RequiredArgsConstructor
+public class ContentMessageEncodingService {
+
+    private final PayloadStores payloadStores;
+
+    @Value("${app.content-messages.storage-mode:BINARY}")
+    private ContentMessageEncoding storageMode;
+
+    /**
+     * Set the message content as it has been received from the agrirouter©. The metadata of the content message has
+     * to be set before, since the encoding depends on the technical message type.
+     *
+     * @param contentMessage The content message.
+     * @param messageContent The message content.
+     */
+    public void setMessageContent(ContentMessage contentMessage, ByteString messageContent) {
+        try {
+            if (!isBase64Encoded(contentMessage.getContentMessageMetadata().getTechnicalMessageType())) {
+                payloadStores.writeToDatabase(contentMessage, messageContent.toByteArray());
+                contentMessage.setContentEncoding(ContentMessageEncoding.BINARY);
+            } else if (storageMode == ContentMessageEncoding.BINARY) {
+                try (var decodedMessageContent = new Base64InputStream(messageContent.newInput())) {
+                    payloadStores.write(contentMessage, decodedMessageContent.readAllBytes());
+                    contentMessage.setContentEncoding(ContentMessageEncoding.BINARY);
+                }
+            } else {
+                payloadStores.write(contentMessage, messageContent.toByteArray());
+                contentMessage.setContentEncoding(ContentMessageEncoding.BASE64);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Get the decoded message content.
+     *
+     * @param contentMessage The content message.
+     * @return The decoded message content.
+     */
+    public byte[] getDecodedMessageContent(ContentMessage contentMessage) {
+        if (!PayloadStores.isStoredWithin(contentMessage)) {
+            return readDecodedMessageContent(contentMessage);
+        }
+        if (contentMessage.getContentEncoding() == ContentMessageEncoding.BINARY) {
+            return contentMessage.getMessageContent();
+        }
+        return Base64.decodeBase64(contentMessage.getMessageContent());
+    }
+
+    private byte[] readDecodedMessageContent(ContentMessage contentMessage) {
+        final var decodedMessageContent = new AtomicReference<byte[]>();
+        try {
+            payloadStores.read(new StoredPayload(contentMessage.getPayloadStore(), contentMessage.getId(), contentMessage.getPayloadKey()), payload -> {
+                try (var inputStream = decode(payload, contentMessage.getContentEncoding())) {
+                    decodedMessageContent.set(inputStream.readAllBytes());
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return decodedMessageContent.get();
+    }
+
+    /**
+     * Decode the message content while reading.
+     *
+     * @param messageContent  The stored message content.
+     * @param contentEncoding The encoding of the stored message content.
+     * @return The decoded message content.
+     */
+    public InputStream decode(InputStream messageContent, ContentMessageEncoding contentEncoding) {
+        if (contentEncoding == ContentMessageEncoding.BINARY) {
+            return messageContent;
+        }
+        return new Base64InputStream(messageContent);
+    }
+
+    /**
+     * Check if the agrirouter© delivers the content of the technical message type base64 encoded. Unknown types are
+     * handled as base64 encoded, since they can not be protobuf messages the middleware knows about.
+     *
+     * @param technicalMessageType The technical message type.
+     * @return True if the content is base64 encoded.
+     */
+    static boolean isBase64Encoded(String technicalMessageType) {
+        final var temporaryContentMessageType = TemporaryContentMessageType.fromKey(technicalMessageType);
+        return null == temporaryContentMessageType || temporaryContentMessageType.needsBase64EncodingAndHasToBeChunkedIfNecessary();
+    }
+
+}
@@ -9,6 +9,7 @@ import de.agrirouter.middleware.domain.ContentMessage;
 import de.agrirouter.middleware.domain.documents.Customer;
 import de.agrirouter.middleware.domain.enums.EntityType;
 import de.agrirouter.middleware.domain.enums.TemporaryContentMessageType;
+import de.agrirouter.middleware.efdi.ProtobufDocumentConverter;
 import de.agrirouter.middleware.integration.SendMessageIntegrationService;
 import de.agrirouter.middleware.integration.parameters.MessagingIntegrationParameters;
 import de.agrirouter.middleware.persistence.mongo.CustomerRepository;
@@ -107,8 +108,7 @@ public class CustomerService {
     private Optional<Document> convert(byte[] messageContent) {
         try {
             var customer = GrpcEfdi.Customer.parseFrom(ByteString.copyFrom(messageContent));
-            var json = JsonFormat.printer().print(customer);
-            var document = Document.parse(json);
+            var document = ProtobufDocumentConverter.toDocument(customer);
             return Optional.ofNullable(document);
         } catch (InvalidProtocolBufferException e) {
             log.error("Could not parse the message content.", e);
@@ -2,7 +2,6 @@ package de.agrirouter.middleware.business;
 
 import com.google.protobuf.ByteString;
 import com.google.protobuf.InvalidProtocolBufferException;
-import com.google.protobuf.util.JsonFormat;
 import de.agrirouter.middleware.api.IdFactory;
 import de.agrirouter.middleware.api.errorhandling.BusinessException;
 import de.agrirouter.middleware.api.errorhandling.error.ErrorMessageFactory;
@@ -17,6 +16,7 @@ import de.agrirouter.middleware.domain.Endpoint;
 import de.agrirouter.middleware.domain.documents.Device;
 import de.agrirouter.middleware.domain.documents.DeviceDescription;
 import de.agrirouter.middleware.domain.enums.TemporaryContentMessageType;
+import de.agrirouter.middleware.efdi.ProtobufDocumentConverter;
 import de.agrirouter.middleware.integration.SendMessageIntegrationService;
 import de.agrirouter.middleware.integration.parameters.MessagingIntegrationParameters;
 import de.agrirouter.middleware.persistence.mongo.DeviceDescriptionRepository;
@@ -291,11 +291,8 @@ public class DeviceDescriptionService {
      */
     public Optional<Document> convert(GrpcEfdi.ISO11783_TaskData deviceDescription) {
         try {
-            var json = JsonFormat.printer().print(deviceDescription);
-            log.debug("The original protobuf has been transformed to JSON.");
-            log.trace("{}", json);
-            Document document = Document.parse(json);
-            log.debug("Converting the JSON to a BSON document.");
+            Document document = ProtobufDocumentConverter.toDocument(deviceDescription);
+            log.debug("The original protobuf has been converted to a BSON document.");
             log.trace("{}", document);
             return Optional.ofNullable(document);
         } catch (InvalidProtocolBufferException e) {
@@ -4,6 +4,7 @@ import de.agrirouter.middleware.api.errorhandling.BusinessException;
 import de.agrirouter.middleware.api.errorhandling.error.ErrorMessageFactory;
 import de.agrirouter.middleware.api.logging.BusinessOperationLogService;
 import de.agrirouter.middleware.api.logging.EndpointLogInformation;
+import de.agrirouter.middleware.api.logging.aop.Traced;
 import de.agrirouter.middleware.persistence.jpa.ApplicationRepository;
 import de.agrirouter.middleware.persistence.jpa.EndpointRepository;
 import lombok.RequiredArgsConstructor;
@@ -16,6 +17,7 @@ import java.security.Principal;
 import java.util.HashSet;
 
 @Slf4j
+@Traced
 @Service
 @RequiredArgsConstructor
 public class EndpointMigrationService {
@@ -63,7 +65,7 @@ public class EndpointMigrationService {
             } else {
                 endpoint.setOnboardResponseForRouterDevice(null);
             }
-            endpointRepository.save(endpoint);
+            endpointService.save(endpoint);
 
             endpointService.sendCapabilities(targetApp, endpoint);
 
@@ -6,6 +6,7 @@ import de.agrirouter.middleware.api.errorhandling.BusinessException;
 import de.agrirouter.middleware.api.errorhandling.error.ErrorMessageFactory;
 import de.agrirouter.middleware.api.logging.BusinessOperationLogService;
 import de.agrirouter.middleware.api.logging.EndpointLogInformation;
+import de.agrirouter.middleware.business.cache.endpoints.AgrirouterEndpointIdCache;
 import de.agrirouter.middleware.business.cache.endpoints.InternalEndpointCache;
 import de.agrirouter.middleware.business.cache.events.BusinessEventType;
 import de.agrirouter.middleware.business.cache.events.BusinessEventsCache;
@@ -15,6 +16,7 @@ import de.agrirouter.middleware.domain.enums.EndpointType;
 import de.agrirouter.middleware.integration.EndpointIntegrationService;
 import de.agrirouter.middleware.integration.RevokeProcessIntegrationService;
 import de.agrirouter.middleware.integration.ack.MessageWaitingForAcknowledgementService;
+import de.agrirouter.middleware.integration.cache.OnboardingResponseCache;
 import de.agrirouter.middleware.integration.mqtt.ConnectionState;
 import de.agrirouter.middleware.integration.mqtt.MqttClientManagementService;
 import de.agrirouter.middleware.integration.mqtt.health.HealthStatusIntegrationService;
@@ -26,7 +28,6 @@ import de.agrirouter.middleware.persistence.jpa.ApplicationRepository;
 import de.agrirouter.middleware.persistence.jpa.EndpointRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
@@ -35,6 +36,7 @@ import org.springframework.util.CollectionUtils;
 
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
@@ -46,7 +48,6 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor
 public class EndpointService {
 
-    public static final int ADDITIONAL_OFFSET_WHEN_WAITING = 20;
     private final EndpointRepository endpointRepository;
     private final DecodeMessageService decodeMessageService;
     private final EndpointIntegrationService endpointIntegrationService;
@@ -59,13 +60,9 @@ public class EndpointService {
     private final BusinessEventsCache businessEventsCache;
     private final ListEndpointsIntegrationService listEndpointsIntegrationService;
     private final InternalEndpointCache internalEndpointCache;
+    private final AgrirouterEndpointIdCache agrirouterEndpointIdCache;
     private final RemoveEndpointDataService removeEndpointDataService;
-
-    @Value("${app.agrirouter.mqtt.synchronous.response.wait.time}")
-    private int nrOfMillisecondsToWaitForTheResponseOfTheAgrirouter;
-
-    @Value("${app.agrirouter.mqtt.synchronous.response.polling.intervall}")
-    private int pollingInterval;
+    private final OnboardingResponseCache onboardingResponseCache;
 
     /**
      * Updating error messages based on the decoded message.
@@ -247,9 +244,11 @@ public class EndpointService {
             log.debug("Deactivate the endpoint to avoid race conditions.");
             endpoint.setDeactivated(true);
             endpointRepository.save(endpoint);
+            agrirouterEndpointIdCache.remove(endpoint.getAgrirouterEndpointId());
             endpoint.getConnectedVirtualEndpoints().forEach(vcu -> {
                 vcu.setDeactivated(true);
                 endpointRepository.save(vcu);
+                agrirouterEndpointIdCache.remove(vcu.getAgrirouterEndpointId());
             });
             if (EndpointType.NON_VIRTUAL.equals(endpoint.getEndpointType())) {
                 final var optionalApplication = applicationRepository.findByEndpointsContains(endpoint);
@@ -338,48 +337,45 @@ public class EndpointService {
      * @return The health status.
      */
     public HealthStatusWithLastKnownHealthyStatus determineHealthStatus(String externalEndpointId) {
+        return determineHealthStatusAsync(externalEndpointId).join();
+    }
+
+    /**
+     * Check whether the endpoint is healthy or not. The health status is completed as soon as the agrirouter has
+     * answered or the time to wait for the response has passed, no thread is blocked in the meantime.
+     *
+     * @param externalEndpointId The external ID of the endpoint.
+     * @return The health status.
+     */
+    public CompletableFuture<HealthStatusWithLastKnownHealthyStatus> determineHealthStatusAsync(String externalEndpointId) {
         final var optionalEndpoint = findByExternalEndpointId(externalEndpointId);
-        var healthStatus = HttpStatus.INTERNAL_SERVER_ERROR;
         if (optionalEndpoint.isPresent()) {
             var endpoint = optionalEndpoint.get();
-            healthStatusIntegrationService.removeAllPendingHealthStatusMessagesForEndpoint(endpoint.getAgrirouterEndpointId());
-            healthStatusIntegrationService.publishHealthStatusMessage(endpoint);
-            if (healthStatusIntegrationService.hasPendingResponse(endpoint.getAgrirouterEndpointId())) {
-                var timer = nrOfMillisecondsToWaitForTheResponseOfTheAgrirouter;
-                while (timer > 0) {
-                    try {
-                        var agrirouterEndpointId = endpoint.getAgrirouterEndpointId();
-                        var timeToWait = pollingInterval + new Random().nextInt(ADDITIONAL_OFFSET_WHEN_WAITING);
-                        Thread.sleep(timeToWait);
-                        var optionalHealthStatusMessage = healthStatusIntegrationService.getHealthStatusMessage(agrirouterEndpointId);
-                        if (optionalHealthStatusMessage.isPresent()) {
-                            log.debug("Found health status message for endpoint {}.", agrirouterEndpointId);
-                            log.debug("Health status: {}.", healthStatus);
-                            healthStatusIntegrationService.markHealthMessageAsReceived(agrirouterEndpointId);
-                            healthStatus = mapAgrirouterResponseToHealthStatus(optionalHealthStatusMessage.get());
-                            healthStatusIntegrationService.setLastKnownHealthyStatus(agrirouterEndpointId);
-                            break;
-                        }
-                    } catch (InterruptedException e) {
-                        log.error("Error while waiting for list endpoints / message recipients response.", e);
-                    }
-                    timer = timer - pollingInterval;
-                    log.info("Time to wait for the response of the agrirouter: {}.", timer);
+            var agrirouterEndpointId = endpoint.getAgrirouterEndpointId();
+            healthStatusIntegrationService.removeAllPendingHealthStatusMessagesForEndpoint(agrirouterEndpointId);
+            return healthStatusIntegrationService.publishHealthStatusMessage(endpoint).handle((healthStatusMessage, throwable) -> {
+                var healthStatus = HttpStatus.INTERNAL_SERVER_ERROR;
+                if (null != throwable) {
+                    log.debug("There was no health status response for endpoint {}.", agrirouterEndpointId, throwable);
+                } else {
+                    log.debug("Found health status message for endpoint {}.", agrirouterEndpointId);
+                    healthStatusIntegrationService.markHealthMessageAsReceived(agrirouterEndpointId);
+                    healthStatus = mapAgrirouterResponseToHealthStatus(healthStatusMessage);
+                    log.debug("Health status: {}.", healthStatus);
+                    healthStatusIntegrationService.setLastKnownHealthyStatus(agrirouterEndpointId);
                 }
-            } else {
-                log.debug("There is no pending list endpoints response for endpoint {}.", endpoint.getAgrirouterEndpointId());
-            }
-            var lastKnownHealthyStatus = healthStatusIntegrationService.getLastKnownHealthyStatus(endpoint.getAgrirouterEndpointId());
-            if (lastKnownHealthyStatus.isPresent()) {
-                log.debug("Last known healthy status for endpoint '{}': {}.", externalEndpointId, lastKnownHealthyStatus.get());
-                return new HealthStatusWithLastKnownHealthyStatus(healthStatus, lastKnownHealthyStatus.get());
-            } else {
-                log.debug("No last known healthy status found for endpoint '{}'.", externalEndpointId);
-                return new HealthStatusWithLastKnownHealthyStatus(healthStatus, null);
-            }
+                var lastKnownHealthyStatus = healthStatusIntegrationService.getLastKnownHealthyStatus(agrirouterEndpointId);
+                if (lastKnownHealthyStatus.isPresent()) {
+                    log.debug("Last known healthy status for endpoint '{}': {}.", externalEndpointId, lastKnownHealthyStatus.get());
+                    return new HealthStatusWithLastKnownHealthyStatus(healthStatus, lastKnownHealthyStatus.get());
+                } else {
+                    log.debug("No last known healthy status found for endpoint '{}'.", externalEndpointId);
+                    return new HealthStatusWithLastKnownHealthyStatus(healthStatus, null);
+                }
+            });
         } else {
             log.debug("Tried to determine the health status for an endpoint with the ID '{}', but it was not found.", externalEndpointId);
-            return new HealthStatusWithLastKnownHealthyStatus(HttpStatus.NOT_FOUND, null);
+            return CompletableFuture.completedFuture(new HealthStatusWithLastKnownHealthyStatus(HttpStatus.NOT_FOUND, null));
         }
     }
 
@@ -400,45 +396,35 @@ public class EndpointService {
      * @return The recipients for the endpoint.
      */
     public Collection<MessageRecipient> getMessageRecipients(String externalEndpointId) {
+        return getMessageRecipientsAsync(externalEndpointId).join();
+    }
+
+    /**
+     * Get the recipients for the endpoint. The recipients are completed as soon as the agrirouter has answered or the
+     * time to wait for the response has passed, no thread is blocked in the meantime.
+     *
+     * @return The recipients for the endpoint.
+     */
+    public CompletableFuture<Collection<MessageRecipient>> getMessageRecipientsAsync(String externalEndpointId) {
         final var optionalEndpoint = findByExternalEndpointId(externalEndpointId);
         if (optionalEndpoint.isPresent()) {
             var endpoint = optionalEndpoint.get();
-            listEndpointsIntegrationService.publishListEndpointsMessage(endpoint);
-            if (listEndpointsIntegrationService.hasPendingResponse(endpoint.getAgrirouterEndpointId())) {
-                var timer = nrOfMillisecondsToWaitForTheResponseOfTheAgrirouter;
-                while (timer > 0) {
-                    try {
-                        log.debug("Waiting for list endpoints response for endpoint {}.", endpoint.getAgrirouterEndpointId());
-                        var timeToWaitForTheResponseOfTheAgrirouter = pollingInterval + new Random().nextInt(ADDITIONAL_OFFSET_WHEN_WAITING);
-                        log.debug("Time to wait for the response of the agrirouter: {}.", timeToWaitForTheResponseOfTheAgrirouter);
-                        Thread.sleep(timeToWaitForTheResponseOfTheAgrirouter);
-                        var recipients = listEndpointsIntegrationService.getRecipients(endpoint.getAgrirouterEndpointId());
-                        if (recipients.isPresent()) {
-                            log.debug("Found recipients for endpoint {}.", endpoint.getAgrirouterEndpointId());
-                            var messageRecipients = recipients.get();
-                            log.debug("Recipients: {}.", messageRecipients);
-                            return messageRecipients;
-                        }
-                    } catch (InterruptedException e) {
-                        log.error("Error while waiting for list endpoints / message recipients response.", e);
-                    }
-                    timer = timer - pollingInterval;
-                }
-            } else {
-                log.debug("There is no pending list endpoints response for endpoint {}.", endpoint.getAgrirouterEndpointId());
-            }
+            return listEndpointsIntegrationService.publishListEndpointsMessage(endpoint).exceptionally(throwable -> {
+                log.debug("There was no list endpoints response for endpoint {}.", endpoint.getAgrirouterEndpointId(), throwable);
+                return Collections.emptyList();
+            });
         }
-        return Collections.emptyList();
+        return CompletableFuture.completedFuture(Collections.emptyList());
     }
 
     /**
-     * Find an endpoint by agrirouter endpoint ID.
+     * Find an endpoint by agrirouter endpoint ID, the endpoint is served from the cache if possible.
      *
      * @param agrirouterEndpointId The agrirouter endpoint ID.
      * @return The endpoint.
      */
     public Endpoint findByAgrirouterEndpointId(String agrirouterEndpointId) {
-        var optionalEndpoint = endpointRepository.findByAgrirouterEndpointId(agrirouterEndpointId);
+        var optionalEndpoint = agrirouterEndpointIdCache.get(agrirouterEndpointId, id -> endpointRepository.findByAgrirouterEndpointId(id).orElse(null));
         if (optionalEndpoint.isPresent()) {
             return optionalEndpoint.get();
         } else {
@@ -455,6 +441,8 @@ public class EndpointService {
     public Endpoint save(Endpoint endpoint) {
         var savedEndpoint = endpointRepository.save(endpoint);
         internalEndpointCache.put(savedEndpoint.getExternalEndpointId(), savedEndpoint);
+        agrirouterEndpointIdCache.put(savedEndpoint);
+        onboardingResponseCache.removeIfChanged(savedEndpoint);
         return savedEndpoint;
     }
 
@@ -480,11 +468,18 @@ public class EndpointService {
      * @return a map where the keys are the external endpoint IDs and the values are their corresponding health status values
      */
     public Map<String, Integer> areHealthy(List<String> externalEndpointIds) {
-        var endpointStatus = new HashMap<String, Integer>();
+        var pendingHealthStatus = new LinkedHashMap<String, CompletableFuture<HealthStatusWithLastKnownHealthyStatus>>();
         externalEndpointIds.forEach(externalEndpointId -> {
             try {
-                var healthStatus = determineHealthStatus(externalEndpointId);
-                endpointStatus.put(externalEndpointId, healthStatus.healthStatus().value());
+                pendingHealthStatus.putIfAbsent(externalEndpointId, determineHealthStatusAsync(externalEndpointId));
+            } catch (Exception e) {
+                log.error("Could not determine the health status for endpoint '{}'.", externalEndpointId, e);
+            }
+        });
+        var endpointStatus = new HashMap<String, Integer>();
+        pendingHealthStatus.forEach((externalEndpointId, healthStatus) -> {
+            try {
+                endpointStatus.put(externalEndpointId, healthStatus.join().healthStatus().value());
             } catch (Exception e) {
                 log.error("Could not determine the health status for endpoint '{}'.", externalEndpointId, e);
             }
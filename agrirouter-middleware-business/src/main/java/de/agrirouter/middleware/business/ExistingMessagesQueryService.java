@@ -0,0 +1,306 @@
+package de.agrirouter.middleware.business;
+
+import de.agrirouter.middleware.api.errorhandling.BusinessException;
+import de.agrirouter.middleware.domain.Endpoint;
+import de.agrirouter.middleware.integration.SendMessageIntegrationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fetch the existing messages of an endpoint using message queries. The AR only returns a limited number of messages
+ * per query, so a query window with more messages is split into smaller windows until each window can be fetched
+ * with a single query. The windows of an endpoint are queried with a bounded parallelism, the windows that have
+ * already been fetched are not queried again.
+ */
+@Slf4j
+@Service
+public class ExistingMessagesQueryService {
+
+    /**
+     * The period of the existing messages that are fetched.
+     */
+    static final long QUERY_PERIOD_IN_DAYS = 28;
+
+    private final ConcurrentHashMap<String, QueryRun> queryRuns = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Instant> lastFetches = new ConcurrentHashMap<>();
+
+    private final SendMessageIntegrationService sendMessageIntegrationService;
+    private final MessageConfirmationAggregator messageConfirmationAggregator;
+    private final int parallelQueriesPerEndpoint;
+    private final Duration timeout;
+
+    public ExistingMessagesQueryService(SendMessageIntegrationService sendMessageIntegrationService,
+                                        MessageConfirmationAggregator messageConfirmationAggregator,
+                                        @Value("${app.message-query.parallel-queries-per-endpoint}") int parallelQueriesPerEndpoint,
+                                        @Value("${app.message-query.timeout-seconds}") long timeoutInSeconds) {
+        if (parallelQueriesPerEndpoint < 1) {
+            throw new IllegalArgumentException("The number of parallel queries per endpoint has to be at least 1.");
+        }
+        this.sendMessageIntegrationService = sendMessageIntegrationService;
+        this.messageConfirmationAggregator = messageConfirmationAggregator;
+        this.parallelQueriesPerEndpoint = parallelQueriesPerEndpoint;
+        this.timeout = Duration.ofSeconds(timeoutInSeconds);
+    }
+
+    /**
+     * Fetch and confirm the messages of the last 28 days for the endpoint. Nothing is done if the messages of the
+     * endpoint are already being fetched.
+     *
+     * @param endpoint The endpoint.
+     * @return True if the fetching has been started.
+     */
+    public boolean fetchAndConfirmExistingMessages(Endpoint endpoint) {
+        final var now = Instant.now();
+        final var queryRun = new QueryRun(endpoint, new QueryWindow(now.minus(QUERY_PERIOD_IN_DAYS, ChronoUnit.DAYS).getEpochSecond(), now.getEpochSecond()), now);
+        final var started = new AtomicBoolean();
+        queryRuns.compute(endpoint.getAgrirouterEndpointId(), (agrirouterEndpointId, current) -> {
+            if (null == current || current.isStale(now, timeout)) {
+                started.set(true);
+                return queryRun;
+            }
+            return current;
+        });
+        if (!started.get()) {
+            log.debug("The existing messages for the endpoint '{}' are already being fetched.", endpoint.getAgrirouterEndpointId());
+            return false;
+        }
+        log.debug("Fetching and confirming existing messages for endpoint '{}'.", endpoint.getExternalEndpointId());
+        lastFetches.put(endpoint.getAgrirouterEndpointId(), now);
+        dispatch(queryRun);
+        removeIfFinished(queryRun);
+        return true;
+    }
+
+    /**
+     * Handle a page of the result of a message query. The AR returns the result of a query in one or more pages, as
+     * soon as the last page has been received and the query window contained more messages than the AR returned, the
+     * window is split and the smaller windows are queried. Results of queries that have not been sent by this
+     * service start a new fetching of the existing messages if there are more messages.
+     *
+     * @param endpoint             The endpoint.
+     * @param queryMessageId       The ID of the query message.
+     * @param totalMessagesInQuery The total number of messages within the query window.
+     * @param maxCountRestriction  The maximum number of messages returned for a single query.
+     * @param messagesCount        The number of messages within the page.
+     * @param pageTotal            The total number of pages of the result.
+     */
+    public void queryResultReceived(Endpoint endpoint, String queryMessageId, long totalMessagesInQuery, long maxCountRestriction, int messagesCount, int pageTotal) {
+        final var queryRun = queryRuns.get(endpoint.getAgrirouterEndpointId());
+        if (null == queryRun || !queryRun.resultReceived(queryMessageId, totalMessagesInQuery, maxCountRestriction, messagesCount, pageTotal)) {
+            if (totalMessagesInQuery > maxCountRestriction) {
+                log.debug("There are {} messages in total, the current count restriction is {}. Fetching the remaining messages.", totalMessagesInQuery, maxCountRestriction);
+                fetchAndConfirmExistingMessages(endpoint);
+            }
+            return;
+        }
+        dispatch(queryRun);
+        removeIfFinished(queryRun);
+    }
+
+    /**
+     * The point in time the last fetching of the existing messages for the endpoint has been started.
+     *
+     * @param agrirouterEndpointId The agrirouter© endpoint ID.
+     * @return The start of the last fetching, empty if the messages have not been fetched since the start.
+     */
+    public Optional<Instant> getLastFetch(String agrirouterEndpointId) {
+        return Optional.ofNullable(lastFetches.get(agrirouterEndpointId));
+    }
+
+    /**
+     * Check if the existing messages of the endpoint are being fetched.
+     *
+     * @param agrirouterEndpointId The agrirouter© endpoint ID.
+     * @return True if there are queries pending.
+     */
+    boolean isFetching(String agrirouterEndpointId) {
+        return queryRuns.containsKey(agrirouterEndpointId);
+    }
+
+    private void dispatch(QueryRun queryRun) {
+        final var agrirouterEndpointId = queryRun.getEndpoint().getAgrirouterEndpointId();
+        synchronized (queryRun) {
+            if (queryRun.hasPendingWindows()) {
+                // The messages of the results have to be confirmed before, otherwise they are returned again.
+                messageConfirmationAggregator.flush(agrirouterEndpointId);
+            }
+            while (queryRun.hasPendingWindows() && queryRun.getNumberOfQueriesInFlight() < parallelQueriesPerEndpoint) {
+                final var queryWindow = queryRun.nextWindow();
+                try {
+                    final var queryMessageId = sendMessageIntegrationService.query(queryRun.getEndpoint(), queryWindow.sentFromInSeconds(), queryWindow.sentToInSeconds());
+                    queryRun.querySent(queryMessageId, queryWindow);
+                } catch (BusinessException e) {
+                    log.error(e.getErrorMessage().asLogMessage());
+                    queryRun.abort();
+                }
+            }
+        }
+    }
+
+    private void removeIfFinished(QueryRun queryRun) {
+        if (queryRun.isFinished() && queryRuns.remove(queryRun.getEndpoint().getAgrirouterEndpointId(), queryRun)) {
+            log.debug("Fetched the existing messages for the endpoint '{}' with {} queries, {} windows have been completed.",
+                    queryRun.getEndpoint().getAgrirouterEndpointId(), queryRun.getNumberOfQueries(), queryRun.getNumberOfCompletedWindows());
+        }
+    }
+
+    /**
+     * A window for a message query, both timestamps are included.
+     *
+     * @param sentFromInSeconds The start of the window.
+     * @param sentToInSeconds   The end of the window.
+     */
+    record QueryWindow(long sentFromInSeconds, long sentToInSeconds) {
+
+        /**
+         * Split the window into windows of the same length, a window of a single second can not be split.
+         *
+         * @param parts The number of windows.
+         * @return The windows, without gaps or overlaps.
+         */
+        List<QueryWindow> split(long parts) {
+            final var length = sentToInSeconds - sentFromInSeconds + 1;
+            final var numberOfWindows = Math.min(parts, length);
+            if (numberOfWindows <= 1) {
+                return List.of(this);
+            }
+            final var windows = new ArrayList<QueryWindow>();
+            var sentFrom = sentFromInSeconds;
+            for (long i = 0; i < numberOfWindows; i++) {
+                final var windowLength = length / numberOfWindows + (i < length % numberOfWindows ? 1 : 0);
+                windows.add(new QueryWindow(sentFrom, sentFrom + windowLength - 1));
+                sentFrom += windowLength;
+            }
+            return windows;
+        }
+    }
+
+    /**
+     * The state of fetching the existing messages for a single endpoint.
+     */
+    private static final class QueryRun {
+
+        private final Endpoint endpoint;
+        private final Deque<QueryWindow> pendingWindows = new ArrayDeque<>();
+        private final Map<String, QueryInFlight> queriesInFlight = new HashMap<>();
+        private final List<QueryWindow> completedWindows = new ArrayList<>();
+        private int numberOfQueries;
+        private Instant lastActivity;
+
+        private QueryRun(Endpoint endpoint, QueryWindow queryWindow, Instant now) {
+            this.endpoint = endpoint;
+            this.pendingWindows.add(queryWindow);
+            this.lastActivity = now;
+        }
+
+        private Endpoint getEndpoint() {
+            return endpoint;
+        }
+
+        private synchronized boolean hasPendingWindows() {
+            return !pendingWindows.isEmpty();
+        }
+
+        private synchronized QueryWindow nextWindow() {
+            return pendingWindows.poll();
+        }
+
+        private synchronized int getNumberOfQueriesInFlight() {
+            return queriesInFlight.size();
+        }
+
+        private synchronized int getNumberOfQueries() {
+            return numberOfQueries;
+        }
+
+        private synchronized int getNumberOfCompletedWindows() {
+            return completedWindows.size();
+        }
+
+        private synchronized void querySent(String queryMessageId, QueryWindow queryWindow) {
+            queriesInFlight.put(queryMessageId, new QueryInFlight(queryWindow));
+            numberOfQueries++;
+            lastActivity = Instant.now();
+        }
+
+        private synchronized boolean resultReceived(String queryMessageId, long totalMessagesInQuery, long maxCountRestriction, int messagesCount, int pageTotal) {
+            final var queryInFlight = queriesInFlight.get(queryMessageId);
+            if (null == queryInFlight) {
+                return false;
+            }
+            lastActivity = Instant.now();
+            if (!queryInFlight.pageReceived(messagesCount, pageTotal)) {
+                log.debug("Received page {} of {} for the query '{}', waiting for the remaining pages.", queryInFlight.receivedPages, pageTotal, queryMessageId);
+                return true;
+            }
+            queriesInFlight.remove(queryMessageId);
+            final var queryWindow = queryInFlight.queryWindow;
+            final var receivedMessages = queryInFlight.messagesCount;
+            if (totalMessagesInQuery <= maxCountRestriction || maxCountRestriction <= 0) {
+                completedWindows.add(queryWindow);
+            } else if (receivedMessages == 0) {
+                log.warn("The query for the endpoint '{}' returned no messages although there are {} messages within the window, the window is skipped.", endpoint.getAgrirouterEndpointId(), totalMessagesInQuery);
+            } else {
+                // The windows are sized for 80 % of the maximum, so most of them can be fetched with a single query.
+                final var remainingMessages = totalMessagesInQuery - receivedMessages;
+                final var parts = Math.max(2, Math.ceilDiv(remainingMessages * 5, maxCountRestriction * 4));
+                pendingWindows.addAll(queryWindow.split(parts));
+            }
+            return true;
+        }
+
+        private synchronized void abort() {
+            pendingWindows.clear();
+        }
+
+        private synchronized boolean isFinished() {
+            return pendingWindows.isEmpty() && queriesInFlight.isEmpty();
+        }
+
+        private synchronized boolean isStale(Instant now, Duration timeout) {
+            return lastActivity.plus(timeout).isBefore(now);
+        }
+    }
+
+    /**
+     * A query that has been sent, the pages of its result are counted until the last page has been received.
+     */
+    private static final class QueryInFlight {
+
+        private final QueryWindow queryWindow;
+        private int receivedPages;
+        private int messagesCount;
+
+        private QueryInFlight(QueryWindow queryWindow) {
+            this.queryWindow = queryWindow;
+        }
+
+        /**
+         * Count a page of the result.
+         *
+         * @param messagesCount The number of messages within the page.
+         * @param pageTotal     The total number of pages of the result.
+         * @return True if the last page has been received.
+         */
+        private boolean pageReceived(int messagesCount, int pageTotal) {
+            this.receivedPages++;
+            this.messagesCount += messagesCount;
+            return receivedPages >= pageTotal;
+        }
+    }
+
+}
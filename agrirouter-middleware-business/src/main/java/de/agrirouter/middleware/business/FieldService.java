@@ -9,6 +9,7 @@ import de.agrirouter.middleware.domain.ContentMessage;
 import de.agrirouter.middleware.domain.documents.Field;
 import de.agrirouter.middleware.domain.enums.EntityType;
 import de.agrirouter.middleware.domain.enums.TemporaryContentMessageType;
+import de.agrirouter.middleware.efdi.ProtobufDocumentConverter;
 import de.agrirouter.middleware.integration.SendMessageIntegrationService;
 import de.agrirouter.middleware.integration.parameters.MessagingIntegrationParameters;
 import de.agrirouter.middleware.persistence.mongo.FieldRepository;
@@ -109,8 +110,7 @@ public class FieldService {
     private Optional<Document> convert(byte[] messageContent) {
         try {
             var partField = GrpcEfdi.Partfield.parseFrom(ByteString.copyFrom(messageContent));
-            var json = JsonFormat.printer().print(partField);
-            var document = Document.parse(json);
+            var document = ProtobufDocumentConverter.toDocument(partField);
             return Optional.ofNullable(document);
         } catch (InvalidProtocolBufferException e) {
             log.error("Could not parse the message content.", e);
@@ -0,0 +1,156 @@
+package de.agrirouter.middleware.business;
+
+import de.agrirouter.middleware.api.errorhandling.BusinessException;
+import de.agrirouter.middleware.api.logging.BusinessOperationLogService;
+import de.agrirouter.middleware.api.logging.EndpointLogInformation;
+import de.agrirouter.middleware.integration.SendMessageIntegrationService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collects the IDs of the received messages per endpoint and confirms them with a single confirmation message. The
+ * pending IDs of an endpoint are confirmed as soon as the configured number of IDs is reached or the window since the
+ * first pending ID has passed. Messages are never confirmed before the surrounding transaction has been committed, so
+ * a message is only confirmed if it has been persisted.
+ */
+@Slf4j
+@Service
+public class MessageConfirmationAggregator {
+
+    private final ConcurrentHashMap<String, Set<String>> pendingMessageIds = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("message-confirmation-aggregator").factory());
+    private final AtomicBoolean shutdown = new AtomicBoolean();
+
+    private final SendMessageIntegrationService sendMessageIntegrationService;
+    private final EndpointService endpointService;
+    private final BusinessOperationLogService businessOperationLogService;
+    private final long windowInMillis;
+    private final int maxMessageIds;
+
+    public MessageConfirmationAggregator(SendMessageIntegrationService sendMessageIntegrationService,
+                                         EndpointService endpointService,
+                                         BusinessOperationLogService businessOperationLogService,
+                                         @Value("${app.message-confirmation.window-in-millis}") long windowInMillis,
+                                         @Value("${app.message-confirmation.max-message-ids}") int maxMessageIds) {
+        if (maxMessageIds < 1) {
+            throw new IllegalArgumentException("The maximum number of message IDs per confirmation has to be at least 1.");
+        }
+        this.sendMessageIntegrationService = sendMessageIntegrationService;
+        this.endpointService = endpointService;
+        this.businessOperationLogService = businessOperationLogService;
+        this.windowInMillis = windowInMillis;
+        this.maxMessageIds = maxMessageIds;
+    }
+
+    /**
+     * Confirm the messages for the endpoint. If there is an active transaction, the messages are added to the pending
+     * confirmations after the commit and dropped on a rollback, so they will be delivered again by the AR.
+     *
+     * @param agrirouterEndpointId The agrirouter© endpoint ID.
+     * @param messageIds           The IDs of the messages to confirm.
+     */
+    public void confirm(String agrirouterEndpointId, Collection<String> messageIds) {
+        if (messageIds.isEmpty()) {
+            log.debug("No messages to confirm, therefore skipping confirmation.");
+            return;
+        }
+        final var messageIdsToConfirm = List.copyOf(messageIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addToPendingConfirmations(agrirouterEndpointId, messageIdsToConfirm);
+                }
+            });
+        } else {
+            addToPendingConfirmations(agrirouterEndpointId, messageIdsToConfirm);
+        }
+    }
+
+    /**
+     * Send the pending confirmations for the endpoint immediately, e.g. before querying the messages again.
+     *
+     * @param agrirouterEndpointId The agrirouter© endpoint ID.
+     */
+    public void flush(String agrirouterEndpointId) {
+        final var messageIds = pendingMessageIds.remove(agrirouterEndpointId);
+        if (null != messageIds) {
+            send(agrirouterEndpointId, List.copyOf(messageIds));
+        }
+    }
+
+    /**
+     * Send all pending confirmations before shutting down, later confirmations are sent immediately.
+     */
+    @PreDestroy
+    public void flushAll() {
+        shutdown.set(true);
+        scheduler.shutdown();
+        log.debug("Sending the pending confirmations for {} endpoints.", pendingMessageIds.size());
+        pendingMessageIds.keySet().forEach(this::flush);
+    }
+
+    private void addToPendingConfirmations(String agrirouterEndpointId, List<String> messageIds) {
+        final var completeConfirmations = new ArrayList<List<String>>();
+        final var firstPendingMessageIds = new AtomicBoolean();
+        pendingMessageIds.compute(agrirouterEndpointId, (id, pending) -> {
+            final var messageIdsForEndpoint = null != pending ? pending : new LinkedHashSet<String>();
+            firstPendingMessageIds.set(null == pending);
+            for (String messageId : messageIds) {
+                messageIdsForEndpoint.add(messageId);
+                if (messageIdsForEndpoint.size() >= maxMessageIds) {
+                    completeConfirmations.add(List.copyOf(messageIdsForEndpoint));
+                    messageIdsForEndpoint.clear();
+                }
+            }
+            return messageIdsForEndpoint.isEmpty() ? null : messageIdsForEndpoint;
+        });
+        completeConfirmations.forEach(confirmation -> send(agrirouterEndpointId, confirmation));
+        if (firstPendingMessageIds.get()) {
+            scheduleFlush(agrirouterEndpointId);
+        }
+    }
+
+    private void scheduleFlush(String agrirouterEndpointId) {
+        if (shutdown.get()) {
+            flush(agrirouterEndpointId);
+            return;
+        }
+        try {
+            scheduler.schedule(() -> flush(agrirouterEndpointId), windowInMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            flush(agrirouterEndpointId);
+        }
+    }
+
+    private void send(String agrirouterEndpointId, List<String> messageIds) {
+        log.debug("Confirming {} messages for the endpoint '{}'.", messageIds.size(), agrirouterEndpointId);
+        log.trace("Message IDs >>> {}", messageIds);
+        try {
+            final var endpoint = endpointService.findByAgrirouterEndpointId(agrirouterEndpointId);
+            sendMessageIntegrationService.confirm(endpoint, messageIds);
+            businessOperationLogService.log(new EndpointLogInformation(endpoint.getExternalEndpointId(), endpoint.getAgrirouterEndpointId()), "Confirm content message.");
+        } catch (BusinessException e) {
+            log.error(e.getErrorMessage().asLogMessage());
+        } catch (Exception e) {
+            log.error("Could not confirm {} messages for the endpoint '{}', they will be delivered again.", messageIds.size(), agrirouterEndpointId, e);
+        }
+    }
+
+}
@@ -5,9 +5,11 @@ import de.agrirouter.middleware.api.errorhandling.BusinessException;
 import de.agrirouter.middleware.api.errorhandling.error.ErrorMessageFactory;
 import de.agrirouter.middleware.api.logging.BusinessOperationLogService;
 import de.agrirouter.middleware.api.logging.EndpointLogInformation;
+import de.agrirouter.middleware.api.logging.aop.Traced;
 import de.agrirouter.middleware.business.cache.messaging.MessageCache;
-import de.agrirouter.middleware.business.events.ResendMessageCacheEntryEvent;
+import de.agrirouter.middleware.business.events.ResendMessageCacheEntriesEvent;
 import de.agrirouter.middleware.business.parameters.PublishNonTelemetryDataParameters;
+import de.agrirouter.middleware.domain.Endpoint;
 import de.agrirouter.middleware.integration.SendMessageIntegrationService;
 import de.agrirouter.middleware.integration.parameters.MessagingIntegrationParameters;
 import lombok.RequiredArgsConstructor;
@@ -26,6 +28,7 @@ import static de.agrirouter.middleware.api.logging.BusinessOperationLogService.N
  * Service to handle business operations round about publishing non telemetry data.
  */
 @Slf4j
+@Traced
 @Service
 @RequiredArgsConstructor
 public class PublishNonTelemetryDataService {
@@ -40,7 +43,6 @@ public class PublishNonTelemetryDataService {
      *
      * @param publishNonTelemetryDataParameters -
      */
-    @EventListener(ResendMessageCacheEntryEvent.class)
     public void publish(PublishNonTelemetryDataParameters publishNonTelemetryDataParameters) {
         final var messagingIntegrationParameters = new MessagingIntegrationParameters(publishNonTelemetryDataParameters.getExternalEndpointId(),
                 publishNonTelemetryDataParameters.getContentMessageType(),
@@ -65,6 +67,40 @@ public class PublishNonTelemetryDataService {
         businessOperationLogService.log(new EndpointLogInformation(publishNonTelemetryDataParameters.getExternalEndpointId(), NA), "Non telemetry data not published. Message saved to cache.");
     }
 
+    /**
+     * Resend the messages of an endpoint from the cache. The health of the endpoint is checked once for all of its
+     * messages, the messages are placed in the cache again if there is still no connection.
+     *
+     * @param resendMessageCacheEntriesEvent -
+     */
+    @EventListener
+    public void resend(ResendMessageCacheEntriesEvent resendMessageCacheEntriesEvent) {
+        final var externalEndpointId = resendMessageCacheEntriesEvent.getExternalEndpointId();
+        final var messagingIntegrationParameters = resendMessageCacheEntriesEvent.getMessagingIntegrationParameters();
+        var healthStatus = endpointService.determineHealthStatus(externalEndpointId);
+        if (healthStatus.healthStatus().equals(HttpStatus.OK)) {
+            var optionalEndpoint = endpointService.findByExternalEndpointId(externalEndpointId);
+            if (optionalEndpoint.isPresent()) {
+                log.debug("Resending {} cached messages for endpoint {}.", messagingIntegrationParameters.size(), externalEndpointId);
+                messagingIntegrationParameters.forEach(parameters -> resend(optionalEndpoint.get(), parameters));
+                return;
+            }
+        }
+        log.warn("Could not resend cached data. No connection to agrirouter©.");
+        log.info("Endpoint ID: {}", externalEndpointId);
+        messagingIntegrationParameters.forEach(parameters -> messageCache.put(externalEndpointId, parameters));
+    }
+
+    private void resend(Endpoint endpoint, MessagingIntegrationParameters messagingIntegrationParameters) {
+        try {
+            sendMessageIntegrationService.publish(endpoint, messagingIntegrationParameters);
+            businessOperationLogService.log(new EndpointLogInformation(endpoint.getExternalEndpointId(), NA), "Cached non telemetry data published");
+        } catch (RuntimeException e) {
+            log.error("Could not resend cached data for endpoint {}, placing the message back into the cache.", endpoint.getExternalEndpointId(), e);
+            messageCache.put(endpoint.getExternalEndpointId(), messagingIntegrationParameters);
+        }
+    }
+
     private void checkAndUpdateRecipients(PublishNonTelemetryDataParameters publishNonTelemetryDataParameters) {
         if (null != publishNonTelemetryDataParameters.getRecipients() && !publishNonTelemetryDataParameters.getRecipients().isEmpty()) {
             final var optionalEndpoint = endpointService.findByExternalEndpointId(publishNonTelemetryDataParameters.getExternalEndpointId());
@@ -1,7 +1,10 @@
 package de.agrirouter.middleware.business;
 
+import de.agrirouter.middleware.api.logging.aop.Traced;
+import de.agrirouter.middleware.business.cache.endpoints.AgrirouterEndpointIdCache;
 import de.agrirouter.middleware.business.cache.endpoints.InternalEndpointCache;
 import de.agrirouter.middleware.domain.Endpoint;
+import de.agrirouter.middleware.integration.cache.OnboardingResponseCache;
 import de.agrirouter.middleware.persistence.jpa.ContentMessageRepository;
 import de.agrirouter.middleware.persistence.jpa.EndpointRepository;
 import de.agrirouter.middleware.persistence.jpa.UnprocessedMessageRepository;
@@ -17,12 +20,15 @@ import org.springframework.transaction.annotation.Transactional;
  * Internal service to remove an endpoint incl. the data from the database.
  */
 @Slf4j
+@Traced
 @Service
 @RequiredArgsConstructor
 public class RemoveEndpointDataService {
 
     private final EndpointRepository endpointRepository;
     private final InternalEndpointCache internalEndpointCache;
+    private final AgrirouterEndpointIdCache agrirouterEndpointIdCache;
+    private final OnboardingResponseCache onboardingResponseCache;
     private final UnprocessedMessageRepository unprocessedMessageRepository;
     private final ContentMessageRepository contentMessageRepository;
     private final DeviceDescriptionRepository deviceDescriptionRepository;
@@ -37,6 +43,8 @@ public class RemoveEndpointDataService {
     public void removeEndpointData(Endpoint endpoint) {
         log.debug("Remove endpoint from internal cache to avoid problems.");
         internalEndpointCache.remove(endpoint.getExternalEndpointId());
+        agrirouterEndpointIdCache.remove(endpoint.getAgrirouterEndpointId());
+        onboardingResponseCache.remove(endpoint.getAgrirouterEndpointId());
     }
 
     /**
@@ -51,6 +59,17 @@ public class RemoveEndpointDataService {
 
         log.debug("Remove endpoint from internal cache to avoid problems.");
         internalEndpointCache.remove(endpoint.getExternalEndpointId());
+        agrirouterEndpointIdCache.remove(endpoint.getAgrirouterEndpointId());
+        onboardingResponseCache.remove(endpoint.getAgrirouterEndpointId());
+
+        log.debug("Remove the virtual endpoints removed by the cascade from the internal cache as well.");
+        if (null != endpoint.getConnectedVirtualEndpoints()) {
+            endpoint.getConnectedVirtualEndpoints().forEach(virtualEndpoint -> {
+                internalEndpointCache.remove(virtualEndpoint.getExternalEndpointId());
+                agrirouterEndpointIdCache.remove(virtualEndpoint.getAgrirouterEndpointId());
+                onboardingResponseCache.remove(virtualEndpoint.getAgrirouterEndpointId());
+            });
+        }
     }
 
     /**
@@ -65,7 +84,9 @@ public class RemoveEndpointDataService {
         unprocessedMessageRepository.deleteAllByAgrirouterEndpointId(sensorAlternateId);
 
         log.debug("Remove the content messages for the endpoint.");
+        final var storedPayloads = contentMessageRepository.findStoredPayloads(sensorAlternateId);
         contentMessageRepository.deleteAllByAgrirouterEndpointId(sensorAlternateId);
+        contentMessageRepository.deleteUnreferencedPayloads(storedPayloads);
 
         log.debug("Remove device descriptions.");
         deviceDescriptionRepository.deleteAllByAgrirouterEndpointId(sensorAlternateId);
@@ -3,6 +3,8 @@ package de.agrirouter.middleware.business;
 import com.dke.data.agrirouter.api.enums.TechnicalMessageType;
 import de.agrirouter.middleware.api.errorhandling.BusinessException;
 import de.agrirouter.middleware.api.errorhandling.error.ErrorMessageFactory;
+import de.agrirouter.middleware.api.logging.aop.Traced;
+import de.agrirouter.middleware.business.dto.FileDownload;
 import de.agrirouter.middleware.business.dto.MessageStatistics;
 import de.agrirouter.middleware.business.parameters.SearchNonTelemetryDataParameters;
 import de.agrirouter.middleware.domain.ContentMessageMetadata;
@@ -10,25 +12,24 @@ import de.agrirouter.middleware.domain.enums.TemporaryContentMessageType;
 import de.agrirouter.middleware.persistence.jpa.ContentMessageRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.*;
 
 /**
  * Service to handle business operations round about searching non telemetry data.
  */
 @Slf4j
+@Traced
 @Service
 @RequiredArgsConstructor
 public class SearchNonTelemetryDataService {
 
     private final ContentMessageRepository contentMessageRepository;
     private final EndpointService endpointService;
+    private final ContentMessageEncodingService contentMessageEncodingService;
 
     /**
      * Search for non telemetry data.
@@ -103,17 +104,14 @@ public class SearchNonTelemetryDataService {
     }
 
     /**
-     * Download the file as byte array. The base64 encoded message content will be decoded.
+     * Download the file. The message content will be decoded while writing the file, the chunks are
+     * read one after another, so the whole file is never kept in memory.
      *
      * @param externalEndpointId -
      * @param messageId          -
      * @return -
      */
-    public byte[] downloadAsByteArray(String externalEndpointId, String messageId) {
-        return download(externalEndpointId, messageId);
-    }
-
-    private byte[] download(String externalEndpointId, String messageId) {
+    public FileDownload download(String externalEndpointId, String messageId) {
         final var optionalEndpoint = endpointService.findByExternalEndpointId(externalEndpointId);
         if (optionalEndpoint.isPresent()) {
             var endpoint = optionalEndpoint.get();
@@ -121,41 +119,41 @@ public class SearchNonTelemetryDataService {
             if (optionalContentMessage.isPresent()) {
                 final var contentMessage = optionalContentMessage.get();
                 if (contentMessage.getContentMessageMetadata().getTotalChunks() > 1) {
-                    log.debug("Looks like we have multiple chunks for the content message. Assembling the message content first. There are {} chunks in total.", contentMessage.getContentMessageMetadata().getTotalChunks());
-                    return assembleChunkedMessageContent(endpoint.getAgrirouterEndpointId(), contentMessage.getContentMessageMetadata().getChunkContextId());
+                    log.debug("Looks like we have multiple chunks for the content message. Streaming the chunks one after another. There are {} chunks in total.", contentMessage.getContentMessageMetadata().getTotalChunks());
+                    return downloadChunkedMessageContent(endpoint.getAgrirouterEndpointId(), contentMessage.getContentMessageMetadata());
                 } else {
                     log.debug("This is a single message, therefore returning the content 'as it is'.");
-                    return Base64.decodeBase64(contentMessage.getMessageContent());
+                    final var messageContent = contentMessageEncodingService.getDecodedMessageContent(contentMessage);
+                    return new FileDownload(messageContent.length, outputStream -> outputStream.write(messageContent));
                 }
             } else {
                 throw new BusinessException(ErrorMessageFactory.couldNotFindContentMessage());
             }
         } else {
             log.warn("The endpoint with the external ID '{}' was not found, therefore we cannot search for messages.", externalEndpointId);
-            return new byte[0];
+            return new FileDownload(0, outputStream -> {
+            });
         }
     }
 
-    private byte[] assembleChunkedMessageContent(String agrirouterEndpointId, String chunkContextId) {
-        if (StringUtils.isBlank(chunkContextId)) {
+    private FileDownload downloadChunkedMessageContent(String agrirouterEndpointId, ContentMessageMetadata contentMessageMetadata) {
+        if (StringUtils.isBlank(contentMessageMetadata.getChunkContextId())) {
             throw new BusinessException(ErrorMessageFactory.couldNotAssembleChunks());
         } else {
-            final var contentMessages = contentMessageRepository.findByAgrirouterEndpointIdAndContentMessageMetadataChunkContextId(agrirouterEndpointId, chunkContextId);
-            try (var stream = new ByteArrayOutputStream()) {
-                contentMessages.stream()
-                        .sorted(Comparator.comparingLong(o -> o.getContentMessageMetadata().getCurrentChunk()))
-                        .map(cm -> Base64.decodeBase64(cm.getMessageContent()))
-                        .forEach(mc -> {
-                            try {
-                                stream.write(mc);
-                            } catch (IOException e) {
-                                throw new BusinessException(ErrorMessageFactory.couldNotAssembleChunks());
-                            }
-                        });
-                return stream.toByteArray();
-            } catch (Exception e) {
-                throw new BusinessException(ErrorMessageFactory.couldNotAssembleChunks());
-            }
+            final var chunkIds = contentMessageRepository.findChunkIds(agrirouterEndpointId, contentMessageMetadata.getChunkContextId());
+            final var contentLength = chunkIds.size() == contentMessageMetadata.getTotalChunks() && contentMessageMetadata.getTotalChunkSize() > 0
+                    ? contentMessageMetadata.getTotalChunkSize() : FileDownload.UNKNOWN_CONTENT_LENGTH;
+            return new FileDownload(contentLength, outputStream -> {
+                for (var chunkId : chunkIds) {
+                    // Each chunk is encoded on its own, therefore the chunks have to be decoded one by one.
+                    contentMessageRepository.readMessageContent(chunkId, (messageContent, contentEncoding) -> {
+                        try (var decodedMessageContent = contentMessageEncodingService.decode(messageContent, contentEncoding)) {
+                            decodedMessageContent.transferTo(outputStream);
+                        }
+                    });
+                }
+                outputStream.flush();
+            });
         }
     }
 
@@ -209,7 +207,9 @@ public class SearchNonTelemetryDataService {
                     deleteChunkedMessageContent(endpoint.getAgrirouterEndpointId(), contentMessage.getContentMessageMetadata().getChunkContextId());
                 } else {
                     log.debug("This is a single message, therefore nothing else to do.");
+                    final var storedPayloads = contentMessageRepository.findStoredPayloadsForMessage(endpoint.getAgrirouterEndpointId(), messageId);
                     var i = contentMessageRepository.deleteByAgrirouterEndpointIdAndContentMessageMetadataMessageId(endpoint.getAgrirouterEndpointId(), messageId);
+                    contentMessageRepository.deleteUnreferencedPayloads(storedPayloads);
                     log.debug("Deleted {} content message, no chunks were harmed.", i);
                 }
             } else {
@@ -221,7 +221,9 @@ public class SearchNonTelemetryDataService {
     }
 
     private void deleteChunkedMessageContent(String agrirouterEndpointId, String chunkContextId) {
+        final var storedPayloads = contentMessageRepository.findStoredPayloadsForChunkContext(agrirouterEndpointId, chunkContextId);
         var nrOfContentMessages = contentMessageRepository.deleteByAgrirouterEndpointIdAndContentMessageMetadataChunkContextId(agrirouterEndpointId, chunkContextId);
+        contentMessageRepository.deleteUnreferencedPayloads(storedPayloads);
         log.debug("Deleted {} content message chunks.", nrOfContentMessages);
     }
 }
@@ -11,6 +11,7 @@ import de.agrirouter.middleware.api.errorhandling.error.ErrorMessageFactory;
 import de.agrirouter.middleware.api.logging.ApplicationLogInformation;
 import de.agrirouter.middleware.api.logging.BusinessOperationLogService;
 import de.agrirouter.middleware.api.logging.EndpointLogInformation;
+import de.agrirouter.middleware.api.logging.aop.Traced;
 import de.agrirouter.middleware.business.global.OnboardStateContainer;
 import de.agrirouter.middleware.business.parameters.OnboardProcessParameters;
 import de.agrirouter.middleware.domain.Application;
@@ -31,6 +32,7 @@ import java.util.concurrent.Executors;
  * The service for the onboard process.
  */
 @Slf4j
+@Traced
 @Service
 @RequiredArgsConstructor
 public class SecuredOnboardProcessService {
@@ -2,11 +2,11 @@ package de.agrirouter.middleware.business;
 
 import com.google.protobuf.ByteString;
 import com.google.protobuf.InvalidProtocolBufferException;
-import com.google.protobuf.util.JsonFormat;
 import de.agrirouter.middleware.api.errorhandling.BusinessException;
 import de.agrirouter.middleware.api.errorhandling.error.ErrorMessageFactory;
 import de.agrirouter.middleware.api.logging.BusinessOperationLogService;
 import de.agrirouter.middleware.api.logging.EndpointLogInformation;
+import de.agrirouter.middleware.business.dto.timelog.TimeLogPage;
 import de.agrirouter.middleware.business.dto.timelog.periods.TimeLogPeriod;
 import de.agrirouter.middleware.business.dto.timelog.periods.TimeLogPeriods;
 import de.agrirouter.middleware.business.dto.timelog.periods.TimeLogPeriodsForDevice;
@@ -20,6 +20,7 @@ import de.agrirouter.middleware.domain.Endpoint;
 import de.agrirouter.middleware.domain.documents.DeviceDescription;
 import de.agrirouter.middleware.domain.documents.TimeLog;
 import de.agrirouter.middleware.domain.enums.TemporaryContentMessageType;
+import de.agrirouter.middleware.efdi.ProtobufDocumentConverter;
 import de.agrirouter.middleware.integration.SendMessageIntegrationService;
 import de.agrirouter.middleware.integration.parameters.MessagingIntegrationParameters;
 import de.agrirouter.middleware.persistence.mongo.TimeLogRepository;
@@ -31,8 +32,10 @@ import org.apache.commons.lang3.StringUtils;
 import org.bson.Document;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static de.agrirouter.middleware.api.logging.BusinessOperationLogService.NA;
 
@@ -45,6 +48,7 @@ import static de.agrirouter.middleware.api.logging.BusinessOperationLogService.N
 public class TimeLogService {
 
     public static final int TIME_LOG_PERIOD_OFFSET = 300_000;
+    private static final String CURSOR_SEPARATOR = ":";
 
     private final TimeLogRepository timeLogRepository;
     private final EndpointService endpointService;
@@ -116,6 +120,7 @@ public class TimeLogService {
         timeLog.setTimestamp(contentMessage.getContentMessageMetadata().getTimestamp());
         timeLog.setExternalEndpointId(endpoint.getExternalEndpointId());
         timeLog.setTeamSetContextId(contentMessage.getContentMessageMetadata().getTeamSetContextId());
+        timeLog.setNormalizedTeamSetContextId(TimeLog.normalizeTeamSetContextId(contentMessage.getContentMessageMetadata().getTeamSetContextId()));
         optionalDocument.ifPresent(timeLog::setDocument);
         return timeLog;
     }
@@ -144,11 +149,8 @@ public class TimeLogService {
     @SuppressWarnings("unused")
     public Optional<Document> convert(GrpcEfdi.TimeLog timeLog) {
         try {
-            String json = JsonFormat.printer().print(timeLog);
-            log.debug("The original protobuf has been transformed to JSON.");
-            log.trace("{}", json);
-            Document document = Document.parse(json);
-            log.debug("Converting the JSON to a BSON document.");
+            Document document = ProtobufDocumentConverter.toDocument(timeLog);
+            log.debug("The original protobuf has been converted to a BSON document.");
             log.trace("{}", document);
             return Optional.ofNullable(document);
         } catch (InvalidProtocolBufferException e) {
@@ -164,36 +166,107 @@ public class TimeLogService {
      * @return The list of time logs.
      */
     public List<TimeLog> getMessagesForTimeLogPeriod(MessagesForTimeLogPeriodParameters messagesForTimeLogPeriodParameters) {
-        List<TimeLog> timeLogs;
-        if (messagesForTimeLogPeriodParameters.shouldFilterByTime()) {
-            if (StringUtils.isNotBlank(messagesForTimeLogPeriodParameters.getTeamSetContextId())) {
-                timeLogs = timeLogRepository.findAllByTimestampBetweenAndTeamSetContextIdEqualsIgnoreCase(messagesForTimeLogPeriodParameters.getSendFromOrDefault(), messagesForTimeLogPeriodParameters.getSendToOrDefault(), messagesForTimeLogPeriodParameters.getTeamSetContextId());
+        ensureFilterByTime(messagesForTimeLogPeriodParameters);
+        final var sendFrom = messagesForTimeLogPeriodParameters.getSendFromOrDefault();
+        final var sendTo = messagesForTimeLogPeriodParameters.getSendToOrDefault();
+        final var teamSetContextId = messagesForTimeLogPeriodParameters.getTeamSetContextId();
+        final var ddis = messagesForTimeLogPeriodParameters.getDdisToList();
+        if (null != ddis && !ddis.isEmpty()) {
+            log.debug("Filtering the data log values for the DDIs {} within the database.", ddis);
+            if (StringUtils.isNotBlank(teamSetContextId)) {
+                return timeLogRepository.findAllByTimestampBetweenAndNormalizedTeamSetContextIdWithDdis(sendFrom, sendTo, ddis, TimeLog.normalizeTeamSetContextId(teamSetContextId));
             } else {
-                timeLogs = timeLogRepository.findAllByTimestampBetween(messagesForTimeLogPeriodParameters.getSendFromOrDefault(), messagesForTimeLogPeriodParameters.getSendToOrDefault());
+                return timeLogRepository.findAllByTimestampBetweenWithDdis(sendFrom, sendTo, ddis);
             }
-            if (null != messagesForTimeLogPeriodParameters.getDdisToList() && !messagesForTimeLogPeriodParameters.getDdisToList().isEmpty()) {
-                timeLogs.forEach(timeLog -> {
-                    final var document = timeLog.getDocument();
-                    final var timeEntries = document.getList("time", Document.class);
-                    timeEntries.forEach(timeEntry -> {
-                        final var dataLogValues = timeEntry.getList("dataLogValue", Document.class);
-                        if (null != dataLogValues && !dataLogValues.isEmpty()) {
-                            final var filteredDataLogValues = dataLogValues.stream().filter(d -> messagesForTimeLogPeriodParameters.getDdisToList().contains(d.getInteger("processDataDdi"))).toList();
-                            timeEntry.put("dataLogValue", filteredDataLogValues);
-                        }
-                    });
-                    document.put("time", timeEntries);
-                });
-            }
-            return timeLogs;
+        }
+        if (StringUtils.isNotBlank(teamSetContextId)) {
+            return timeLogRepository.findAllByTimestampBetweenAndNormalizedTeamSetContextId(sendFrom, sendTo, TimeLog.normalizeTeamSetContextId(teamSetContextId));
         } else {
+            return timeLogRepository.findAllByTimestampBetween(sendFrom, sendTo);
+        }
+    }
+
+    /**
+     * Fetch a page of messages for a time log period. The time logs are ordered by timestamp and ID, the cursor points
+     * to the last time log of the previous page.
+     *
+     * @param messagesForTimeLogPeriodParameters -
+     * @param cursor                             The cursor returned with the previous page, null for the first page.
+     * @param pageSize                           The maximum number of time logs.
+     * @return The page of time logs.
+     */
+    public TimeLogPage getPageOfMessagesForTimeLogPeriod(MessagesForTimeLogPeriodParameters messagesForTimeLogPeriodParameters, String cursor, int pageSize) {
+        ensureFilterByTime(messagesForTimeLogPeriodParameters);
+        final var position = StringUtils.isNotBlank(cursor) ? decodeCursor(cursor) : null;
+        final var timeLogs = timeLogRepository.findPage(messagesForTimeLogPeriodParameters.getSendFromOrDefault(),
+                messagesForTimeLogPeriodParameters.getSendToOrDefault(),
+                normalizedTeamSetContextIdOrNull(messagesForTimeLogPeriodParameters),
+                messagesForTimeLogPeriodParameters.getDdisToList(),
+                null != position ? position.timestamp() : null,
+                null != position ? position.id() : null,
+                pageSize);
+        if (timeLogs.size() < pageSize) {
+            return new TimeLogPage(timeLogs, null);
+        }
+        final var lastTimeLog = timeLogs.getLast();
+        return new TimeLogPage(timeLogs, encodeCursor(lastTimeLog));
+    }
+
+    /**
+     * Stream all messages for a time log period using a database cursor. The stream has to be closed after usage.
+     *
+     * @param messagesForTimeLogPeriodParameters -
+     * @return The time logs, ordered by timestamp and ID.
+     */
+    public Stream<TimeLog> streamMessagesForTimeLogPeriod(MessagesForTimeLogPeriodParameters messagesForTimeLogPeriodParameters) {
+        ensureFilterByTime(messagesForTimeLogPeriodParameters);
+        return timeLogRepository.stream(messagesForTimeLogPeriodParameters.getSendFromOrDefault(),
+                messagesForTimeLogPeriodParameters.getSendToOrDefault(),
+                normalizedTeamSetContextIdOrNull(messagesForTimeLogPeriodParameters),
+                messagesForTimeLogPeriodParameters.getDdisToList());
+    }
+
+    private static void ensureFilterByTime(MessagesForTimeLogPeriodParameters messagesForTimeLogPeriodParameters) {
+        if (!messagesForTimeLogPeriodParameters.shouldFilterByTime()) {
             log.warn("This would have been a search over all time logs, this causes an exception, since there has to be either a filter for period or a filter for time.");
             throw new BusinessException(ErrorMessageFactory.missingFilterCriteriaForTimeLogSearch());
         }
     }
 
+    private static String normalizedTeamSetContextIdOrNull(MessagesForTimeLogPeriodParameters messagesForTimeLogPeriodParameters) {
+        if (StringUtils.isNotBlank(messagesForTimeLogPeriodParameters.getTeamSetContextId())) {
+            return TimeLog.normalizeTeamSetContextId(messagesForTimeLogPeriodParameters.getTeamSetContextId());
+        }
+        return null;
+    }
+
+    private static String encodeCursor(TimeLog timeLog) {
+        return Base64.encodeBase64URLSafeString((timeLog.getTimestamp() + CURSOR_SEPARATOR + timeLog.getId()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static CursorPosition decodeCursor(String cursor) {
+        try {
+            final var position = new String(Base64.decodeBase64(cursor), StandardCharsets.UTF_8).split(CURSOR_SEPARATOR, 2);
+            if (position.length == 2 && StringUtils.isNotBlank(position[1])) {
+                return new CursorPosition(Long.parseLong(position[0]), position[1]);
+            }
+        } catch (IllegalArgumentException e) {
+            log.debug("Could not decode the cursor '{}'.", cursor, e);
+        }
+        throw new BusinessException(ErrorMessageFactory.invalidParameterForAction("cursor"));
+    }
+
+    /**
+     * The position of the last time log of a page.
+     *
+     * @param timestamp The timestamp of the time log.
+     * @param id        The ID of the time log.
+     */
+    private record CursorPosition(long timestamp, String id) {
+    }
+
     /**
-     * Get the time periods with machine data.
+     * Get the time periods with machine data. The periods of all team sets are calculated within a single aggregation.
      *
      * @param searchTimeLogPeriodsParameters -
      */
@@ -202,33 +275,25 @@ public class TimeLogService {
         searchMachinesParameters.setExternalEndpointId(searchTimeLogPeriodsParameters.getExternalEndpointId());
         searchMachinesParameters.setInternalDeviceIds(searchTimeLogPeriodsParameters.getInternalDeviceIds());
         final var devices = deviceService.search(searchMachinesParameters);
+        final var allTeamSetContextIds = devices.stream().flatMap(device -> device.getDeviceDescriptions().stream()).map(DeviceDescription::getTeamSetContextId).filter(StringUtils::isNotBlank).collect(Collectors.toSet());
+        final var timeLogPeriodsForTeamSetContextIds = getTimeLogPeriodsForTeamSetContextIds(allTeamSetContextIds, searchTimeLogPeriodsParameters);
         final var timeLogPeriods = new ArrayList<TimeLogPeriodsForDevice>();
         devices.forEach(device -> {
-            final var teamSetContextIds = device.getDeviceDescriptions().stream().map(DeviceDescription::getTeamSetContextId).collect(Collectors.toCollection(HashSet::new));
+            final var teamSetContextIds = device.getDeviceDescriptions().stream().map(DeviceDescription::getTeamSetContextId).collect(Collectors.toCollection(LinkedHashSet::new));
             if (!teamSetContextIds.isEmpty()) {
                 log.debug("Currently there are {} team sets available. Fetching the data for the team sets.", teamSetContextIds.size());
                 log.trace(String.join(",", teamSetContextIds));
-                final var segmentedTimeLogsForTeamSetContextId = getSegmentedTimeLogsForTeamSetContextId(teamSetContextIds, searchTimeLogPeriodsParameters);
                 final var timeLogPeriodsForTeamSets = new ArrayList<TimeLogPeriodsForTeamSet>();
-                segmentedTimeLogsForTeamSetContextId.forEach((teamSetContextId, timeLogs) -> {
-                    final var segmentedTimeLogsForTimePeriod = getSegmentedTimeLogsForTimePeriod(timeLogs);
-                    final var timeLogPeriodsForTeamSet = new TimeLogPeriodsForTeamSet(teamSetContextId, segmentedTimeLogsForTimePeriod);
-                    if (searchTimeLogPeriodsParameters.isFilterEmptyEntries()) {
-                        if (timeLogs.isEmpty()) {
-                            log.debug("Since the filtering of empty entries is enabled and the time logs for the team set '{}' are empty, the entry is not added.", teamSetContextId);
-                        } else {
-                            timeLogPeriodsForTeamSets.add(timeLogPeriodsForTeamSet);
-                        }
+                teamSetContextIds.forEach(teamSetContextId -> {
+                    final var timeLogPeriodsForTeamSet = timeLogPeriodsForTeamSetContextIds.getOrDefault(TimeLog.normalizeTeamSetContextId(teamSetContextId), Collections.emptyList());
+                    if (searchTimeLogPeriodsParameters.isFilterEmptyEntries() && timeLogPeriodsForTeamSet.isEmpty()) {
+                        log.debug("Since the filtering of empty entries is enabled and the time logs for the team set '{}' are empty, the entry is not added.", teamSetContextId);
                     } else {
-                        timeLogPeriodsForTeamSets.add(timeLogPeriodsForTeamSet);
+                        timeLogPeriodsForTeamSets.add(new TimeLogPeriodsForTeamSet(teamSetContextId, new TimeLogPeriods(timeLogPeriodsForTeamSet)));
                     }
                 });
-                if (searchTimeLogPeriodsParameters.isFilterEmptyEntries()) {
-                    if (timeLogPeriodsForTeamSets.isEmpty()) {
-                        log.debug("Since the filtering of empty entries is enabled and the time logs for the device '{}' are empty, the device is not added.", device.getInternalDeviceId());
-                    } else {
-                        timeLogPeriods.add(new TimeLogPeriodsForDevice(device, timeLogPeriodsForTeamSets));
-                    }
+                if (searchTimeLogPeriodsParameters.isFilterEmptyEntries() && timeLogPeriodsForTeamSets.isEmpty()) {
+                    log.debug("Since the filtering of empty entries is enabled and the time logs for the device '{}' are empty, the device is not added.", device.getInternalDeviceId());
                 } else {
                     timeLogPeriods.add(new TimeLogPeriodsForDevice(device, timeLogPeriodsForTeamSets));
                 }
@@ -237,61 +302,16 @@ public class TimeLogService {
         return timeLogPeriods;
     }
 
-    private HashMap<String, List<TimeLog>> getSegmentedTimeLogsForTeamSetContextId(HashSet<String> teamSetContextIds, SearchTimeLogPeriodsParameters searchTimeLogPeriodsParameters) {
-        final var segmentedTimeLogs = new HashMap<String, List<TimeLog>>();
-        teamSetContextIds.forEach(teamSetContextId -> {
-            final List<TimeLog> timeLogs;
-            if (searchTimeLogPeriodsParameters.shouldFilterByTime()) {
-                timeLogs = timeLogRepository.findAllByTimestampBetweenAndTeamSetContextIdEqualsIgnoreCase(searchTimeLogPeriodsParameters.getSendFromOrDefault(), searchTimeLogPeriodsParameters.getSendToOrDefault(), teamSetContextId);
-            } else {
-                timeLogs = timeLogRepository.findAllByTeamSetContextIdEqualsIgnoreCase(teamSetContextId);
-            }
-            segmentedTimeLogs.put(teamSetContextId, timeLogs);
-        });
-        if (searchTimeLogPeriodsParameters.isFilterEmptyEntries()) {
-            final var teamSetContextIdsToBeRemoved = new ArrayList<String>();
-            segmentedTimeLogs.forEach((teamSetContextId, timeLogs) -> {
-                if (timeLogs.isEmpty()) {
-                    log.debug("Since the filtering of empty entries is enabled and the time logs for the team set '{}' are empty, the entry is removed.", teamSetContextId);
-                    teamSetContextIdsToBeRemoved.add(teamSetContextId);
-                }
-            });
-            teamSetContextIdsToBeRemoved.forEach(segmentedTimeLogs::remove);
-        }
-        return segmentedTimeLogs;
-    }
-
-    private TimeLogPeriods getSegmentedTimeLogsForTimePeriod(List<TimeLog> timeLogs) {
-        if (null != timeLogs && !timeLogs.isEmpty()) {
-            var lastTimeStamp = -1L;
-            var segmentedTimeLogs = new ArrayList<List<TimeLog>>();
-            var currentPeriod = new ArrayList<TimeLog>();
-            for (TimeLog timeLog : timeLogs) {
-                final var currentTimeStamp = timeLog.getTimestamp();
-                if (lastTimeStamp != -1 && currentTimeStamp > (lastTimeStamp + TIME_LOG_PERIOD_OFFSET)) {
-                    log.debug("This is the beginning of a new period, creating a new segment.");
-                    currentPeriod.sort(Comparator.comparingLong(TimeLog::getTimestamp));
-                    segmentedTimeLogs.add(currentPeriod);
-                    currentPeriod = new ArrayList<>();
-                }
-                currentPeriod.add(timeLog);
-                lastTimeStamp = currentTimeStamp;
-            }
-            //noinspection ConstantConditions
-            if (!currentPeriod.isEmpty()) {
-                log.debug("There are some time logs left, creating a new segment.");
-                segmentedTimeLogs.add(currentPeriod);
-            }
-            log.debug("We segmented the whole list of time logs. Now reducing them to a set of periods.");
-            final var timeLogPeriods = new ArrayList<TimeLogPeriod>();
-            segmentedTimeLogs.forEach(period -> {
-                period.sort(Comparator.comparingLong(TimeLog::getTimestamp));
-                timeLogPeriods.add(new TimeLogPeriod(period.get(0).getTimestamp(), period.get(period.size() - 1).getTimestamp(), period.size(), period.stream().map(TimeLog::getMessageId).collect(Collectors.toSet())));
-            });
-            return new TimeLogPeriods(timeLogPeriods);
-        } else {
-            return new TimeLogPeriods(Collections.emptyList());
+    private Map<String, List<TimeLogPeriod>> getTimeLogPeriodsForTeamSetContextIds(Set<String> teamSetContextIds, SearchTimeLogPeriodsParameters searchTimeLogPeriodsParameters) {
+        if (teamSetContextIds.isEmpty()) {
+            return Collections.emptyMap();
         }
+        final var normalizedTeamSetContextIds = teamSetContextIds.stream().map(TimeLog::normalizeTeamSetContextId).collect(Collectors.toSet());
+        final var timeLogPeriods = new HashMap<String, List<TimeLogPeriod>>();
+        timeLogRepository.findTimeLogPeriods(searchTimeLogPeriodsParameters.getSendFromOrDefault(), searchTimeLogPeriodsParameters.getSendToOrDefault(), normalizedTeamSetContextIds, TIME_LOG_PERIOD_OFFSET)
+                .forEach(timeLogPeriod -> timeLogPeriods.computeIfAbsent(timeLogPeriod.getTeamSetContextId(), teamSetContextId -> new ArrayList<>())
+                        .add(new TimeLogPeriod(timeLogPeriod.getBegin(), timeLogPeriod.getEnd(), timeLogPeriod.getNumberOfTimeLogs(), timeLogPeriod.getMessageIds())));
+        return timeLogPeriods;
     }
 
 }
@@ -1,5 +1,6 @@
 package de.agrirouter.middleware.business;
 
+import de.agrirouter.middleware.api.logging.aop.Traced;
 import de.agrirouter.middleware.business.parameters.VirtualOffboardProcessParameters;
 import de.agrirouter.middleware.domain.Endpoint;
 import de.agrirouter.middleware.integration.VirtualOffboardProcessIntegrationService;
@@ -15,6 +16,7 @@ import java.util.List;
  * The service for the onboard process.
  */
 @Slf4j
+@Traced
 @Service
 @RequiredArgsConstructor
 public class VirtualOffboardProcessService {
@@ -4,6 +4,7 @@ import de.agrirouter.middleware.api.errorhandling.BusinessException;
 import de.agrirouter.middleware.api.errorhandling.error.ErrorMessageFactory;
 import de.agrirouter.middleware.api.logging.BusinessOperationLogService;
 import de.agrirouter.middleware.api.logging.EndpointLogInformation;
+import de.agrirouter.middleware.api.logging.aop.Traced;
 import de.agrirouter.middleware.business.cache.cloud.CloudOnboardingFailureCache;
 import de.agrirouter.middleware.business.parameters.VirtualOnboardProcessParameters;
 import de.agrirouter.middleware.integration.VirtualOnboardProcessIntegrationService;
@@ -16,6 +17,7 @@ import org.springframework.stereotype.Service;
  * The service for the onboard process.
  */
 @Slf4j
+@Traced
 @Service
 @RequiredArgsConstructor
 public class VirtualOnboardProcessService {
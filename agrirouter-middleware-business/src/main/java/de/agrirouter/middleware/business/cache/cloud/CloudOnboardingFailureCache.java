@@ -1,9 +1,10 @@
 package de.agrirouter.middleware.business.cache.cloud;
 
+import de.agrirouter.middleware.integration.cache.BoundedCache;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.time.Instant;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,7 +14,12 @@ import java.util.Optional;
 @Component
 public class CloudOnboardingFailureCache {
 
-    private final HashMap<String, FailureEntry> cache = new HashMap<>();
+    private final BoundedCache<String, FailureEntry> cache;
+
+    public CloudOnboardingFailureCache(@Value("${app.cache.cloud-onboarding-failure-cache.maximum-size:10000}") long maximumSize,
+                                       @Value("${app.cache.cloud-onboarding-failure-cache.time-to-live-in-seconds:604800}") long timeToLiveInSeconds) {
+        cache = BoundedCache.create("cloud_onboarding_failure_cache", maximumSize, timeToLiveInSeconds);
+    }
 
     /**
      * Add a new entry to the cache.
@@ -31,14 +37,14 @@ public class CloudOnboardingFailureCache {
      * Get all entries for the external endpoint ID.
      */
     public List<FailureEntry> getAll(String externalEndpointId) {
-        return cache.values().stream().filter(failureEntry -> failureEntry.externalEndpointId.equals(externalEndpointId)).toList();
+        return cache.asMap().values().stream().filter(failureEntry -> failureEntry.externalEndpointId.equals(externalEndpointId)).toList();
     }
 
     /**
      * Get the entry for the virtual external endpoint ID.
      */
     public Optional<FailureEntry> get(String virtualExternalEndpointId) {
-        return Optional.ofNullable(cache.get(virtualExternalEndpointId));
+        return cache.get(virtualExternalEndpointId);
     }
 
     /**
@@ -0,0 +1,109 @@
+package de.agrirouter.middleware.business.cache.endpoints;
+
+import de.agrirouter.middleware.domain.Endpoint;
+import de.agrirouter.middleware.integration.cache.BoundedCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Cache for the endpoints, keyed by the agrirouter© endpoint ID. The number of entries is limited and the entries
+ * expire after a while, so changes that did not pass the endpoint service are picked up eventually. Hits, misses,
+ * evictions and the size are published as metrics.
+ * <p>
+ * The cached endpoints are detached entities. Within a transaction the cache is only written after the commit, and an
+ * endpoint read or written within a transaction that is rolled back is evicted, since the caller may have changed the
+ * cached instance.
+ */
+@Component
+public class AgrirouterEndpointIdCache {
+
+    private final BoundedCache<String, Endpoint> cache;
+
+    public AgrirouterEndpointIdCache(@Value("${app.cache.agrirouter-endpoint-id-cache.maximum-size:10000}") long maximumSize,
+                                     @Value("${app.cache.agrirouter-endpoint-id-cache.time-to-live-in-seconds:3600}") long timeToLiveInSeconds) {
+        this.cache = BoundedCache.create("agrirouter_endpoint_id_cache", maximumSize, timeToLiveInSeconds);
+    }
+
+    /**
+     * Get the endpoint from the cache, load it if it is not cached yet. Endpoints that could not be found are not
+     * cached.
+     *
+     * @param agrirouterEndpointId The agrirouter© endpoint ID.
+     * @param loader               Loads the endpoint, returns null if there is none.
+     * @return The endpoint.
+     */
+    public Optional<Endpoint> get(String agrirouterEndpointId, Function<String, Endpoint> loader) {
+        final var endpoint = cache.get(agrirouterEndpointId, loader);
+        endpoint.ifPresent(e -> removeOnRollback(agrirouterEndpointId));
+        return endpoint;
+    }
+
+    /**
+     * Put an endpoint into the cache.
+     *
+     * @param endpoint The endpoint.
+     */
+    public void put(Endpoint endpoint) {
+        final var agrirouterEndpointId = endpoint.getAgrirouterEndpointId();
+        if (null == agrirouterEndpointId) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (STATUS_COMMITTED == status) {
+                        cache.put(agrirouterEndpointId, endpoint);
+                    } else {
+                        cache.remove(agrirouterEndpointId);
+                    }
+                }
+            });
+        } else {
+            cache.put(agrirouterEndpointId, endpoint);
+        }
+    }
+
+    /**
+     * Remove endpoint from cache.
+     *
+     * @param agrirouterEndpointId The agrirouter© endpoint ID.
+     */
+    public void remove(String agrirouterEndpointId) {
+        if (null == agrirouterEndpointId) {
+            return;
+        }
+        cache.remove(agrirouterEndpointId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.remove(agrirouterEndpointId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Remove the endpoint again if the current transaction is rolled back, since the caller may have changed the
+     * cached instance within the transaction.
+     */
+    private void removeOnRollback(String agrirouterEndpointId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (STATUS_COMMITTED != status) {
+                        cache.remove(agrirouterEndpointId);
+                    }
+                }
+            });
+        }
+    }
+
+}
@@ -1,10 +1,10 @@
 package de.agrirouter.middleware.business.cache.endpoints;
 
 import de.agrirouter.middleware.domain.Endpoint;
+import de.agrirouter.middleware.integration.cache.BoundedCache;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -13,8 +13,12 @@ import java.util.Optional;
 @Component
 public class InternalEndpointCache {
 
-    private final Map<String, Endpoint> cache = new HashMap<>();
+    private final BoundedCache<String, Endpoint> cache;
 
+    public InternalEndpointCache(@Value("${app.cache.internal-endpoint-cache.maximum-size:10000}") long maximumSize,
+                                 @Value("${app.cache.internal-endpoint-cache.time-to-live-in-seconds:3600}") long timeToLiveInSeconds) {
+        cache = BoundedCache.create("internal_endpoint_cache", maximumSize, timeToLiveInSeconds);
+    }
 
     /**
      * Put an endpoint into the cache.
@@ -30,7 +34,7 @@ public class InternalEndpointCache {
      * Get the endpoint from the cache.
      */
     public Optional<Endpoint> get(String externalEndpointId) {
-        return Optional.ofNullable(cache.get(externalEndpointId));
+        return cache.get(externalEndpointId);
     }
 
     /**
@@ -1,11 +1,14 @@
 package de.agrirouter.middleware.business.cache.events;
 
+import de.agrirouter.middleware.integration.cache.BoundedCache;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
 import java.time.Instant;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.Optional;
 
@@ -19,7 +22,12 @@ public class BusinessEventsCache {
     /**
      * Cache for business events.
      */
-    private final Map<String, Map<BusinessEventType, Instant>> cache = new HashMap<>();
+    private final BoundedCache<String, Map<BusinessEventType, Instant>> cache;
+
+    public BusinessEventsCache(@Value("${app.cache.business-events-cache.maximum-size:50000}") long maximumSize,
+                               @Value("${app.cache.business-events-cache.time-to-live-in-seconds:0}") long timeToLiveInSeconds) {
+        cache = BoundedCache.create("business_events_cache", maximumSize, timeToLiveInSeconds);
+    }
 
     /**
      * Handle the application event.
@@ -29,13 +37,12 @@ public class BusinessEventsCache {
     @EventListener(BusinessEventApplicationEvent.class)
     public void handle(BusinessEventApplicationEvent event) {
         log.trace("Received business event for endpoint {}.", event.getExternalEndpointId());
-        if (cache.containsKey(event.getExternalEndpointId())) {
-            cache.get(event.getExternalEndpointId()).put(event.getBusinessEvent().getEventType(), event.getBusinessEvent().getTimestamp());
-        } else {
-            var businessLogEvents = new HashMap<BusinessEventType, Instant>();
+        // The events of an endpoint are replaced instead of modified, so readers never see a map that is being changed.
+        cache.compute(event.getExternalEndpointId(), (externalEndpointId, businessEvents) -> {
+            final var businessLogEvents = null != businessEvents ? new EnumMap<>(businessEvents) : new EnumMap<BusinessEventType, Instant>(BusinessEventType.class);
             businessLogEvents.put(event.getBusinessEvent().getEventType(), event.getBusinessEvent().getTimestamp());
-            cache.put(event.getExternalEndpointId(), businessLogEvents);
-        }
+            return businessLogEvents;
+        });
     }
 
     /**
@@ -45,6 +52,6 @@ public class BusinessEventsCache {
      * @return The business events.
      */
     public Optional<Map<BusinessEventType, Instant>> get(String externalEndpointId) {
-        return Optional.ofNullable(cache.get(externalEndpointId));
+        return cache.get(externalEndpointId).map(Collections::unmodifiableMap);
     }
 }
@@ -3,7 +3,7 @@ package de.agrirouter.middleware.business.cache.messaging;
 import com.dke.data.agrirouter.api.enums.SystemMessageType;
 import com.dke.data.agrirouter.api.enums.TechnicalMessageType;
 import com.google.protobuf.ByteString;
-import de.agrirouter.middleware.business.events.ResendMessageCacheEntryEvent;
+import de.agrirouter.middleware.business.events.ResendMessageCacheEntriesEvent;
 import de.agrirouter.middleware.domain.documents.MessageCacheEntry;
 import de.agrirouter.middleware.domain.enums.TemporaryContentMessageType;
 import de.agrirouter.middleware.integration.parameters.MessagingIntegrationParameters;
@@ -11,7 +11,6 @@ import de.agrirouter.middleware.persistence.mongo.MessageCacheEntryRepository;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.ThreadUtils;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
@@ -21,6 +20,12 @@ import org.springframework.stereotype.Component;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
 
 /**
  * Cache for messages.
@@ -30,14 +35,16 @@ import java.time.Instant;
 @RequiredArgsConstructor
 public class MessageCache {
 
+    private static final Sort OLDEST_FIRST = Sort.by(Sort.Order.asc("createdAt"));
+
     private final ApplicationEventPublisher applicationEventPublisher;
     private final MessageCacheEntryRepository messageCacheEntryRepository;
 
     @Value("${app.cache.message-cache.batch-size}")
     private int batchSize;
 
-    @Value("${app.cache.message-cache.batch-sleep-time-seconds}")
-    private int sleepTimeSeconds;
+    @Value("${app.cache.message-cache.resend-concurrency}")
+    private int resendConcurrency;
 
     @PostConstruct
     public void init() {
@@ -56,33 +63,85 @@ public class MessageCache {
     }
 
     /**
-     * Send messages within the cache.
+     * Send messages within the cache. The messages of an endpoint within a batch are resent together, so the health
+     * of the endpoint is only checked once per batch. They are sent in the order they have been cached, the messages
+     * of different endpoints are sent in parallel. Messages that are cached again while sending are not sent before
+     * the next run.
      */
     public void sendMessages() {
-        var page = messageCacheEntryRepository.findAll(PageRequest.of(0, batchSize, Sort.by(Sort.Order.desc("createdAt"))));
-        while (page.hasContent()) {
-            log.debug("There are {} messages in this batch.", page.getContent().size());
-            for (var messageCacheEntry : page.getContent()) {
-                trace(messageCacheEntry);
-                messageCacheEntryRepository.delete(messageCacheEntry);
-                applicationEventPublisher.publishEvent(new ResendMessageCacheEntryEvent(this, new MessagingIntegrationParameters(messageCacheEntry.getExternalEndpointId(),
+        final var startOfRun = Instant.now();
+        var batch = messageCacheEntryRepository.findAllByCreatedAtBefore(startOfRun, PageRequest.of(0, batchSize, OLDEST_FIRST));
+        while (!batch.isEmpty()) {
+            log.debug("There are {} messages in this batch.", batch.size());
+            messageCacheEntryRepository.deleteAllById(batch.stream().map(MessageCacheEntry::getId).toList());
+            try {
+                sendMessages(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("There was an error while waiting for the messages of the batch to be sent.", e);
+                return;
+            }
+            batch = messageCacheEntryRepository.findAllByCreatedAtBefore(startOfRun, PageRequest.of(0, batchSize, OLDEST_FIRST));
+        }
+    }
+
+    private void sendMessages(List<MessageCacheEntry> batch) throws InterruptedException {
+        final var messageCacheEntriesPerEndpoint = batch.stream()
+                .collect(Collectors.groupingBy(MessageCacheEntry::getExternalEndpointId, LinkedHashMap::new, Collectors.toList()));
+        final var slots = new Semaphore(resendConcurrency);
+        final var remainingEndpoints = new ArrayList<>(messageCacheEntriesPerEndpoint.values());
+        try (var executorService = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (!remainingEndpoints.isEmpty()) {
+                slots.acquire();
+                final var messageCacheEntries = remainingEndpoints.removeFirst();
+                executorService.execute(() -> {
+                    try {
+                        sendMessages(messageCacheEntries);
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+        } finally {
+            if (!remainingEndpoints.isEmpty()) {
+                log.warn("Placing the messages of {} endpoints back into the cache.", remainingEndpoints.size());
+                remainingEndpoints.forEach(messageCacheEntryRepository::saveAll);
+            }
+        }
+    }
+
+    private void sendMessages(List<MessageCacheEntry> messageCacheEntries) {
+        final var externalEndpointId = messageCacheEntries.getFirst().getExternalEndpointId();
+        final var messagingIntegrationParameters = new ArrayList<MessagingIntegrationParameters>();
+        messageCacheEntries.forEach(messageCacheEntry -> {
+            trace(messageCacheEntry);
+            try {
+                messagingIntegrationParameters.add(new MessagingIntegrationParameters(messageCacheEntry.getExternalEndpointId(),
                         fromStringToTechnicalMessageType(messageCacheEntry.getTechnicalMessageType()),
                         messageCacheEntry.getRecipients(),
                         messageCacheEntry.getFilename(),
-                        ByteString.copyFromUtf8(messageCacheEntry.getMessage()),
-                        messageCacheEntry.getTeamSetContextId())));
-            }
-            if (page.hasNext()) {
-                log.debug("Still messages to send, therefore sending the remaining messages after a short break.");
-                try {
-                    ThreadUtils.sleep(Duration.ofSeconds(sleepTimeSeconds));
-                    log.debug("Sending remaining messages.");
-                    page = messageCacheEntryRepository.findAll(page.nextPageable());
-                } catch (InterruptedException e) {
-                    log.error("There was an error while waiting for the next batch of messages to be sent.", e);
-                }
+                        getPayload(messageCacheEntry),
+                        messageCacheEntry.getTeamSetContextId()));
+            } catch (RuntimeException e) {
+                log.error("Could not send the message from the cache for the endpoint with the external endpoint ID '{}'.", externalEndpointId, e);
             }
+        });
+        if (messagingIntegrationParameters.isEmpty()) {
+            return;
+        }
+        try {
+            applicationEventPublisher.publishEvent(new ResendMessageCacheEntriesEvent(this, externalEndpointId, messagingIntegrationParameters));
+        } catch (RuntimeException e) {
+            log.error("Could not send the messages from the cache for the endpoint with the external endpoint ID '{}'.", externalEndpointId, e);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static ByteString getPayload(MessageCacheEntry messageCacheEntry) {
+        if (null != messageCacheEntry.getPayload()) {
+            return ByteString.copyFrom(messageCacheEntry.getPayload());
         }
+        return ByteString.copyFromUtf8(messageCacheEntry.getMessage());
     }
 
     private TechnicalMessageType fromStringToTechnicalMessageType(@NotNull String technicalMessageType) {
@@ -121,7 +180,8 @@ public class MessageCache {
                 fromTechnicalMessageTypeToString(messagingIntegrationParameters.technicalMessageType()),
                 messagingIntegrationParameters.recipients(),
                 messagingIntegrationParameters.filename(),
-                messagingIntegrationParameters.message().toStringUtf8(),
+                null,
+                messagingIntegrationParameters.message().toByteArray(),
                 messagingIntegrationParameters.teamSetContextId(),
                 Instant.now(),
                 Instant.now().plus(Duration.ofDays(14))
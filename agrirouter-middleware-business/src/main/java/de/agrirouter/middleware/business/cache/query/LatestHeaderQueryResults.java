@@ -1,24 +1,25 @@
 package de.agrirouter.middleware.business.cache.query;
 
+import de.agrirouter.middleware.integration.cache.BoundedCache;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.time.Instant;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Cache for the latest query results.
  */
-@Getter
 @Component
 public class LatestHeaderQueryResults {
 
-    private final Map<String, QueryResult> latestQueryResults;
+    private final BoundedCache<String, QueryResult> latestQueryResults;
 
-    public LatestHeaderQueryResults() {
-        latestQueryResults = new HashMap<>();
+    public LatestHeaderQueryResults(@Value("${app.cache.latest-header-query-results.maximum-size:50000}") long maximumSize,
+                                    @Value("${app.cache.latest-header-query-results.time-to-live-in-seconds:172800}") long timeToLiveInSeconds) {
+        latestQueryResults = BoundedCache.create("latest_header_query_results", maximumSize, timeToLiveInSeconds);
     }
 
     /**
@@ -32,7 +33,16 @@ public class LatestHeaderQueryResults {
     }
 
     public QueryResult get(String externalEndpointId) {
-        return latestQueryResults.get(externalEndpointId);
+        return latestQueryResults.get(externalEndpointId).orElse(null);
+    }
+
+    /**
+     * A read-only view on the latest query results, keyed by the external endpoint ID.
+     *
+     * @return The latest query results.
+     */
+    public Map<String, QueryResult> getLatestQueryResults() {
+        return latestQueryResults.asMap();
     }
 
 
@@ -2,27 +2,28 @@ package de.agrirouter.middleware.business.cache.query;
 
 import com.google.protobuf.Timestamp;
 import de.agrirouter.middleware.domain.enums.TemporaryContentMessageType;
+import de.agrirouter.middleware.integration.cache.BoundedCache;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Cache for the latest query results.
  */
-@Getter
 @Component
 public class LatestQueryResults {
 
-    private final Map<String, QueryResult> latestQueryResults;
+    private final BoundedCache<String, QueryResult> latestQueryResults;
 
-    public LatestQueryResults() {
-        latestQueryResults = new HashMap<>();
+    public LatestQueryResults(@Value("${app.cache.latest-query-results.maximum-size:50000}") long maximumSize,
+                              @Value("${app.cache.latest-query-results.time-to-live-in-seconds:172800}") long timeToLiveInSeconds) {
+        latestQueryResults = BoundedCache.create("latest_query_results", maximumSize, timeToLiveInSeconds);
     }
 
     /**
@@ -36,7 +37,16 @@ public class LatestQueryResults {
     }
 
     public QueryResult get(String externalEndpointId) {
-        return latestQueryResults.get(externalEndpointId);
+        return latestQueryResults.get(externalEndpointId).orElse(null);
+    }
+
+    /**
+     * A read-only view on the latest query results, keyed by the external endpoint ID.
+     *
+     * @return The latest query results.
+     */
+    public Map<String, QueryResult> getLatestQueryResults() {
+        return latestQueryResults.asMap();
     }
 
 
@@ -1,13 +1,12 @@
 package de.agrirouter.middleware.business.cache.registration;
 
 import de.agrirouter.middleware.business.parameters.RegisterMachineParameters;
+import de.agrirouter.middleware.integration.cache.BoundedCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.time.Instant;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -20,13 +19,18 @@ public class TransientMachineRegistrationCache {
     /**
      * The time to live in seconds.
      */
-    @Value("${app.cache.transient-machine-registration-cache.time-to-live-in-seconds}")
     private int timeToLiveInSeconds;
 
     /**
      * The message cache.
      */
-    private final Map<String, MachineRegistrationCacheEntry> machineRegistrationCache = new HashMap<>();
+    private final BoundedCache<String, MachineRegistrationCacheEntry> machineRegistrationCache;
+
+    public TransientMachineRegistrationCache(@Value("${app.cache.transient-machine-registration-cache.maximum-size:10000}") long maximumSize,
+                                             @Value("${app.cache.transient-machine-registration-cache.time-to-live-in-seconds}") int timeToLiveInSeconds) {
+        this.timeToLiveInSeconds = timeToLiveInSeconds;
+        this.machineRegistrationCache = BoundedCache.create("transient_machine_registration_cache", maximumSize, timeToLiveInSeconds);
+    }
 
     /**
      * Create a cache entry.
@@ -54,9 +58,8 @@ public class TransientMachineRegistrationCache {
     public Optional<MachineRegistrationCacheEntry> pop(String externalEndpointId) {
         log.info("Removing device description from cache.");
         log.trace("External endpoint ID: {}", externalEndpointId);
-        final var machineRegistrationCacheEntry = machineRegistrationCache.get(externalEndpointId);
+        final var machineRegistrationCacheEntry = machineRegistrationCache.remove(externalEndpointId).orElse(null);
         if (machineRegistrationCacheEntry != null) {
-            machineRegistrationCache.remove(externalEndpointId);
             log.info("Found a device description in cache.");
             if (machineRegistrationCacheEntry.isExpired()) {
                 log.debug("Device description expired. Skipping.");
@@ -0,0 +1,35 @@
+package de.agrirouter.middleware.business.dto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A file that is written to the client while downloading, so the content does not have to be kept in memory.
+ *
+ * @param contentLength The length of the decoded content, -1 if the length is unknown.
+ * @param content       Writes the decoded content.
+ */
+public record FileDownload(long contentLength, Content content) {
+
+    /**
+     * The length if the content is unknown.
+     */
+    public static final long UNKNOWN_CONTENT_LENGTH = -1;
+
+    /**
+     * Writes the decoded content.
+     */
+    @FunctionalInterface
+    public interface Content {
+
+        /**
+         * Write the content to the output stream.
+         *
+         * @param outputStream The output stream.
+         * @throws IOException If the content could not be written.
+         */
+        void writeTo(OutputStream outputStream) throws IOException;
+
+    }
+
+}
@@ -0,0 +1,15 @@
+package de.agrirouter.middleware.business.dto.timelog;
+
+import de.agrirouter.middleware.domain.documents.TimeLog;
+
+import java.util.List;
+
+/**
+ * A page of time logs.
+ *
+ * @param timeLogs   The time logs of the page.
+ * @param nextCursor The cursor to fetch the next page, null if this is the last page.
+ */
+public record TimeLogPage(List<TimeLog> timeLogs, String nextCursor) {
+
+}
@@ -0,0 +1,23 @@
+package de.agrirouter.middleware.business.events;
+
+import de.agrirouter.middleware.integration.parameters.MessagingIntegrationParameters;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.List;
+
+/**
+ * Will be published if the messages of an endpoint from the cache should be resent.
+ */
+@Getter
+public class ResendMessageCacheEntriesEvent extends ApplicationEvent {
+
+    private final String externalEndpointId;
+    private final List<MessagingIntegrationParameters> messagingIntegrationParameters;
+
+    public ResendMessageCacheEntriesEvent(Object source, String externalEndpointId, List<MessagingIntegrationParameters> messagingIntegrationParameters) {
+        super(source);
+        this.externalEndpointId = externalEndpointId;
+        this.messagingIntegrationParameters = messagingIntegrationParameters;
+    }
+}
@@ -0,0 +1,61 @@
+package de.agrirouter.middleware.business.listener;
+
+import de.agrirouter.middleware.domain.enums.ContentMessageEncoding;
+import de.agrirouter.middleware.persistence.jpa.ContentMessageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Convert the content messages that have been stored base64 encoded to binary, if the binary storage mode is active.
+ * The conversion runs in the background and in batches, so the table is not locked as a whole. The content messages
+ * can be read in both formats, therefore the application can be used while the conversion is running.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConvertContentMessagesToBinaryEventListener {
+
+    private final ContentMessageRepository contentMessageRepository;
+
+    @Value("${app.content-messages.storage-mode:BINARY}")
+    private ContentMessageEncoding storageMode;
+
+    @Value("${app.content-messages.conversion-batch-size:100}")
+    private int batchSize;
+
+    /**
+     * Start the conversion after the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void convertContentMessagesToBinary() {
+        if (storageMode == ContentMessageEncoding.BINARY) {
+            Thread.ofVirtual().name("content-message-conversion").start(this::convert);
+        } else {
+            log.debug("The content messages are stored base64 encoded, therefore there is nothing to convert.");
+        }
+    }
+
+    void convert() {
+        try {
+            var numberOfConvertedContentMessages = 0L;
+            var numberOfContentMessagesInBatch = contentMessageRepository.convertBase64MessageContentToBinary(batchSize);
+            while (numberOfContentMessagesInBatch > 0) {
+                numberOfConvertedContentMessages += numberOfContentMessagesInBatch;
+                log.debug("Converted {} content messages to binary so far.", numberOfConvertedContentMessages);
+                numberOfContentMessagesInBatch = contentMessageRepository.convertBase64MessageContentToBinary(batchSize);
+            }
+            if (numberOfConvertedContentMessages > 0) {
+                log.info("Converted the content of {} existing content messages to binary.", numberOfConvertedContentMessages);
+            } else {
+                log.debug("There are no base64 encoded content messages left.");
+            }
+        } catch (Exception e) {
+            log.error("Could not convert the existing content messages to binary, the conversion continues after the next start.", e);
+        }
+    }
+
+}
@@ -5,13 +5,8 @@ import com.dke.data.agrirouter.api.dto.messaging.FetchMessageResponse;
 import com.dke.data.agrirouter.api.enums.SystemMessageType;
 import com.dke.data.agrirouter.api.service.messaging.encoding.DecodeMessageService;
 import com.dke.data.agrirouter.api.service.messaging.encoding.MessageDecoder;
-import com.dke.data.agrirouter.api.service.messaging.mqtt.MessageQueryService;
 import com.dke.data.agrirouter.api.service.parameters.DeleteMessageParameters;
-import com.dke.data.agrirouter.api.service.parameters.MessageConfirmationParameters;
-import com.dke.data.agrirouter.api.service.parameters.MessageQueryParameters;
 import com.dke.data.agrirouter.impl.messaging.mqtt.DeleteMessageServiceImpl;
-import com.dke.data.agrirouter.impl.messaging.mqtt.MessageConfirmationServiceImpl;
-import com.dke.data.agrirouter.impl.messaging.mqtt.MessageQueryServiceImpl;
 import com.google.protobuf.ByteString;
 import de.agrirouter.middleware.api.errorhandling.BusinessException;
 import de.agrirouter.middleware.api.errorhandling.error.ErrorMessageFactory;
@@ -25,11 +20,11 @@ import de.agrirouter.middleware.business.cache.events.BusinessEventType;
 import de.agrirouter.middleware.business.cache.query.LatestQueryResults;
 import de.agrirouter.middleware.domain.ContentMessage;
 import de.agrirouter.middleware.domain.ContentMessageMetadata;
-import de.agrirouter.middleware.domain.Endpoint;
 import de.agrirouter.middleware.domain.documents.TaskDataTimeLogContainer;
 import de.agrirouter.middleware.domain.enums.TemporaryContentMessageType;
 import de.agrirouter.middleware.integration.ack.MessageWaitingForAcknowledgement;
 import de.agrirouter.middleware.integration.ack.MessageWaitingForAcknowledgementService;
+import de.agrirouter.middleware.integration.cache.OnboardingResponseCache;
 import de.agrirouter.middleware.integration.mqtt.MqttClientManagementService;
 import de.agrirouter.middleware.isoxml.TaskDataTimeLogService;
 import de.agrirouter.middleware.persistence.jpa.ContentMessageRepository;
@@ -41,7 +36,6 @@ import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Set;
@@ -72,6 +66,10 @@ public class MessageQueryResultEventListener {
     private final FieldService fieldService;
     private final FarmService farmService;
     private final CustomerService customerService;
+    private final ContentMessageEncodingService contentMessageEncodingService;
+    private final MessageConfirmationAggregator messageConfirmationAggregator;
+    private final ExistingMessagesQueryService existingMessagesQueryService;
+    private final OnboardingResponseCache onboardingResponseCache;
 
     /**
      * Confirm existing messages.
@@ -97,8 +95,8 @@ public class MessageQueryResultEventListener {
         try {
             final var contentMessage = new ContentMessage();
             contentMessage.setAgrirouterEndpointId(receiverId);
-            contentMessage.setMessageContent(message.toByteArray());
             contentMessage.setContentMessageMetadata(contentMessageMetadata);
+            contentMessageEncodingService.setMessageContent(contentMessage, message);
 
             if (isMasterData(technicalMessageType)) {
                 if (technicalMessageType.equals(ISO_11783_FIELD.getKey())) {
@@ -119,7 +117,7 @@ public class MessageQueryResultEventListener {
             applicationEventPublisher.publishEvent(new BusinessEventApplicationEvent(this, externalEndpointId, new BusinessEvent(Instant.now(), BusinessEventType.NON_TELEMETRY_MESSAGE_RECEIVED)));
 
             if (technicalMessageType.equals(TemporaryContentMessageType.ISO_11783_TASKDATA_ZIP.getKey())) {
-                final var timeLogs = taskDataTimeLogService.parseMessageContent(contentMessage.getMessageContent());
+                final var timeLogs = taskDataTimeLogService.parseZipFile(contentMessageEncodingService.getDecodedMessageContent(contentMessage));
                 taskDataTimeLogContainerRepository.save(new TaskDataTimeLogContainer(contentMessage, timeLogs));
                 applicationEventPublisher.publishEvent(new BusinessEventApplicationEvent(this, externalEndpointId, new BusinessEvent(Instant.now(), BusinessEventType.TASK_DATA_RECEIVED)));
             }
@@ -139,37 +137,15 @@ public class MessageQueryResultEventListener {
     }
 
     /**
-     * Confirm pending messages for the endpoint.
+     * Confirm pending messages for the endpoint, the confirmations are aggregated with the ones of other results.
      *
      * @param agrirouterEndpointId The ID of the endpoint.
      * @param messageIds           The IDs of the messages to confirm.
      */
     private void confirmMessages(String agrirouterEndpointId, Set<String> messageIds) {
         log.debug("Confirming {} messages for the endpoint '{}'.", messageIds.size(), agrirouterEndpointId);
-        log.trace("Message IDs >>> {}", messageIds);
         businessOperationLogService.log(new EndpointLogInformation(NA, agrirouterEndpointId), "Confirm messages with the following IDs >>> {} ", messageIds);
-        if (!messageIds.isEmpty()) {
-            final var endpoint = endpointService.findByAgrirouterEndpointId(agrirouterEndpointId);
-            final var iMqttClient = mqttClientManagementService.get(endpoint);
-            if (iMqttClient.isEmpty()) {
-                log.error(ErrorMessageFactory.couldNotConnectMqttClient(endpoint.getAgrirouterEndpointId()).asLogMessage());
-            } else {
-                final var messageConfirmationService = new MessageConfirmationServiceImpl(iMqttClient.get());
-                final var messageConfirmationParameters = new MessageConfirmationParameters();
-                messageConfirmationParameters.setMessageIds(new ArrayList<>(messageIds));
-                messageConfirmationParameters.setOnboardingResponse(endpoint.asOnboardingResponse());
-                final var messageId = messageConfirmationService.send(messageConfirmationParameters);
-
-                log.debug("Saving message with ID '{}'  waiting for ACK.", messageId);
-                MessageWaitingForAcknowledgement messageWaitingForAcknowledgement = new MessageWaitingForAcknowledgement();
-                messageWaitingForAcknowledgement.setAgrirouterEndpointId(agrirouterEndpointId);
-                messageWaitingForAcknowledgement.setMessageId(messageId);
-                messageWaitingForAcknowledgement.setTechnicalMessageType(SystemMessageType.DKE_FEED_CONFIRM.getKey());
-                messageWaitingForAcknowledgementService.save(messageWaitingForAcknowledgement);
-            }
-        } else {
-            log.debug("No messages to confirm, therefore skipping confirmation.");
-        }
+        messageConfirmationAggregator.confirm(agrirouterEndpointId, messageIds);
     }
 
     /**
@@ -191,7 +167,7 @@ public class MessageQueryResultEventListener {
                 final var deleteMessageService = new DeleteMessageServiceImpl(iMqttClient.get());
                 final var deleteMessageParameters = new DeleteMessageParameters();
                 deleteMessageParameters.setMessageIds(new ArrayList<>(messageIds));
-                deleteMessageParameters.setOnboardingResponse(endpoint.asOnboardingResponse());
+                deleteMessageParameters.setOnboardingResponse(onboardingResponseCache.get(endpoint));
                 final var messageId = deleteMessageService.send(deleteMessageParameters);
 
                 log.debug("Saving message with ID '{}'  waiting for ACK.", messageId);
@@ -228,10 +204,12 @@ public class MessageQueryResultEventListener {
             final var endpoint = endpointService.findByAgrirouterEndpointId(fetchMessageResponse.getSensorAlternateId());
             saveLatestQueryResult(endpoint.getExternalEndpointId(), messageQueryResponse);
             confirmMessages(agrirouterEndpointId, messageIds);
-            if (messageQueryResponse.getQueryMetrics().getTotalMessagesInQuery() > messageQueryResponse.getQueryMetrics().getMaxCountRestriction()) {
-                log.debug("There are {} messages in total, the current count restriction is {}. Sending out another event to fetch the messages.", messageQueryResponse.getQueryMetrics().getTotalMessagesInQuery(), messageQueryResponse.getQueryMetrics().getMaxCountRestriction());
-                fetchAndConfirmExistingMessages(endpoint);
-            }
+            existingMessagesQueryService.queryResultReceived(endpoint,
+                    decodedMessageResponse.getResponseEnvelope().getApplicationMessageId(),
+                    messageQueryResponse.getQueryMetrics().getTotalMessagesInQuery(),
+                    messageQueryResponse.getQueryMetrics().getMaxCountRestriction(),
+                    messageQueryResponse.getMessagesCount(),
+                    messageQueryResponse.getPage().getTotal());
         } catch (BusinessException e) {
             log.error(e.getErrorMessage().asLogMessage());
             deleteMessages(fetchMessageResponse.sensorAlternateId, messageIds);
@@ -261,28 +239,6 @@ public class MessageQueryResultEventListener {
         latestQueryResults.add(externalEndpointId, queryResult);
     }
 
-    private void fetchAndConfirmExistingMessages(Endpoint endpoint) {
-        log.debug("Fetching and confirming additional existing messages for endpoint '{}'.", endpoint.getExternalEndpointId());
-        final var iMqttClient = mqttClientManagementService.get(endpoint);
-        if (iMqttClient.isEmpty()) {
-            log.error(ErrorMessageFactory.couldNotConnectMqttClient(endpoint.getAgrirouterEndpointId()).asLogMessage());
-        } else {
-            MessageQueryService messageQueryService = new MessageQueryServiceImpl(iMqttClient.get());
-            final var parameters = new MessageQueryParameters();
-            parameters.setSentFromInSeconds(Instant.now().minus(28, ChronoUnit.DAYS).getEpochSecond());
-            parameters.setSentToInSeconds(Instant.now().getEpochSecond());
-            parameters.setOnboardingResponse(endpoint.asOnboardingResponse());
-            final var messageId = messageQueryService.send(parameters);
-
-            log.debug("Saving message with ID '{}'  waiting for ACK.", messageId);
-            MessageWaitingForAcknowledgement messageWaitingForAcknowledgement = new MessageWaitingForAcknowledgement();
-            messageWaitingForAcknowledgement.setAgrirouterEndpointId(endpoint.getAgrirouterEndpointId());
-            messageWaitingForAcknowledgement.setMessageId(messageId);
-            messageWaitingForAcknowledgement.setTechnicalMessageType(SystemMessageType.DKE_FEED_MESSAGE_QUERY.getKey());
-            messageWaitingForAcknowledgementService.save(messageWaitingForAcknowledgement);
-        }
-    }
-
     @SuppressWarnings("DuplicatedCode")
     private void saveContentMessage(FeedResponse.MessageQueryResponse.FeedMessage feedMessage) {
         final var contentMessageMetadata = new ContentMessageMetadata();
@@ -0,0 +1,61 @@
+package de.agrirouter.middleware.business.listener;
+
+import de.agrirouter.middleware.persistence.mongo.TimeLogRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Set the normalized team set context ID for time logs that have been stored before the field was introduced. The
+ * migration runs in the background and only touches time logs without the field, so it is a no-op once all existing
+ * time logs have been migrated. The declared indexes of the time logs are created beforehand, since the indexes are not
+ * created automatically. Afterwards the index on timestamp and team set context ID, which has been replaced by the
+ * index on the normalized team set context ID, is dropped, since MongoDB keeps undeclared indexes.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NormalizeTeamSetContextIdsEventListener {
+
+    static final String REPLACED_INDEX_NAME = "timestamp_teamSetContextId_idx";
+
+    private final TimeLogRepository timeLogRepository;
+
+    /**
+     * Start the migration after the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void normalizeTeamSetContextIds() {
+        Thread.ofVirtual().name("time-log-team-set-migration").start(this::migrate);
+    }
+
+    void migrate() {
+        try {
+            timeLogRepository.ensureIndexes();
+        } catch (Exception e) {
+            log.error("Could not create the indexes of the time logs, the replaced time log index '{}' is kept.", REPLACED_INDEX_NAME, e);
+            return;
+        }
+        try {
+            final var numberOfMigratedTimeLogs = timeLogRepository.normalizeTeamSetContextIds();
+            if (numberOfMigratedTimeLogs > 0) {
+                log.info("Normalized the team set context ID of {} existing time logs.", numberOfMigratedTimeLogs);
+            } else {
+                log.debug("There are no time logs without a normalized team set context ID.");
+            }
+        } catch (Exception e) {
+            log.error("Could not normalize the team set context ID of the existing time logs, they will not be found by the team set until the next start.", e);
+            return;
+        }
+        try {
+            if (timeLogRepository.dropIndexIfExists(REPLACED_INDEX_NAME)) {
+                log.info("Dropped the replaced time log index '{}'.", REPLACED_INDEX_NAME);
+            }
+        } catch (Exception e) {
+            log.error("Could not drop the replaced time log index '{}', it will be dropped on the next start.", REPLACED_INDEX_NAME, e);
+        }
+    }
+
+}
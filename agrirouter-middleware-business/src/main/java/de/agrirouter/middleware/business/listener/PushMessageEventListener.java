@@ -1,11 +1,6 @@
 package de.agrirouter.middleware.business.listener;
 
-import com.dke.data.agrirouter.api.enums.SystemMessageType;
 import com.dke.data.agrirouter.api.service.messaging.encoding.DecodePushNotificationService;
-import com.dke.data.agrirouter.api.service.parameters.MessageConfirmationParameters;
-import com.dke.data.agrirouter.impl.messaging.mqtt.MessageConfirmationServiceImpl;
-import com.google.protobuf.ByteString;
-import de.agrirouter.middleware.api.errorhandling.error.ErrorMessageFactory;
 import de.agrirouter.middleware.api.events.PushMessageEvent;
 import de.agrirouter.middleware.api.logging.BusinessOperationLogService;
 import de.agrirouter.middleware.api.logging.EndpointLogInformation;
@@ -14,9 +9,6 @@ import de.agrirouter.middleware.domain.ContentMessage;
 import de.agrirouter.middleware.domain.ContentMessageMetadata;
 import de.agrirouter.middleware.domain.documents.TaskDataTimeLogContainer;
 import de.agrirouter.middleware.domain.enums.TemporaryContentMessageType;
-import de.agrirouter.middleware.integration.ack.MessageWaitingForAcknowledgement;
-import de.agrirouter.middleware.integration.ack.MessageWaitingForAcknowledgementService;
-import de.agrirouter.middleware.integration.mqtt.MqttClientManagementService;
 import de.agrirouter.middleware.integration.mqtt.MqttStatistics;
 import de.agrirouter.middleware.isoxml.TaskDataTimeLogService;
 import de.agrirouter.middleware.persistence.jpa.ContentMessageRepository;
@@ -28,7 +20,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.Set;
+import java.util.List;
 
 import static de.agrirouter.middleware.api.logging.BusinessOperationLogService.NA;
 import static de.agrirouter.middleware.domain.enums.TemporaryContentMessageType.*;
@@ -41,9 +33,7 @@ import static de.agrirouter.middleware.domain.enums.TemporaryContentMessageType.
 @RequiredArgsConstructor
 public class PushMessageEventListener {
 
-    private final MqttClientManagementService mqttClientManagementService;
-    private final EndpointService endpointService;
-    private final MessageWaitingForAcknowledgementService messageWaitingForAcknowledgementService;
+    private final MessageConfirmationAggregator messageConfirmationAggregator;
     private final DecodePushNotificationService decodePushNotificationService;
     private final TimeLogService timeLogService;
     private final FieldService fieldService;
@@ -55,6 +45,7 @@ public class PushMessageEventListener {
     private final TaskDataTimeLogService taskDataTimeLogService;
     private final BusinessOperationLogService businessOperationLogService;
     private final MqttStatistics mqttStatistics;
+    private final ContentMessageEncodingService contentMessageEncodingService;
 
     /**
      * Handling the unknown message event.
@@ -67,17 +58,24 @@ public class PushMessageEventListener {
         var pushNotification = decodePushNotificationService.decode(pushMessageArrivedEvent.getFetchMessageResponse().getCommand().getMessage());
         final var messageIdsToConfirm = new HashSet<String>();
         final var receiverId = pushNotification.getMessages(0).getHeader().getReceiverId();
+        final var contentMessages = new ArrayList<ContentMessage>();
         pushNotification.getMessagesList().forEach(feedMessage -> {
-            saveContentMessage(feedMessage);
+            final var contentMessage = createContentMessage(feedMessage);
+            if (isMasterData(feedMessage.getHeader().getTechnicalMessageType())) {
+                saveMasterData(contentMessage);
+            } else {
+                contentMessages.add(contentMessage);
+            }
             mqttStatistics.increaseNumberOfContentMessagesReceived(feedMessage.getHeader().getTechnicalMessageType());
             messageIdsToConfirm.add(feedMessage.getHeader().getMessageId());
         });
-        confirmMessages(receiverId, messageIdsToConfirm);
+        persistContentMessages(contentMessages);
+        messageConfirmationAggregator.confirm(receiverId, messageIdsToConfirm);
         businessOperationLogService.log(new EndpointLogInformation(NA, pushMessageArrivedEvent.getFetchMessageResponse().getSensorAlternateId()), "Confirming push message that has arrived.");
     }
 
     @SuppressWarnings("DuplicatedCode")
-    private void saveContentMessage(agrirouter.feed.push.notification.PushNotificationOuterClass.PushNotification.FeedMessage feedMessage) {
+    private ContentMessage createContentMessage(agrirouter.feed.push.notification.PushNotificationOuterClass.PushNotification.FeedMessage feedMessage) {
         final var contentMessageMetadata = new ContentMessageMetadata();
         contentMessageMetadata.setMessageId(feedMessage.getHeader().getMessageId());
         contentMessageMetadata.setTechnicalMessageType(feedMessage.getHeader().getTechnicalMessageType());
@@ -92,51 +90,59 @@ public class PushMessageEventListener {
         contentMessageMetadata.setSenderId(feedMessage.getHeader().getSenderId());
         contentMessageMetadata.setSequenceNumber(feedMessage.getHeader().getSequenceNumber());
         contentMessageMetadata.setTeamSetContextId(feedMessage.getHeader().getTeamSetContextId());
-        persistContentMessage(contentMessageMetadata, feedMessage.getHeader().getReceiverId(), feedMessage.getContent().getValue(), feedMessage.getHeader().getTechnicalMessageType());
+
+        final var contentMessage = new ContentMessage();
+        contentMessage.setAgrirouterEndpointId(feedMessage.getHeader().getReceiverId());
+        contentMessage.setContentMessageMetadata(contentMessageMetadata);
+        contentMessageEncodingService.setMessageContent(contentMessage, feedMessage.getContent().getValue());
+        return contentMessage;
     }
 
     /**
-     * Persist the content message.
+     * Process master data, which is not persisted as raw content message.
      *
-     * @param contentMessageMetadata Metadata for the content message.
-     * @param receiverId             The ID of the receiver.
-     * @param message                The message content itself.
-     * @param technicalMessageType   The technical message type.
+     * @param contentMessage The content message.
      */
-    private void persistContentMessage(ContentMessageMetadata contentMessageMetadata, String receiverId, ByteString message, String technicalMessageType) {
-        final var contentMessage = new ContentMessage();
-        contentMessage.setAgrirouterEndpointId(receiverId);
-        contentMessage.setMessageContent(message.toByteArray());
-        contentMessage.setContentMessageMetadata(contentMessageMetadata);
-
-        if (isMasterData(technicalMessageType)) {
-            if (technicalMessageType.equals(ISO_11783_FIELD.getKey())) {
-                fieldService.save(contentMessage);
-            } else if (technicalMessageType.equals(ISO_11783_FARM.getKey())) {
-                farmService.save(contentMessage);
-            } else if (technicalMessageType.equals(ISO_11783_CUSTOMER.getKey())) {
-                customerService.save(contentMessage);
-            }
-            businessOperationLogService.log(new EndpointLogInformation(NA, receiverId), "Processed master data message without raw persistence.");
-            return;
+    private void saveMasterData(ContentMessage contentMessage) {
+        final var technicalMessageType = contentMessage.getContentMessageMetadata().getTechnicalMessageType();
+        if (technicalMessageType.equals(ISO_11783_FIELD.getKey())) {
+            fieldService.save(contentMessage);
+        } else if (technicalMessageType.equals(ISO_11783_FARM.getKey())) {
+            farmService.save(contentMessage);
+        } else if (technicalMessageType.equals(ISO_11783_CUSTOMER.getKey())) {
+            customerService.save(contentMessage);
         }
+        businessOperationLogService.log(new EndpointLogInformation(NA, contentMessage.getAgrirouterEndpointId()), "Processed master data message without raw persistence.");
+    }
 
-        contentMessageRepository.save(contentMessage);
-
-        if (technicalMessageType.equals(TemporaryContentMessageType.ISO_11783_TASKDATA_ZIP.getKey())) {
-            final var timeLogs = taskDataTimeLogService.parseMessageContent(contentMessage.getMessageContent());
-            taskDataTimeLogContainerRepository.save(new TaskDataTimeLogContainer(contentMessage, timeLogs));
+    /**
+     * Persist all content messages of a push notification at once, so the inserts can be batched.
+     *
+     * @param contentMessages The content messages.
+     */
+    private void persistContentMessages(List<ContentMessage> contentMessages) {
+        if (contentMessages.isEmpty()) {
+            log.debug("There are no content messages to persist.");
+            return;
         }
+        contentMessageRepository.saveAll(contentMessages);
+        contentMessages.forEach(contentMessage -> {
+            final var technicalMessageType = contentMessage.getContentMessageMetadata().getTechnicalMessageType();
+            if (technicalMessageType.equals(TemporaryContentMessageType.ISO_11783_TASKDATA_ZIP.getKey())) {
+                final var timeLogs = taskDataTimeLogService.parseZipFile(contentMessageEncodingService.getDecodedMessageContent(contentMessage));
+                taskDataTimeLogContainerRepository.save(new TaskDataTimeLogContainer(contentMessage, timeLogs));
+            }
 
-        if (technicalMessageType.equals(TemporaryContentMessageType.ISO_11783_DEVICE_DESCRIPTION.getKey())) {
-            deviceDescriptionService.saveReceivedDeviceDescription(contentMessage);
-        }
+            if (technicalMessageType.equals(TemporaryContentMessageType.ISO_11783_DEVICE_DESCRIPTION.getKey())) {
+                deviceDescriptionService.saveReceivedDeviceDescription(contentMessage);
+            }
 
-        if (technicalMessageType.equals(TemporaryContentMessageType.ISO_11783_TIME_LOG.getKey())) {
-            timeLogService.save(contentMessage);
-        }
+            if (technicalMessageType.equals(TemporaryContentMessageType.ISO_11783_TIME_LOG.getKey())) {
+                timeLogService.save(contentMessage);
+            }
 
-        businessOperationLogService.log(new EndpointLogInformation(NA, receiverId), "Save content message.");
+            businessOperationLogService.log(new EndpointLogInformation(NA, contentMessage.getAgrirouterEndpointId()), "Save content message.");
+        });
     }
 
     protected boolean isMasterData(String technicalMessageType) {
@@ -145,39 +151,4 @@ public class PushMessageEventListener {
                 || technicalMessageType.equals(ISO_11783_CUSTOMER.getKey());
     }
 
-    /**
-     * Confirm pending messages for the endpoint.
-     *
-     * @param endpointId The ID of the endpoint.
-     * @param messageIds The IDs of the messages to confirm.
-     */
-    private void confirmMessages(String endpointId, Set<String> messageIds) {
-        log.debug("Confirming the messages for the endpoint '{}'.", endpointId);
-        log.trace("Message IDs >>> {}", messageIds);
-        if (!messageIds.isEmpty()) {
-            final var endpoint = endpointService.findByAgrirouterEndpointId(endpointId);
-            final var iMqttClient = mqttClientManagementService.get(endpoint);
-            if (iMqttClient.isEmpty()) {
-                log.error(ErrorMessageFactory.couldNotConnectMqttClient(endpoint.getAgrirouterEndpointId()).asLogMessage());
-            } else {
-
-                final var messageConfirmationService = new MessageConfirmationServiceImpl(iMqttClient.get());
-                final var messageConfirmationParameters = new MessageConfirmationParameters();
-                messageConfirmationParameters.setMessageIds(new ArrayList<>(messageIds));
-                messageConfirmationParameters.setOnboardingResponse(endpoint.asOnboardingResponse());
-                final var messageId = messageConfirmationService.send(messageConfirmationParameters);
-
-                log.debug("Saving message with ID '{}'  waiting for ACK.", messageId);
-                MessageWaitingForAcknowledgement messageWaitingForAcknowledgement = new MessageWaitingForAcknowledgement();
-                messageWaitingForAcknowledgement.setAgrirouterEndpointId(endpointId);
-                messageWaitingForAcknowledgement.setMessageId(messageId);
-                messageWaitingForAcknowledgement.setTechnicalMessageType(SystemMessageType.DKE_FEED_CONFIRM.getKey());
-                messageWaitingForAcknowledgementService.save(messageWaitingForAcknowledgement);
-                businessOperationLogService.log(new EndpointLogInformation(endpoint.getExternalEndpointId(), endpoint.getAgrirouterEndpointId()), "Confirm content message.");
-            }
-        } else {
-            log.debug("No messages to confirm, therefore skipping confirmation.");
-        }
-    }
-
 }
@@ -3,11 +3,11 @@ package de.agrirouter.middleware.business.listener;
 import de.agrirouter.middleware.api.errorhandling.BusinessException;
 import de.agrirouter.middleware.api.errorhandling.error.ErrorKey;
 import de.agrirouter.middleware.api.errorhandling.error.ErrorMessageFactory;
+import de.agrirouter.middleware.api.events.RouterDevicesConnectedEvent;
 import de.agrirouter.middleware.business.ApplicationService;
 import de.agrirouter.middleware.business.EndpointService;
 import de.agrirouter.middleware.integration.mqtt.MqttClientManagementService;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
@@ -31,9 +31,10 @@ public class ReconnectAllOnboardResponsesEventListener {
     }
 
     /**
-     * Re-connect all endpoints after the application has started.
+     * Re-connect all endpoints after the router devices have been connected, so the MQTT client of each endpoint is
+     * available and the endpoint subscribes to its topics.
      */
-    @EventListener(ApplicationReadyEvent.class)
+    @EventListener(RouterDevicesConnectedEvent.class)
     public void reconnectAllOnboardResponses() {
         log.debug("Reconnect all endpoints to receive messages from the agrirouter.");
         updateEndpoints();
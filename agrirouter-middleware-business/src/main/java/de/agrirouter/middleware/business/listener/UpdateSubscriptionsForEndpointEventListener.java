@@ -15,6 +15,7 @@ import de.agrirouter.middleware.domain.Application;
 import de.agrirouter.middleware.domain.Endpoint;
 import de.agrirouter.middleware.integration.ack.MessageWaitingForAcknowledgement;
 import de.agrirouter.middleware.integration.ack.MessageWaitingForAcknowledgementService;
+import de.agrirouter.middleware.integration.cache.OnboardingResponseCache;
 import de.agrirouter.middleware.integration.common.SubscriptionParameterFactory;
 import de.agrirouter.middleware.integration.mqtt.MqttClientManagementService;
 import de.agrirouter.middleware.persistence.jpa.ApplicationRepository;
@@ -40,19 +41,22 @@ public class UpdateSubscriptionsForEndpointEventListener {
     private final MqttClientManagementService mqttClientManagementService;
     private final BusinessOperationLogService businessOperationLogService;
     private final SubscriptionParameterFactory subscriptionParameterFactory;
+    private final OnboardingResponseCache onboardingResponseCache;
 
     public UpdateSubscriptionsForEndpointEventListener(EndpointService endpointService,
                                                        ApplicationRepository applicationRepository,
                                                        MessageWaitingForAcknowledgementService messageWaitingForAcknowledgementService,
                                                        MqttClientManagementService mqttClientManagementService,
                                                        BusinessOperationLogService businessOperationLogService,
-                                                       SubscriptionParameterFactory subscriptionParameterFactory) {
+                                                       SubscriptionParameterFactory subscriptionParameterFactory,
+                                                       OnboardingResponseCache onboardingResponseCache) {
         this.endpointService = endpointService;
         this.applicationRepository = applicationRepository;
         this.mqttClientManagementService = mqttClientManagementService;
         this.messageWaitingForAcknowledgementService = messageWaitingForAcknowledgementService;
         this.businessOperationLogService = businessOperationLogService;
         this.subscriptionParameterFactory = subscriptionParameterFactory;
+        this.onboardingResponseCache = onboardingResponseCache;
     }
 
     /**
@@ -102,7 +106,7 @@ public class UpdateSubscriptionsForEndpointEventListener {
      */
     private void sendSubscriptions(Application application, Endpoint endpoint) {
         log.debug("Update the subscriptions for the endpoint with the id '{}'.", endpoint.getAgrirouterEndpointId());
-        final var onboardingResponse = endpoint.asOnboardingResponse();
+        final var onboardingResponse = onboardingResponseCache.get(endpoint);
         if (Gateway.MQTT.getKey().equals(onboardingResponse.getConnectionCriteria().getGatewayId())) {
             log.debug("Handling MQTT onboard response updates.");
             final var subscriptions = subscriptionParameterFactory.create(application);
@@ -133,7 +137,7 @@ public class UpdateSubscriptionsForEndpointEventListener {
             log.error("No MQTT client found for endpoint with the external endpoint ID '{}'.", endpoint.getExternalEndpointId());
         } else {
             SetSubscriptionParameters parameters = new SetSubscriptionParameters();
-            parameters.setOnboardingResponse(endpoint.asOnboardingResponse());
+            parameters.setOnboardingResponse(onboardingResponseCache.get(endpoint));
             parameters.setSubscriptions(subscriptions);
             SetSubscriptionService setSubscriptionService = new SetSubscriptionServiceImpl(iMqttClient.get());
             final var messageId = setSubscriptionService.send(parameters);
@@ -1,99 +1,157 @@
 package de.agrirouter.middleware.business.scheduled;
 
-import com.dke.data.agrirouter.api.enums.SystemMessageType;
-import com.dke.data.agrirouter.api.service.messaging.mqtt.MessageQueryService;
-import com.dke.data.agrirouter.api.service.parameters.MessageQueryParameters;
-import com.dke.data.agrirouter.impl.messaging.mqtt.MessageQueryServiceImpl;
-import de.agrirouter.middleware.api.errorhandling.error.ErrorMessageFactory;
 import de.agrirouter.middleware.api.logging.BusinessOperationLogService;
 import de.agrirouter.middleware.api.logging.EndpointLogInformation;
 import de.agrirouter.middleware.business.EndpointService;
+import de.agrirouter.middleware.business.ExistingMessagesQueryService;
 import de.agrirouter.middleware.domain.Endpoint;
-import de.agrirouter.middleware.integration.ack.MessageWaitingForAcknowledgement;
-import de.agrirouter.middleware.integration.ack.MessageWaitingForAcknowledgementService;
-import de.agrirouter.middleware.integration.mqtt.MqttClientManagementService;
+import io.github.bucket4j.Bucket;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.RandomUtils;
-import org.apache.commons.lang3.ThreadUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Service for endpoint maintenance.
+ * Fetches and confirms the existing messages of all endpoints once per interval. The interval is divided into slots
+ * and every endpoint is assigned to a slot by the hash of its agrirouter© endpoint ID, so the queries are spread evenly
+ * across the interval and an endpoint keeps its slot between the runs. The endpoints of a slot are fetched with a
+ * limited parallelism and a global limit for the queries per second, endpoints that have already been fetched within
+ * the interval are skipped.
  */
 @Slf4j
 @Service
 public class ScheduledFetchingAndConfirmingForExistingMessages {
 
+    private final AtomicLong lastFetchedSlot = new AtomicLong(-1);
+
     private final EndpointService endpointService;
-    private final MessageWaitingForAcknowledgementService messageWaitingForAcknowledgementService;
-    private final MqttClientManagementService mqttClientManagementService;
+    private final ExistingMessagesQueryService existingMessagesQueryService;
     private final BusinessOperationLogService businessOperationLogService;
+    private final Duration interval;
+    private final Duration slotLength;
+    private final int numberOfSlots;
+    private final Semaphore parallelFetches;
+    private final Bucket queries;
 
-    @Value("${app.scheduled.sleep-time-between-queries-seconds}")
-    private long sleepTimeBetweenQueries;
-
-    @Value("${app.scheduled.random-delay-minutes}")
-    private long randomDelayForTheStartOfTheScheduledTask;
+    private Clock clock = Clock.systemUTC();
 
     public ScheduledFetchingAndConfirmingForExistingMessages(EndpointService endpointService,
-                                                             MessageWaitingForAcknowledgementService messageWaitingForAcknowledgementService,
-                                                             MqttClientManagementService mqttClientManagementService,
-                                                             BusinessOperationLogService businessOperationLogService) {
+                                                             ExistingMessagesQueryService existingMessagesQueryService,
+                                                             BusinessOperationLogService businessOperationLogService,
+                                                             @Value("${app.scheduled.existing-messages.interval-minutes}") long intervalInMinutes,
+                                                             @Value("${app.scheduled.existing-messages.slot-seconds}") long slotInSeconds,
+                                                             @Value("${app.scheduled.existing-messages.parallelism}") int parallelism,
+                                                             @Value("${app.scheduled.existing-messages.queries-per-second}") int queriesPerSecond) {
+        if (slotInSeconds < 1 || intervalInMinutes * 60 < slotInSeconds) {
+            throw new IllegalArgumentException("The slot for fetching the existing messages has to be at least a second and must not be longer than the interval.");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The parallelism for fetching the existing messages has to be at least 1.");
+        }
+        if (queriesPerSecond < 1) {
+            throw new IllegalArgumentException("The number of queries per second for fetching the existing messages has to be at least 1.");
+        }
         this.endpointService = endpointService;
-        this.mqttClientManagementService = mqttClientManagementService;
-        this.messageWaitingForAcknowledgementService = messageWaitingForAcknowledgementService;
+        this.existingMessagesQueryService = existingMessagesQueryService;
         this.businessOperationLogService = businessOperationLogService;
+        this.interval = Duration.ofMinutes(intervalInMinutes);
+        this.slotLength = Duration.ofSeconds(slotInSeconds);
+        this.numberOfSlots = (int) (interval.toSeconds() / slotInSeconds);
+        this.parallelFetches = new Semaphore(parallelism);
+        this.queries = Bucket.builder()
+                .addLimit(limit -> limit.capacity(queriesPerSecond).refillGreedy(queriesPerSecond, Duration.ofSeconds(1)))
+                .build();
     }
 
     /**
-     * Schedule the fetching and confirming of the existing messages in a cyclic manner.
+     * Fetch the endpoints of the current slot, the scheduler thread is not blocked while fetching.
      */
-    @Scheduled(cron = "${app.scheduled.fetching-and-confirming-existing-messages}")
+    @Scheduled(fixedDelayString = "${app.scheduled.existing-messages.slot-seconds}", timeUnit = TimeUnit.SECONDS)
     public void scheduleFetchingAndConfirmingExistingMessagesForAllEndpoints() {
-            try {
-                long waitTime = RandomUtils.nextLong(1, randomDelayForTheStartOfTheScheduledTask);
-                log.debug("Sleeping for {} minutes before fetching and confirming existing messages.", waitTime);
-                ThreadUtils.sleep(Duration.ofMinutes(waitTime));
-            } catch (InterruptedException e) {
-                log.error("Could not sleep before fetching and confirming existing messages.");
+        Thread.ofVirtual().name("existing-messages-slot").start(this::fetchDueSlots);
+    }
+
+    /**
+     * Fetch the endpoints of all slots that have been due since the last run, so no slot is left out if a run has
+     * been delayed. After a (re)start only the current slot is fetched.
+     */
+    void fetchDueSlots() {
+        final var now = clock.instant();
+        final var currentSlot = now.getEpochSecond() / slotLength.toSeconds();
+        long previousSlot;
+        do {
+            previousSlot = lastFetchedSlot.get();
+            if (previousSlot >= currentSlot) {
+                log.debug("The slot {} has already been fetched.", currentSlot);
+                return;
             }
-            log.debug("Scheduled fetching and confirming for existing messages.");
-            endpointService.findAll().stream().filter(endpoint -> !endpoint.isDeactivated()).forEach(endpoint -> {
-                this.fetchAndConfirmExistingMessages(endpoint);
-                businessOperationLogService.log(new EndpointLogInformation(endpoint.getExternalEndpointId(), endpoint.getAgrirouterEndpointId()), "Scheduled fetching and confirming of existing messages.");
-                try {
-                    ThreadUtils.sleep(Duration.ofSeconds(sleepTimeBetweenQueries));
-                } catch (InterruptedException e) {
-                    log.error("Could not sleep between queries.");
-                }
-            });
+        } while (!lastFetchedSlot.compareAndSet(previousSlot, currentSlot));
+        final var firstSlot = previousSlot < 0 ? currentSlot : Math.max(previousSlot + 1, currentSlot - numberOfSlots + 1);
+        final Set<Integer> dueSlots = new HashSet<>();
+        for (long slot = firstSlot; slot <= currentSlot; slot++) {
+            dueSlots.add((int) (slot % numberOfSlots));
+        }
+        final var endpoints = endpointService.findAll().stream()
+                .filter(endpoint -> !endpoint.isDeactivated())
+                .filter(endpoint -> dueSlots.contains(slotOf(endpoint.getAgrirouterEndpointId())))
+                .filter(endpoint -> !hasBeenFetchedWithinTheInterval(endpoint, now))
+                .toList();
+        log.debug("Fetching and confirming existing messages for {} endpoints in the slots {}.", endpoints.size(), dueSlots);
+        fetch(endpoints);
+    }
+
+    /**
+     * The slot of the endpoint within the interval.
+     *
+     * @param agrirouterEndpointId The agrirouter© endpoint ID.
+     * @return The slot, between 0 and the number of slots.
+     */
+    int slotOf(String agrirouterEndpointId) {
+        final var hash = UUID.nameUUIDFromBytes(agrirouterEndpointId.getBytes(StandardCharsets.UTF_8)).getMostSignificantBits();
+        return Math.floorMod(hash, numberOfSlots);
     }
 
-    private void fetchAndConfirmExistingMessages(Endpoint endpoint) {
-        log.debug("Fetching and confirming existing messages for endpoint '{}'.", endpoint.getExternalEndpointId());
-        final var iMqttClient = mqttClientManagementService.get(endpoint);
-        if (iMqttClient.isEmpty()) {
-            log.error(ErrorMessageFactory.couldNotConnectMqttClient(endpoint.asOnboardingResponse().getSensorAlternateId()).asLogMessage());
-        } else {
-            MessageQueryService messageQueryService = new MessageQueryServiceImpl(iMqttClient.get());
-            final var parameters = new MessageQueryParameters();
-            parameters.setSentFromInSeconds(Instant.now().minus(28, ChronoUnit.DAYS).getEpochSecond());
-            parameters.setSentToInSeconds(Instant.now().getEpochSecond());
-            parameters.setOnboardingResponse(endpoint.asOnboardingResponse());
-            final var messageId = messageQueryService.send(parameters);
+    private boolean hasBeenFetchedWithinTheInterval(Endpoint endpoint, Instant now) {
+        // The endpoint is due again one interval after the last fetching, one slot is left as tolerance for delayed runs.
+        final var startOfTheInterval = now.minus(interval).plus(slotLength);
+        return existingMessagesQueryService.getLastFetch(endpoint.getAgrirouterEndpointId())
+                .map(lastFetch -> lastFetch.isAfter(startOfTheInterval))
+                .orElse(false);
+    }
 
-            log.debug("Saving message with ID '{}'  waiting for ACK.", messageId);
-            MessageWaitingForAcknowledgement messageWaitingForAcknowledgement = new MessageWaitingForAcknowledgement();
-            messageWaitingForAcknowledgement.setAgrirouterEndpointId(endpoint.getAgrirouterEndpointId());
-            messageWaitingForAcknowledgement.setMessageId(messageId);
-            messageWaitingForAcknowledgement.setTechnicalMessageType(SystemMessageType.DKE_FEED_MESSAGE_QUERY.getKey());
-            messageWaitingForAcknowledgementService.save(messageWaitingForAcknowledgement);
+    private void fetch(List<Endpoint> endpoints) {
+        try (var executorService = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Endpoint endpoint : endpoints) {
+                parallelFetches.acquire();
+                queries.asBlocking().consume(1);
+                executorService.execute(() -> {
+                    try {
+                        if (existingMessagesQueryService.fetchAndConfirmExistingMessages(endpoint)) {
+                            businessOperationLogService.log(new EndpointLogInformation(endpoint.getExternalEndpointId(), endpoint.getAgrirouterEndpointId()), "Scheduled fetching and confirming of existing messages.");
+                        }
+                    } catch (Exception e) {
+                        log.error("Could not fetch and confirm the existing messages for the endpoint '{}'.", endpoint.getAgrirouterEndpointId(), e);
+                    } finally {
+                        parallelFetches.release();
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            log.error("Interrupted while fetching and confirming existing messages, the remaining endpoints are fetched within the next interval.");
+            Thread.currentThread().interrupt();
         }
     }
 
@@ -0,0 +1,35 @@
+package de.agrirouter.middleware.business.scheduled;
+
+import de.agrirouter.middleware.persistence.jpa.ContentMessageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Remove the payloads that are no longer referenced by any content message.
+ */
+@Slf4j
+@Component
+public class ScheduledPayloadSweep {
+
+    private final ContentMessageRepository contentMessageRepository;
+
+    public ScheduledPayloadSweep(ContentMessageRepository contentMessageRepository) {
+        this.contentMessageRepository = contentMessageRepository;
+    }
+
+    /**
+     * Sweep the payload stores.
+     */
+    @Scheduled(cron = "${app.scheduled.payload-sweep}")
+    public void sweepUnreferencedPayloads() {
+        log.debug("Sweeping the payloads that are no longer referenced.");
+        try {
+            contentMessageRepository.sweepUnreferencedPayloads();
+        } catch (IOException e) {
+            log.error("Could not sweep the payloads that are no longer referenced.", e);
+        }
+    }
+}
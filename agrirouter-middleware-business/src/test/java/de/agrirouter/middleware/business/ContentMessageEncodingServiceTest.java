@@ -0,0 +1,129 @@
+package de.agrirouter.middleware.business;
+
+import com.google.protobuf.ByteString;
+import de.agrirouter.middleware.domain.ContentMessage;
+import de.agrirouter.middleware.domain.ContentMessageMetadata;
+import de.agrirouter.middleware.domain.enums.ContentMessageEncoding;
+import de.agrirouter.middleware.domain.enums.TemporaryContentMessageType;
+import de.agrirouter.middleware.persistence.payload.FileSystemPayloadStore;
+import de.agrirouter.middleware.persistence.payload.JpaPayloadStore;
+import de.agrirouter.middleware.persistence.payload.PayloadStores;
+import org.apache.commons.codec.binary.Base64;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentMessageEncodingServiceTest {
+
+    private static final int FILE_SYSTEM_THRESHOLD = 1024 * 1024;
+
+    @TempDir
+    private Path directory;
+
+    private ContentMessageEncodingService contentMessageEncodingService;
+
+    @BeforeEach
+    void setUp() {
+        var payloadStores = new PayloadStores(List.of(new JpaPayloadStore(null), new FileSystemPayloadStore(directory, 60)), FILE_SYSTEM_THRESHOLD);
+        contentMessageEncodingService = new ContentMessageEncodingService(payloadStores);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1024, 1024 * 1024, 10 * 1024 * 1024})
+    void givenBase64EncodedMessageAndBinaryStorageMode_whenSettingTheMessageContent_thenTheDecodedContentIsStored(int payloadSize) {
+        ReflectionTestUtils.setField(contentMessageEncodingService, "storageMode", ContentMessageEncoding.BINARY);
+        var payload = createPayload(payloadSize);
+        var contentMessage = createContentMessage(TemporaryContentMessageType.ISO_11783_TASKDATA_ZIP.getKey());
+
+        contentMessageEncodingService.setMessageContent(contentMessage, ByteString.copyFrom(Base64.encodeBase64(payload)));
+
+        assertThat(contentMessage.getContentEncoding()).isEqualTo(ContentMessageEncoding.BINARY);
+        if (payloadSize > FILE_SYSTEM_THRESHOLD) {
+            assertThat(contentMessage.getPayloadStore()).isEqualTo(FileSystemPayloadStore.NAME);
+            assertThat(contentMessage.getMessageContent()).isEmpty();
+        } else {
+            assertThat(contentMessage.getPayloadStore()).isEqualTo(JpaPayloadStore.NAME);
+            assertThat(contentMessage.getMessageContent()).hasSize(payloadSize).isEqualTo(payload);
+        }
+        assertThat(contentMessageEncodingService.getDecodedMessageContent(contentMessage)).isEqualTo(payload);
+    }
+
+    @Test
+    void givenLargeProtobufMessage_whenSettingTheMessageContent_thenTheContentIsKeptWithinTheDatabase() {
+        var payload = createPayload(2 * FILE_SYSTEM_THRESHOLD);
+        var contentMessage = createContentMessage(TemporaryContentMessageType.ISO_11783_DEVICE_DESCRIPTION.getKey());
+
+        contentMessageEncodingService.setMessageContent(contentMessage, ByteString.copyFrom(payload));
+
+        assertThat(contentMessage.getPayloadStore()).isEqualTo(JpaPayloadStore.NAME);
+        assertThat(contentMessage.getMessageContent()).isEqualTo(payload);
+    }
+
+    @Test
+    void givenBase64EncodedMessageAndBase64StorageMode_whenSettingTheMessageContent_thenTheContentIsStoredAsReceived() {
+        ReflectionTestUtils.setField(contentMessageEncodingService, "storageMode", ContentMessageEncoding.BASE64);
+        var payload = createPayload(1024);
+        var contentMessage = createContentMessage(TemporaryContentMessageType.DOC_PDF.getKey());
+
+        contentMessageEncodingService.setMessageContent(contentMessage, ByteString.copyFrom(Base64.encodeBase64(payload)));
+
+        assertThat(contentMessage.getContentEncoding()).isEqualTo(ContentMessageEncoding.BASE64);
+        assertThat(contentMessage.getMessageContent()).isEqualTo(Base64.encodeBase64(payload));
+        assertThat(contentMessageEncodingService.getDecodedMessageContent(contentMessage)).isEqualTo(payload);
+    }
+
+    @Test
+    void givenProtobufMessage_whenSettingTheMessageContent_thenTheContentIsStoredAsReceived() {
+        ReflectionTestUtils.setField(contentMessageEncodingService, "storageMode", ContentMessageEncoding.BINARY);
+        var payload = createPayload(1024);
+        var contentMessage = createContentMessage(TemporaryContentMessageType.ISO_11783_TIME_LOG.getKey());
+
+        contentMessageEncodingService.setMessageContent(contentMessage, ByteString.copyFrom(payload));
+
+        assertThat(contentMessage.getContentEncoding()).isEqualTo(ContentMessageEncoding.BINARY);
+        assertThat(contentMessage.getMessageContent()).isEqualTo(payload);
+    }
+
+    @Test
+    void givenUnknownTechnicalMessageType_whenCheckingTheEncoding_thenTheContentIsBase64Encoded() {
+        assertThat(ContentMessageEncodingService.isBase64Encoded("some:unknownType")).isTrue();
+        assertThat(ContentMessageEncodingService.isBase64Encoded(TemporaryContentMessageType.GPS_INFO.getKey())).isFalse();
+    }
+
+    @Test
+    void givenStoredContentInBothFormats_whenDecoding_thenTheContentIsTheSame() throws IOException {
+        var payload = createPayload(1024);
+
+        try (var fromBase64 = contentMessageEncodingService.decode(new ByteArrayInputStream(Base64.encodeBase64Chunked(payload)), ContentMessageEncoding.BASE64);
+             var fromBinary = contentMessageEncodingService.decode(new ByteArrayInputStream(payload), ContentMessageEncoding.BINARY)) {
+            assertThat(fromBase64.readAllBytes()).isEqualTo(payload);
+            assertThat(fromBinary.readAllBytes()).isEqualTo(payload);
+        }
+    }
+
+    private static ContentMessage createContentMessage(String technicalMessageType) {
+        var contentMessageMetadata = new ContentMessageMetadata();
+        contentMessageMetadata.setTechnicalMessageType(technicalMessageType);
+        var contentMessage = new ContentMessage();
+        contentMessage.setContentMessageMetadata(contentMessageMetadata);
+        return contentMessage;
+    }
+
+    private static byte[] createPayload(int size) {
+        var payload = new byte[size];
+        new Random(42).nextBytes(payload);
+        return payload;
+    }
+
+}
@@ -0,0 +1,209 @@
+package de.agrirouter.middleware.business;
+
+import agrirouter.response.Response;
+import com.dke.data.agrirouter.api.dto.encoding.DecodeMessageResponse;
+import de.agrirouter.middleware.api.errorhandling.BusinessException;
+import de.agrirouter.middleware.business.cache.endpoints.AgrirouterEndpointIdCache;
+import de.agrirouter.middleware.business.cache.endpoints.InternalEndpointCache;
+import de.agrirouter.middleware.domain.Endpoint;
+import de.agrirouter.middleware.integration.cache.OnboardingResponseCache;
+import de.agrirouter.middleware.integration.mqtt.MessageCorrelationRegistry;
+import de.agrirouter.middleware.integration.mqtt.health.HealthStatusIntegrationService;
+import de.agrirouter.middleware.integration.mqtt.health.HealthStatusMessage;
+import de.agrirouter.middleware.integration.mqtt.health.HealthStatusWithLastKnownHealthyStatus;
+import de.agrirouter.middleware.persistence.jpa.EndpointRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class EndpointServiceTest {
+
+    private static final int NUMBER_OF_HEALTH_CHECKS = 1_000;
+    private static final int NUMBER_OF_THREADS = 4;
+    private static final long RESPONSE_DELAY_IN_MILLISECONDS = 100;
+    private static final int NUMBER_OF_PUSHES = 10_000;
+    private static final int NUMBER_OF_ENDPOINTS = 10;
+
+    private final InternalEndpointCache internalEndpointCache = new InternalEndpointCache(10_000, 3600);
+    private final EndpointRepository endpointRepository = mock(EndpointRepository.class);
+    private final HealthStatusIntegrationService healthStatusIntegrationService = mock(HealthStatusIntegrationService.class);
+    private final MessageCorrelationRegistry messageCorrelationRegistry = new MessageCorrelationRegistry();
+    private final ScheduledExecutorService agrirouter = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService callers = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+
+    private EndpointService endpointService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(messageCorrelationRegistry, "responseTimeout", 1500L);
+        endpointService = createEndpointService(new AgrirouterEndpointIdCache(10_000, 3600));
+        for (int i = 0; i < NUMBER_OF_HEALTH_CHECKS; i++) {
+            var endpoint = new Endpoint();
+            endpoint.setExternalEndpointId("external-endpoint-" + i);
+            endpoint.setAgrirouterEndpointId("agrirouter-endpoint-" + i);
+            internalEndpointCache.put(endpoint.getExternalEndpointId(), endpoint);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        agrirouter.shutdownNow();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void givenManyConcurrentHealthChecksWhenTheAgrirouterAnswersThenAllChecksShouldCompleteWithASmallThreadPool() throws Exception {
+        when(healthStatusIntegrationService.publishHealthStatusMessage(any())).thenAnswer(invocation -> {
+            var endpoint = invocation.getArgument(0, Endpoint.class);
+            var messageId = "message-" + endpoint.getAgrirouterEndpointId();
+            var pendingResponse = messageCorrelationRegistry.register(messageId);
+            var decodeMessageResponse = createResponse(messageId, Response.ResponseEnvelope.ResponseBodyType.ACK);
+            agrirouter.schedule(() -> messageCorrelationRegistry.complete(decodeMessageResponse), RESPONSE_DELAY_IN_MILLISECONDS, TimeUnit.MILLISECONDS);
+            return pendingResponse.thenApply(response -> HealthStatusMessage.builder()
+                    .agrirouterEndpointId(endpoint.getAgrirouterEndpointId())
+                    .messageId(messageId)
+                    .hasBeenReturned(true)
+                    .healthStatus(response.getResponseEnvelope().getType())
+                    .build());
+        });
+
+        var start = System.nanoTime();
+        var healthChecks = startHealthChecks();
+        CompletableFuture.allOf(healthChecks.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        var durationInMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(healthChecks).allSatisfy(healthCheck -> assertThat(healthCheck.join().healthStatus()).isEqualTo(HttpStatus.OK));
+        assertThat(durationInMillis).isLessThan(NUMBER_OF_HEALTH_CHECKS * RESPONSE_DELAY_IN_MILLISECONDS / NUMBER_OF_THREADS);
+        assertThat(messageCorrelationRegistry.getNumberOfPendingResponses()).isZero();
+        verify(healthStatusIntegrationService, times(NUMBER_OF_HEALTH_CHECKS)).setLastKnownHealthyStatus(any());
+    }
+
+    @Test
+    void givenHealthCheckWhenTheAgrirouterDoesNotAnswerThenTheHealthStatusShouldBeAnError() {
+        ReflectionTestUtils.setField(messageCorrelationRegistry, "responseTimeout", 50L);
+        when(healthStatusIntegrationService.publishHealthStatusMessage(any()))
+                .thenAnswer(invocation -> messageCorrelationRegistry.register("message-without-response")
+                        .thenApply(response -> HealthStatusMessage.builder().build()));
+
+        var healthStatus = endpointService.determineHealthStatus("external-endpoint-0");
+
+        assertThat(healthStatus.healthStatus()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+        assertThat(messageCorrelationRegistry.getNumberOfPendingResponses()).isZero();
+        verify(healthStatusIntegrationService, never()).setLastKnownHealthyStatus(any());
+    }
+
+    @Test
+    void givenUnknownEndpointWhenDeterminingTheHealthStatusThenTheHealthStatusShouldBeNotFound() {
+        var healthStatus = endpointService.determineHealthStatus("unknown-external-endpoint");
+
+        assertThat(healthStatus.healthStatus()).isEqualTo(HttpStatus.NOT_FOUND);
+        verifyNoInteractions(healthStatusIntegrationService);
+    }
+
+    @Test
+    void givenManyPushesForFewEndpointsWhenLookingUpTheEndpointsThenTheDatabaseIsOnlyQueriedOncePerEndpoint() {
+        when(endpointRepository.findByAgrirouterEndpointId(anyString())).thenAnswer(invocation -> Optional.of(createEndpoint(invocation.getArgument(0))));
+        var endpointServiceWithoutCache = createEndpointService(new AgrirouterEndpointIdCache(0, 3600));
+
+        lookUpEndpointsForPushes(endpointServiceWithoutCache);
+        var selectsWithoutCache = mockingDetails(endpointRepository).getInvocations().size();
+        clearInvocations(endpointRepository);
+        lookUpEndpointsForPushes(endpointService);
+        var selectsWithCache = mockingDetails(endpointRepository).getInvocations().size();
+
+        assertThat(selectsWithoutCache).isEqualTo(NUMBER_OF_PUSHES);
+        assertThat(selectsWithCache).isEqualTo(NUMBER_OF_ENDPOINTS);
+    }
+
+    @Test
+    void givenACachedEndpointWhenSavingTheEndpointThenTheSavedEndpointIsReturnedWithoutQueryingTheDatabase() {
+        when(endpointRepository.findByAgrirouterEndpointId(anyString())).thenAnswer(invocation -> Optional.of(createEndpoint(invocation.getArgument(0))));
+        when(endpointRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        endpointService.findByAgrirouterEndpointId("agrirouter-endpoint-0");
+        var changedEndpoint = createEndpoint("agrirouter-endpoint-0");
+        changedEndpoint.setDeactivated(true);
+
+        endpointService.save(changedEndpoint);
+
+        assertThat(endpointService.findByAgrirouterEndpointId("agrirouter-endpoint-0")).isSameAs(changedEndpoint);
+        verify(endpointRepository, times(1)).findByAgrirouterEndpointId("agrirouter-endpoint-0");
+    }
+
+    @Test
+    void givenUnknownEndpointWhenLookingItUpTwiceThenTheDatabaseIsQueriedTwice() {
+        when(endpointRepository.findByAgrirouterEndpointId(anyString())).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> endpointService.findByAgrirouterEndpointId("unknown-agrirouter-endpoint")).isInstanceOf(BusinessException.class);
+        assertThatThrownBy(() -> endpointService.findByAgrirouterEndpointId("unknown-agrirouter-endpoint")).isInstanceOf(BusinessException.class);
+
+        verify(endpointRepository, times(2)).findByAgrirouterEndpointId("unknown-agrirouter-endpoint");
+    }
+
+    private EndpointService createEndpointService(AgrirouterEndpointIdCache agrirouterEndpointIdCache) {
+        return new EndpointService(endpointRepository,
+                null,
+                null,
+                null,
+                null,
+                healthStatusIntegrationService,
+                null,
+                null,
+                null,
+                null,
+                null,
+                internalEndpointCache,
+                agrirouterEndpointIdCache,
+                null,
+                new OnboardingResponseCache(100, 0));
+    }
+
+    private static void lookUpEndpointsForPushes(EndpointService endpointService) {
+        for (int i = 0; i < NUMBER_OF_PUSHES; i++) {
+            var agrirouterEndpointId = "agrirouter-endpoint-" + (i % NUMBER_OF_ENDPOINTS);
+            assertThat(endpointService.findByAgrirouterEndpointId(agrirouterEndpointId).getAgrirouterEndpointId()).isEqualTo(agrirouterEndpointId);
+        }
+    }
+
+    private static Endpoint createEndpoint(String agrirouterEndpointId) {
+        var endpoint = new Endpoint();
+        endpoint.setAgrirouterEndpointId(agrirouterEndpointId);
+        endpoint.setExternalEndpointId("external-" + agrirouterEndpointId);
+        return endpoint;
+    }
+
+    private List<CompletableFuture<HealthStatusWithLastKnownHealthyStatus>> startHealthChecks() throws InterruptedException, ExecutionException {
+        var submittedHealthChecks = new ArrayList<Future<CompletableFuture<HealthStatusWithLastKnownHealthyStatus>>>();
+        for (int i = 0; i < NUMBER_OF_HEALTH_CHECKS; i++) {
+            var externalEndpointId = "external-endpoint-" + i;
+            submittedHealthChecks.add(callers.submit(() -> endpointService.determineHealthStatusAsync(externalEndpointId)));
+        }
+        var healthChecks = new ArrayList<CompletableFuture<HealthStatusWithLastKnownHealthyStatus>>();
+        for (var submittedHealthCheck : submittedHealthChecks) {
+            healthChecks.add(submittedHealthCheck.get());
+        }
+        return healthChecks;
+    }
+
+    private static DecodeMessageResponse createResponse(String messageId, Response.ResponseEnvelope.ResponseBodyType responseBodyType) {
+        var decodeMessageResponse = mock(DecodeMessageResponse.class);
+        when(decodeMessageResponse.getResponseEnvelope()).thenReturn(Response.ResponseEnvelope.newBuilder()
+                .setApplicationMessageId(messageId)
+                .setType(responseBodyType)
+                .build());
+        return decodeMessageResponse;
+    }
+
+}
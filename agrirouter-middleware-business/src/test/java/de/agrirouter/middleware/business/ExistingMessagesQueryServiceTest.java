@@ -0,0 +1,337 @@
+package de.agrirouter.middleware.business;
+
+import de.agrirouter.middleware.api.errorhandling.BusinessException;
+import de.agrirouter.middleware.api.errorhandling.error.ErrorMessageFactory;
+import de.agrirouter.middleware.domain.Endpoint;
+import de.agrirouter.middleware.integration.SendMessageIntegrationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExistingMessagesQueryServiceTest {
+
+    private static final int MAX_COUNT_RESTRICTION = 500;
+    private static final int PARALLEL_QUERIES_PER_ENDPOINT = 4;
+    private static final int NUMBER_OF_MESSAGES = 100_000;
+
+    private final FakeAgrirouter agrirouter = new FakeAgrirouter();
+    private final ConfirmingMessageConfirmationAggregator messageConfirmationAggregator = new ConfirmingMessageConfirmationAggregator(agrirouter);
+    private final ExistingMessagesQueryService existingMessagesQueryService = new ExistingMessagesQueryService(agrirouter, messageConfirmationAggregator, PARALLEL_QUERIES_PER_ENDPOINT, 900);
+    private final Endpoint endpoint = createEndpoint();
+
+    @AfterEach
+    void tearDown() {
+        messageConfirmationAggregator.flushAll();
+    }
+
+    @Test
+    void givenEvenlyDistributedMessages_whenFetching_thenEveryMessageIsDownloadedOnceWithFewerRoundTripsThanRequerying() {
+        var random = new Random(42);
+        var now = Instant.now().getEpochSecond();
+        var period = ChronoUnit.DAYS.getDuration().getSeconds() * ExistingMessagesQueryService.QUERY_PERIOD_IN_DAYS;
+        for (int i = 0; i < NUMBER_OF_MESSAGES; i++) {
+            agrirouter.addMessage(now - random.nextLong(period));
+        }
+
+        var roundTrips = fetchAll();
+
+        assertEveryMessageHasBeenDownloadedOnce();
+        // Requerying the whole period takes one round trip for every 500 messages.
+        assertThat(roundTrips).isLessThan(NUMBER_OF_MESSAGES / MAX_COUNT_RESTRICTION / 2);
+        assertThat(agrirouter.getNumberOfQueries()).isLessThan(2 * NUMBER_OF_MESSAGES / MAX_COUNT_RESTRICTION);
+        assertThat(agrirouter.getMaximumNumberOfQueriesInFlight()).isEqualTo(PARALLEL_QUERIES_PER_ENDPOINT);
+    }
+
+    @Test
+    void givenMostMessagesWithinTheLastDays_whenFetching_thenEveryMessageIsDownloadedOnceWithFewerRoundTripsThanRequerying() {
+        var random = new Random(42);
+        var now = Instant.now().getEpochSecond();
+        var period = ChronoUnit.DAYS.getDuration().getSeconds() * ExistingMessagesQueryService.QUERY_PERIOD_IN_DAYS;
+        var lastTwoDays = ChronoUnit.DAYS.getDuration().getSeconds() * 2;
+        for (int i = 0; i < NUMBER_OF_MESSAGES; i++) {
+            agrirouter.addMessage(now - random.nextLong(i % 10 < 7 ? lastTwoDays : period));
+        }
+
+        var roundTrips = fetchAll();
+
+        assertEveryMessageHasBeenDownloadedOnce();
+        assertThat(roundTrips).isLessThan(NUMBER_OF_MESSAGES / MAX_COUNT_RESTRICTION);
+        assertThat(agrirouter.getNumberOfQueries()).isLessThan(3 * NUMBER_OF_MESSAGES / MAX_COUNT_RESTRICTION);
+        assertThat(agrirouter.getMaximumNumberOfQueriesInFlight()).isLessThanOrEqualTo(PARALLEL_QUERIES_PER_ENDPOINT);
+    }
+
+    @Test
+    void givenMoreMessagesWithinASingleSecondThanTheMaximum_whenFetching_thenTheSecondIsQueriedAgain() {
+        var now = Instant.now().getEpochSecond();
+        for (int i = 0; i < 3 * MAX_COUNT_RESTRICTION; i++) {
+            agrirouter.addMessage(now - 60);
+        }
+
+        fetchAll();
+
+        assertEveryMessageHasBeenDownloadedOnce();
+    }
+
+    @Test
+    void givenTheMessagesAreAlreadyBeingFetched_whenFetchingAgain_thenNoFurtherQueryIsSent() {
+        agrirouter.addMessage(Instant.now().getEpochSecond() - 60);
+
+        assertThat(existingMessagesQueryService.fetchAndConfirmExistingMessages(endpoint)).isTrue();
+        assertThat(existingMessagesQueryService.fetchAndConfirmExistingMessages(endpoint)).isFalse();
+
+        assertThat(agrirouter.getNumberOfQueries()).isEqualTo(1);
+        respond(agrirouter.takeResponses());
+        assertThat(existingMessagesQueryService.isFetching(endpoint.getAgrirouterEndpointId())).isFalse();
+    }
+
+    @Test
+    void givenAResultOfAnUnknownQueryWithMoreMessages_whenReceived_thenTheExistingMessagesAreFetched() {
+        agrirouter.addMessage(Instant.now().getEpochSecond() - 60);
+
+        existingMessagesQueryService.queryResultReceived(endpoint, "unknown-query", MAX_COUNT_RESTRICTION + 1, MAX_COUNT_RESTRICTION, MAX_COUNT_RESTRICTION, 1);
+
+        assertThat(existingMessagesQueryService.isFetching(endpoint.getAgrirouterEndpointId())).isTrue();
+        assertThat(agrirouter.getNumberOfQueries()).isEqualTo(1);
+    }
+
+    @Test
+    void givenAResultOfAnUnknownQueryWithoutMoreMessages_whenReceived_thenNothingIsFetched() {
+        existingMessagesQueryService.queryResultReceived(endpoint, "unknown-query", 10, MAX_COUNT_RESTRICTION, 10, 1);
+
+        assertThat(existingMessagesQueryService.isFetching(endpoint.getAgrirouterEndpointId())).isFalse();
+        assertThat(agrirouter.getNumberOfQueries()).isZero();
+    }
+
+    @Test
+    void givenAResultWithSeveralPages_whenReceivingTheFirstPage_thenTheWindowIsNotSplitBeforeTheLastPage() {
+        var now = Instant.now().getEpochSecond();
+        for (int i = 0; i < 3 * MAX_COUNT_RESTRICTION; i++) {
+            agrirouter.addMessage(now - 60 - i);
+        }
+        existingMessagesQueryService.fetchAndConfirmExistingMessages(endpoint);
+        var response = agrirouter.takeResponses().getFirst();
+        var firstPage = response.messageIds().subList(0, 100);
+        var lastPage = response.messageIds().subList(100, response.messageIds().size());
+
+        messageConfirmationAggregator.confirm(endpoint.getAgrirouterEndpointId(), firstPage);
+        existingMessagesQueryService.queryResultReceived(endpoint, response.queryMessageId(), response.totalMessagesInQuery(), MAX_COUNT_RESTRICTION, firstPage.size(), 2);
+
+        assertThat(agrirouter.getNumberOfQueries()).isEqualTo(1);
+        assertThat(existingMessagesQueryService.isFetching(endpoint.getAgrirouterEndpointId())).isTrue();
+
+        agrirouter.answered();
+        messageConfirmationAggregator.confirm(endpoint.getAgrirouterEndpointId(), lastPage);
+        existingMessagesQueryService.queryResultReceived(endpoint, response.queryMessageId(), response.totalMessagesInQuery(), MAX_COUNT_RESTRICTION, lastPage.size(), 2);
+
+        // The window is split into three windows for the remaining 1000 messages.
+        assertThat(agrirouter.getNumberOfQueries()).isEqualTo(4);
+        var roundTrips = agrirouter.takeResponses();
+        while (!roundTrips.isEmpty()) {
+            respond(roundTrips);
+            roundTrips = agrirouter.takeResponses();
+        }
+        assertThat(existingMessagesQueryService.isFetching(endpoint.getAgrirouterEndpointId())).isFalse();
+        assertEveryMessageHasBeenDownloadedOnce();
+    }
+
+    @Test
+    void givenACompleteResultWithSeveralPages_whenReceivingTheFirstPage_thenTheWindowIsNotCompletedBeforeTheLastPage() {
+        agrirouter.addMessage(Instant.now().getEpochSecond() - 60);
+        existingMessagesQueryService.fetchAndConfirmExistingMessages(endpoint);
+        var response = agrirouter.takeResponses().getFirst();
+
+        existingMessagesQueryService.queryResultReceived(endpoint, response.queryMessageId(), response.totalMessagesInQuery(), MAX_COUNT_RESTRICTION, 0, 2);
+        assertThat(existingMessagesQueryService.isFetching(endpoint.getAgrirouterEndpointId())).isTrue();
+
+        existingMessagesQueryService.queryResultReceived(endpoint, response.queryMessageId(), response.totalMessagesInQuery(), MAX_COUNT_RESTRICTION, 1, 2);
+        assertThat(existingMessagesQueryService.isFetching(endpoint.getAgrirouterEndpointId())).isFalse();
+    }
+
+    @Test
+    void givenTheEndpointIsNotConnected_whenFetching_thenTheFetchingIsAborted() {
+        agrirouter.disconnect();
+
+        existingMessagesQueryService.fetchAndConfirmExistingMessages(endpoint);
+
+        assertThat(existingMessagesQueryService.isFetching(endpoint.getAgrirouterEndpointId())).isFalse();
+    }
+
+    @Test
+    void givenAWindow_whenSplitting_thenTheWindowsHaveNoGapsOrOverlaps() {
+        var queryWindow = new ExistingMessagesQueryService.QueryWindow(100, 209);
+
+        var windows = queryWindow.split(4);
+
+        assertThat(windows).containsExactly(
+                new ExistingMessagesQueryService.QueryWindow(100, 127),
+                new ExistingMessagesQueryService.QueryWindow(128, 155),
+                new ExistingMessagesQueryService.QueryWindow(156, 182),
+                new ExistingMessagesQueryService.QueryWindow(183, 209));
+        assertThat(new ExistingMessagesQueryService.QueryWindow(100, 101).split(4)).hasSize(2);
+        assertThat(new ExistingMessagesQueryService.QueryWindow(100, 100).split(4)).containsExactly(new ExistingMessagesQueryService.QueryWindow(100, 100));
+    }
+
+    /**
+     * Answer the queries until all messages have been fetched, the queries in flight are answered at once.
+     *
+     * @return The number of round trips.
+     */
+    private int fetchAll() {
+        existingMessagesQueryService.fetchAndConfirmExistingMessages(endpoint);
+        var roundTrips = 0;
+        var responses = agrirouter.takeResponses();
+        while (!responses.isEmpty()) {
+            roundTrips++;
+            respond(responses);
+            responses = agrirouter.takeResponses();
+        }
+        assertThat(existingMessagesQueryService.isFetching(endpoint.getAgrirouterEndpointId())).isFalse();
+        return roundTrips;
+    }
+
+    /**
+     * Handle the responses like the listener for the query results does.
+     */
+    private void respond(List<QueryResponse> responses) {
+        responses.forEach(response -> {
+            agrirouter.answered();
+            messageConfirmationAggregator.confirm(endpoint.getAgrirouterEndpointId(), response.messageIds());
+            existingMessagesQueryService.queryResultReceived(endpoint, response.queryMessageId(), response.totalMessagesInQuery(), MAX_COUNT_RESTRICTION, response.messageIds().size(), 1);
+        });
+    }
+
+    private void assertEveryMessageHasBeenDownloadedOnce() {
+        messageConfirmationAggregator.flush(endpoint.getAgrirouterEndpointId());
+        assertThat(agrirouter.getNumberOfRemainingMessages()).isZero();
+        assertThat(agrirouter.getDownloadsPerMessage().values()).allMatch(downloads -> downloads == 1);
+    }
+
+    private static Endpoint createEndpoint() {
+        var endpoint = new Endpoint();
+        endpoint.setAgrirouterEndpointId("endpoint");
+        endpoint.setExternalEndpointId("external-endpoint");
+        return endpoint;
+    }
+
+    private record Message(long timestamp, String messageId) {
+    }
+
+    private record QueryResponse(String queryMessageId, long totalMessagesInQuery, List<String> messageIds) {
+    }
+
+    /**
+     * Answers the message queries like the AR, the messages stay in the feed until they have been confirmed.
+     */
+    private static final class FakeAgrirouter extends SendMessageIntegrationService {
+
+        private final TreeSet<Message> feed = new TreeSet<>(Comparator.comparingLong(Message::timestamp).thenComparing(Message::messageId));
+        private final Map<String, Message> messages = new HashMap<>();
+        private final Map<String, Integer> downloadsPerMessage = new HashMap<>();
+        private final List<QueryResponse> responses = new ArrayList<>();
+        private int numberOfQueries;
+        private int numberOfQueriesInFlight;
+        private int maximumNumberOfQueriesInFlight;
+        private boolean connected = true;
+
+        private FakeAgrirouter() {
+            super(null, null, null);
+        }
+
+        void addMessage(long timestamp) {
+            var message = new Message(timestamp, "message-" + messages.size());
+            messages.put(message.messageId(), message);
+            feed.add(message);
+        }
+
+        void disconnect() {
+            connected = false;
+        }
+
+        @Override
+        public String query(Endpoint endpoint, long sentFromInSeconds, long sentToInSeconds) {
+            if (!connected) {
+                throw new BusinessException(ErrorMessageFactory.couldNotConnectMqttClient(endpoint.getAgrirouterEndpointId()));
+            }
+            var window = feed.subSet(new Message(sentFromInSeconds, ""), true, new Message(sentToInSeconds + 1, ""), false);
+            var messageIds = window.stream().limit(MAX_COUNT_RESTRICTION).map(Message::messageId).toList();
+            messageIds.forEach(messageId -> downloadsPerMessage.merge(messageId, 1, Integer::sum));
+            var queryMessageId = "query-" + ++numberOfQueries;
+            responses.add(new QueryResponse(queryMessageId, window.size(), messageIds));
+            maximumNumberOfQueriesInFlight = Math.max(maximumNumberOfQueriesInFlight, ++numberOfQueriesInFlight);
+            return queryMessageId;
+        }
+
+        void answered() {
+            numberOfQueriesInFlight--;
+        }
+
+        @Override
+        public void confirm(Endpoint endpoint, Collection<String> messageIds) {
+            messageIds.forEach(messageId -> feed.remove(messages.get(messageId)));
+        }
+
+        List<QueryResponse> takeResponses() {
+            var queryResponses = List.copyOf(responses);
+            responses.clear();
+            return queryResponses;
+        }
+
+        int getNumberOfQueries() {
+            return numberOfQueries;
+        }
+
+        int getMaximumNumberOfQueriesInFlight() {
+            return maximumNumberOfQueriesInFlight;
+        }
+
+        int getNumberOfRemainingMessages() {
+            return feed.size();
+        }
+
+        Map<String, Integer> getDownloadsPerMessage() {
+            return downloadsPerMessage;
+        }
+    }
+
+    /**
+     * Holds the confirmations until they are flushed, like the aggregator does within its window.
+     */
+    private static final class ConfirmingMessageConfirmationAggregator extends MessageConfirmationAggregator {
+
+        private final FakeAgrirouter agrirouter;
+        private final Map<String, Set<String>> pendingMessageIds = new HashMap<>();
+
+        private ConfirmingMessageConfirmationAggregator(FakeAgrirouter agrirouter) {
+            super(agrirouter, null, null, 200, MAX_COUNT_RESTRICTION);
+            this.agrirouter = agrirouter;
+        }
+
+        @Override
+        public void confirm(String agrirouterEndpointId, Collection<String> messageIds) {
+            pendingMessageIds.computeIfAbsent(agrirouterEndpointId, id -> new HashSet<>()).addAll(messageIds);
+        }
+
+        @Override
+        public void flush(String agrirouterEndpointId) {
+            var messageIds = pendingMessageIds.remove(agrirouterEndpointId);
+            if (null != messageIds) {
+                agrirouter.confirm(null, messageIds);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,199 @@
+package de.agrirouter.middleware.business;
+
+import de.agrirouter.middleware.api.logging.BusinessOperationLogService;
+import de.agrirouter.middleware.domain.Endpoint;
+import de.agrirouter.middleware.integration.SendMessageIntegrationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MessageConfirmationAggregatorTest {
+
+    private static final long ONE_HOUR_IN_MILLIS = 3_600_000;
+
+    private final RecordingSendMessageIntegrationService sendMessageIntegrationService = new RecordingSendMessageIntegrationService();
+    private final EndpointService endpointService = mock(EndpointService.class);
+
+    private MessageConfirmationAggregator messageConfirmationAggregator;
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        if (null != messageConfirmationAggregator) {
+            messageConfirmationAggregator.flushAll();
+        }
+    }
+
+    @Test
+    void givenManyConfirmationsWithinTheWindow_whenTheWindowHasPassed_thenTheyAreSentWithOnePublish() throws InterruptedException {
+        messageConfirmationAggregator = createAggregator(1_000, 1_000);
+
+        for (int i = 0; i < 100; i++) {
+            messageConfirmationAggregator.confirm("endpoint", List.of("message-" + i + "-a", "message-" + i + "-b", "message-" + i + "-c"));
+        }
+
+        assertThat(sendMessageIntegrationService.awaitFirstPublish()).isTrue();
+        assertThat(sendMessageIntegrationService.publishes()).hasSize(1);
+        assertThat(sendMessageIntegrationService.publishes().getFirst().messageIds()).hasSize(300);
+    }
+
+    @Test
+    void givenMoreMessageIdsThanTheMaximum_whenConfirming_thenTheCompleteConfirmationsAreSentImmediately() {
+        messageConfirmationAggregator = createAggregator(ONE_HOUR_IN_MILLIS, 500);
+
+        for (int i = 0; i < 12; i++) {
+            var messageIds = new ArrayList<String>();
+            for (int j = 0; j < 100; j++) {
+                messageIds.add("message-" + i + "-" + j);
+            }
+            messageConfirmationAggregator.confirm("endpoint", messageIds);
+        }
+
+        assertThat(sendMessageIntegrationService.publishes()).hasSize(2);
+        assertThat(sendMessageIntegrationService.publishes()).allSatisfy(publish -> assertThat(publish.messageIds()).hasSize(500));
+
+        messageConfirmationAggregator.flushAll();
+
+        assertThat(sendMessageIntegrationService.publishes()).hasSize(3);
+        assertThat(sendMessageIntegrationService.publishes().getLast().messageIds()).hasSize(200);
+    }
+
+    @Test
+    void givenDifferentEndpoints_whenFlushing_thenEachEndpointGetsItsOwnConfirmation() {
+        messageConfirmationAggregator = createAggregator(ONE_HOUR_IN_MILLIS, 500);
+
+        messageConfirmationAggregator.confirm("endpoint-1", List.of("message-1"));
+        messageConfirmationAggregator.confirm("endpoint-2", List.of("message-2"));
+        messageConfirmationAggregator.confirm("endpoint-1", List.of("message-3"));
+        messageConfirmationAggregator.flushAll();
+
+        assertThat(sendMessageIntegrationService.publishes())
+                .containsExactlyInAnyOrder(new Publish("endpoint-1", List.of("message-1", "message-3")), new Publish("endpoint-2", List.of("message-2")));
+    }
+
+    @Test
+    void givenAnActiveTransaction_whenConfirming_thenTheMessagesAreNotConfirmedBeforeTheCommit() {
+        messageConfirmationAggregator = createAggregator(ONE_HOUR_IN_MILLIS, 500);
+        TransactionSynchronizationManager.initSynchronization();
+
+        messageConfirmationAggregator.confirm("endpoint", List.of("message-1", "message-2"));
+        messageConfirmationAggregator.flush("endpoint");
+        assertThat(sendMessageIntegrationService.publishes()).isEmpty();
+
+        sendMessageIntegrationService.record("commit");
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationManager.clearSynchronization();
+        messageConfirmationAggregator.flush("endpoint");
+
+        assertThat(sendMessageIntegrationService.events()).containsExactly("commit", "confirm endpoint [message-1, message-2]");
+    }
+
+    @Test
+    void givenAnActiveTransaction_whenRollingBack_thenTheMessagesAreNotConfirmed() {
+        messageConfirmationAggregator = createAggregator(ONE_HOUR_IN_MILLIS, 500);
+        TransactionSynchronizationManager.initSynchronization();
+
+        messageConfirmationAggregator.confirm("endpoint", List.of("message-1"));
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_ROLLED_BACK);
+        TransactionSynchronizationManager.clearSynchronization();
+        messageConfirmationAggregator.flushAll();
+
+        assertThat(sendMessageIntegrationService.publishes()).isEmpty();
+    }
+
+    @Test
+    void givenAFailingConfirmation_whenConfirmingAgain_thenTheNextConfirmationIsSent() {
+        messageConfirmationAggregator = createAggregator(ONE_HOUR_IN_MILLIS, 1);
+        sendMessageIntegrationService.failNextConfirmation();
+
+        messageConfirmationAggregator.confirm("endpoint", List.of("message-1"));
+        messageConfirmationAggregator.confirm("endpoint", List.of("message-2"));
+
+        assertThat(sendMessageIntegrationService.publishes()).containsExactly(new Publish("endpoint", List.of("message-2")));
+    }
+
+    @Test
+    void givenTheAggregatorHasBeenShutDown_whenConfirming_thenTheMessagesAreSentImmediately() {
+        messageConfirmationAggregator = createAggregator(ONE_HOUR_IN_MILLIS, 500);
+        messageConfirmationAggregator.flushAll();
+
+        messageConfirmationAggregator.confirm("endpoint", List.of("message-1"));
+
+        assertThat(sendMessageIntegrationService.publishes()).containsExactly(new Publish("endpoint", List.of("message-1")));
+    }
+
+    private MessageConfirmationAggregator createAggregator(long windowInMillis, int maxMessageIds) {
+        when(endpointService.findByAgrirouterEndpointId(anyString())).thenAnswer(invocation -> {
+            var endpoint = new Endpoint();
+            endpoint.setAgrirouterEndpointId(invocation.getArgument(0));
+            return endpoint;
+        });
+        return new MessageConfirmationAggregator(sendMessageIntegrationService, endpointService, mock(BusinessOperationLogService.class), windowInMillis, maxMessageIds);
+    }
+
+    private record Publish(String agrirouterEndpointId, List<String> messageIds) {
+    }
+
+    /**
+     * Records the confirmations instead of publishing them.
+     */
+    private static final class RecordingSendMessageIntegrationService extends SendMessageIntegrationService {
+
+        private final List<Publish> publishes = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch firstPublish = new CountDownLatch(1);
+        private volatile boolean failNextConfirmation;
+
+        private RecordingSendMessageIntegrationService() {
+            super(null, null, null);
+        }
+
+        @Override
+        public void confirm(Endpoint endpoint, Collection<String> messageIds) {
+            if (failNextConfirmation) {
+                failNextConfirmation = false;
+                throw new IllegalStateException("The MQTT client is not connected.");
+            }
+            publishes.add(new Publish(endpoint.getAgrirouterEndpointId(), List.copyOf(messageIds)));
+            record("confirm " + endpoint.getAgrirouterEndpointId() + " " + messageIds);
+            firstPublish.countDown();
+        }
+
+        void record(String event) {
+            events.add(event);
+        }
+
+        void failNextConfirmation() {
+            failNextConfirmation = true;
+        }
+
+        boolean awaitFirstPublish() throws InterruptedException {
+            return firstPublish.await(5, TimeUnit.SECONDS);
+        }
+
+        List<Publish> publishes() {
+            return List.copyOf(publishes);
+        }
+
+        List<String> events() {
+            return List.copyOf(events);
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+package de.agrirouter.middleware.business;
+
+import com.google.protobuf.ByteString;
+import de.agrirouter.middleware.api.logging.BusinessOperationLogService;
+import de.agrirouter.middleware.business.cache.messaging.MessageCache;
+import de.agrirouter.middleware.business.events.ResendMessageCacheEntriesEvent;
+import de.agrirouter.middleware.domain.Endpoint;
+import de.agrirouter.middleware.domain.enums.TemporaryContentMessageType;
+import de.agrirouter.middleware.integration.SendMessageIntegrationService;
+import de.agrirouter.middleware.integration.mqtt.health.HealthStatusWithLastKnownHealthyStatus;
+import de.agrirouter.middleware.integration.parameters.MessagingIntegrationParameters;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PublishNonTelemetryDataServiceTest {
+
+    @Mock
+    private SendMessageIntegrationService sendMessageIntegrationService;
+    @Mock
+    private BusinessOperationLogService businessOperationLogService;
+    @Mock
+    private EndpointService endpointService;
+    @Mock
+    private MessageCache messageCache;
+
+    @InjectMocks
+    private PublishNonTelemetryDataService publishNonTelemetryDataService;
+
+    @Test
+    void resend_withHealthyEndpoint_checksTheHealthOnceAndPublishesAllMessages() {
+        var endpoint = createEndpoint();
+        var messages = List.of(parameters(1), parameters(2), parameters(3));
+        when(endpointService.determineHealthStatus("external-endpoint-id")).thenReturn(new HealthStatusWithLastKnownHealthyStatus(HttpStatus.OK, null));
+        when(endpointService.findByExternalEndpointId("external-endpoint-id")).thenReturn(Optional.of(endpoint));
+
+        publishNonTelemetryDataService.resend(new ResendMessageCacheEntriesEvent(this, "external-endpoint-id", messages));
+
+        verify(endpointService, times(1)).determineHealthStatus("external-endpoint-id");
+        messages.forEach(message -> verify(sendMessageIntegrationService).publish(endpoint, message));
+        verify(messageCache, never()).put(any(), any());
+    }
+
+    @Test
+    void resend_withUnhealthyEndpoint_placesAllMessagesBackIntoTheCache() {
+        var messages = List.of(parameters(1), parameters(2));
+        when(endpointService.determineHealthStatus("external-endpoint-id")).thenReturn(new HealthStatusWithLastKnownHealthyStatus(HttpStatus.INTERNAL_SERVER_ERROR, null));
+
+        publishNonTelemetryDataService.resend(new ResendMessageCacheEntriesEvent(this, "external-endpoint-id", messages));
+
+        verify(endpointService, times(1)).determineHealthStatus("external-endpoint-id");
+        verify(sendMessageIntegrationService, never()).publish(any(), any());
+        messages.forEach(message -> verify(messageCache).put("external-endpoint-id", message));
+    }
+
+    @Test
+    void resend_withFailingMessage_placesOnlyThatMessageBackIntoTheCache() {
+        var endpoint = createEndpoint();
+        var failingMessage = parameters(1);
+        var message = parameters(2);
+        when(endpointService.determineHealthStatus("external-endpoint-id")).thenReturn(new HealthStatusWithLastKnownHealthyStatus(HttpStatus.OK, null));
+        when(endpointService.findByExternalEndpointId("external-endpoint-id")).thenReturn(Optional.of(endpoint));
+        doThrow(new IllegalStateException("Publishing failed.")).when(sendMessageIntegrationService).publish(endpoint, failingMessage);
+
+        publishNonTelemetryDataService.resend(new ResendMessageCacheEntriesEvent(this, "external-endpoint-id", List.of(failingMessage, message)));
+
+        verify(sendMessageIntegrationService).publish(endpoint, message);
+        verify(messageCache).put("external-endpoint-id", failingMessage);
+        verify(messageCache, never()).put("external-endpoint-id", message);
+    }
+
+    private static Endpoint createEndpoint() {
+        var endpoint = new Endpoint();
+        endpoint.setExternalEndpointId("external-endpoint-id");
+        endpoint.setAgrirouterEndpointId("agrirouter-endpoint-id");
+        return endpoint;
+    }
+
+    private static MessagingIntegrationParameters parameters(int content) {
+        return new MessagingIntegrationParameters("external-endpoint-id", TemporaryContentMessageType.ISO_11783_TASKDATA_ZIP, List.of(), "file-" + content + ".zip",
+                ByteString.copyFrom(new byte[]{(byte) content}), null);
+    }
+
+}
@@ -1,17 +1,44 @@
 package de.agrirouter.middleware.business;
 
+import de.agrirouter.middleware.business.dto.FileDownload;
+import de.agrirouter.middleware.domain.ContentMessage;
 import de.agrirouter.middleware.domain.ContentMessageMetadata;
+import de.agrirouter.middleware.domain.Endpoint;
+import de.agrirouter.middleware.domain.enums.ContentMessageEncoding;
 import de.agrirouter.middleware.persistence.jpa.ContentMessageRepository;
+import de.agrirouter.middleware.persistence.jpa.ContentMessageRepositoryCustom;
+import de.agrirouter.middleware.persistence.payload.PayloadStores;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Base64InputStream;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class SearchNonTelemetryDataServiceTest {
@@ -22,6 +49,9 @@ class SearchNonTelemetryDataServiceTest {
     @Mock
     private EndpointService endpointService;
 
+    @Spy
+    private ContentMessageEncodingService contentMessageEncodingService = new ContentMessageEncodingService(new PayloadStores(List.of(), PayloadStores.NO_THRESHOLD));
+
     @InjectMocks
     private SearchNonTelemetryDataService searchNonTelemetryDataService;
 
@@ -89,6 +119,135 @@ class SearchNonTelemetryDataServiceTest {
         assertThat(result).hasSize(3);
     }
 
+    @Test
+    void download_withChunkedMessage_streamsTheDecodedChunksInOrder() throws IOException {
+        downloadChunkedMessage(4, 64 * 1024);
+    }
+
+    /**
+     * Streams 500 MB, to verify that a large download does not need more memory than a single chunk. Excluded from the
+     * default build, see the tag.
+     */
+    @Test
+    @Tag("benchmark")
+    void download_withLargeChunkedMessage_streamsTheDecodedChunksInOrder() throws IOException {
+        downloadChunkedMessage(500, 1024 * 1024);
+    }
+
+    @Test
+    void download_withChunkedMessage_readsTheChunksOnlyWhileWriting() throws IOException {
+        var metadata = createChunkedMessage("msg-chunk-1", "chunk-ctx-1");
+        metadata.setTotalChunks(2);
+        givenContentMessage(metadata, null, ContentMessageEncoding.BINARY);
+        when(contentMessageRepository.findChunkIds("agrirouter-endpoint-id", "chunk-ctx-1")).thenReturn(List.of(1L));
+
+        var fileDownload = searchNonTelemetryDataService.download("external-endpoint-id", "msg-chunk-1");
+
+        assertThat(fileDownload.contentLength()).isEqualTo(FileDownload.UNKNOWN_CONTENT_LENGTH);
+        verify(contentMessageRepository, never()).readMessageContent(anyLong(), any());
+    }
+
+    @Test
+    void download_withSingleMessage_returnsTheDecodedContent() throws IOException {
+        var content = "single message".getBytes(StandardCharsets.UTF_8);
+        var metadata = createSingleMessage("msg-1");
+        metadata.setTotalChunks(1);
+        givenContentMessage(metadata, Base64.encodeBase64(content), ContentMessageEncoding.BASE64);
+
+        var fileDownload = searchNonTelemetryDataService.download("external-endpoint-id", "msg-1");
+        var outputStream = new ByteArrayOutputStream();
+        fileDownload.content().writeTo(outputStream);
+
+        assertThat(fileDownload.contentLength()).isEqualTo(content.length);
+        assertThat(outputStream.toByteArray()).isEqualTo(content);
+    }
+
+    @Test
+    void download_withSingleBinaryMessage_returnsTheContent() throws IOException {
+        var content = "single message".getBytes(StandardCharsets.UTF_8);
+        var metadata = createSingleMessage("msg-1");
+        metadata.setTotalChunks(1);
+        givenContentMessage(metadata, content, ContentMessageEncoding.BINARY);
+
+        var fileDownload = searchNonTelemetryDataService.download("external-endpoint-id", "msg-1");
+        var outputStream = new ByteArrayOutputStream();
+        fileDownload.content().writeTo(outputStream);
+
+        assertThat(fileDownload.contentLength()).isEqualTo(content.length);
+        assertThat(outputStream.toByteArray()).isEqualTo(content);
+    }
+
+    @Test
+    void download_withChunkedMessageInBothFormats_returnsTheDecodedContent() throws IOException {
+        var metadata = createChunkedMessage("msg-chunk-1", "chunk-ctx-1");
+        metadata.setTotalChunks(2);
+        metadata.setTotalChunkSize(12);
+        givenContentMessage(metadata, null, ContentMessageEncoding.BINARY);
+        when(contentMessageRepository.findChunkIds("agrirouter-endpoint-id", "chunk-ctx-1")).thenReturn(List.of(1L, 2L));
+        doAnswer(invocation -> {
+            ContentMessageRepositoryCustom.MessageContentReader reader = invocation.getArgument(1);
+            reader.read(new ByteArrayInputStream(Base64.encodeBase64("first ".getBytes(StandardCharsets.UTF_8))), ContentMessageEncoding.BASE64);
+            return null;
+        }).when(contentMessageRepository).readMessageContent(eq(1L), any());
+        doAnswer(invocation -> {
+            ContentMessageRepositoryCustom.MessageContentReader reader = invocation.getArgument(1);
+            reader.read(new ByteArrayInputStream("second".getBytes(StandardCharsets.UTF_8)), ContentMessageEncoding.BINARY);
+            return null;
+        }).when(contentMessageRepository).readMessageContent(eq(2L), any());
+
+        var fileDownload = searchNonTelemetryDataService.download("external-endpoint-id", "msg-chunk-1");
+        var outputStream = new ByteArrayOutputStream();
+        fileDownload.content().writeTo(outputStream);
+
+        assertThat(fileDownload.contentLength()).isEqualTo(12);
+        assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo("first second");
+    }
+
+    @Test
+    void download_withUnknownEndpoint_returnsEmptyFile() throws IOException {
+        when(endpointService.findByExternalEndpointId("external-endpoint-id")).thenReturn(Optional.empty());
+
+        var fileDownload = searchNonTelemetryDataService.download("external-endpoint-id", "msg-1");
+        var outputStream = new ByteArrayOutputStream();
+        fileDownload.content().writeTo(outputStream);
+
+        assertThat(fileDownload.contentLength()).isZero();
+        assertThat(outputStream.size()).isZero();
+    }
+
+    private void downloadChunkedMessage(int numberOfChunks, int chunkSize) throws IOException {
+        var metadata = createChunkedMessage("msg-chunk-1", "chunk-ctx-1");
+        metadata.setTotalChunks(numberOfChunks);
+        metadata.setTotalChunkSize((long) numberOfChunks * chunkSize);
+        givenContentMessage(metadata, null, ContentMessageEncoding.BINARY);
+        when(contentMessageRepository.findChunkIds("agrirouter-endpoint-id", "chunk-ctx-1")).thenReturn(LongStream.range(0, numberOfChunks).boxed().toList());
+        doAnswer(invocation -> {
+            long chunkId = invocation.getArgument(0);
+            ContentMessageRepositoryCustom.MessageContentReader reader = invocation.getArgument(1);
+            reader.read(new Base64InputStream(new SyntheticChunk((byte) chunkId, chunkSize), true), ContentMessageEncoding.BASE64);
+            return null;
+        }).when(contentMessageRepository).readMessageContent(anyLong(), any());
+
+        var fileDownload = searchNonTelemetryDataService.download("external-endpoint-id", "msg-chunk-1");
+        var outputStream = new ChunkVerifyingOutputStream(chunkSize);
+        fileDownload.content().writeTo(outputStream);
+
+        assertThat(fileDownload.contentLength()).isEqualTo((long) numberOfChunks * chunkSize);
+        assertThat(outputStream.numberOfBytes).isEqualTo(fileDownload.contentLength());
+    }
+
+    private void givenContentMessage(ContentMessageMetadata metadata, byte[] messageContent, ContentMessageEncoding contentEncoding) {
+        var endpoint = new Endpoint();
+        endpoint.setAgrirouterEndpointId("agrirouter-endpoint-id");
+        var contentMessage = new ContentMessage();
+        contentMessage.setAgrirouterEndpointId("agrirouter-endpoint-id");
+        contentMessage.setContentMessageMetadata(metadata);
+        contentMessage.setMessageContent(messageContent);
+        contentMessage.setContentEncoding(contentEncoding);
+        when(endpointService.findByExternalEndpointId("external-endpoint-id")).thenReturn(Optional.of(endpoint));
+        when(contentMessageRepository.findFirstByAgrirouterEndpointIdAndContentMessageMetadataMessageId("agrirouter-endpoint-id", metadata.getMessageId())).thenReturn(Optional.of(contentMessage));
+    }
+
     @SuppressWarnings("unchecked")
     private List<ContentMessageMetadata> invokeFlattener(List<ContentMessageMetadata> input) {
         return (List<ContentMessageMetadata>) ReflectionTestUtils.invokeMethod(
@@ -108,4 +267,69 @@ class SearchNonTelemetryDataServiceTest {
         metadata.setChunkContextId(chunkContextId);
         return metadata;
     }
+
+    /**
+     * Chunk that is generated while reading, every byte of the chunk is the number of the chunk.
+     */
+    private static class SyntheticChunk extends InputStream {
+
+        private final byte value;
+        private int remaining;
+
+        private SyntheticChunk(byte value, int size) {
+            this.value = value;
+            this.remaining = size;
+        }
+
+        @Override
+        public int read() {
+            if (remaining == 0) {
+                return -1;
+            }
+            remaining--;
+            return value & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (remaining == 0) {
+                return -1;
+            }
+            var length = Math.min(len, remaining);
+            Arrays.fill(b, off, off + length, value);
+            remaining -= length;
+            return length;
+        }
+
+    }
+
+    /**
+     * Checks that the bytes are written in the order of the chunks, without keeping them.
+     */
+    private static class ChunkVerifyingOutputStream extends OutputStream {
+
+        private final int chunkSize;
+        private long numberOfBytes;
+
+        private ChunkVerifyingOutputStream(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public void write(int b) {
+            assertThat((byte) b).isEqualTo((byte) (numberOfBytes / chunkSize));
+            numberOfBytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (var i = off; i < off + len; i++) {
+                if (b[i] != (byte) (numberOfBytes / chunkSize)) {
+                    fail("Unexpected byte at position %d.", numberOfBytes);
+                }
+                numberOfBytes++;
+            }
+        }
+
+    }
 }
@@ -1,22 +1,31 @@
 package de.agrirouter.middleware.business;
 
 import de.agrirouter.middleware.api.errorhandling.BusinessException;
+import de.agrirouter.middleware.business.dto.timelog.periods.TimeLogPeriod;
+import de.agrirouter.middleware.business.dto.timelog.periods.TimeLogPeriodsForTeamSet;
 import de.agrirouter.middleware.business.parameters.MessagesForTimeLogPeriodParameters;
+import de.agrirouter.middleware.business.parameters.SearchTimeLogPeriodsParameters;
+import de.agrirouter.middleware.domain.ContentMessage;
+import de.agrirouter.middleware.domain.ContentMessageMetadata;
+import de.agrirouter.middleware.domain.Endpoint;
+import de.agrirouter.middleware.domain.documents.Device;
+import de.agrirouter.middleware.domain.documents.DeviceDescription;
 import de.agrirouter.middleware.domain.documents.TimeLog;
-import de.agrirouter.middleware.business.dto.timelog.periods.TimeLogPeriod;
-import de.agrirouter.middleware.business.dto.timelog.periods.TimeLogPeriods;
+import de.agrirouter.middleware.persistence.projections.TimeLogPeriodForTeamSet;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.test.util.ReflectionTestUtils;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class TimeLogServiceTest {
@@ -51,84 +60,162 @@ class TimeLogServiceTest {
     }
 
     @Test
-    void getSegmentedTimeLogsForTimePeriod_withEmptyList_returnsEmptyPeriods() {
-        TimeLogPeriods result = ReflectionTestUtils.invokeMethod(timeLogService, "getSegmentedTimeLogsForTimePeriod", new ArrayList<TimeLog>());
+    void save_withTeamSetInMixedCase_storesTheNormalizedTeamSet() {
+        var contentMessageMetadata = new ContentMessageMetadata();
+        contentMessageMetadata.setReceiverId("receiver-1");
+        contentMessageMetadata.setTeamSetContextId("Team-Set-1");
+        var contentMessage = new ContentMessage();
+        contentMessage.setMessageContent(new byte[0]);
+        contentMessage.setContentMessageMetadata(contentMessageMetadata);
+        when(endpointService.findByAgrirouterEndpointId("receiver-1")).thenReturn(new Endpoint());
+
+        timeLogService.save(contentMessage);
+
+        var timeLog = ArgumentCaptor.forClass(TimeLog.class);
+        verify(timeLogRepository).save(timeLog.capture());
+        assertThat(timeLog.getValue().getTeamSetContextId()).isEqualTo("Team-Set-1");
+        assertThat(timeLog.getValue().getNormalizedTeamSetContextId()).isEqualTo("team-set-1");
+    }
+
+    @Test
+    void getMessagesForTimeLogPeriod_withDdis_filtersTheDataLogValuesWithinTheDatabase() {
+        var params = new MessagesForTimeLogPeriodParameters();
+        params.setSendFrom(500L);
+        params.setSendTo(2_000L);
+        params.setDdisToList(Set.of(1, 2));
+
+        timeLogService.getMessagesForTimeLogPeriod(params);
+
+        verify(timeLogRepository).findAllByTimestampBetweenWithDdis(500L, 2_000L, Set.of(1, 2));
+        verifyNoMoreInteractions(timeLogRepository);
+    }
+
+    @Test
+    void getMessagesForTimeLogPeriod_withDdisAndTeamSet_filtersTheDataLogValuesWithinTheDatabase() {
+        var params = new MessagesForTimeLogPeriodParameters();
+        params.setSendFrom(500L);
+        params.setSendTo(2_000L);
+        params.setTeamSetContextId("Team-Set-1");
+        params.setDdisToList(Set.of(1));
+
+        timeLogService.getMessagesForTimeLogPeriod(params);
+
+        verify(timeLogRepository).findAllByTimestampBetweenAndNormalizedTeamSetContextIdWithDdis(500L, 2_000L, Set.of(1), "team-set-1");
+        verifyNoMoreInteractions(timeLogRepository);
+    }
+
+    @Test
+    void getMessagesForTimeLogPeriod_withoutDdis_loadsTheCompleteTimeLogs() {
+        var params = new MessagesForTimeLogPeriodParameters();
+        params.setSendFrom(500L);
+        params.setSendTo(2_000L);
+        params.setTeamSetContextId("Team-Set-1");
+
+        timeLogService.getMessagesForTimeLogPeriod(params);
 
-        assertThat(result).isNotNull();
-        assertThat(result.timeLogPeriods()).isEmpty();
+        verify(timeLogRepository).findAllByTimestampBetweenAndNormalizedTeamSetContextId(500L, 2_000L, "team-set-1");
+        verifyNoMoreInteractions(timeLogRepository);
     }
 
     @Test
-    void getSegmentedTimeLogsForTimePeriod_withNullList_returnsEmptyPeriods() {
-        TimeLogPeriods result = ReflectionTestUtils.invokeMethod(timeLogService, "getSegmentedTimeLogsForTimePeriod", (Object) null);
+    void getPageOfMessagesForTimeLogPeriod_withFullPage_returnsCursorForTheNextPage() {
+        var params = new MessagesForTimeLogPeriodParameters();
+        params.setSendFrom(500L);
+        params.setSendTo(2_000L);
+        params.setTeamSetContextId("Team-Set-1");
+        var first = createTimeLog("id-1", 1_000L);
+        var second = createTimeLog("id-2", 1_000L);
+        when(timeLogRepository.findPage(500L, 2_000L, "team-set-1", null, null, null, 2)).thenReturn(List.of(first, second));
+        when(timeLogRepository.findPage(500L, 2_000L, "team-set-1", null, 1_000L, "id-2", 2)).thenReturn(List.of(createTimeLog("id-3", 1_500L)));
+
+        var firstPage = timeLogService.getPageOfMessagesForTimeLogPeriod(params, null, 2);
+        var secondPage = timeLogService.getPageOfMessagesForTimeLogPeriod(params, firstPage.nextCursor(), 2);
+
+        assertThat(firstPage.timeLogs()).containsExactly(first, second);
+        assertThat(firstPage.nextCursor()).isNotBlank();
+        assertThat(secondPage.timeLogs()).hasSize(1);
+        assertThat(secondPage.nextCursor()).isNull();
+    }
 
-        assertThat(result).isNotNull();
-        assertThat(result.timeLogPeriods()).isEmpty();
+    @Test
+    void getPageOfMessagesForTimeLogPeriod_withInvalidCursor_throwsBusinessException() {
+        var params = new MessagesForTimeLogPeriodParameters();
+        params.setSendFrom(500L);
+        params.setSendTo(2_000L);
+
+        assertThrows(BusinessException.class, () -> timeLogService.getPageOfMessagesForTimeLogPeriod(params, "not-a-cursor", 10));
+        verifyNoInteractions(timeLogRepository);
     }
 
     @Test
-    void getSegmentedTimeLogsForTimePeriod_withSingleTimelog_returnsOnePeriodWithOnEntry() {
-        var timeLog = createTimeLog("msg-1", 1000L);
-        List<TimeLog> timeLogs = List.of(timeLog);
-
-        TimeLogPeriods result = ReflectionTestUtils.invokeMethod(timeLogService, "getSegmentedTimeLogsForTimePeriod", timeLogs);
-
-        assertThat(result).isNotNull();
-        assertThat(result.timeLogPeriods()).hasSize(1);
-        TimeLogPeriod period = result.timeLogPeriods().get(0);
-        assertThat(period.begin()).isEqualTo(1000L);
-        assertThat(period.end()).isEqualTo(1000L);
-        assertThat(period.nrOfTimeLogs()).isEqualTo(1);
+    void streamMessagesForTimeLogPeriod_withNoTimeFilter_throwsBusinessException() {
+        var params = new MessagesForTimeLogPeriodParameters();
+
+        assertThrows(BusinessException.class, () -> timeLogService.streamMessagesForTimeLogPeriod(params));
+        verifyNoInteractions(timeLogRepository);
     }
 
     @Test
-    void getSegmentedTimeLogsForTimePeriod_withConsecutiveTimelogs_returnsOnePeriod() {
-        // Consecutive entries (within TIME_LOG_PERIOD_OFFSET of each other)
-        var tl1 = createTimeLog("msg-1", 1000L);
-        var tl2 = createTimeLog("msg-2", 1000L + 100_000L); // 100 seconds apart - within 300 second offset
-        var tl3 = createTimeLog("msg-3", 1000L + 200_000L);
-        List<TimeLog> timeLogs = List.of(tl1, tl2, tl3);
-
-        TimeLogPeriods result = ReflectionTestUtils.invokeMethod(timeLogService, "getSegmentedTimeLogsForTimePeriod", timeLogs);
-
-        assertThat(result).isNotNull();
-        assertThat(result.timeLogPeriods()).hasSize(1);
-        TimeLogPeriod period = result.timeLogPeriods().get(0);
-        assertThat(period.nrOfTimeLogs()).isEqualTo(3);
+    void searchTimeLogPeriods_withoutDevices_doesNotQueryTheTimeLogs() {
+        when(deviceService.search(any())).thenReturn(List.of());
+
+        var result = timeLogService.searchTimeLogPeriods(new SearchTimeLogPeriodsParameters());
+
+        assertThat(result).isEmpty();
+        verifyNoInteractions(timeLogRepository);
+    }
+
+    @Test
+    void searchTimeLogPeriods_withMultipleDevicesAndTeamSets_queriesTheTimeLogsOnlyOnce() {
+        when(deviceService.search(any())).thenReturn(List.of(createDevice("device-1", "team-set-1", "team-set-2"), createDevice("device-2", "team-set-3")));
+        when(timeLogRepository.findTimeLogPeriods(anyLong(), anyLong(), anyCollection(), anyLong())).thenReturn(List.of(
+                new TimeLogPeriodForTeamSet("team-set-1", 1_000L, 1_100L, 2, Set.of("msg-1", "msg-2")),
+                new TimeLogPeriodForTeamSet("team-set-1", 1_000_000L, 1_100_000L, 2, Set.of("msg-3", "msg-4")),
+                new TimeLogPeriodForTeamSet("team-set-3", 100L, 100L, 1, Set.of("msg-5"))));
+
+        var result = timeLogService.searchTimeLogPeriods(new SearchTimeLogPeriodsParameters());
+
+        verify(timeLogRepository, times(1)).findTimeLogPeriods(eq(Long.MIN_VALUE), eq(Long.MAX_VALUE), anyCollection(), eq((long) TimeLogService.TIME_LOG_PERIOD_OFFSET));
+        assertThat(result).hasSize(2);
+        var timeLogPeriodsForTeamSets = result.get(0).timeLogPeriodsForTeamSet();
+        assertThat(timeLogPeriodsForTeamSets).extracting(TimeLogPeriodsForTeamSet::teamSetContextId).containsExactly("team-set-1", "team-set-2");
+        assertThat(timeLogPeriodsForTeamSets.get(0).timeLogPeriods().timeLogPeriods()).containsExactly(
+                new TimeLogPeriod(1_000L, 1_100L, 2, Set.of("msg-1", "msg-2")),
+                new TimeLogPeriod(1_000_000L, 1_100_000L, 2, Set.of("msg-3", "msg-4")));
+        assertThat(timeLogPeriodsForTeamSets.get(1).timeLogPeriods().timeLogPeriods()).isEmpty();
+        assertThat(result.get(1).timeLogPeriodsForTeamSet().get(0).timeLogPeriods().timeLogPeriods()).hasSize(1);
     }
 
     @Test
-    void getSegmentedTimeLogsForTimePeriod_withGapBetweenLogs_returnsMultiplePeriods() {
-        // Two groups separated by more than TIME_LOG_PERIOD_OFFSET (300_000 ms)
-        var tl1 = createTimeLog("msg-1", 1_000L);
-        var tl2 = createTimeLog("msg-2", 1_100L);
-        // Gap > 300_000 ms
-        var tl3 = createTimeLog("msg-3", 1_000_000L);
-        var tl4 = createTimeLog("msg-4", 1_100_000L);
-        List<TimeLog> timeLogs = List.of(tl1, tl2, tl3, tl4);
-
-        TimeLogPeriods result = ReflectionTestUtils.invokeMethod(timeLogService, "getSegmentedTimeLogsForTimePeriod", timeLogs);
-
-        assertThat(result).isNotNull();
-        assertThat(result.timeLogPeriods()).hasSize(2);
-        assertThat(result.timeLogPeriods().get(0).nrOfTimeLogs()).isEqualTo(2);
-        assertThat(result.timeLogPeriods().get(1).nrOfTimeLogs()).isEqualTo(2);
+    void searchTimeLogPeriods_withTeamSetInDifferentCase_matchesTheTeamSetIgnoringTheCase() {
+        when(deviceService.search(any())).thenReturn(List.of(createDevice("device-1", "Team-Set-1")));
+        when(timeLogRepository.findTimeLogPeriods(anyLong(), anyLong(), anyCollection(), anyLong())).thenReturn(List.of(
+                new TimeLogPeriodForTeamSet("team-set-1", 1_000L, 1_000L, 1, Set.of("msg-1"))));
+        var searchTimeLogPeriodsParameters = new SearchTimeLogPeriodsParameters();
+        searchTimeLogPeriodsParameters.setSendFrom(500L);
+        searchTimeLogPeriodsParameters.setSendTo(2_000L);
+
+        var result = timeLogService.searchTimeLogPeriods(searchTimeLogPeriodsParameters);
+
+        verify(timeLogRepository).findTimeLogPeriods(500L, 2_000L, Set.of("team-set-1"), TimeLogService.TIME_LOG_PERIOD_OFFSET);
+        assertThat(result.get(0).timeLogPeriodsForTeamSet().get(0).teamSetContextId()).isEqualTo("Team-Set-1");
+        assertThat(result.get(0).timeLogPeriodsForTeamSet().get(0).timeLogPeriods().timeLogPeriods()).hasSize(1);
     }
 
     @Test
-    void getSegmentedTimeLogsForTimePeriod_withThreeGroups_returnsThreePeriods() {
-        var tl1 = createTimeLog("msg-1", 100L);
-        var tl2 = createTimeLog("msg-2", 200L);
-        // gap
-        var tl3 = createTimeLog("msg-3", 1_000_000L);
-        // gap
-        var tl4 = createTimeLog("msg-4", 5_000_000L);
-        List<TimeLog> timeLogs = List.of(tl1, tl2, tl3, tl4);
-
-        TimeLogPeriods result = ReflectionTestUtils.invokeMethod(timeLogService, "getSegmentedTimeLogsForTimePeriod", timeLogs);
-
-        assertThat(result).isNotNull();
-        assertThat(result.timeLogPeriods()).hasSize(3);
+    void searchTimeLogPeriods_withFilterForEmptyEntries_skipsEmptyTeamSetsAndDevices() {
+        when(deviceService.search(any())).thenReturn(List.of(createDevice("device-1", "team-set-1", "team-set-2"), createDevice("device-2", "team-set-3")));
+        when(timeLogRepository.findTimeLogPeriods(anyLong(), anyLong(), anyCollection(), anyLong())).thenReturn(List.of(
+                new TimeLogPeriodForTeamSet("team-set-1", 1_000L, 1_000L, 1, Set.of("msg-1"))));
+        var searchTimeLogPeriodsParameters = new SearchTimeLogPeriodsParameters();
+        searchTimeLogPeriodsParameters.setFilterEmptyEntries(true);
+
+        var result = timeLogService.searchTimeLogPeriods(searchTimeLogPeriodsParameters);
+
+        assertThat(result).singleElement().satisfies(timeLogPeriodsForDevice -> {
+            assertThat(timeLogPeriodsForDevice.device().getInternalDeviceId()).isEqualTo("device-1");
+            assertThat(timeLogPeriodsForDevice.timeLogPeriodsForTeamSet()).extracting(TimeLogPeriodsForTeamSet::teamSetContextId).containsExactly("team-set-1");
+        });
     }
 
     @Test
@@ -140,10 +227,21 @@ class TimeLogServiceTest {
         assertThat(result).isEmpty();
     }
 
-    private TimeLog createTimeLog(String messageId, long timestamp) {
+    private TimeLog createTimeLog(String id, long timestamp) {
         var timeLog = new TimeLog();
-        timeLog.setMessageId(messageId);
+        timeLog.setId(id);
         timeLog.setTimestamp(timestamp);
         return timeLog;
     }
+
+    private Device createDevice(String internalDeviceId, String... teamSetContextIds) {
+        var device = new Device();
+        device.setInternalDeviceId(internalDeviceId);
+        for (String teamSetContextId : teamSetContextIds) {
+            var deviceDescription = new DeviceDescription();
+            deviceDescription.setTeamSetContextId(teamSetContextId);
+            device.getDeviceDescriptions().add(deviceDescription);
+        }
+        return device;
+    }
 }
@@ -0,0 +1,148 @@
+package de.agrirouter.middleware.business.cache;
+
+import de.agrirouter.middleware.business.cache.endpoints.AgrirouterEndpointIdCache;
+import de.agrirouter.middleware.domain.Endpoint;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AgrirouterEndpointIdCacheTest {
+
+    private final AgrirouterEndpointIdCache cache = new AgrirouterEndpointIdCache(100, 3600);
+
+    @Test
+    void get_withMissingKey_loadsAndCachesEndpoint() {
+        var loads = new AtomicInteger();
+
+        var first = cache.get("ar-1", id -> {
+            loads.incrementAndGet();
+            return createEndpoint(id);
+        });
+        var second = cache.get("ar-1", id -> {
+            loads.incrementAndGet();
+            return createEndpoint(id);
+        });
+
+        assertThat(first).isPresent();
+        assertThat(second).containsSame(first.get());
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void get_withUnknownEndpoint_doesNotCacheTheMissingEndpoint() {
+        var loads = new AtomicInteger();
+
+        var first = cache.get("unknown", id -> {
+            loads.incrementAndGet();
+            return null;
+        });
+        var second = cache.get("unknown", id -> {
+            loads.incrementAndGet();
+            return null;
+        });
+
+        assertThat(first).isEmpty();
+        assertThat(second).isEmpty();
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void put_replacesCachedEndpoint() {
+        cache.get("ar-1", AgrirouterEndpointIdCacheTest::createEndpoint);
+        var changedEndpoint = createEndpoint("ar-1");
+
+        cache.put(changedEndpoint);
+
+        assertThat(cache.get("ar-1", id -> null)).containsSame(changedEndpoint);
+    }
+
+    @Test
+    void remove_removesEndpointFromCache() {
+        cache.put(createEndpoint("ar-1"));
+
+        cache.remove("ar-1");
+
+        assertThat(cache.get("ar-1", id -> null)).isEmpty();
+    }
+
+    @Test
+    void put_moreEndpointsThanTheMaximumSize_keepsTheCacheBounded() {
+        var loads = new AtomicInteger();
+        for (int i = 0; i < 1_000; i++) {
+            cache.put(createEndpoint("ar-" + i));
+        }
+
+        for (int i = 0; i < 1_000; i++) {
+            cache.get("ar-" + i, id -> {
+                loads.incrementAndGet();
+                return null;
+            });
+        }
+
+        assertThat(loads.get()).isGreaterThanOrEqualTo(900);
+    }
+
+    @Test
+    void put_withinTransaction_isOnlyVisibleAfterTheCommit() {
+        var endpoint = createEndpoint("ar-1");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.put(endpoint);
+            assertThat(cache.get("ar-1", id -> null)).isEmpty();
+            completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(cache.get("ar-1", id -> null)).containsSame(endpoint);
+    }
+
+    @Test
+    void put_withinRolledBackTransaction_isNotCached() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.put(createEndpoint("ar-1"));
+            completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(cache.get("ar-1", id -> null)).isEmpty();
+    }
+
+    @Test
+    void get_withinRolledBackTransaction_evictsTheChangedEndpoint() {
+        cache.put(createEndpoint("ar-1"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            var endpoint = cache.get("ar-1", id -> null).orElseThrow();
+            endpoint.setDeactivated(true);
+            completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(cache.get("ar-1", id -> null)).isEmpty();
+    }
+
+    private static void completeTransaction(int status) {
+        TransactionSynchronizationManager.getSynchronizations().forEach(synchronization -> {
+            if (TransactionSynchronization.STATUS_COMMITTED == status) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(status);
+        });
+    }
+
+    private static Endpoint createEndpoint(String agrirouterEndpointId) {
+        var endpoint = new Endpoint();
+        endpoint.setAgrirouterEndpointId(agrirouterEndpointId);
+        return endpoint;
+    }
+}
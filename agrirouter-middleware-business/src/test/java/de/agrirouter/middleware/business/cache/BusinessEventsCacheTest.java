@@ -7,12 +7,16 @@ import de.agrirouter.middleware.business.cache.events.BusinessEventsCache;
 import org.junit.jupiter.api.Test;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 class BusinessEventsCacheTest {
 
-    private final BusinessEventsCache cache = new BusinessEventsCache();
+    private final BusinessEventsCache cache = new BusinessEventsCache(1_000, 0);
 
     @Test
     void handle_newEndpoint_createsNewCacheEntry() {
@@ -87,4 +91,35 @@ class BusinessEventsCacheTest {
         assertThat(cache.get(endpoint2).get()).containsKey(BusinessEventType.TIME_LOG_RECEIVED);
         assertThat(cache.get(endpoint2).get()).doesNotContainKey(BusinessEventType.TASK_DATA_RECEIVED);
     }
+
+    @Test
+    void handle_fromManyThreadsForTheSameEndpoint_keepsTheLatestEventOfEachTypeAndNeverExposesAMapBeingChanged() throws Exception {
+        var externalEndpointId = "endpoint-concurrent";
+        var numberOfEventsPerType = 5_000;
+        var start = Instant.now();
+        var tasks = new ArrayList<Future<?>>();
+        try (var executorService = Executors.newFixedThreadPool(BusinessEventType.values().length + 2)) {
+            // Each writer handles the events of one type in order, the readers iterate the events in the meantime.
+            Arrays.stream(BusinessEventType.values()).forEach(eventType -> tasks.add(executorService.submit(() -> {
+                for (int i = 1; i <= numberOfEventsPerType; i++) {
+                    cache.handle(new BusinessEventApplicationEvent(this, externalEndpointId, new BusinessEvent(start.plusMillis(i), eventType)));
+                }
+            })));
+            for (int reader = 0; reader < 2; reader++) {
+                tasks.add(executorService.submit(() -> {
+                    for (int i = 0; i < numberOfEventsPerType; i++) {
+                        cache.get(externalEndpointId).ifPresent(businessEvents -> businessEvents.forEach((eventType, timestamp) -> assertThat(timestamp).isNotNull()));
+                    }
+                }));
+            }
+        }
+        for (var task : tasks) {
+            task.get();
+        }
+
+        var result = cache.get(externalEndpointId);
+        assertThat(result).isPresent();
+        assertThat(result.get()).hasSize(BusinessEventType.values().length);
+        assertThat(result.get().values()).allMatch(timestamp -> timestamp.equals(start.plusMillis(numberOfEventsPerType)));
+    }
 }
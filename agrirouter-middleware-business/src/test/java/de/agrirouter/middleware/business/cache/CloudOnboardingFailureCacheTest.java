@@ -7,7 +7,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 class CloudOnboardingFailureCacheTest {
 
-    private final CloudOnboardingFailureCache cache = new CloudOnboardingFailureCache();
+    private final CloudOnboardingFailureCache cache = new CloudOnboardingFailureCache(1_000, 3600);
 
     @Test
     void put_andGet_returnsFailureEntry() {
@@ -8,7 +8,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 class InternalEndpointCacheTest {
 
-    private final InternalEndpointCache cache = new InternalEndpointCache();
+    private final InternalEndpointCache cache = new InternalEndpointCache(10_000, 3600);
 
     @Test
     void put_andGet_returnsEndpoint() {
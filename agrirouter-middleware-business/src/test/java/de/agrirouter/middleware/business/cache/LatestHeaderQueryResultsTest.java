@@ -9,7 +9,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 class LatestHeaderQueryResultsTest {
 
-    private final LatestHeaderQueryResults latestHeaderQueryResults = new LatestHeaderQueryResults();
+    private final LatestHeaderQueryResults latestHeaderQueryResults = new LatestHeaderQueryResults(1_000, 3600);
 
     @Test
     void add_andGet_returnsQueryResult() {
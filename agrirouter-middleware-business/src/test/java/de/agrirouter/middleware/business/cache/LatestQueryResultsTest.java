@@ -10,7 +10,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 class LatestQueryResultsTest {
 
-    private final LatestQueryResults latestQueryResults = new LatestQueryResults();
+    private final LatestQueryResults latestQueryResults = new LatestQueryResults(1_000, 3600);
 
     @Test
     void add_andGet_returnsQueryResult() {
@@ -0,0 +1,194 @@
+package de.agrirouter.middleware.business.cache;
+
+import com.google.protobuf.ByteString;
+import de.agrirouter.middleware.business.cache.messaging.MessageCache;
+import de.agrirouter.middleware.business.events.ResendMessageCacheEntriesEvent;
+import de.agrirouter.middleware.domain.documents.MessageCacheEntry;
+import de.agrirouter.middleware.domain.enums.TemporaryContentMessageType;
+import de.agrirouter.middleware.integration.parameters.MessagingIntegrationParameters;
+import de.agrirouter.middleware.persistence.mongo.MessageCacheEntryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+class MessageCacheTest {
+
+    private static final int BATCH_SIZE = 500;
+    private static final int RESEND_CONCURRENCY = 4;
+
+    private final ApplicationEventPublisher applicationEventPublisher = mock(ApplicationEventPublisher.class);
+    private final MessageCacheEntryRepository messageCacheEntryRepository = mock(MessageCacheEntryRepository.class);
+    private final List<MessageCacheEntry> storedMessageCacheEntries = new CopyOnWriteArrayList<>();
+    private final AtomicInteger ids = new AtomicInteger();
+
+    private MessageCache messageCache;
+
+    @BeforeEach
+    void setUp() {
+        messageCache = new MessageCache(applicationEventPublisher, messageCacheEntryRepository);
+        ReflectionTestUtils.setField(messageCache, "batchSize", BATCH_SIZE);
+        ReflectionTestUtils.setField(messageCache, "resendConcurrency", RESEND_CONCURRENCY);
+        when(messageCacheEntryRepository.save(any(MessageCacheEntry.class))).thenAnswer(invocation -> {
+            var messageCacheEntry = invocation.getArgument(0, MessageCacheEntry.class);
+            messageCacheEntry.setId(String.valueOf(ids.incrementAndGet()));
+            storedMessageCacheEntries.add(messageCacheEntry);
+            return messageCacheEntry;
+        });
+        when(messageCacheEntryRepository.findAllByCreatedAtBefore(any(Instant.class), any(Pageable.class))).thenAnswer(invocation -> {
+            var createdAt = invocation.getArgument(0, Instant.class);
+            var pageable = invocation.getArgument(1, Pageable.class);
+            return storedMessageCacheEntries.stream()
+                    .filter(messageCacheEntry -> messageCacheEntry.getCreatedAt().isBefore(createdAt))
+                    .sorted(Comparator.comparing(MessageCacheEntry::getCreatedAt))
+                    .limit(pageable.getPageSize())
+                    .toList();
+        });
+        doAnswer(invocation -> {
+            Iterable<?> idsToDelete = invocation.getArgument(0);
+            var idSet = new HashSet<>();
+            idsToDelete.forEach(idSet::add);
+            storedMessageCacheEntries.removeIf(messageCacheEntry -> idSet.contains(messageCacheEntry.getId()));
+            return null;
+        }).when(messageCacheEntryRepository).deleteAllById(anyIterable());
+    }
+
+    @Test
+    void givenRandomBinaryPayloadsWhenTheMessagesAreResentThenThePayloadsShouldNotBeChanged() throws InterruptedException {
+        var random = new Random(42);
+        var payloads = new ArrayList<byte[]>();
+        for (int i = 0; i < 20; i++) {
+            var payload = new byte[1 + random.nextInt(64 * 1024)];
+            random.nextBytes(payload);
+            payloads.add(payload);
+            messageCache.put("endpoint-" + i, parameters("endpoint-" + i, payload));
+        }
+        var resentPayloads = new ConcurrentHashMap<String, ByteString>();
+        doAnswer(invocation -> {
+            invocation.getArgument(0, ResendMessageCacheEntriesEvent.class).getMessagingIntegrationParameters()
+                    .forEach(parameters -> resentPayloads.put(parameters.externalEndpointId(), parameters.message()));
+            return null;
+        }).when(applicationEventPublisher).publishEvent(any(ResendMessageCacheEntriesEvent.class));
+        Thread.sleep(5);
+
+        messageCache.sendMessages();
+
+        assertThat(resentPayloads).hasSize(payloads.size());
+        for (int i = 0; i < payloads.size(); i++) {
+            assertThat(resentPayloads.get("endpoint-" + i).toByteArray()).isEqualTo(payloads.get(i));
+        }
+        assertThat(storedMessageCacheEntries).isEmpty();
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void givenEntryCachedAsStringWhenTheMessageIsResentThenTheStringShouldBeUsedAsPayload() {
+        var messageCacheEntry = new MessageCacheEntry("endpoint-1", TemporaryContentMessageType.ISO_11783_TASKDATA_ZIP.name(), List.of(), "file.zip",
+                "legacy message", null, null, Instant.now().minusSeconds(60), Instant.now());
+        messageCacheEntry.setId("legacy");
+        storedMessageCacheEntries.add(messageCacheEntry);
+        var resentPayloads = new ArrayList<ByteString>();
+        doAnswer(invocation -> {
+            invocation.getArgument(0, ResendMessageCacheEntriesEvent.class).getMessagingIntegrationParameters().forEach(parameters -> resentPayloads.add(parameters.message()));
+            return null;
+        }).when(applicationEventPublisher).publishEvent(any(ResendMessageCacheEntriesEvent.class));
+
+        messageCache.sendMessages();
+
+        assertThat(resentPayloads).containsExactly(ByteString.copyFromUtf8("legacy message"));
+    }
+
+    @Test
+    void givenManyCachedMessagesWhenTheMessagesAreResentThenTheOrderPerEndpointShouldBeKeptAndEndpointsShouldBeSentInParallel() throws InterruptedException {
+        var numberOfEndpoints = 100;
+        var numberOfMessages = 10_000;
+        var createdAt = Instant.now().minusSeconds(3600);
+        for (int i = 0; i < numberOfMessages; i++) {
+            var messageCacheEntry = new MessageCacheEntry("endpoint-" + (i % numberOfEndpoints), TemporaryContentMessageType.ISO_11783_TASKDATA_ZIP.name(), List.of(), String.valueOf(i),
+                    null, new byte[]{(byte) i}, null, createdAt.plusMillis(i), createdAt);
+            messageCacheEntry.setId(String.valueOf(i));
+            storedMessageCacheEntries.add(messageCacheEntry);
+        }
+        var sentFilenamesPerEndpoint = new ConcurrentHashMap<String, List<Integer>>();
+        var parallelSends = new AtomicInteger();
+        var maxParallelSends = new AtomicInteger();
+        doAnswer(invocation -> {
+            maxParallelSends.accumulateAndGet(parallelSends.incrementAndGet(), Math::max);
+            try {
+                var event = invocation.getArgument(0, ResendMessageCacheEntriesEvent.class);
+                event.getMessagingIntegrationParameters().forEach(parameters -> {
+                    assertThat(parameters.externalEndpointId()).isEqualTo(event.getExternalEndpointId());
+                    sentFilenamesPerEndpoint.computeIfAbsent(parameters.externalEndpointId(), key -> new CopyOnWriteArrayList<>()).add(Integer.parseInt(parameters.filename()));
+                });
+                Thread.sleep(1);
+            } finally {
+                parallelSends.decrementAndGet();
+            }
+            return null;
+        }).when(applicationEventPublisher).publishEvent(any(ResendMessageCacheEntriesEvent.class));
+
+        var start = System.nanoTime();
+        messageCache.sendMessages();
+        var durationInMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(storedMessageCacheEntries).isEmpty();
+        assertThat(sentFilenamesPerEndpoint).hasSize(numberOfEndpoints);
+        sentFilenamesPerEndpoint.forEach((externalEndpointId, filenames) -> assertThat(filenames).hasSize(numberOfMessages / numberOfEndpoints).isSorted());
+        assertThat(maxParallelSends.get()).isGreaterThan(1).isLessThanOrEqualTo(RESEND_CONCURRENCY);
+        assertThat(durationInMillis).isLessThan(numberOfMessages);
+        verify(messageCacheEntryRepository, times(numberOfMessages / BATCH_SIZE)).deleteAllById(anyIterable());
+        verify(messageCacheEntryRepository, never()).delete(any());
+    }
+
+    @Test
+    void givenSeveralMessagesOfAnEndpointWhenTheMessagesAreResentThenTheyShouldBeResentWithASingleEvent() throws InterruptedException {
+        messageCache.put("endpoint-1", parameters("endpoint-1", new byte[]{1}));
+        messageCache.put("endpoint-1", parameters("endpoint-1", new byte[]{2}));
+        messageCache.put("endpoint-2", parameters("endpoint-2", new byte[]{3}));
+        Thread.sleep(5);
+        var resentMessagesPerEndpoint = new ConcurrentHashMap<String, List<ByteString>>();
+        doAnswer(invocation -> {
+            var event = invocation.getArgument(0, ResendMessageCacheEntriesEvent.class);
+            resentMessagesPerEndpoint.put(event.getExternalEndpointId(), event.getMessagingIntegrationParameters().stream().map(MessagingIntegrationParameters::message).toList());
+            return null;
+        }).when(applicationEventPublisher).publishEvent(any(ResendMessageCacheEntriesEvent.class));
+
+        messageCache.sendMessages();
+
+        verify(applicationEventPublisher, times(2)).publishEvent(any(ResendMessageCacheEntriesEvent.class));
+        assertThat(resentMessagesPerEndpoint.get("endpoint-1")).containsExactly(ByteString.copyFrom(new byte[]{1}), ByteString.copyFrom(new byte[]{2}));
+        assertThat(resentMessagesPerEndpoint.get("endpoint-2")).containsExactly(ByteString.copyFrom(new byte[]{3}));
+    }
+
+    @Test
+    void givenEndpointStillOfflineWhenTheMessageIsCachedAgainThenItShouldNotBeResentWithinTheSameRun() throws InterruptedException {
+        messageCache.put("endpoint-1", parameters("endpoint-1", new byte[]{1, 2, 3}));
+        Thread.sleep(5);
+        doAnswer(invocation -> {
+            invocation.getArgument(0, ResendMessageCacheEntriesEvent.class).getMessagingIntegrationParameters().forEach(parameters -> messageCache.put("endpoint-1", parameters));
+            return null;
+        }).when(applicationEventPublisher).publishEvent(any(ResendMessageCacheEntriesEvent.class));
+
+        messageCache.sendMessages();
+
+        verify(applicationEventPublisher, times(1)).publishEvent(any(ResendMessageCacheEntriesEvent.class));
+        assertThat(storedMessageCacheEntries).hasSize(1);
+    }
+
+    private static MessagingIntegrationParameters parameters(String externalEndpointId, byte[] payload) {
+        return new MessagingIntegrationParameters(externalEndpointId, TemporaryContentMessageType.ISO_11783_TASKDATA_ZIP, List.of(), "file.zip", ByteString.copyFrom(payload), null);
+    }
+
+}
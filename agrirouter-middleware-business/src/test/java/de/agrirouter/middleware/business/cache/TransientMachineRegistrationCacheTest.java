@@ -9,7 +9,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 class TransientMachineRegistrationCacheTest {
 
-    private final TransientMachineRegistrationCache cache = new TransientMachineRegistrationCache();
+    private final TransientMachineRegistrationCache cache = new TransientMachineRegistrationCache(1_000, 60);
 
     @Test
     void put_andPop_returnsCacheEntry() {
@@ -0,0 +1,61 @@
+package de.agrirouter.middleware.business.listener;
+
+import de.agrirouter.middleware.persistence.mongo.TimeLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NormalizeTeamSetContextIdsEventListenerTest {
+
+    @Mock
+    private TimeLogRepository timeLogRepository;
+
+    private NormalizeTeamSetContextIdsEventListener eventListener;
+
+    @BeforeEach
+    void setUp() {
+        eventListener = new NormalizeTeamSetContextIdsEventListener(timeLogRepository);
+    }
+
+    @Test
+    void migrate_afterCreatingTheIndexesAndNormalizing_dropsTheReplacedIndex() {
+        when(timeLogRepository.normalizeTeamSetContextIds()).thenReturn(10L);
+
+        eventListener.migrate();
+
+        InOrder inOrder = inOrder(timeLogRepository);
+        inOrder.verify(timeLogRepository).ensureIndexes();
+        inOrder.verify(timeLogRepository).normalizeTeamSetContextIds();
+        inOrder.verify(timeLogRepository).dropIndexIfExists("timestamp_teamSetContextId_idx");
+    }
+
+    @Test
+    void migrate_whenNormalizingFails_keepsTheReplacedIndex() {
+        when(timeLogRepository.normalizeTeamSetContextIds()).thenThrow(new IllegalStateException("Database not available."));
+
+        eventListener.migrate();
+
+        verify(timeLogRepository, never()).dropIndexIfExists("timestamp_teamSetContextId_idx");
+    }
+
+    @Test
+    void migrate_whenCreatingTheIndexesFails_keepsTheReplacedIndex() {
+        doThrow(new IllegalStateException("Database not available.")).when(timeLogRepository).ensureIndexes();
+
+        eventListener.migrate();
+
+        verify(timeLogRepository, never()).normalizeTeamSetContextIds();
+        verify(timeLogRepository, never()).dropIndexIfExists("timestamp_teamSetContextId_idx");
+    }
+
+}
@@ -1,10 +1,31 @@
 package de.agrirouter.middleware.business.listener;
 
+import agrirouter.feed.push.notification.PushNotificationOuterClass.PushNotification;
+import com.dke.data.agrirouter.api.dto.messaging.FetchMessageResponse;
+import com.dke.data.agrirouter.api.service.messaging.encoding.DecodePushNotificationService;
+import de.agrirouter.middleware.api.events.PushMessageEvent;
+import de.agrirouter.middleware.api.logging.BusinessOperationLogService;
+import de.agrirouter.middleware.business.ContentMessageEncodingService;
+import de.agrirouter.middleware.business.MessageConfirmationAggregator;
+import de.agrirouter.middleware.domain.ContentMessage;
 import de.agrirouter.middleware.domain.enums.TemporaryContentMessageType;
+import de.agrirouter.middleware.integration.mqtt.MqttStatistics;
+import de.agrirouter.middleware.persistence.jpa.ContentMessageRepository;
+import de.agrirouter.middleware.persistence.payload.JpaPayloadStore;
+import de.agrirouter.middleware.persistence.payload.PayloadStores;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 
 class PushMessageEventListenerTest {
 
@@ -20,7 +41,6 @@ class PushMessageEventListenerTest {
             null,
             null,
             null,
-            null,
             null);
 
     @Test
@@ -50,4 +70,50 @@ class PushMessageEventListenerTest {
         boolean result = pushMessageEventListener.isMasterData(technicalMessageType);
         assertFalse(result);
     }
-}
\ No newline at end of file
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void givenPushNotificationWith500Messages_whenPushMessageArrived_thenPersistsAllMessagesWithOneBatch() {
+        var decodePushNotificationService = mock(DecodePushNotificationService.class);
+        var contentMessageRepository = mock(ContentMessageRepository.class);
+        var messageConfirmationAggregator = mock(MessageConfirmationAggregator.class);
+        var listener = new PushMessageEventListener(messageConfirmationAggregator,
+                decodePushNotificationService,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                contentMessageRepository,
+                null,
+                mock(BusinessOperationLogService.class),
+                new MqttStatistics(),
+                new ContentMessageEncodingService(new PayloadStores(List.of(new JpaPayloadStore(null)), PayloadStores.NO_THRESHOLD)));
+
+        var pushNotification = PushNotification.newBuilder();
+        for (int i = 0; i < 500; i++) {
+            var feedMessage = PushNotification.FeedMessage.newBuilder();
+            feedMessage.getHeaderBuilder()
+                    .setMessageId("message-" + i)
+                    .setReceiverId("receiver")
+                    .setTechnicalMessageType("some:nonMasterDataType");
+            pushNotification.addMessages(feedMessage.build());
+        }
+        when(decodePushNotificationService.decode(anyString())).thenReturn(pushNotification.build());
+        var fetchMessageResponse = mock(FetchMessageResponse.class, RETURNS_DEEP_STUBS);
+        when(fetchMessageResponse.getCommand().getMessage()).thenReturn("encoded-push-notification");
+
+        listener.pushMessageArrived(new PushMessageEvent(this, fetchMessageResponse));
+
+        ArgumentCaptor<Iterable<ContentMessage>> contentMessages = ArgumentCaptor.forClass(Iterable.class);
+        verify(contentMessageRepository, times(1)).saveAll(contentMessages.capture());
+        verify(contentMessageRepository, never()).save(any());
+        assertThat(contentMessages.getValue()).hasSize(500);
+        ArgumentCaptor<Collection<String>> messageIds = ArgumentCaptor.forClass(Collection.class);
+        var inOrder = inOrder(contentMessageRepository, messageConfirmationAggregator);
+        inOrder.verify(contentMessageRepository).saveAll(any());
+        inOrder.verify(messageConfirmationAggregator).confirm(eq("receiver"), messageIds.capture());
+        assertThat(messageIds.getValue()).hasSize(500);
+    }
+}
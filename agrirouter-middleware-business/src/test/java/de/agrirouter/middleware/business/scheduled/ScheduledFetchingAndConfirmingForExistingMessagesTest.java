@@ -0,0 +1,253 @@
+package de.agrirouter.middleware.business.scheduled;
+
+import de.agrirouter.middleware.api.logging.BusinessOperationLogService;
+import de.agrirouter.middleware.business.EndpointService;
+import de.agrirouter.middleware.business.ExistingMessagesQueryService;
+import de.agrirouter.middleware.domain.Endpoint;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ScheduledFetchingAndConfirmingForExistingMessagesTest {
+
+    private static final int INTERVAL_IN_MINUTES = 15;
+    private static final int SLOT_IN_SECONDS = 60;
+    private static final int NUMBER_OF_SLOTS = INTERVAL_IN_MINUTES * 60 / SLOT_IN_SECONDS;
+    private static final int PARALLELISM = 4;
+    private static final Instant START = Instant.ofEpochSecond(1_800_000_000L);
+
+    private final EndpointService endpointService = mock(EndpointService.class);
+    private final SimulatedClock clock = new SimulatedClock(START);
+    private final FakeExistingMessagesQueryService existingMessagesQueryService = new FakeExistingMessagesQueryService(clock);
+
+    @Test
+    void givenManyEndpoints_whenRunningTwoIntervals_thenEveryEndpointIsFetchedOncePerIntervalAndTheSlotsAreEvenlyUsed() {
+        var endpoints = createEndpoints(2_000);
+        var scheduler = createScheduler(endpoints, INTERVAL_IN_MINUTES, 10_000);
+
+        var fetchesPerSlot = new ArrayList<Integer>();
+        for (int slot = 0; slot < 2 * NUMBER_OF_SLOTS; slot++) {
+            clock.set(START.plusSeconds((long) slot * SLOT_IN_SECONDS + 5));
+            var fetchesBefore = existingMessagesQueryService.getNumberOfFetches();
+            scheduler.fetchDueSlots();
+            fetchesPerSlot.add(existingMessagesQueryService.getNumberOfFetches() - fetchesBefore);
+        }
+
+        assertThat(existingMessagesQueryService.getFetchesPerEndpoint()).hasSize(endpoints.size());
+        assertThat(existingMessagesQueryService.getFetchesPerEndpoint().values()).allMatch(fetches -> fetches == 2);
+        var mean = (double) endpoints.size() / NUMBER_OF_SLOTS;
+        assertThat(fetchesPerSlot).allSatisfy(fetches -> assertThat(fetches).isBetween((int) (mean * 0.7), (int) (mean * 1.3)));
+        assertThat(fetchesPerSlot.subList(0, NUMBER_OF_SLOTS)).isEqualTo(fetchesPerSlot.subList(NUMBER_OF_SLOTS, 2 * NUMBER_OF_SLOTS));
+        assertThat(existingMessagesQueryService.getMaximumNumberOfConcurrentFetches()).isLessThanOrEqualTo(PARALLELISM);
+    }
+
+    @Test
+    void givenASingleSlot_whenFetching_thenTheParallelismIsUsedButNeverExceeded() {
+        existingMessagesQueryService.setFetchTimeInMillis(5);
+        var endpoints = createEndpoints(200);
+        var scheduler = createScheduler(endpoints, 1, 10_000);
+
+        scheduler.fetchDueSlots();
+
+        assertThat(existingMessagesQueryService.getFetchesPerEndpoint()).hasSize(endpoints.size());
+        assertThat(existingMessagesQueryService.getMaximumNumberOfConcurrentFetches()).isEqualTo(PARALLELISM);
+    }
+
+    @Test
+    void givenARateLimit_whenFetching_thenTheQueriesPerSecondAreNotExceeded() {
+        var endpoints = createEndpoints(30);
+        var scheduler = createScheduler(endpoints, 1, 10);
+
+        var start = System.nanoTime();
+        scheduler.fetchDueSlots();
+        var elapsedInMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // The first 10 queries are within the capacity, the remaining 20 have to wait for the refill.
+        assertThat(existingMessagesQueryService.getFetchesPerEndpoint()).hasSize(endpoints.size());
+        assertThat(elapsedInMillis).isGreaterThanOrEqualTo(1_900);
+    }
+
+    @Test
+    void givenADelayedRun_whenFetching_thenTheMissedSlotsAreFetchedAsWell() {
+        var endpoints = createEndpoints(500);
+        var scheduler = createScheduler(endpoints, INTERVAL_IN_MINUTES, 10_000);
+
+        scheduler.fetchDueSlots();
+        clock.set(START.plusSeconds(3L * SLOT_IN_SECONDS));
+        scheduler.fetchDueSlots();
+
+        var dueSlots = Set.of(slotOf(START), slotOf(START.plusSeconds(SLOT_IN_SECONDS)),
+                slotOf(START.plusSeconds(2L * SLOT_IN_SECONDS)), slotOf(START.plusSeconds(3L * SLOT_IN_SECONDS)));
+        var expectedEndpoints = endpoints.stream()
+                .filter(endpoint -> dueSlots.contains(scheduler.slotOf(endpoint.getAgrirouterEndpointId())))
+                .map(Endpoint::getAgrirouterEndpointId)
+                .toList();
+        assertThat(existingMessagesQueryService.getFetchesPerEndpoint().keySet()).containsExactlyInAnyOrderElementsOf(expectedEndpoints);
+    }
+
+    @Test
+    void givenTheSameSlot_whenFetchingTwice_thenTheEndpointsAreFetchedOnce() {
+        var endpoints = createEndpoints(500);
+        var scheduler = createScheduler(endpoints, INTERVAL_IN_MINUTES, 10_000);
+
+        scheduler.fetchDueSlots();
+        var numberOfFetches = existingMessagesQueryService.getNumberOfFetches();
+        clock.set(START.plusSeconds(SLOT_IN_SECONDS - 1));
+        scheduler.fetchDueSlots();
+
+        assertThat(numberOfFetches).isPositive();
+        assertThat(existingMessagesQueryService.getNumberOfFetches()).isEqualTo(numberOfFetches);
+    }
+
+    @Test
+    void givenEndpointsFetchedWithinTheIntervalOrDeactivated_whenFetching_thenTheyAreSkipped() {
+        var endpoints = createEndpoints(100);
+        var scheduler = createScheduler(endpoints, INTERVAL_IN_MINUTES, 10_000);
+        var endpointsInSlot = endpoints.stream().filter(endpoint -> scheduler.slotOf(endpoint.getAgrirouterEndpointId()) == slotOf(START)).toList();
+        var recentlyFetched = endpointsInSlot.get(0);
+        var fetchedAnIntervalAgo = endpointsInSlot.get(1);
+        var deactivated = endpointsInSlot.get(2);
+        deactivated.setDeactivated(true);
+        existingMessagesQueryService.setLastFetch(recentlyFetched.getAgrirouterEndpointId(), START.minusSeconds(120));
+        existingMessagesQueryService.setLastFetch(fetchedAnIntervalAgo.getAgrirouterEndpointId(), START.minusSeconds(INTERVAL_IN_MINUTES * 60L));
+
+        scheduler.fetchDueSlots();
+
+        assertThat(existingMessagesQueryService.getFetchesPerEndpoint())
+                .hasSize(endpointsInSlot.size() - 2)
+                .containsKey(fetchedAnIntervalAgo.getAgrirouterEndpointId())
+                .doesNotContainKeys(recentlyFetched.getAgrirouterEndpointId(), deactivated.getAgrirouterEndpointId());
+    }
+
+    private ScheduledFetchingAndConfirmingForExistingMessages createScheduler(List<Endpoint> endpoints, int intervalInMinutes, int queriesPerSecond) {
+        when(endpointService.findAll()).thenReturn(endpoints);
+        var scheduler = new ScheduledFetchingAndConfirmingForExistingMessages(endpointService, existingMessagesQueryService,
+                mock(BusinessOperationLogService.class), intervalInMinutes, SLOT_IN_SECONDS, PARALLELISM, queriesPerSecond);
+        ReflectionTestUtils.setField(scheduler, "clock", clock);
+        return scheduler;
+    }
+
+    private static int slotOf(Instant instant) {
+        return (int) (instant.getEpochSecond() / SLOT_IN_SECONDS % NUMBER_OF_SLOTS);
+    }
+
+    private static List<Endpoint> createEndpoints(int numberOfEndpoints) {
+        var endpoints = new ArrayList<Endpoint>();
+        for (int i = 0; i < numberOfEndpoints; i++) {
+            var endpoint = new Endpoint();
+            endpoint.setAgrirouterEndpointId("agrirouter-endpoint-" + i);
+            endpoint.setExternalEndpointId("external-endpoint-" + i);
+            endpoints.add(endpoint);
+        }
+        return endpoints;
+    }
+
+    /**
+     * A clock that is moved forward by the test.
+     */
+    private static final class SimulatedClock extends Clock {
+
+        private volatile Instant instant;
+
+        private SimulatedClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void set(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+
+    /**
+     * Records the fetches and the number of concurrent fetches instead of querying the messages.
+     */
+    private static final class FakeExistingMessagesQueryService extends ExistingMessagesQueryService {
+
+        private final Clock clock;
+        private final Map<String, Integer> fetchesPerEndpoint = new ConcurrentHashMap<>();
+        private final Map<String, Instant> lastFetches = new ConcurrentHashMap<>();
+        private final AtomicInteger numberOfFetches = new AtomicInteger();
+        private final AtomicInteger concurrentFetches = new AtomicInteger();
+        private final AtomicInteger maximumNumberOfConcurrentFetches = new AtomicInteger();
+        private volatile long fetchTimeInMillis;
+
+        private FakeExistingMessagesQueryService(Clock clock) {
+            super(null, null, 1, 900);
+            this.clock = clock;
+        }
+
+        @Override
+        public boolean fetchAndConfirmExistingMessages(Endpoint endpoint) {
+            maximumNumberOfConcurrentFetches.accumulateAndGet(concurrentFetches.incrementAndGet(), Math::max);
+            try {
+                if (fetchTimeInMillis > 0) {
+                    Thread.sleep(fetchTimeInMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrentFetches.decrementAndGet();
+            }
+            fetchesPerEndpoint.merge(endpoint.getAgrirouterEndpointId(), 1, Integer::sum);
+            lastFetches.put(endpoint.getAgrirouterEndpointId(), clock.instant());
+            numberOfFetches.incrementAndGet();
+            return true;
+        }
+
+        @Override
+        public Optional<Instant> getLastFetch(String agrirouterEndpointId) {
+            return Optional.ofNullable(lastFetches.get(agrirouterEndpointId));
+        }
+
+        void setLastFetch(String agrirouterEndpointId, Instant lastFetch) {
+            lastFetches.put(agrirouterEndpointId, lastFetch);
+        }
+
+        void setFetchTimeInMillis(long fetchTimeInMillis) {
+            this.fetchTimeInMillis = fetchTimeInMillis;
+        }
+
+        int getNumberOfFetches() {
+            return numberOfFetches.get();
+        }
+
+        int getMaximumNumberOfConcurrentFetches() {
+            return maximumNumberOfConcurrentFetches.get();
+        }
+
+        Map<String, Integer> getFetchesPerEndpoint() {
+            return Map.copyOf(fetchesPerEndpoint);
+        }
+    }
+
+}
@@ -2,6 +2,8 @@ package de.agrirouter.middleware.controller.dto.request;
 
 import com.dke.data.agrirouter.impl.common.UtcTimeService;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
@@ -19,6 +21,11 @@ import java.util.Set;
 @Schema(description = "A request to search for telemetry data.")
 public class SearchTelemetryDataRequest {
 
+    /**
+     * The maximum page size.
+     */
+    public static final int MAX_PAGE_SIZE = 10_000;
+
     /**
      * The ID of the device.
      */
@@ -52,4 +59,18 @@ public class SearchTelemetryDataRequest {
      */
     @Schema(description = "The DDIs to list, if null or empty all DDIs will be listed and no filter will be applied.")
     private Set<Integer> ddisToList;
+
+    /**
+     * The maximum number of time logs per page, if null all time logs will be returned at once.
+     */
+    @Min(1)
+    @Max(MAX_PAGE_SIZE)
+    @Schema(description = "The maximum number of time logs per page, if null all time logs will be returned at once.")
+    private Integer pageSize;
+
+    /**
+     * The cursor returned with the previous page.
+     */
+    @Schema(description = "The cursor returned with the previous page, empty for the first page.")
+    private String cursor;
 }
@@ -29,4 +29,10 @@ public class RawTimeLogSearchResponse extends Response {
     @Schema(description = "The raw time logs.")
     List<RawTimeLogDataDto> rawTimeLogs;
 
+    /**
+     * The cursor to fetch the next page.
+     */
+    @Schema(description = "The cursor to fetch the next page, only set if the search was paginated and there are more time logs.")
+    String nextCursor;
+
 }
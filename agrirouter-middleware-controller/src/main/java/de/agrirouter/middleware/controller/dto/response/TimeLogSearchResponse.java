@@ -29,4 +29,10 @@ public class TimeLogSearchResponse extends Response {
     @Schema(description = "The time log with raw data.")
     List<TimeLogWithRawDataDto> timeLogsWithRawData;
 
+    /**
+     * The cursor to fetch the next page.
+     */
+    @Schema(description = "The cursor to fetch the next page, only set if the search was paginated and there are more time logs.")
+    String nextCursor;
+
 }
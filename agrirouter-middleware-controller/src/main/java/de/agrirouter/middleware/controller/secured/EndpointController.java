@@ -33,6 +33,7 @@ import org.springframework.web.bind.annotation.*;
 import java.security.Principal;
 import java.util.HashMap;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller to manage applications.
@@ -455,15 +456,14 @@ public class EndpointController implements SecuredApiController {
                     )
             }
     )
-    public ResponseEntity<DetailedEndpointHealthStatusResponse> health(@Parameter(description = "The external endpoint id.", required = true) @PathVariable String externalEndpointId) {
-        var healthStatus = endpointService.determineHealthStatus(externalEndpointId);
-        return switch (healthStatus.healthStatus()) {
+    public CompletableFuture<ResponseEntity<DetailedEndpointHealthStatusResponse>> health(@Parameter(description = "The external endpoint id.", required = true) @PathVariable String externalEndpointId) {
+        return endpointService.determineHealthStatusAsync(externalEndpointId).thenApply(healthStatus -> switch (healthStatus.healthStatus()) {
             case OK ->
                     ResponseEntity.status(HttpStatus.OK).body(new DetailedEndpointHealthStatusResponse(healthStatus.healthStatus(), healthStatus.lastKnownHealthyStatus()));
             case NOT_FOUND ->
                     ResponseEntity.status(HttpStatus.NOT_FOUND).body(new DetailedEndpointHealthStatusResponse(healthStatus.healthStatus(), healthStatus.lastKnownHealthyStatus()));
             default -> ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
-        };
+        });
     }
 
     /**
@@ -569,12 +569,14 @@ public class EndpointController implements SecuredApiController {
                     )
             }
     )
-    public ResponseEntity<EndpointRecipientsResponse> recipients(@Parameter(description = "The external endpoint id.", required = true) @PathVariable String externalEndpointId) {
-        final var messageRecipientDtos = endpointService.getMessageRecipients(externalEndpointId)
-                .stream()
-                .map(messageRecipient -> modelMapper.map(messageRecipient, MessageRecipientDto.class))
-                .toList();
-        return ResponseEntity.ok(new EndpointRecipientsResponse(messageRecipientDtos));
+    public CompletableFuture<ResponseEntity<EndpointRecipientsResponse>> recipients(@Parameter(description = "The external endpoint id.", required = true) @PathVariable String externalEndpointId) {
+        return endpointService.getMessageRecipientsAsync(externalEndpointId).thenApply(messageRecipients -> {
+            final var messageRecipientDtos = messageRecipients
+                    .stream()
+                    .map(messageRecipient -> modelMapper.map(messageRecipient, MessageRecipientDto.class))
+                    .toList();
+            return ResponseEntity.ok(new EndpointRecipientsResponse(messageRecipientDtos));
+        });
     }
 
     @GetMapping(
@@ -3,6 +3,7 @@ package de.agrirouter.middleware.controller.secured;
 import de.agrirouter.middleware.api.errorhandling.ParameterValidationException;
 import de.agrirouter.middleware.business.PublishNonTelemetryDataService;
 import de.agrirouter.middleware.business.SearchNonTelemetryDataService;
+import de.agrirouter.middleware.business.dto.FileDownload;
 import de.agrirouter.middleware.business.parameters.PublishNonTelemetryDataParameters;
 import de.agrirouter.middleware.business.parameters.SearchNonTelemetryDataParameters;
 import de.agrirouter.middleware.controller.SecuredApiController;
@@ -27,6 +28,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.Errors;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Sending messages to the AR.
@@ -235,10 +237,14 @@ public class NonTelemetryDataController implements SecuredApiController {
                     )
             }
     )
-    public @ResponseBody
-    byte[] download(@Parameter(description = "The external endpoint ID.", required = true) @PathVariable String externalEndpointId,
-                    @Parameter(description = "The ID of the message.", required = true) @PathVariable String messageId) {
-        return searchNonTelemetryDataService.downloadAsByteArray(externalEndpointId, messageId);
+    public ResponseEntity<StreamingResponseBody> download(@Parameter(description = "The external endpoint ID.", required = true) @PathVariable String externalEndpointId,
+                                                          @Parameter(description = "The ID of the message.", required = true) @PathVariable String messageId) {
+        final var fileDownload = searchNonTelemetryDataService.download(externalEndpointId, messageId);
+        final var response = ResponseEntity.ok();
+        if (fileDownload.contentLength() != FileDownload.UNKNOWN_CONTENT_LENGTH) {
+            response.contentLength(fileDownload.contentLength());
+        }
+        return response.body(fileDownload.content()::writeTo);
     }
 
     /**
@@ -4,6 +4,7 @@ import de.agrirouter.middleware.api.errorhandling.ParameterValidationException;
 import de.agrirouter.middleware.business.DeviceDescriptionService;
 import de.agrirouter.middleware.business.DeviceService;
 import de.agrirouter.middleware.business.TimeLogService;
+import de.agrirouter.middleware.business.dto.timelog.TimeLogPage;
 import de.agrirouter.middleware.business.dto.timelog.periods.TimeLogPeriods;
 import de.agrirouter.middleware.business.dto.timelog.periods.TimeLogPeriodsForDevice;
 import de.agrirouter.middleware.business.dto.timelog.periods.TimeLogPeriodsForTeamSet;
@@ -37,6 +38,8 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.Errors;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.json.JsonMapper;
 
 import java.time.Instant;
 import java.util.ArrayList;
@@ -55,10 +58,13 @@ import java.util.stream.Collectors;
 )
 public class TelemetryDataController implements SecuredApiController {
 
+    private static final int NEW_LINE = '\n';
+
     private final DeviceDescriptionService deviceDescriptionService;
     private final DeviceService deviceService;
     private final TimeLogService timeLogService;
     private final ModelMapper modelMapper;
+    private final JsonMapper jsonMapper;
 
     /**
      * Register a machine.
@@ -427,9 +433,9 @@ public class TelemetryDataController implements SecuredApiController {
             throw new ParameterValidationException(errors);
         }
         final var messagesForTimeLogPeriodParameters = modelMapper.map(searchTelemetryDataRequest, MessagesForTimeLogPeriodParameters.class);
-        final var messages = timeLogService.getMessagesForTimeLogPeriod(messagesForTimeLogPeriodParameters);
-        final var timeLogsWithRawData = messages.stream().map(timeLog -> modelMapper.map(timeLog, TimeLogWithRawDataDto.class)).collect(Collectors.toList());
-        return ResponseEntity.status(HttpStatus.OK).body(new TimeLogSearchResponse(timeLogsWithRawData.size(), timeLogsWithRawData));
+        final var timeLogPage = getTimeLogPage(searchTelemetryDataRequest, messagesForTimeLogPeriodParameters);
+        final var timeLogsWithRawData = timeLogPage.timeLogs().stream().map(timeLog -> modelMapper.map(timeLog, TimeLogWithRawDataDto.class)).collect(Collectors.toList());
+        return ResponseEntity.status(HttpStatus.OK).body(new TimeLogSearchResponse(timeLogsWithRawData.size(), timeLogsWithRawData, timeLogPage.nextCursor()));
     }
 
     /**
@@ -492,8 +498,91 @@ public class TelemetryDataController implements SecuredApiController {
             throw new ParameterValidationException(errors);
         }
         final var messagesForTimeLogPeriodParameters = modelMapper.map(searchTelemetryDataRequest, MessagesForTimeLogPeriodParameters.class);
-        final var messages = timeLogService.getMessagesForTimeLogPeriod(messagesForTimeLogPeriodParameters);
-        final var rawTimeLogs = messages.stream().map(timeLog -> modelMapper.map(timeLog, RawTimeLogDataDto.class)).collect(Collectors.toList());
-        return ResponseEntity.status(HttpStatus.OK).body(new RawTimeLogSearchResponse(rawTimeLogs.size(), rawTimeLogs));
+        final var timeLogPage = getTimeLogPage(searchTelemetryDataRequest, messagesForTimeLogPeriodParameters);
+        final var rawTimeLogs = timeLogPage.timeLogs().stream().map(timeLog -> modelMapper.map(timeLog, RawTimeLogDataDto.class)).collect(Collectors.toList());
+        return ResponseEntity.status(HttpStatus.OK).body(new RawTimeLogSearchResponse(rawTimeLogs.size(), rawTimeLogs, timeLogPage.nextCursor()));
+    }
+
+    private TimeLogPage getTimeLogPage(SearchTelemetryDataRequest searchTelemetryDataRequest, MessagesForTimeLogPeriodParameters messagesForTimeLogPeriodParameters) {
+        if (null != searchTelemetryDataRequest.getPageSize()) {
+            return timeLogService.getPageOfMessagesForTimeLogPeriod(messagesForTimeLogPeriodParameters, searchTelemetryDataRequest.getCursor(), searchTelemetryDataRequest.getPageSize());
+        }
+        return new TimeLogPage(timeLogService.getMessagesForTimeLogPeriod(messagesForTimeLogPeriodParameters), null);
+    }
+
+    /**
+     * Stream the time logs with the machine data as newline delimited JSON, one time log per line.
+     *
+     * @param searchTelemetryDataRequest -
+     * @return -
+     */
+    @PostMapping(
+            value = "/search/time-logs/stream",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE
+    )
+    @Operation(
+            operationId = "telemetry-data.stream-time-logs",
+            description = "Stream the time logs with the machine data as newline delimited JSON. The time logs are read using a database cursor, so the size of the result is not limited by the memory of the middleware. The pagination parameters are ignored.",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "The response containing one time log per line.",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                    schema = @Schema(
+                                            implementation = TimeLogWithRawDataDto.class
+                                    )
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "In case of a business exception.",
+                            content = @Content(
+                                    schema = @Schema(
+                                            implementation = ErrorResponse.class
+                                    ),
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "In case of a parameter validation exception.",
+                            content = @Content(
+                                    schema = @Schema(
+                                            implementation = ParameterValidationProblemResponse.class
+                                    ),
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "500",
+                            description = "In case of an unknown error.",
+                            content = @Content(
+                                    schema = @Schema(
+                                            implementation = ErrorResponse.class
+                                    ),
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE
+                            )
+                    )
+            }
+    )
+    public ResponseEntity<StreamingResponseBody> streamTelemetryDataTimeLogs(@Parameter(description = "The request with all necessary information to search for the telemetry data (time logs).", required = true) @Valid @RequestBody SearchTelemetryDataRequest searchTelemetryDataRequest,
+                                                                             @Parameter(hidden = true) Errors errors) {
+        if (errors.hasErrors()) {
+            throw new ParameterValidationException(errors);
+        }
+        final var messagesForTimeLogPeriodParameters = modelMapper.map(searchTelemetryDataRequest, MessagesForTimeLogPeriodParameters.class);
+        final StreamingResponseBody streamingResponseBody = outputStream -> {
+            try (var timeLogs = timeLogService.streamMessagesForTimeLogPeriod(messagesForTimeLogPeriodParameters)) {
+                final var iterator = timeLogs.iterator();
+                while (iterator.hasNext()) {
+                    outputStream.write(jsonMapper.writeValueAsBytes(modelMapper.map(iterator.next(), TimeLogWithRawDataDto.class)));
+                    outputStream.write(NEW_LINE);
+                }
+                outputStream.flush();
+            }
+        };
+        return ResponseEntity.status(HttpStatus.OK).contentType(MediaType.APPLICATION_NDJSON).body(streamingResponseBody);
     }
 }
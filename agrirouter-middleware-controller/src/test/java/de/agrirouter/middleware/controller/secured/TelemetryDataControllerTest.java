@@ -0,0 +1,89 @@
+package de.agrirouter.middleware.controller.secured;
+
+import de.agrirouter.middleware.business.DeviceDescriptionService;
+import de.agrirouter.middleware.business.DeviceService;
+import de.agrirouter.middleware.business.TimeLogService;
+import de.agrirouter.middleware.controller.dto.request.SearchTelemetryDataRequest;
+import de.agrirouter.middleware.domain.documents.TimeLog;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.validation.Errors;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TelemetryDataControllerTest {
+
+    private static final int NUMBER_OF_TIME_LOGS = 1_000;
+
+    private final TimeLogService timeLogService = mock(TimeLogService.class);
+    private final TelemetryDataController telemetryDataController = new TelemetryDataController(mock(DeviceDescriptionService.class), mock(DeviceService.class), timeLogService, new ModelMapper(), JsonMapper.builder().build());
+
+    @Test
+    void givenManyTimeLogsWhenStreamingThenTheCursorShouldBeOpenedByTheResponseBodyAndTheTimeLogsShouldBeWrittenOneByOne() throws Exception {
+        var numberOfReadTimeLogs = new AtomicLong();
+        var closed = new AtomicBoolean();
+        var timeLogs = Stream.iterate(0, i -> i + 1)
+                .limit(NUMBER_OF_TIME_LOGS)
+                .map(i -> createTimeLog(i, numberOfReadTimeLogs))
+                .onClose(() -> closed.set(true));
+        when(timeLogService.streamMessagesForTimeLogPeriod(any())).thenReturn(timeLogs);
+        var lineCountingOutputStream = new LineCountingOutputStream(numberOfReadTimeLogs);
+
+        var response = telemetryDataController.streamTelemetryDataTimeLogs(new SearchTelemetryDataRequest(), mock(Errors.class));
+        assertThat(response.getBody()).isNotNull();
+        verify(timeLogService, never()).streamMessagesForTimeLogPeriod(any());
+        response.getBody().writeTo(lineCountingOutputStream);
+
+        assertThat(lineCountingOutputStream.numberOfLines).isEqualTo(NUMBER_OF_TIME_LOGS);
+        assertThat(lineCountingOutputStream.maxNumberOfPendingTimeLogs).isLessThanOrEqualTo(1);
+        assertThat(closed).isTrue();
+    }
+
+    private static TimeLog createTimeLog(int index, AtomicLong numberOfReadTimeLogs) {
+        numberOfReadTimeLogs.incrementAndGet();
+        var timeLog = new TimeLog();
+        timeLog.setId(String.valueOf(index));
+        timeLog.setMessageId("message-" + index);
+        timeLog.setTimestamp(index);
+        timeLog.setTeamSetContextId("team-set-1");
+        timeLog.setDocument(new Document("time", List.of(new Document("start", "2024-01-01T00:00:00Z"))));
+        return timeLog;
+    }
+
+    /**
+     * Counts the written lines and checks how many time logs have been read from the stream without being written.
+     */
+    private static class LineCountingOutputStream extends OutputStream {
+
+        private final AtomicLong numberOfReadTimeLogs;
+        private long numberOfLines;
+        private long maxNumberOfPendingTimeLogs;
+
+        private LineCountingOutputStream(AtomicLong numberOfReadTimeLogs) {
+            this.numberOfReadTimeLogs = numberOfReadTimeLogs;
+        }
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                numberOfLines++;
+                maxNumberOfPendingTimeLogs = Math.max(maxNumberOfPendingTimeLogs, numberOfReadTimeLogs.get() - numberOfLines);
+            }
+        }
+
+    }
+
+}
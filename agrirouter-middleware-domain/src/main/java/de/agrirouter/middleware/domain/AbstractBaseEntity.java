@@ -0,0 +1,32 @@
+package de.agrirouter.middleware.domain;
+
+import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.PrePersist;
+import lombok.Data;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Common attributes of all entities, independent of how the technical ID is generated.
+ */
+@Data
+@ToString
+@MappedSuperclass
+public abstract class AbstractBaseEntity implements Serializable {
+
+    /**
+     * The last update.
+     */
+    private LocalDateTime lastUpdate;
+
+    /**
+     * Define timestamp for the last update.
+     */
+    @PrePersist
+    public void setLastUpdate() {
+        lastUpdate = LocalDateTime.now();
+    }
+
+}
@@ -2,18 +2,17 @@ package de.agrirouter.middleware.domain;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
-import java.io.Serializable;
-import java.time.LocalDateTime;
-
 /**
  * Base entity, holding common attributes like the technical ID, etc.
  */
 @Data
-@ToString
+@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true)
 @MappedSuperclass
-public abstract class BaseEntity implements Serializable {
+public abstract class BaseEntity extends AbstractBaseEntity {
 
     /**
      * Technical ID of the entity.
@@ -22,17 +21,4 @@ public abstract class BaseEntity implements Serializable {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private long id;
 
-    /**
-     * The last update.
-     */
-    private LocalDateTime lastUpdate;
-
-    /**
-     * Define timestamp for the last update.
-     */
-    @PrePersist
-    public void setLastUpdate() {
-        lastUpdate = LocalDateTime.now();
-    }
-
 }
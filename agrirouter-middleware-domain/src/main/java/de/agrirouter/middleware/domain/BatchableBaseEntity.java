@@ -0,0 +1,25 @@
+package de.agrirouter.middleware.domain;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Base entity for entities that are inserted in large numbers. The technical ID is taken from a pooled sequence
+ * per entity instead of an identity column, which allows Hibernate to batch the inserts.
+ */
+@Data
+@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true)
+@MappedSuperclass
+public abstract class BatchableBaseEntity extends AbstractBaseEntity {
+
+    /**
+     * Technical ID of the entity.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    private long id;
+
+}
@@ -1,5 +1,6 @@
 package de.agrirouter.middleware.domain;
 
+import de.agrirouter.middleware.domain.enums.ContentMessageEncoding;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -12,7 +13,7 @@ import lombok.ToString;
 @Entity
 @ToString
 @EqualsAndHashCode(callSuper = true)
-public class ContentMessage extends BaseEntity {
+public class ContentMessage extends BatchableBaseEntity {
 
     /**
      * The endpoint ID.
@@ -27,6 +28,24 @@ public class ContentMessage extends BaseEntity {
     @Column(nullable = false)
     private byte[] messageContent;
 
+    /**
+     * The encoding of the message content.
+     */
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ContentMessageEncoding contentEncoding;
+
+    /**
+     * The name of the store holding the payload.
+     */
+    @Column(nullable = false)
+    private String payloadStore;
+
+    /**
+     * The key of the payload within the store, if the payload is not stored as message content.
+     */
+    private String payloadKey;
+
     /**
      * The metadata for a content message.
      */
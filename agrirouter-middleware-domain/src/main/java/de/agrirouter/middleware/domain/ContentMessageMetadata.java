@@ -12,7 +12,7 @@ import lombok.ToString;
 @Entity
 @ToString
 @EqualsAndHashCode(callSuper = true)
-public class ContentMessageMetadata extends BaseEntity {
+public class ContentMessageMetadata extends BatchableBaseEntity {
 
     /**
      * The message ID.
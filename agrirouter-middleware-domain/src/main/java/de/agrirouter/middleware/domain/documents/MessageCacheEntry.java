@@ -40,10 +40,18 @@ public class MessageCacheEntry extends NoSqlBaseEntity {
     private String filename;
 
     /**
-     * The message.
+     * The message as UTF-8 string, only set for entries that have been cached before the payload was stored binary.
+     *
+     * @deprecated The entries are stored with the binary payload, the field is only read for older entries.
      */
+    @Deprecated
     private String message;
 
+    /**
+     * The binary payload of the message.
+     */
+    private byte[] payload;
+
     /**
      * The team set context ID.
      */
@@ -0,0 +1,51 @@
+package de.agrirouter.middleware.domain.documents;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A message waiting for acknowledgement, stored in the document storage to survive a restart. The ID of the entry is
+ * the message ID.
+ */
+@Data
+@ToString
+@Document
+@EqualsAndHashCode(callSuper = true)
+public class MessageWaitingForAcknowledgementEntry extends NoSqlBaseEntity {
+
+    /**
+     * The internal endpoint ID.
+     */
+    @Indexed(name = "agrirouterEndpointId_idx", background = true)
+    private String agrirouterEndpointId;
+
+    /**
+     * The response from the AR - in case of an error.
+     */
+    private String response;
+
+    /**
+     * The type of message waiting for response.
+     */
+    private String technicalMessageType;
+
+    /**
+     * Dynamic properties for the message waiting for ACK.
+     */
+    private Map<String, Object> dynamicProperties = new HashMap<>();
+
+    /**
+     * The timestamp of the creation, entries are removed a week after the creation by the scheduled removal of the
+     * messages waiting for acknowledgement.
+     */
+    @Indexed(name = "ttl_index", expireAfter = "7D")
+    private Instant createdAt;
+
+}
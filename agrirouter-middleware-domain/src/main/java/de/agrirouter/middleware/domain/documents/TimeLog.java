@@ -8,6 +8,8 @@ import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.util.Locale;
+
 /**
  * Telemetry data, stored in the document storage.
  */
@@ -16,7 +18,8 @@ import org.springframework.data.mongodb.core.mapping.Document;
 @Document
 @EqualsAndHashCode(callSuper = true)
 @CompoundIndexes({
-        @CompoundIndex(name = "timestamp_teamSetContextId_idx", def = "{'timestamp': 1, 'teamSetContextId': 1}", background = true)
+        @CompoundIndex(name = "normalizedTeamSetContextId_timestamp_id_idx", def = "{'normalizedTeamSetContextId': 1, 'timestamp': 1, '_id': 1}", background = true),
+        @CompoundIndex(name = "timestamp_id_idx", def = "{'timestamp': 1, '_id': 1}", background = true)
 })
 public class TimeLog extends NoSqlBaseEntity {
 
@@ -62,4 +65,19 @@ public class TimeLog extends NoSqlBaseEntity {
     @Indexed(name = "teamSetContextId_idx", background = true)
     private String teamSetContextId;
 
+    /**
+     * The team set context id in lower case, used for the queries.
+     */
+    private String normalizedTeamSetContextId;
+
+    /**
+     * Normalize the team set context ID, so it can be found using an exact match.
+     *
+     * @param teamSetContextId The team set context ID.
+     * @return The normalized team set context ID or null, if there is none.
+     */
+    public static String normalizeTeamSetContextId(String teamSetContextId) {
+        return null != teamSetContextId ? teamSetContextId.toLowerCase(Locale.ROOT) : null;
+    }
+
 }
@@ -0,0 +1,18 @@
+package de.agrirouter.middleware.domain.enums;
+
+/**
+ * The encoding of the message content of a content message.
+ */
+public enum ContentMessageEncoding {
+
+    /**
+     * The content is stored base64 encoded, as it has been received from the agrirouter©.
+     */
+    BASE64,
+
+    /**
+     * The content is stored as raw binary.
+     */
+    BINARY
+
+}
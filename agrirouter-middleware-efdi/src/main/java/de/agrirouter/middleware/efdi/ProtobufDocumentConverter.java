@@ -0,0 +1,233 @@
+package de.agrirouter.middleware.efdi;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import com.google.protobuf.MessageOrBuilder;
+import com.google.protobuf.util.Durations;
+import com.google.protobuf.util.JsonFormat;
+import com.google.protobuf.util.Timestamps;
+import org.bson.Document;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Converts protobuf messages into BSON documents and back, using the descriptors of the messages. The documents are
+ * identical to the ones created by printing the message with {@link JsonFormat#printer()} and parsing the JSON with
+ * {@link Document#parse(String)}, without creating the JSON in between.
+ */
+public final class ProtobufDocumentConverter {
+
+    private static final String WELL_KNOWN_TYPES_PACKAGE = "google.protobuf.";
+    private static final String TIMESTAMP = "google.protobuf.Timestamp";
+    private static final String DURATION = "google.protobuf.Duration";
+    private static final Set<String> WRAPPERS = Set.of(
+            "google.protobuf.DoubleValue",
+            "google.protobuf.FloatValue",
+            "google.protobuf.Int64Value",
+            "google.protobuf.UInt64Value",
+            "google.protobuf.Int32Value",
+            "google.protobuf.UInt32Value",
+            "google.protobuf.BoolValue",
+            "google.protobuf.StringValue",
+            "google.protobuf.BytesValue");
+    private static final String NULL_VALUE = "google.protobuf.NullValue";
+    private static final String FALLBACK_KEY = "value";
+
+    private ProtobufDocumentConverter() {
+        // Hidden
+    }
+
+    /**
+     * Convert the message into a document.
+     *
+     * @param message The message.
+     * @return The document.
+     * @throws InvalidProtocolBufferException If the message contains a type that can not be converted, e.g. an
+     *                                        {@code Any} without a type registry.
+     */
+    public static Document toDocument(MessageOrBuilder message) throws InvalidProtocolBufferException {
+        final var document = new Document();
+        for (Map.Entry<Descriptors.FieldDescriptor, Object> field : message.getAllFields().entrySet()) {
+            final var fieldDescriptor = field.getKey();
+            document.put(fieldDescriptor.getJsonName(), toBsonValue(fieldDescriptor, field.getValue()));
+        }
+        return document;
+    }
+
+    /**
+     * Merge the document into the builder.
+     *
+     * @param document The document, as created by {@link #toDocument(MessageOrBuilder)}.
+     * @param builder  The builder of the message.
+     * @throws InvalidProtocolBufferException If the document does not match the message.
+     */
+    public static void merge(Document document, Message.Builder builder) throws InvalidProtocolBufferException {
+        final var descriptor = builder.getDescriptorForType();
+        for (Map.Entry<String, Object> entry : document.entrySet()) {
+            final var fieldDescriptor = findField(descriptor, entry.getKey());
+            if (null == entry.getValue()) {
+                continue;
+            }
+            if (fieldDescriptor.isMapField()) {
+                mergeMapField(fieldDescriptor, (Document) entry.getValue(), builder);
+            } else if (fieldDescriptor.isRepeated()) {
+                for (Object element : (List<?>) entry.getValue()) {
+                    builder.addRepeatedField(fieldDescriptor, toFieldValue(fieldDescriptor, element, builder));
+                }
+            } else {
+                builder.setField(fieldDescriptor, toFieldValue(fieldDescriptor, entry.getValue(), builder));
+            }
+        }
+    }
+
+    private static Object toBsonValue(Descriptors.FieldDescriptor fieldDescriptor, Object value) throws InvalidProtocolBufferException {
+        if (fieldDescriptor.isMapField()) {
+            final var keyDescriptor = fieldDescriptor.getMessageType().findFieldByNumber(1);
+            final var valueDescriptor = fieldDescriptor.getMessageType().findFieldByNumber(2);
+            final var map = new Document();
+            for (Object element : (List<?>) value) {
+                final var mapEntry = (Message) element;
+                map.put(String.valueOf(toBsonValue(keyDescriptor, mapEntry.getField(keyDescriptor))), toBsonValue(valueDescriptor, mapEntry.getField(valueDescriptor)));
+            }
+            return map;
+        }
+        if (fieldDescriptor.isRepeated()) {
+            final var elements = (List<?>) value;
+            final var array = new ArrayList<>(elements.size());
+            for (Object element : elements) {
+                array.add(toSingleBsonValue(fieldDescriptor, element));
+            }
+            return array;
+        }
+        return toSingleBsonValue(fieldDescriptor, value);
+    }
+
+    private static Object toSingleBsonValue(Descriptors.FieldDescriptor fieldDescriptor, Object value) throws InvalidProtocolBufferException {
+        return switch (fieldDescriptor.getType()) {
+            case INT32, SINT32, SFIXED32 -> value;
+            case INT64, SINT64, SFIXED64 -> String.valueOf(value);
+            case UINT32, FIXED32 -> {
+                final var unsignedValue = Integer.toUnsignedLong((Integer) value);
+                yield unsignedValue <= Integer.MAX_VALUE ? (Object) (int) unsignedValue : (Object) unsignedValue;
+            }
+            case UINT64, FIXED64 -> Long.toUnsignedString((Long) value);
+            case FLOAT -> {
+                final var floatValue = (Float) value;
+                yield floatValue.isNaN() || floatValue.isInfinite() ? (Object) floatValue.toString() : (Object) Double.parseDouble(floatValue.toString());
+            }
+            case DOUBLE -> {
+                final var doubleValue = (Double) value;
+                yield doubleValue.isNaN() || doubleValue.isInfinite() ? (Object) doubleValue.toString() : (Object) doubleValue;
+            }
+            case BOOL, STRING -> value;
+            case BYTES -> Base64.getEncoder().encodeToString(((ByteString) value).toByteArray());
+            case ENUM -> {
+                final var enumValue = (Descriptors.EnumValueDescriptor) value;
+                if (NULL_VALUE.equals(enumValue.getType().getFullName())) {
+                    yield null;
+                }
+                yield enumValue.getIndex() == -1 ? (Object) enumValue.getNumber() : (Object) enumValue.getName();
+            }
+            case MESSAGE, GROUP -> toBsonValue((Message) value);
+        };
+    }
+
+    private static Object toBsonValue(Message message) throws InvalidProtocolBufferException {
+        final var fullName = message.getDescriptorForType().getFullName();
+        if (!fullName.startsWith(WELL_KNOWN_TYPES_PACKAGE)) {
+            return toDocument(message);
+        }
+        if (TIMESTAMP.equals(fullName)) {
+            return Timestamps.toString(com.google.protobuf.Timestamp.newBuilder().mergeFrom(message).build());
+        }
+        if (DURATION.equals(fullName)) {
+            return Durations.toString(com.google.protobuf.Duration.newBuilder().mergeFrom(message).build());
+        }
+        if (WRAPPERS.contains(fullName)) {
+            final var valueDescriptor = message.getDescriptorForType().findFieldByNumber(1);
+            return toSingleBsonValue(valueDescriptor, message.getField(valueDescriptor));
+        }
+        // The remaining well known types (Any, Struct, Value, ListValue, FieldMask, ...) are rare, so they are
+        // converted using their JSON representation.
+        return Document.parse("{\"" + FALLBACK_KEY + "\":" + JsonFormat.printer().print(message) + "}").get(FALLBACK_KEY);
+    }
+
+    private static Object toFieldValue(Descriptors.FieldDescriptor fieldDescriptor, Object value, Message.Builder parentBuilder) throws InvalidProtocolBufferException {
+        return switch (fieldDescriptor.getType()) {
+            case INT32, SINT32, SFIXED32 -> value instanceof Number number ? number.intValue() : Integer.parseInt(value.toString());
+            case UINT32, FIXED32 -> (int) (value instanceof Number number ? number.longValue() : Long.parseLong(value.toString()));
+            case INT64, SINT64, SFIXED64 -> value instanceof Number number ? number.longValue() : Long.parseLong(value.toString());
+            case UINT64, FIXED64 -> value instanceof Number number ? number.longValue() : Long.parseUnsignedLong(value.toString());
+            case FLOAT -> value instanceof Number number ? number.floatValue() : Float.parseFloat(value.toString());
+            case DOUBLE -> value instanceof Number number ? number.doubleValue() : Double.parseDouble(value.toString());
+            case BOOL -> value instanceof Boolean booleanValue ? booleanValue : Boolean.parseBoolean(value.toString());
+            case STRING -> value.toString();
+            case BYTES -> ByteString.copyFrom(Base64.getDecoder().decode(value.toString()));
+            case ENUM -> toEnumValue(fieldDescriptor, value);
+            case MESSAGE, GROUP -> toMessage(fieldDescriptor, value, parentBuilder);
+        };
+    }
+
+    private static Descriptors.EnumValueDescriptor toEnumValue(Descriptors.FieldDescriptor fieldDescriptor, Object value) throws InvalidProtocolBufferException {
+        final var enumType = fieldDescriptor.getEnumType();
+        final var enumValue = value instanceof Number number ? enumType.findValueByNumberCreatingIfUnknown(number.intValue()) : enumType.findValueByName(value.toString());
+        if (null == enumValue) {
+            throw new InvalidProtocolBufferException(String.format("Invalid value '%s' for the enum '%s'.", value, enumType.getFullName()));
+        }
+        return enumValue;
+    }
+
+    private static Message toMessage(Descriptors.FieldDescriptor fieldDescriptor, Object value, Message.Builder parentBuilder) throws InvalidProtocolBufferException {
+        final var builder = parentBuilder.newBuilderForField(fieldDescriptor);
+        final var fullName = fieldDescriptor.getMessageType().getFullName();
+        if (!fullName.startsWith(WELL_KNOWN_TYPES_PACKAGE)) {
+            merge((Document) value, builder);
+            return builder.build();
+        }
+        try {
+            if (TIMESTAMP.equals(fullName)) {
+                return builder.mergeFrom(Timestamps.parse(value.toString())).build();
+            }
+            if (DURATION.equals(fullName)) {
+                return builder.mergeFrom(Durations.parse(value.toString())).build();
+            }
+        } catch (ParseException e) {
+            throw new InvalidProtocolBufferException(String.format("Invalid value '%s' for the type '%s'.", value, fullName));
+        }
+        if (WRAPPERS.contains(fullName)) {
+            final var valueDescriptor = builder.getDescriptorForType().findFieldByNumber(1);
+            return builder.setField(valueDescriptor, toFieldValue(valueDescriptor, value, builder)).build();
+        }
+        final var json = new Document(FALLBACK_KEY, value).toJson();
+        JsonFormat.parser().merge(json.substring(json.indexOf(':') + 1, json.lastIndexOf('}')), builder);
+        return builder.build();
+    }
+
+    private static void mergeMapField(Descriptors.FieldDescriptor fieldDescriptor, Document map, Message.Builder builder) throws InvalidProtocolBufferException {
+        final var keyDescriptor = fieldDescriptor.getMessageType().findFieldByNumber(1);
+        final var valueDescriptor = fieldDescriptor.getMessageType().findFieldByNumber(2);
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            final var entryBuilder = builder.newBuilderForField(fieldDescriptor);
+            entryBuilder.setField(keyDescriptor, toFieldValue(keyDescriptor, entry.getKey(), entryBuilder));
+            entryBuilder.setField(valueDescriptor, toFieldValue(valueDescriptor, entry.getValue(), entryBuilder));
+            builder.addRepeatedField(fieldDescriptor, entryBuilder.build());
+        }
+    }
+
+    private static Descriptors.FieldDescriptor findField(Descriptors.Descriptor descriptor, String name) throws InvalidProtocolBufferException {
+        for (Descriptors.FieldDescriptor fieldDescriptor : descriptor.getFields()) {
+            if (fieldDescriptor.getJsonName().equals(name) || fieldDescriptor.getName().equals(name)) {
+                return fieldDescriptor;
+            }
+        }
+        throw new InvalidProtocolBufferException(String.format("The message '%s' has no field '%s'.", descriptor.getFullName(), name));
+    }
+
+}
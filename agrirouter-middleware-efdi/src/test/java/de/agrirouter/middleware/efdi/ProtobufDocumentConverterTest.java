@@ -0,0 +1,177 @@
+package de.agrirouter.middleware.efdi;
+
+import com.google.protobuf.*;
+import com.google.protobuf.util.JsonFormat;
+import efdi.GrpcEfdi;
+import org.bson.Document;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+class ProtobufDocumentConverterTest {
+
+    @Test
+    void givenDeviceDescriptionWhenConvertingThenTheDocumentShouldBeIdenticalToTheJsonBasedConversion() throws IOException {
+        final var deviceDescription = GrpcEfdi.ISO11783_TaskData.newBuilder();
+        JsonFormat.parser().merge(golden("device-description.json"), deviceDescription);
+
+        assertIdenticalToJsonBasedConversion(deviceDescription.build());
+    }
+
+    @Test
+    void givenCustomerWhenConvertingThenTheDocumentShouldBeIdenticalToTheJsonBasedConversion() throws IOException {
+        final var customer = GrpcEfdi.Customer.newBuilder();
+        JsonFormat.parser().merge(golden("customer.json"), customer);
+
+        assertIdenticalToJsonBasedConversion(customer.build());
+    }
+
+    @Test
+    void givenFarmWhenConvertingThenTheDocumentShouldBeIdenticalToTheJsonBasedConversion() throws IOException {
+        final var farm = GrpcEfdi.Farm.newBuilder();
+        JsonFormat.parser().merge(golden("farm.json"), farm);
+
+        assertIdenticalToJsonBasedConversion(farm.build());
+    }
+
+    @Test
+    void givenPartfieldWhenConvertingThenTheDocumentShouldBeIdenticalToTheJsonBasedConversion() throws IOException {
+        final var partfield = GrpcEfdi.Partfield.newBuilder();
+        JsonFormat.parser().merge(golden("partfield.json"), partfield);
+
+        assertIdenticalToJsonBasedConversion(partfield.build());
+    }
+
+    @Test
+    void givenEdgeCasesOfTheScalarTypesWhenConvertingThenTheDocumentShouldBeIdenticalToTheJsonBasedConversion() throws InvalidProtocolBufferException {
+        final var message = DynamicMessage.newBuilder(AllTypes.DESCRIPTOR)
+                .setField(AllTypes.field("int32"), Integer.MIN_VALUE)
+                .setField(AllTypes.field("int64"), Long.MIN_VALUE)
+                .setField(AllTypes.field("uint32"), -1)
+                .setField(AllTypes.field("uint64"), -1L)
+                .setField(AllTypes.field("sint64"), 42L)
+                .setField(AllTypes.field("fixed32"), 7)
+                .setField(AllTypes.field("float"), 0.1f)
+                .setField(AllTypes.field("double"), Double.NaN)
+                .setField(AllTypes.field("bool"), true)
+                .setField(AllTypes.field("string"), "äöü \"quoted\"")
+                .setField(AllTypes.field("bytes"), ByteString.copyFrom(new byte[]{0, -1, 127, -128}))
+                .setField(AllTypes.field("enum"), AllTypes.DESCRIPTOR.getFile().findEnumTypeByName("Color").findValueByNumberCreatingIfUnknown(42))
+                .addRepeatedField(AllTypes.field("floats"), Float.NEGATIVE_INFINITY)
+                .addRepeatedField(AllTypes.field("floats"), 3.0f)
+                .setField(AllTypes.field("timestamp"), Timestamp.newBuilder().setSeconds(1_600_000_000L).setNanos(123_000_000).build())
+                .setField(AllTypes.field("duration"), Duration.newBuilder().setSeconds(90).build())
+                .setField(AllTypes.field("int64Wrapper"), Int64Value.of(5))
+                .setField(AllTypes.field("struct"), Struct.newBuilder().putFields("key", Value.newBuilder().setNumberValue(1.5).build()).build())
+                .addRepeatedField(AllTypes.field("labels"), AllTypes.label("first", 1L))
+                .addRepeatedField(AllTypes.field("labels"), AllTypes.label("second", -1L))
+                .build();
+
+        assertIdenticalToJsonBasedConversion(message);
+    }
+
+    @Test
+    void givenEmptyMessageWhenConvertingThenTheDocumentShouldBeEmpty() throws InvalidProtocolBufferException {
+        Assertions.assertTrue(ProtobufDocumentConverter.toDocument(GrpcEfdi.TimeLog.getDefaultInstance()).isEmpty());
+    }
+
+    private static void assertIdenticalToJsonBasedConversion(Message message) throws InvalidProtocolBufferException {
+        final var expected = Document.parse(JsonFormat.printer().print(message));
+
+        final var actual = ProtobufDocumentConverter.toDocument(message);
+
+        Assertions.assertEquals(expected, actual);
+        Assertions.assertEquals(expected.toJson(), actual.toJson());
+        final var builder = message.newBuilderForType();
+        ProtobufDocumentConverter.merge(actual, builder);
+        Assertions.assertEquals(message.toByteString(), builder.build().toByteString());
+    }
+
+    private static String golden(String name) throws IOException {
+        try (var inputStream = Objects.requireNonNull(ProtobufDocumentConverterTest.class.getResourceAsStream("/golden/" + name))) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * A message using every scalar type and some of the well known types.
+     */
+    private static final class AllTypes {
+
+        private static final Descriptors.Descriptor DESCRIPTOR = createDescriptor();
+
+        private static Descriptors.FieldDescriptor field(String jsonName) {
+            return DESCRIPTOR.getFields().stream().filter(field -> field.getJsonName().equals(jsonName)).findFirst().orElseThrow();
+        }
+
+        private static Message label(String key, long value) {
+            final var entry = DESCRIPTOR.findNestedTypeByName("LabelsEntry");
+            return DynamicMessage.newBuilder(entry)
+                    .setField(entry.findFieldByName("key"), key)
+                    .setField(entry.findFieldByName("value"), value)
+                    .build();
+        }
+
+        private static Descriptors.Descriptor createDescriptor() {
+            final var message = DescriptorProtos.DescriptorProto.newBuilder().setName("AllTypes")
+                    .addField(field("int32", 1, DescriptorProtos.FieldDescriptorProto.Type.TYPE_INT32))
+                    .addField(field("int64", 2, DescriptorProtos.FieldDescriptorProto.Type.TYPE_INT64))
+                    .addField(field("uint32", 3, DescriptorProtos.FieldDescriptorProto.Type.TYPE_UINT32))
+                    .addField(field("uint64", 4, DescriptorProtos.FieldDescriptorProto.Type.TYPE_UINT64))
+                    .addField(field("sint64", 5, DescriptorProtos.FieldDescriptorProto.Type.TYPE_SINT64))
+                    .addField(field("fixed32", 6, DescriptorProtos.FieldDescriptorProto.Type.TYPE_FIXED32))
+                    .addField(field("float", 7, DescriptorProtos.FieldDescriptorProto.Type.TYPE_FLOAT))
+                    .addField(field("double", 8, DescriptorProtos.FieldDescriptorProto.Type.TYPE_DOUBLE))
+                    .addField(field("bool", 9, DescriptorProtos.FieldDescriptorProto.Type.TYPE_BOOL))
+                    .addField(field("string", 10, DescriptorProtos.FieldDescriptorProto.Type.TYPE_STRING))
+                    .addField(field("bytes", 11, DescriptorProtos.FieldDescriptorProto.Type.TYPE_BYTES))
+                    .addField(field("enum", 12, DescriptorProtos.FieldDescriptorProto.Type.TYPE_ENUM).setTypeName(".test.Color"))
+                    .addField(field("floats", 13, DescriptorProtos.FieldDescriptorProto.Type.TYPE_FLOAT).setLabel(DescriptorProtos.FieldDescriptorProto.Label.LABEL_REPEATED))
+                    .addField(field("timestamp", 14, DescriptorProtos.FieldDescriptorProto.Type.TYPE_MESSAGE).setTypeName(".google.protobuf.Timestamp"))
+                    .addField(field("duration", 15, DescriptorProtos.FieldDescriptorProto.Type.TYPE_MESSAGE).setTypeName(".google.protobuf.Duration"))
+                    .addField(field("int64_wrapper", 16, DescriptorProtos.FieldDescriptorProto.Type.TYPE_MESSAGE).setTypeName(".google.protobuf.Int64Value"))
+                    .addField(field("struct", 17, DescriptorProtos.FieldDescriptorProto.Type.TYPE_MESSAGE).setTypeName(".google.protobuf.Struct"))
+                    .addField(field("labels", 18, DescriptorProtos.FieldDescriptorProto.Type.TYPE_MESSAGE).setTypeName(".test.AllTypes.LabelsEntry").setLabel(DescriptorProtos.FieldDescriptorProto.Label.LABEL_REPEATED))
+                    .addNestedType(DescriptorProtos.DescriptorProto.newBuilder().setName("LabelsEntry")
+                            .setOptions(DescriptorProtos.MessageOptions.newBuilder().setMapEntry(true))
+                            .addField(field("key", 1, DescriptorProtos.FieldDescriptorProto.Type.TYPE_STRING))
+                            .addField(field("value", 2, DescriptorProtos.FieldDescriptorProto.Type.TYPE_INT64)));
+            final var file = DescriptorProtos.FileDescriptorProto.newBuilder()
+                    .setName("test.proto")
+                    .setPackage("test")
+                    .setSyntax("proto3")
+                    .addDependency("google/protobuf/timestamp.proto")
+                    .addDependency("google/protobuf/duration.proto")
+                    .addDependency("google/protobuf/wrappers.proto")
+                    .addDependency("google/protobuf/struct.proto")
+                    .addEnumType(DescriptorProtos.EnumDescriptorProto.newBuilder().setName("Color")
+                            .addValue(DescriptorProtos.EnumValueDescriptorProto.newBuilder().setName("COLOR_UNSPECIFIED").setNumber(0))
+                            .addValue(DescriptorProtos.EnumValueDescriptorProto.newBuilder().setName("COLOR_RED").setNumber(1)))
+                    .addMessageType(message)
+                    .build();
+            try {
+                return Descriptors.FileDescriptor.buildFrom(file, new Descriptors.FileDescriptor[]{
+                        Timestamp.getDescriptor().getFile(),
+                        Duration.getDescriptor().getFile(),
+                        Int64Value.getDescriptor().getFile(),
+                        Struct.getDescriptor().getFile()
+                }).findMessageTypeByName("AllTypes");
+            } catch (Descriptors.DescriptorValidationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static DescriptorProtos.FieldDescriptorProto.Builder field(String name, int number, DescriptorProtos.FieldDescriptorProto.Type type) {
+            return DescriptorProtos.FieldDescriptorProto.newBuilder()
+                    .setName(name)
+                    .setNumber(number)
+                    .setType(type)
+                    .setLabel(DescriptorProtos.FieldDescriptorProto.Label.LABEL_OPTIONAL);
+        }
+
+    }
+
+}
@@ -2,18 +2,24 @@ package de.agrirouter.middleware.integration;
 
 import agrirouter.request.Request;
 import com.dke.data.agrirouter.api.dto.onboard.OnboardingResponse;
+import com.dke.data.agrirouter.api.enums.SystemMessageType;
 import com.dke.data.agrirouter.api.service.messaging.encoding.EncodeMessageService;
+import com.dke.data.agrirouter.api.service.parameters.MessageConfirmationParameters;
 import com.dke.data.agrirouter.api.service.parameters.MessageHeaderParameters;
+import com.dke.data.agrirouter.api.service.parameters.MessageQueryParameters;
 import com.dke.data.agrirouter.api.service.parameters.PayloadParameters;
 import com.dke.data.agrirouter.api.service.parameters.SendMessageParameters;
 import com.dke.data.agrirouter.impl.common.MessageIdService;
 import com.dke.data.agrirouter.impl.messaging.SequenceNumberService;
+import com.dke.data.agrirouter.impl.messaging.mqtt.MessageConfirmationServiceImpl;
+import com.dke.data.agrirouter.impl.messaging.mqtt.MessageQueryServiceImpl;
 import de.agrirouter.middleware.api.errorhandling.BusinessException;
 import de.agrirouter.middleware.api.errorhandling.error.ErrorMessageFactory;
 import de.agrirouter.middleware.domain.Endpoint;
 import de.agrirouter.middleware.integration.ack.DynamicMessageProperties;
 import de.agrirouter.middleware.integration.ack.MessageWaitingForAcknowledgement;
 import de.agrirouter.middleware.integration.ack.MessageWaitingForAcknowledgementService;
+import de.agrirouter.middleware.integration.cache.OnboardingResponseCache;
 import de.agrirouter.middleware.integration.mqtt.MqttClientManagementService;
 import de.agrirouter.middleware.integration.parameters.MessagingIntegrationParameters;
 import lombok.RequiredArgsConstructor;
@@ -22,6 +28,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Collection;
 
 /**
  * Messaging service for sending or publishing messages.
@@ -34,6 +41,7 @@ public class SendMessageIntegrationService {
     private final MqttClientManagementService mqttClientManagementService;
     private final EncodeMessageService encodeMessageService;
     private final MessageWaitingForAcknowledgementService messageWaitingForAcknowledgementService;
+    private final OnboardingResponseCache onboardingResponseCache;
 
     /**
      * Publish a message. If the recipients are set also, the sending mode will be only direct sending, you have to decide between publishing and direct sending.
@@ -45,7 +53,7 @@ public class SendMessageIntegrationService {
         if (iMqttClient.isEmpty()) {
             throw new BusinessException(ErrorMessageFactory.couldNotConnectMqttClient(endpoint.getAgrirouterEndpointId()));
         }
-        final var onboardingResponse = endpoint.asOnboardingResponse();
+        final var onboardingResponse = onboardingResponseCache.get(endpoint);
         final var messageHeaderParameters = createMessageHeaderParameters(messagingIntegrationParameters, onboardingResponse);
         final var payloadParameters = createPayloadParameters(messagingIntegrationParameters);
 
@@ -80,6 +88,61 @@ public class SendMessageIntegrationService {
         messageWaitingForAcknowledgementService.save(messageWaitingForAcknowledgement);
     }
 
+    /**
+     * Confirm the messages received by the endpoint, all messages are confirmed with a single confirmation message.
+     *
+     * @param endpoint   The endpoint that received the messages.
+     * @param messageIds The IDs of the messages to confirm.
+     */
+    public void confirm(Endpoint endpoint, Collection<String> messageIds) {
+        final var iMqttClient = mqttClientManagementService.get(endpoint);
+        if (iMqttClient.isEmpty()) {
+            throw new BusinessException(ErrorMessageFactory.couldNotConnectMqttClient(endpoint.getAgrirouterEndpointId()));
+        }
+        final var messageConfirmationService = new MessageConfirmationServiceImpl(iMqttClient.get());
+        final var messageConfirmationParameters = new MessageConfirmationParameters();
+        messageConfirmationParameters.setMessageIds(new ArrayList<>(messageIds));
+        messageConfirmationParameters.setOnboardingResponse(onboardingResponseCache.get(endpoint));
+        final var messageId = messageConfirmationService.send(messageConfirmationParameters);
+
+        log.debug("Saving message with ID '{}'  waiting for ACK.", messageId);
+        MessageWaitingForAcknowledgement messageWaitingForAcknowledgement = new MessageWaitingForAcknowledgement();
+        messageWaitingForAcknowledgement.setAgrirouterEndpointId(endpoint.getAgrirouterEndpointId());
+        messageWaitingForAcknowledgement.setMessageId(messageId);
+        messageWaitingForAcknowledgement.setTechnicalMessageType(SystemMessageType.DKE_FEED_CONFIRM.getKey());
+        messageWaitingForAcknowledgementService.save(messageWaitingForAcknowledgement);
+    }
+
+    /**
+     * Query the messages that have been sent to the endpoint within the time window, the result is received
+     * asynchronously.
+     *
+     * @param endpoint          The endpoint.
+     * @param sentFromInSeconds The start of the time window.
+     * @param sentToInSeconds   The end of the time window.
+     * @return The ID of the query message.
+     */
+    public String query(Endpoint endpoint, long sentFromInSeconds, long sentToInSeconds) {
+        final var iMqttClient = mqttClientManagementService.get(endpoint);
+        if (iMqttClient.isEmpty()) {
+            throw new BusinessException(ErrorMessageFactory.couldNotConnectMqttClient(endpoint.getAgrirouterEndpointId()));
+        }
+        final var messageQueryService = new MessageQueryServiceImpl(iMqttClient.get());
+        final var parameters = new MessageQueryParameters();
+        parameters.setSentFromInSeconds(sentFromInSeconds);
+        parameters.setSentToInSeconds(sentToInSeconds);
+        parameters.setOnboardingResponse(onboardingResponseCache.get(endpoint));
+        final var messageId = messageQueryService.send(parameters);
+
+        log.debug("Saving message with ID '{}'  waiting for ACK.", messageId);
+        MessageWaitingForAcknowledgement messageWaitingForAcknowledgement = new MessageWaitingForAcknowledgement();
+        messageWaitingForAcknowledgement.setAgrirouterEndpointId(endpoint.getAgrirouterEndpointId());
+        messageWaitingForAcknowledgement.setMessageId(messageId);
+        messageWaitingForAcknowledgement.setTechnicalMessageType(SystemMessageType.DKE_FEED_MESSAGE_QUERY.getKey());
+        messageWaitingForAcknowledgementService.save(messageWaitingForAcknowledgement);
+        return messageId;
+    }
+
     private PayloadParameters createPayloadParameters(MessagingIntegrationParameters messagingIntegrationParameters) {
         final var payloadParameters = new PayloadParameters();
         payloadParameters.setTypeUrl(messagingIntegrationParameters.technicalMessageType().getTypeUrl());
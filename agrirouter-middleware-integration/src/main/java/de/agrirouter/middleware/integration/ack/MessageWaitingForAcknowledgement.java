@@ -19,9 +19,9 @@ import java.util.Map;
 public class MessageWaitingForAcknowledgement {
 
     /**
-     * Timestamp for this message waiting for ACK.
+     * Timestamp for this message waiting for ACK, only set explicitly when restoring a persisted message.
      */
-    private final long created = Instant.now().getEpochSecond();
+    private long created = Instant.now().getEpochSecond();
 
     /**
      * The internal endpoint ID.
@@ -1,22 +1,65 @@
 package de.agrirouter.middleware.integration.ack;
 
 import de.agrirouter.middleware.domain.Endpoint;
+import de.agrirouter.middleware.domain.documents.MessageWaitingForAcknowledgementEntry;
+import de.agrirouter.middleware.persistence.mongo.MessageWaitingForAcknowledgementEntryRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 
 /**
- * The service for all the messages waiting for ACK.
+ * The service for all the messages waiting for ACK. The messages are held in memory, indexed by the message ID and
+ * by the agrirouter© endpoint ID. If the persistence is enabled, every change is written through to the document
+ * storage and the messages of the last week are restored on startup. The persisted messages are removed by the
+ * scheduled removal a week after their creation.
  */
 @Slf4j
 @Service
 public class MessageWaitingForAcknowledgementService {
 
-    private static final ConcurrentHashMap<String, MessageWaitingForAcknowledgement> messages = new ConcurrentHashMap<>();
+    private static final Duration RETENTION_PERIOD = Duration.ofDays(7);
+
+    private final ConcurrentHashMap<String, MessageWaitingForAcknowledgement> messages = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<String>> messageIdsByAgrirouterEndpointId = new ConcurrentHashMap<>();
+
+    private final MessageWaitingForAcknowledgementEntryRepository messageWaitingForAcknowledgementEntryRepository;
+    private final boolean persistenceEnabled;
+
+    public MessageWaitingForAcknowledgementService(MessageWaitingForAcknowledgementEntryRepository messageWaitingForAcknowledgementEntryRepository,
+                                                   @Value("${app.message-waiting-for-ack.persistence-enabled:false}") boolean persistenceEnabled) {
+        this.messageWaitingForAcknowledgementEntryRepository = messageWaitingForAcknowledgementEntryRepository;
+        this.persistenceEnabled = persistenceEnabled;
+    }
+
+    /**
+     * Restore the persisted messages waiting for ACK, so acknowledgements arriving after a restart can still be
+     * matched.
+     */
+    @PostConstruct
+    public void restore() {
+        if (!persistenceEnabled) {
+            log.debug("Persistence for messages waiting for ACK is disabled, nothing to restore.");
+            return;
+        }
+        try (var entries = messageWaitingForAcknowledgementEntryRepository.streamAllByCreatedAtAfter(Instant.now().minus(RETENTION_PERIOD))) {
+            entries.map(MessageWaitingForAcknowledgementService::toMessageWaitingForAcknowledgement)
+                    .forEach(this::addToMemory);
+            log.info("Restored {} messages waiting for ACK.", messages.size());
+        } catch (Exception e) {
+            log.error("Could not restore the messages waiting for ACK, acknowledgements for messages sent before the restart will not be matched.", e);
+        }
+    }
 
     /**
      * Search for the message waiting for ACK.
@@ -37,7 +80,14 @@ public class MessageWaitingForAcknowledgementService {
     public void delete(MessageWaitingForAcknowledgement messageWaitingForAcknowledgement) {
         log.debug("Remove message waiting for ACK, currently there are {} messages waiting for ACK.", messages.size());
         log.trace("{}", messageWaitingForAcknowledgement);
-        messages.remove(messageWaitingForAcknowledgement.getMessageId());
+        removeFromMemory(messageWaitingForAcknowledgement.getMessageId());
+        if (persistenceEnabled) {
+            try {
+                messageWaitingForAcknowledgementEntryRepository.deleteById(messageWaitingForAcknowledgement.getMessageId());
+            } catch (Exception e) {
+                log.error("Could not remove the persisted message waiting for ACK with the ID {}, it will be removed after a week.", messageWaitingForAcknowledgement.getMessageId(), e);
+            }
+        }
         log.debug("Now there are {} messages waiting for ACK.", messages.size());
     }
 
@@ -49,7 +99,14 @@ public class MessageWaitingForAcknowledgementService {
     public void save(MessageWaitingForAcknowledgement messageWaitingForAcknowledgement) {
         log.debug("Adding message waiting for ACK, currently there are {} messages waiting for ACK.", messages.size());
         log.trace("{}", messageWaitingForAcknowledgement);
-        messages.put(messageWaitingForAcknowledgement.getMessageId(), messageWaitingForAcknowledgement);
+        addToMemory(messageWaitingForAcknowledgement);
+        if (persistenceEnabled) {
+            try {
+                messageWaitingForAcknowledgementEntryRepository.save(toMessageWaitingForAcknowledgementEntry(messageWaitingForAcknowledgement));
+            } catch (Exception e) {
+                log.error("Could not persist the message waiting for ACK with the ID {}, it will be lost on restart.", messageWaitingForAcknowledgement.getMessageId(), e);
+            }
+        }
     }
 
     /**
@@ -59,15 +116,19 @@ public class MessageWaitingForAcknowledgementService {
      * @return -
      */
     public List<MessageWaitingForAcknowledgement> findAllForAgrirouterEndpointId(String agrirouterEndpointId) {
-        return messages
-                .values()
-                .stream()
-                .filter(messageWaitingForAcknowledgement -> messageWaitingForAcknowledgement.getAgrirouterEndpointId().equals(agrirouterEndpointId))
-                .collect(Collectors.toList());
+        final var messageIds = null != agrirouterEndpointId ? messageIdsByAgrirouterEndpointId.get(agrirouterEndpointId) : null;
+        if (null == messageIds) {
+            return Collections.emptyList();
+        }
+        return messageIds.stream()
+                .map(messages::get)
+                .filter(Objects::nonNull)
+                .filter(messageWaitingForAcknowledgement -> agrirouterEndpointId.equals(messageWaitingForAcknowledgement.getAgrirouterEndpointId()))
+                .toList();
     }
 
     /**
-     * Clear all messages waiting for ACK that are older than a week.
+     * Clear all messages waiting for ACK that are older than a week, in memory and within the document storage.
      */
     public void clearAllThatAreOlderThanOneWeek() {
         log.info("Clearing all messages waiting for ACK that are older than a week.");
@@ -76,7 +137,16 @@ public class MessageWaitingForAcknowledgementService {
                 .values()
                 .stream()
                 .filter(MessageWaitingForAcknowledgement::isOlderThanOneWeek)
-                .forEach(this::delete);
+                .map(MessageWaitingForAcknowledgement::getMessageId)
+                .forEach(this::removeFromMemory);
+        if (persistenceEnabled) {
+            try {
+                final var numberOfDeletedEntries = messageWaitingForAcknowledgementEntryRepository.deleteAllByCreatedAtBefore(Instant.now().minus(RETENTION_PERIOD));
+                log.debug("Removed {} persisted messages waiting for ACK that are older than a week.", numberOfDeletedEntries);
+            } catch (Exception e) {
+                log.error("Could not remove the persisted messages waiting for ACK that are older than a week, they will be removed with the next run.", e);
+            }
+        }
     }
 
     /**
@@ -87,10 +157,77 @@ public class MessageWaitingForAcknowledgementService {
     public void deleteAllForEndpoint(Endpoint endpoint) {
         log.info("Deleting all messages waiting for ACK for endpoint {}.", endpoint.getAgrirouterEndpointId());
         log.debug("Currently there are {} messages waiting for ACK in total.", messages.size());
-        messages
-                .values()
-                .stream()
-                .filter(messageWaitingForAcknowledgement -> messageWaitingForAcknowledgement.getAgrirouterEndpointId().equals(endpoint.getAgrirouterEndpointId()))
-                .forEach(this::delete);
+        final var agrirouterEndpointId = endpoint.getAgrirouterEndpointId();
+        if (null == agrirouterEndpointId) {
+            return;
+        }
+        final var messageIds = messageIdsByAgrirouterEndpointId.remove(agrirouterEndpointId);
+        if (null != messageIds) {
+            messageIds.forEach(messageId -> messages.computeIfPresent(messageId, (id, messageWaitingForAcknowledgement) ->
+                    agrirouterEndpointId.equals(messageWaitingForAcknowledgement.getAgrirouterEndpointId()) ? null : messageWaitingForAcknowledgement));
+        }
+        if (persistenceEnabled) {
+            try {
+                messageWaitingForAcknowledgementEntryRepository.deleteAllByAgrirouterEndpointId(agrirouterEndpointId);
+            } catch (Exception e) {
+                log.error("Could not remove the persisted messages waiting for ACK for endpoint {}, they will be removed after a week.", agrirouterEndpointId, e);
+            }
+        }
+    }
+
+    private void addToMemory(MessageWaitingForAcknowledgement messageWaitingForAcknowledgement) {
+        final var messageId = messageWaitingForAcknowledgement.getMessageId();
+        final var previous = messages.put(messageId, messageWaitingForAcknowledgement);
+        if (null != previous && !Objects.equals(previous.getAgrirouterEndpointId(), messageWaitingForAcknowledgement.getAgrirouterEndpointId())) {
+            removeFromIndex(previous.getAgrirouterEndpointId(), messageId);
+        }
+        if (null != messageWaitingForAcknowledgement.getAgrirouterEndpointId()) {
+            messageIdsByAgrirouterEndpointId.compute(messageWaitingForAcknowledgement.getAgrirouterEndpointId(), (agrirouterEndpointId, messageIds) -> {
+                final var messageIdsForEndpoint = null != messageIds ? messageIds : ConcurrentHashMap.<String>newKeySet();
+                messageIdsForEndpoint.add(messageId);
+                return messageIdsForEndpoint;
+            });
+        }
+    }
+
+    private void removeFromMemory(String messageId) {
+        final var removed = messages.remove(messageId);
+        if (null != removed) {
+            removeFromIndex(removed.getAgrirouterEndpointId(), messageId);
+        }
+    }
+
+    private void removeFromIndex(String agrirouterEndpointId, String messageId) {
+        if (null == agrirouterEndpointId) {
+            return;
+        }
+        messageIdsByAgrirouterEndpointId.computeIfPresent(agrirouterEndpointId, (id, messageIds) -> {
+            messageIds.remove(messageId);
+            return messageIds.isEmpty() ? null : messageIds;
+        });
+    }
+
+    private static MessageWaitingForAcknowledgementEntry toMessageWaitingForAcknowledgementEntry(MessageWaitingForAcknowledgement messageWaitingForAcknowledgement) {
+        final var entry = new MessageWaitingForAcknowledgementEntry();
+        entry.setId(messageWaitingForAcknowledgement.getMessageId());
+        entry.setAgrirouterEndpointId(messageWaitingForAcknowledgement.getAgrirouterEndpointId());
+        entry.setResponse(messageWaitingForAcknowledgement.getResponse());
+        entry.setTechnicalMessageType(messageWaitingForAcknowledgement.getTechnicalMessageType());
+        entry.setDynamicProperties(null != messageWaitingForAcknowledgement.getDynamicProperties() ? new HashMap<>(messageWaitingForAcknowledgement.getDynamicProperties()) : new HashMap<>());
+        entry.setCreatedAt(Instant.ofEpochSecond(messageWaitingForAcknowledgement.getCreated()));
+        return entry;
+    }
+
+    private static MessageWaitingForAcknowledgement toMessageWaitingForAcknowledgement(MessageWaitingForAcknowledgementEntry entry) {
+        final var messageWaitingForAcknowledgement = new MessageWaitingForAcknowledgement();
+        messageWaitingForAcknowledgement.setMessageId(entry.getId());
+        messageWaitingForAcknowledgement.setAgrirouterEndpointId(entry.getAgrirouterEndpointId());
+        messageWaitingForAcknowledgement.setResponse(entry.getResponse());
+        messageWaitingForAcknowledgement.setTechnicalMessageType(entry.getTechnicalMessageType());
+        messageWaitingForAcknowledgement.setDynamicProperties(null != entry.getDynamicProperties() ? new HashMap<>(entry.getDynamicProperties()) : new HashMap<>());
+        if (null != entry.getCreatedAt()) {
+            messageWaitingForAcknowledgement.setCreated(entry.getCreatedAt().getEpochSecond());
+        }
+        return messageWaitingForAcknowledgement;
     }
 }
@@ -0,0 +1,202 @@
+package de.agrirouter.middleware.integration.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Thread safe cache for the in-memory containers of the middleware. The number of entries is limited and the entries
+ * expire after the configured time to live, rarely used entries are evicted first. The size, hits, misses
+ * and evictions are published as metrics, tagged with the name of the cache. Null keys are never stored, looking
+ * them up returns nothing and writing them is ignored.
+ *
+ * @param <K> The type of the keys.
+ * @param <V> The type of the values.
+ */
+public final class BoundedCache<K, V> {
+
+    private final Cache<K, V> cache;
+
+    private BoundedCache(Cache<K, V> cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Create a new cache and register the metrics.
+     *
+     * @param name                The name of the cache, used as tag for the metrics.
+     * @param maximumSize         The maximum number of entries.
+     * @param timeToLiveInSeconds The time to live of an entry after it has been written, the entries do not expire if
+     *                            the time to live is not positive.
+     * @param <K>                 The type of the keys.
+     * @param <V>                 The type of the values.
+     * @return The cache.
+     */
+    public static <K, V> BoundedCache<K, V> create(String name, long maximumSize, long timeToLiveInSeconds) {
+        return create(name, maximumSize, timeToLiveInSeconds, (key, value) -> {
+        });
+    }
+
+    /**
+     * Create a new cache and register the metrics. The listener is called on the calling thread after an entry has
+     * been removed, replaced, evicted or has expired, expired entries are removed during the next access of the cache.
+     *
+     * @param name                The name of the cache, used as tag for the metrics.
+     * @param maximumSize         The maximum number of entries.
+     * @param timeToLiveInSeconds The time to live of an entry after it has been written, the entries do not expire if
+     *                            the time to live is not positive.
+     * @param removalListener     Called with the key and the value of each entry that left the cache.
+     * @param <K>                 The type of the keys.
+     * @param <V>                 The type of the values.
+     * @return The cache.
+     */
+    public static <K, V> BoundedCache<K, V> create(String name, long maximumSize, long timeToLiveInSeconds, BiConsumer<K, V> removalListener) {
+        return create(name, maximumSize, timeToLiveInSeconds, removalListener, Ticker.systemTicker());
+    }
+
+    /**
+     * Create a new cache with a custom time source for the expiry and register the metrics.
+     *
+     * @param name                The name of the cache, used as tag for the metrics.
+     * @param maximumSize         The maximum number of entries.
+     * @param timeToLiveInSeconds The time to live of an entry after it has been written, the entries do not expire if
+     *                            the time to live is not positive.
+     * @param removalListener     Called with the key and the value of each entry that left the cache.
+     * @param ticker              The time source, e.g. a fake time within tests.
+     * @param <K>                 The type of the keys.
+     * @param <V>                 The type of the values.
+     * @return The cache.
+     */
+    public static <K, V> BoundedCache<K, V> create(String name, long maximumSize, long timeToLiveInSeconds, BiConsumer<K, V> removalListener, Ticker ticker) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("The maximum size of the cache '" + name + "' must not be negative.");
+        }
+        final Caffeine<K, V> builder = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                // Evict on the calling thread, so a removed or replaced entry is never returned afterwards.
+                .executor(Runnable::run)
+                .ticker(ticker)
+                .recordStats()
+                .removalListener((K key, V value, RemovalCause cause) -> {
+                    if (null != key && null != value) {
+                        removalListener.accept(key, value);
+                    }
+                });
+        if (timeToLiveInSeconds > 0) {
+            builder.expireAfterWrite(Duration.ofSeconds(timeToLiveInSeconds));
+        }
+        final Cache<K, V> cache = builder.build();
+        CaffeineCacheMetrics.monitor(Metrics.globalRegistry, cache, name);
+        return new BoundedCache<>(cache);
+    }
+
+    /**
+     * Get the value for the key.
+     *
+     * @param key The key.
+     * @return The value, empty if there is none or the entry has expired.
+     */
+    public Optional<V> get(K key) {
+        if (null == key) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.getIfPresent(key));
+    }
+
+    /**
+     * Get the value for the key, load it if there is none. The loader is called once for concurrent requests of the
+     * same key, null values are not cached.
+     *
+     * @param key    The key.
+     * @param loader Loads the value.
+     * @return The value, empty if the loader returned null.
+     */
+    public Optional<V> get(K key, Function<? super K, ? extends V> loader) {
+        if (null == key) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.get(key, loader));
+    }
+
+    /**
+     * Put the value into the cache, an existing value is replaced. A null value removes the entry.
+     *
+     * @param key   The key.
+     * @param value The value.
+     */
+    public void put(K key, V value) {
+        if (null == key) {
+            return;
+        }
+        if (null == value) {
+            cache.invalidate(key);
+        } else {
+            cache.put(key, value);
+        }
+    }
+
+    /**
+     * Compute the value for the key atomically, the entry is removed if the function returns null.
+     *
+     * @param key               The key.
+     * @param remappingFunction Computes the new value from the key and the current value, which may be null.
+     * @return The new value, empty if the entry has been removed.
+     */
+    public Optional<V> compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        if (null == key) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.asMap().compute(key, remappingFunction));
+    }
+
+    /**
+     * Remove the entry for the key.
+     *
+     * @param key The key.
+     * @return The removed value, empty if there was none.
+     */
+    public Optional<V> remove(K key) {
+        if (null == key) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.asMap().remove(key));
+    }
+
+    /**
+     * Remove all entries.
+     */
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * A read-only view on the entries of the cache.
+     *
+     * @return The entries.
+     */
+    public Map<K, V> asMap() {
+        return Collections.unmodifiableMap(cache.asMap());
+    }
+
+    /**
+     * The number of entries, expired entries that have not been cleaned up yet are not counted.
+     *
+     * @return The number of entries.
+     */
+    public long size() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+
+}
@@ -0,0 +1,81 @@
+package de.agrirouter.middleware.integration.cache;
+
+import com.dke.data.agrirouter.api.dto.onboard.OnboardingResponse;
+import de.agrirouter.middleware.domain.Endpoint;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache for the parsed onboard responses of the endpoints, keyed by the agrirouter endpoint ID. Each entry keeps the
+ * JSON it was parsed from, so an entry is never returned for another version of the onboard response. The cached
+ * instances are shared and must not be modified.
+ */
+@Component
+public class OnboardingResponseCache {
+
+    private final BoundedCache<String, CachedOnboardingResponse> cache;
+
+    public OnboardingResponseCache(@Value("${app.cache.onboarding-response-cache.maximum-size:10000}") long maximumSize,
+                                   @Value("${app.cache.onboarding-response-cache.time-to-live-in-seconds:3600}") long timeToLiveInSeconds) {
+        cache = BoundedCache.create("onboarding_response_cache", maximumSize, timeToLiveInSeconds);
+    }
+
+    /**
+     * Get the parsed onboard response of the endpoint, the JSON is only parsed if there is no entry for the current
+     * version of the onboard response.
+     *
+     * @param endpoint The endpoint.
+     * @return The parsed onboard response.
+     */
+    public OnboardingResponse get(Endpoint endpoint) {
+        final var agrirouterEndpointId = endpoint.getAgrirouterEndpointId();
+        final var json = endpoint.getOnboardResponseForRouterDevice();
+        if (null == agrirouterEndpointId || null == json) {
+            return endpoint.asOnboardingResponse();
+        }
+        final var cachedOnboardingResponse = cache.get(agrirouterEndpointId);
+        if (cachedOnboardingResponse.isPresent() && cachedOnboardingResponse.get().isVersionOf(json)) {
+            return cachedOnboardingResponse.get().onboardingResponse();
+        }
+        final var onboardingResponse = endpoint.asOnboardingResponse();
+        cache.put(agrirouterEndpointId, new CachedOnboardingResponse(json, onboardingResponse));
+        return onboardingResponse;
+    }
+
+    /**
+     * Remove the entry of the endpoint if it has been parsed from another version of the onboard response, e.g. after
+     * the onboard response has been updated.
+     *
+     * @param endpoint The endpoint.
+     */
+    public void removeIfChanged(Endpoint endpoint) {
+        final var json = endpoint.getOnboardResponseForRouterDevice();
+        cache.compute(endpoint.getAgrirouterEndpointId(), (agrirouterEndpointId, cachedOnboardingResponse) ->
+                null != cachedOnboardingResponse && null != json && cachedOnboardingResponse.isVersionOf(json) ? cachedOnboardingResponse : null);
+    }
+
+    /**
+     * Remove the entry of the endpoint, e.g. after the endpoint has been removed.
+     *
+     * @param agrirouterEndpointId The agrirouter endpoint ID.
+     */
+    public void remove(String agrirouterEndpointId) {
+        cache.remove(agrirouterEndpointId);
+    }
+
+    /**
+     * A single parsed onboard response.
+     *
+     * @param json               The JSON the onboard response has been parsed from.
+     * @param onboardingResponse The parsed onboard response.
+     */
+    private record CachedOnboardingResponse(String json, OnboardingResponse onboardingResponse) {
+
+        boolean isVersionOf(String otherJson) {
+            //noinspection StringEquality
+            return json == otherJson || json.equals(otherJson);
+        }
+
+    }
+
+}
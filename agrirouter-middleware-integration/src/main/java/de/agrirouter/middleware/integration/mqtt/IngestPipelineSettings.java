@@ -0,0 +1,18 @@
+package de.agrirouter.middleware.integration.mqtt;
+
+/**
+ * Settings for the staged ingest pipeline behind each MQTT connection.
+ *
+ * @param queueCapacity      The capacity of each of the bounded queues between the stages.
+ * @param decodeWorkers      The number of workers decoding the raw MQTT payloads.
+ * @param persistenceWorkers The number of workers handing the decoded messages over to the business logic.
+ */
+public record IngestPipelineSettings(int queueCapacity, int decodeWorkers, int persistenceWorkers) {
+
+    public IngestPipelineSettings {
+        if (queueCapacity < 1 || decodeWorkers < 1 || persistenceWorkers < 1) {
+            throw new IllegalArgumentException("The queue capacity and the number of workers for the ingest pipeline have to be positive.");
+        }
+    }
+
+}
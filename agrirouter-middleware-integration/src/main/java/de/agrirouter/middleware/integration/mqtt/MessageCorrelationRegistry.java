@@ -0,0 +1,79 @@
+package de.agrirouter.middleware.integration.mqtt;
+
+import com.dke.data.agrirouter.api.dto.encoding.DecodeMessageResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry for messages sent to the agrirouter that are waiting for a response. The pending response is completed as
+ * soon as the response with the matching application message ID arrives, or completed exceptionally with a
+ * {@link java.util.concurrent.TimeoutException} if there is no response in time.
+ */
+@Slf4j
+@Component
+public class MessageCorrelationRegistry {
+
+    private final Map<String, CompletableFuture<DecodeMessageResponse>> pendingResponses = new ConcurrentHashMap<>();
+
+    @Value("${app.agrirouter.mqtt.synchronous.response.wait.time}")
+    private long responseTimeout;
+
+    /**
+     * Register a message that has been sent and is waiting for a response.
+     *
+     * @param messageId The ID of the message that has been sent.
+     * @return The pending response.
+     */
+    public CompletableFuture<DecodeMessageResponse> register(String messageId) {
+        final var pendingResponse = new CompletableFuture<DecodeMessageResponse>();
+        pendingResponses.put(messageId, pendingResponse);
+        return pendingResponse.orTimeout(responseTimeout, TimeUnit.MILLISECONDS)
+                .whenComplete((decodeMessageResponse, throwable) -> pendingResponses.remove(messageId, pendingResponse));
+    }
+
+    /**
+     * Complete the pending response for the message the response belongs to.
+     *
+     * @param decodeMessageResponse The response from the agrirouter.
+     */
+    public void complete(DecodeMessageResponse decodeMessageResponse) {
+        final var messageId = decodeMessageResponse.getResponseEnvelope().getApplicationMessageId();
+        final var pendingResponse = pendingResponses.remove(messageId);
+        if (null != pendingResponse) {
+            log.debug("Completing the pending response for the message with the ID '{}'.", messageId);
+            pendingResponse.complete(decodeMessageResponse);
+        } else {
+            log.trace("There is no pending response for the message with the ID '{}'.", messageId);
+        }
+    }
+
+    /**
+     * Remove a registered message that could not be sent, the pending response is completed exceptionally.
+     *
+     * @param messageId The ID of the message that could not be sent.
+     * @param cause     The reason why the message could not be sent.
+     */
+    public void deregister(String messageId, Throwable cause) {
+        final var pendingResponse = pendingResponses.remove(messageId);
+        if (null != pendingResponse) {
+            log.debug("Removing the pending response for the message with the ID '{}', since the message could not be sent.", messageId);
+            pendingResponse.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * Get the number of messages that are still waiting for a response.
+     *
+     * @return The number of pending responses.
+     */
+    public int getNumberOfPendingResponses() {
+        return pendingResponses.size();
+    }
+
+}
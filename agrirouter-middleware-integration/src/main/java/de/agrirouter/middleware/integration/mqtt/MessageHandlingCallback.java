@@ -14,7 +14,6 @@ import de.agrirouter.middleware.domain.enums.TemporaryContentMessageType;
 import de.agrirouter.middleware.integration.mqtt.health.HealthStatusMessages;
 import de.agrirouter.middleware.integration.mqtt.list_endpoints.ListEndpointsMessages;
 import de.agrirouter.middleware.integration.mqtt.list_endpoints.MessageRecipient;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.context.ApplicationEventPublisher;
@@ -22,40 +21,194 @@ import org.springframework.context.ApplicationEventPublisher;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.*;
 import java.util.function.Consumer;
 
 /**
  * Callback for all MQTT connections to the agrirouter.
+ * <p>
+ * The callback does not handle the messages on the thread of the MQTT client. Incoming messages are placed in a bounded
+ * queue and decoded by the workers of the decode stage. A dispatcher hands the decoded messages over to the workers of
+ * the persistence stage in the order of their arrival, the messages of an endpoint are always handled by the same
+ * persistence worker, so they are handled in the order of their arrival. Messages are acknowledged manually after they
+ * have been handled. As long as the queue is full, the thread of the MQTT client is blocked, so the broker stops
+ * delivering messages until the pipeline has caught up. Pending responses within the
+ * {@link MessageCorrelationRegistry} are completed after the response has been handled.
+ * <p>
+ * There is one callback per MQTT client, the owner of the client has to {@link #shutdown()} the callback as soon as
+ * the client is disconnected or replaced.
  */
 @Slf4j
-@RequiredArgsConstructor
 public class MessageHandlingCallback implements Consumer<Mqtt3Publish> {
 
     private static final Gson GSON = new Gson();
+    private static final long SHUTDOWN_CHECK_INTERVAL_MILLIS = 100;
     private final ApplicationEventPublisher applicationEventPublisher;
     private final DecodeMessageService decodeMessageService;
     private final MqttStatistics mqttStatistics;
     private final ListEndpointsMessages listEndpointsMessages;
     private final HealthStatusMessages healthStatusMessages;
+    private final MessageCorrelationRegistry messageCorrelationRegistry;
+    private final BlockingQueue<ReceivedMessage> receivedMessages;
+    private final List<BlockingQueue<DecodedMessage>> decodedMessages;
+    private final ExecutorService decodeWorkers;
+    private final List<Thread> workers;
+    private volatile boolean running = true;
+
+    public MessageHandlingCallback(ApplicationEventPublisher applicationEventPublisher,
+                                   DecodeMessageService decodeMessageService,
+                                   MqttStatistics mqttStatistics,
+                                   ListEndpointsMessages listEndpointsMessages,
+                                   HealthStatusMessages healthStatusMessages,
+                                   MessageCorrelationRegistry messageCorrelationRegistry,
+                                   IngestPipelineSettings ingestPipelineSettings) {
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.decodeMessageService = decodeMessageService;
+        this.mqttStatistics = mqttStatistics;
+        this.listEndpointsMessages = listEndpointsMessages;
+        this.healthStatusMessages = healthStatusMessages;
+        this.messageCorrelationRegistry = messageCorrelationRegistry;
+        this.receivedMessages = new ArrayBlockingQueue<>(ingestPipelineSettings.queueCapacity());
+        this.decodeWorkers = Executors.newFixedThreadPool(ingestPipelineSettings.decodeWorkers(), Thread.ofVirtual().name("mqtt-ingest-decode-", 0).factory());
+        var workers = new ArrayList<Thread>();
+        var decodedMessages = new ArrayList<BlockingQueue<DecodedMessage>>();
+        for (int i = 0; i < ingestPipelineSettings.persistenceWorkers(); i++) {
+            final BlockingQueue<DecodedMessage> queue = new ArrayBlockingQueue<>(ingestPipelineSettings.queueCapacity());
+            decodedMessages.add(queue);
+            workers.add(Thread.ofVirtual().name("mqtt-ingest-persistence-" + i).start(() -> persist(queue)));
+        }
+        this.decodedMessages = List.copyOf(decodedMessages);
+        workers.add(Thread.ofVirtual().name("mqtt-ingest-dispatch").start(this::dispatch));
+        this.workers = List.copyOf(workers);
+    }
 
     @Override
     public void accept(Mqtt3Publish mqtt3Publish) {
+        log.debug("Message arrived.");
+        mqttStatistics.increaseNumberOfMessagesArrived();
+        var receivedMessage = new ReceivedMessage(mqtt3Publish, new CompletableFuture<>());
+        if (!receivedMessages.offer(receivedMessage)) {
+            log.warn("The ingest queue is full, blocking the MQTT client until the pipeline has caught up.");
+            mqttStatistics.increaseNumberOfBackpressureEvents();
+            if (!waitForSpaceWithinTheQueue(receivedMessage)) {
+                log.warn("The message handling has been shut down, the message has not been acknowledged and will be redelivered after reconnecting.");
+                return;
+            }
+        }
+        try {
+            decodeWorkers.execute(() -> receivedMessage.decodedMessage().complete(decode(mqtt3Publish)));
+        } catch (RejectedExecutionException e) {
+            log.warn("The message handling has been shut down, the message has not been acknowledged and will be redelivered after reconnecting.");
+        }
+    }
+
+    /**
+     * Block the thread of the MQTT client until the message fits into the queue. Interrupting the thread does not
+     * release it, since the message would be left unacknowledged while the client is still connected.
+     *
+     * @param receivedMessage The message.
+     * @return True if the message has been placed within the queue, false if the message handling has been shut down.
+     */
+    private boolean waitForSpaceWithinTheQueue(ReceivedMessage receivedMessage) {
+        var interrupted = false;
+        try {
+            while (running) {
+                try {
+                    if (receivedMessages.offer(receivedMessage, SHUTDOWN_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            return false;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Stop all the workers of the pipeline. Messages that have not been handled yet are not acknowledged and will
+     * be redelivered by the broker.
+     */
+    public void shutdown() {
+        running = false;
+        decodeWorkers.shutdownNow();
+        workers.forEach(Thread::interrupt);
+        receivedMessages.clear();
+        decodedMessages.forEach(BlockingQueue::clear);
+    }
+
+    /**
+     * Check if the workers of the pipeline are still running.
+     *
+     * @return True if at least one worker is running.
+     */
+    boolean isRunning() {
+        return !decodeWorkers.isTerminated() || workers.stream().anyMatch(Thread::isAlive);
+    }
+
+    private DecodedMessage decode(Mqtt3Publish mqtt3Publish) {
         try {
-            log.debug("Message arrived.");
-            mqttStatistics.increaseNumberOfMessagesArrived();
             var payload = StringUtils.toEncodedString(mqtt3Publish.getPayloadAsBytes(), StandardCharsets.UTF_8);
             log.trace("Message payload >>> {}", payload);
-            handleAgrirouterMessage(payload);
+            final var fetchMessageResponse = GSON.fromJson(payload, FetchMessageResponse.class);
+            final var decodedMessageResponse = decodeMessageService.decode(fetchMessageResponse.getCommand().getMessage());
+            return new DecodedMessage(mqtt3Publish, fetchMessageResponse, decodedMessageResponse);
         } catch (BusinessException e) {
             log.error("An internal business exception occurred.", e);
         } catch (Exception e) {
             log.error("An unknown error occurred.", e);
         }
+        return null;
+    }
+
+    private void dispatch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                var receivedMessage = receivedMessages.take();
+                var decodedMessage = receivedMessage.decodedMessage().get();
+                if (null == decodedMessage) {
+                    receivedMessage.mqtt3Publish().acknowledge();
+                } else {
+                    var sensorAlternateId = decodedMessage.fetchMessageResponse().getSensorAlternateId();
+                    decodedMessages.get(Math.floorMod(Objects.hashCode(sensorAlternateId), decodedMessages.size())).put(decodedMessage);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                log.error("An unknown error occurred.", e);
+            }
+        }
+    }
+
+    private void persist(BlockingQueue<DecodedMessage> queue) {
+        while (!Thread.currentThread().isInterrupted()) {
+            final DecodedMessage decodedMessage;
+            try {
+                decodedMessage = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                handleAgrirouterMessage(decodedMessage.fetchMessageResponse(), decodedMessage.decodedMessageResponse());
+            } catch (BusinessException e) {
+                log.error("An internal business exception occurred.", e);
+            } catch (Exception e) {
+                log.error("An unknown error occurred.", e);
+            } finally {
+                decodedMessage.mqtt3Publish().acknowledge();
+            }
+        }
     }
 
-    private void handleAgrirouterMessage(String payload) {
-        final var fetchMessageResponse = GSON.fromJson(payload, FetchMessageResponse.class);
-        final var decodedMessageResponse = decodeMessageService.decode(fetchMessageResponse.getCommand().getMessage());
+    private void handleAgrirouterMessage(FetchMessageResponse fetchMessageResponse, DecodeMessageResponse decodedMessageResponse) {
         switch (decodedMessageResponse.getResponseEnvelope().getType()) {
             case ACK, ACK_WITH_MESSAGES, ACK_WITH_FAILURE -> {
                 log.trace("This was a message acknowledgement.");
@@ -83,7 +236,7 @@ public class MessageHandlingCallback implements Consumer<Mqtt3Publish> {
             case ENDPOINTS_LISTING -> {
                 log.trace("This was an endpoint listing.");
                 mqttStatistics.increaseNumberOfEndpointListings();
-                handleListEndpointsMessage(fetchMessageResponse);
+                handleListEndpointsMessage(fetchMessageResponse, decodedMessageResponse);
                 applicationEventPublisher.publishEvent(new MessageAcknowledgementEvent(this, decodedMessageResponse));
             }
             default -> {
@@ -93,6 +246,7 @@ public class MessageHandlingCallback implements Consumer<Mqtt3Publish> {
                 applicationEventPublisher.publishEvent(new MessageAcknowledgementEvent(this, decodedMessageResponse));
             }
         }
+        messageCorrelationRegistry.complete(decodedMessageResponse);
     }
 
     private void handleHealthStatusMessage(DecodeMessageResponse decodedMessageResponse) {
@@ -104,11 +258,10 @@ public class MessageHandlingCallback implements Consumer<Mqtt3Publish> {
         });
     }
 
-    private void handleListEndpointsMessage(FetchMessageResponse fetchMessageResponse) {
+    private void handleListEndpointsMessage(FetchMessageResponse fetchMessageResponse, DecodeMessageResponse decodedMessageResponse) {
         try {
             var existingListEndpointsMessage = listEndpointsMessages.get(fetchMessageResponse.getSensorAlternateId());
             if (null != existingListEndpointsMessage) {
-                final var decodedMessageResponse = decodeMessageService.decode(fetchMessageResponse.getCommand().getMessage());
                 final Endpoints.ListEndpointsResponse listEndpointsResponse;
                 listEndpointsResponse = Endpoints.ListEndpointsResponse.parseFrom(decodedMessageResponse.getResponsePayloadWrapper().getDetails().getValue());
                 var messageRecipients = new ArrayList<MessageRecipient>();
@@ -146,4 +299,25 @@ public class MessageHandlingCallback implements Consumer<Mqtt3Publish> {
         return messageRecipient;
     }
 
+    /**
+     * A message that has been received and is decoded by the decode stage.
+     *
+     * @param mqtt3Publish   The original MQTT message, used for the acknowledgement.
+     * @param decodedMessage The decoded message, completed with null if the message could not be decoded.
+     */
+    private record ReceivedMessage(Mqtt3Publish mqtt3Publish, CompletableFuture<DecodedMessage> decodedMessage) {
+    }
+
+    /**
+     * A message that has passed the decode stage.
+     *
+     * @param mqtt3Publish           The original MQTT message, used for the acknowledgement.
+     * @param fetchMessageResponse   The parsed payload.
+     * @param decodedMessageResponse The decoded message.
+     */
+    private record DecodedMessage(Mqtt3Publish mqtt3Publish,
+                                  FetchMessageResponse fetchMessageResponse,
+                                  DecodeMessageResponse decodedMessageResponse) {
+    }
+
 }
@@ -3,6 +3,7 @@ package de.agrirouter.middleware.integration.mqtt;
 import com.dke.data.agrirouter.api.enums.Gateway;
 import com.hivemq.client.mqtt.mqtt3.Mqtt3AsyncClient;
 import de.agrirouter.middleware.domain.Endpoint;
+import de.agrirouter.middleware.integration.cache.OnboardingResponseCache;
 import de.agrirouter.middleware.integration.mqtt.status.MqttConnectionStatus;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -20,6 +21,7 @@ import java.util.Optional;
 public class MqttClientManagementService {
 
     private final MqttConnectionManager mqttConnectionManager;
+    private final OnboardingResponseCache onboardingResponseCache;
 
     /**
      * Get or create an MQTT client for the given onboard response.
@@ -29,7 +31,7 @@ public class MqttClientManagementService {
      * @return The MQTT client.
      */
     public Optional<Mqtt3AsyncClient> get(Endpoint endpoint) {
-        var onboardingResponse = endpoint.asOnboardingResponse();
+        var onboardingResponse = onboardingResponseCache.get(endpoint);
         if (Gateway.MQTT.getKey().equals(onboardingResponse.getConnectionCriteria().getGatewayId())) {
             return mqttConnectionManager.getCachedMqttClient(onboardingResponse).mqttClient();
         }
@@ -0,0 +1,192 @@
+package de.agrirouter.middleware.integration.mqtt;
+
+import de.agrirouter.middleware.api.errorhandling.BusinessException;
+import de.agrirouter.middleware.api.errorhandling.error.ErrorMessageFactory;
+import de.agrirouter.middleware.integration.mqtt.status.MqttConnectionStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Registry for the cached MQTT clients. The registry keeps a counter for each connection state, the counters are
+ * updated whenever a client is registered or the connection state of a client changes, so querying the number of
+ * connections does not need to check every single client.
+ */
+@Slf4j
+@Component
+public class MqttClientRegistry {
+
+    /**
+     * The state of a registered MQTT client.
+     */
+    enum State {
+        /**
+         * There is no MQTT client for the entry (yet). The entry takes the state reported by the listeners of the
+         * client that is being connected for the client ID, until the client itself is registered.
+         */
+        EMPTY,
+        CONNECTED,
+        DISCONNECTED
+    }
+
+    private final Map<String, RegisteredMqttClient> mqttClients = new ConcurrentHashMap<>();
+    private final Map<State, AtomicLong> numberOfClientsPerState = new EnumMap<>(State.class);
+    private final AtomicInteger numberOfClients = new AtomicInteger();
+
+    @Value("${app.agrirouter.mqtt.registry.max-clients}")
+    private int maxClients;
+
+    public MqttClientRegistry() {
+        for (State state : State.values()) {
+            numberOfClientsPerState.put(state, new AtomicLong());
+        }
+    }
+
+    /**
+     * Get the cached MQTT client.
+     *
+     * @param clientId The MQTT client ID.
+     * @return The cached MQTT client, null if there is none.
+     */
+    CachedMqttClient get(String clientId) {
+        var registeredMqttClient = mqttClients.get(clientId);
+        return null == registeredMqttClient ? null : registeredMqttClient.cachedMqttClient();
+    }
+
+    /**
+     * Get the cached MQTT client or register a new one if there is none.
+     *
+     * @param clientId         The MQTT client ID.
+     * @param cachedMqttClient Creates the MQTT client to register if there is none.
+     * @return The cached MQTT client.
+     */
+    CachedMqttClient computeIfAbsent(String clientId, Supplier<CachedMqttClient> cachedMqttClient) {
+        return mqttClients.compute(clientId, (key, existing) -> {
+            if (null != existing) {
+                return existing;
+            }
+            return register(null, cachedMqttClient.get());
+        }).cachedMqttClient();
+    }
+
+    /**
+     * Register the cached MQTT client, an existing entry for the client ID is replaced.
+     *
+     * @param clientId         The MQTT client ID.
+     * @param cachedMqttClient The cached MQTT client.
+     */
+    void put(String clientId, CachedMqttClient cachedMqttClient) {
+        mqttClients.compute(clientId, (key, existing) -> register(existing, cachedMqttClient));
+    }
+
+    /**
+     * Mark the MQTT client as connected, called by the connected listener of the client.
+     *
+     * @param clientId The MQTT client ID.
+     */
+    void connected(String clientId) {
+        changeState(clientId, State.CONNECTED);
+    }
+
+    /**
+     * Mark the MQTT client as disconnected, called by the disconnected listener of the client.
+     *
+     * @param clientId The MQTT client ID.
+     */
+    void disconnected(String clientId) {
+        changeState(clientId, State.DISCONNECTED);
+    }
+
+    /**
+     * Get the number of registered MQTT clients within the given state.
+     *
+     * @param state The state.
+     * @return The number of MQTT clients.
+     */
+    long getNumberOfClients(State state) {
+        return numberOfClientsPerState.get(state).get();
+    }
+
+    /**
+     * Count the number of active connections.
+     *
+     * @return The number of active connections.
+     */
+    long getNumberOfActiveConnections() {
+        return getNumberOfClients(State.CONNECTED);
+    }
+
+    /**
+     * Count the number of inactive connections.
+     *
+     * @return The number of inactive connections.
+     */
+    long getNumberOfInactiveConnections() {
+        return getNumberOfClients(State.EMPTY) + getNumberOfClients(State.DISCONNECTED);
+    }
+
+    /**
+     * Get the number of registered MQTT clients.
+     *
+     * @return The number of MQTT clients.
+     */
+    int size() {
+        return numberOfClients.get();
+    }
+
+    /**
+     * Get the connection status for all MQTT clients.
+     *
+     * @return The connection status for all MQTT clients.
+     */
+    List<MqttConnectionStatus> getMqttConnectionStatus() {
+        var mqttConnectionStatus = new ArrayList<MqttConnectionStatus>();
+        mqttClients.forEach((key, registeredMqttClient) -> {
+            var clientId = registeredMqttClient.cachedMqttClient().mqttClient().map(mqttClient -> mqttClient.getConfig().getClientIdentifier().get().toString()).orElse("n.a.");
+            mqttConnectionStatus.add(MqttConnectionStatus.builder().key(key).clientId(clientId).connectionStatus(registeredMqttClient.state().name()).build());
+        });
+        return mqttConnectionStatus;
+    }
+
+    private RegisteredMqttClient register(RegisteredMqttClient existing, CachedMqttClient cachedMqttClient) {
+        if (null == existing) {
+            if (numberOfClients.incrementAndGet() > maxClients) {
+                numberOfClients.decrementAndGet();
+                log.warn("The maximum number of {} MQTT clients is reached, could not register the MQTT client '{}'.", maxClients, cachedMqttClient.id());
+                throw new BusinessException(ErrorMessageFactory.tooManyMqttClients(maxClients));
+            }
+        } else {
+            numberOfClientsPerState.get(existing.state()).decrementAndGet();
+        }
+        var state = cachedMqttClient.mqttClient()
+                .map(mqttClient -> mqttClient.getState().isConnected() ? State.CONNECTED : State.DISCONNECTED)
+                .orElse(State.EMPTY);
+        numberOfClientsPerState.get(state).incrementAndGet();
+        return new RegisteredMqttClient(cachedMqttClient, state);
+    }
+
+    private void changeState(String clientId, State state) {
+        mqttClients.computeIfPresent(clientId, (key, existing) -> {
+            if (existing.state() == state) {
+                return existing;
+            }
+            log.debug("The MQTT client '{}' changed from {} to {}.", clientId, existing.state(), state);
+            numberOfClientsPerState.get(existing.state()).decrementAndGet();
+            numberOfClientsPerState.get(state).incrementAndGet();
+            return new RegisteredMqttClient(existing.cachedMqttClient(), state);
+        });
+    }
+
+    private record RegisteredMqttClient(CachedMqttClient cachedMqttClient, State state) {
+    }
+
+}
@@ -0,0 +1,90 @@
+package de.agrirouter.middleware.integration.mqtt;
+
+import com.hivemq.client.mqtt.MqttClientSslConfig;
+import de.agrirouter.middleware.domain.Authentication;
+import de.agrirouter.middleware.integration.cache.BoundedCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Cache for the SSL configurations of the MQTT clients. Parsing the certificates and initializing the key and trust
+ * managers is expensive, therefore the configuration is kept as long as the certificate material does not change.
+ * The entries are keyed by a fingerprint of the certificate material, a rotated certificate leads to a new entry and
+ * the entry for the previous certificate of the client is removed. Both the configurations and the fingerprints per
+ * client are bounded, an evicted configuration is only created again for the next connection of the client.
+ */
+@Slf4j
+@Component
+public class MqttClientSslConfigCache {
+
+    private final BoundedCache<String, MqttClientSslConfig> sslConfigs;
+    private final BoundedCache<String, String> fingerprintsPerClient;
+
+    public MqttClientSslConfigCache(@Value("${app.cache.mqtt-client-ssl-configs.maximum-size:10000}") long maximumSize,
+                                    @Value("${app.cache.mqtt-client-ssl-configs.time-to-live-in-seconds:86400}") long timeToLiveInSeconds) {
+        sslConfigs = BoundedCache.create("mqtt_client_ssl_configs", maximumSize, timeToLiveInSeconds);
+        fingerprintsPerClient = BoundedCache.create("mqtt_client_ssl_config_fingerprints", maximumSize, timeToLiveInSeconds);
+    }
+
+    /**
+     * Get the SSL configuration for the client, create it only if there is none for the current certificate material.
+     *
+     * @param clientId       The MQTT client ID.
+     * @param authentication The authentication details of the client.
+     * @param sslConfig      Creates the SSL configuration.
+     * @return The SSL configuration.
+     * @throws Exception If the SSL configuration could not be created.
+     */
+    MqttClientSslConfig get(String clientId, Authentication authentication, Callable<MqttClientSslConfig> sslConfig) throws Exception {
+        final var fingerprint = fingerprint(authentication);
+        final var previousFingerprint = new AtomicReference<String>();
+        fingerprintsPerClient.compute(clientId, (id, previous) -> {
+            previousFingerprint.set(previous);
+            return fingerprint;
+        });
+        if (null != previousFingerprint.get() && !previousFingerprint.get().equals(fingerprint)) {
+            log.debug("The certificate material for the MQTT client '{}' has changed, removing the previous SSL configuration.", clientId);
+            if (!fingerprintsPerClient.asMap().containsValue(previousFingerprint.get())) {
+                sslConfigs.remove(previousFingerprint.get());
+            }
+        }
+        final var cachedSslConfig = sslConfigs.get(fingerprint);
+        if (cachedSslConfig.isPresent()) {
+            return cachedSslConfig.get();
+        }
+        final var newSslConfig = sslConfig.call();
+        return sslConfigs.compute(fingerprint, (key, existingSslConfig) -> null != existingSslConfig ? existingSslConfig : newSslConfig).orElse(newSslConfig);
+    }
+
+    /**
+     * Get the number of cached SSL configurations.
+     *
+     * @return The number of cached SSL configurations.
+     */
+    long size() {
+        return sslConfigs.size();
+    }
+
+    private static String fingerprint(Authentication authentication) {
+        try {
+            final var messageDigest = MessageDigest.getInstance("SHA-256");
+            messageDigest.update(String.valueOf(authentication.getType()).getBytes(StandardCharsets.UTF_8));
+            messageDigest.update((byte) 0);
+            messageDigest.update(String.valueOf(authentication.getSecret()).getBytes(StandardCharsets.UTF_8));
+            messageDigest.update((byte) 0);
+            messageDigest.update(String.valueOf(authentication.getCertificate()).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(messageDigest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+}
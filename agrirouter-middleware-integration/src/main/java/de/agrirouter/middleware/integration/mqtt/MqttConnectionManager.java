@@ -8,18 +8,25 @@ import com.hivemq.client.mqtt.mqtt3.Mqtt3AsyncClient;
 import com.hivemq.client.mqtt.mqtt3.Mqtt3Client;
 import de.agrirouter.middleware.api.errorhandling.BusinessException;
 import de.agrirouter.middleware.api.errorhandling.error.ErrorMessageFactory;
+import de.agrirouter.middleware.api.events.RouterDevicesConnectedEvent;
+import de.agrirouter.middleware.domain.Application;
 import de.agrirouter.middleware.domain.Endpoint;
 import de.agrirouter.middleware.domain.RouterDevice;
+import de.agrirouter.middleware.integration.cache.OnboardingResponseCache;
 import de.agrirouter.middleware.integration.mqtt.status.MqttConnectionStatus;
 import de.agrirouter.middleware.persistence.jpa.ApplicationRepository;
-import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Scope;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.EncryptedPrivateKeyInfo;
@@ -33,10 +40,13 @@ import java.security.KeyFactory;
 import java.security.KeyStore;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateFactory;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Pattern;
 
 @Slf4j
@@ -45,12 +55,21 @@ import java.util.regex.Pattern;
 @Scope(value = ConfigurableBeanFactory.SCOPE_SINGLETON)
 public class MqttConnectionManager {
 
-    private final Map<String, CachedMqttClient> cachedMqttClients = new HashMap<>();
+    private static final Duration STARTUP_CONNECTOR_SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final Set<String> connectingRouterDevices = ConcurrentHashMap.newKeySet();
+    private final Map<String, MessageHandlingCallback> messageHandlingCallbacks = new ConcurrentHashMap<>();
+    private final AtomicBoolean startupConnectionsReady = new AtomicBoolean(false);
+    private boolean readinessHeldBack;
+    private Thread startupConnectorThread;
 
     private final ApplicationRepository applicationRepository;
     private final MqttStatistics mqttStatistics;
+    private final MqttClientRegistry mqttClientRegistry;
+    private final MqttClientSslConfigCache mqttClientSslConfigCache;
     private final ApplicationContext applicationContext;
     private final SubscriptionsForMqttClient subscriptionsForMqttClient;
+    private final OnboardingResponseCache onboardingResponseCache;
 
     @Value("${app.agrirouter.mqtt.options.clean-session}")
     private boolean cleanSession;
@@ -61,47 +80,69 @@ public class MqttConnectionManager {
     @Value("${app.agrirouter.mqtt.options.connection-timeout}")
     private int connectionTimeout;
 
-    @PostConstruct
-    public void connectAllExistingRouterDevices() {
+    @Value("${app.agrirouter.mqtt.startup.concurrency}")
+    private int startupConcurrency;
+
+    @Value("${app.agrirouter.mqtt.startup.connects-per-second}")
+    private int startupConnectsPerSecond;
+
+    @Value("${app.agrirouter.mqtt.startup.readiness-threshold}")
+    private double startupReadinessThreshold;
+
+    /**
+     * Connect the router devices of all existing applications. The connections are established in the background,
+     * the application is not ready to accept traffic before the configured fraction of router devices is connected.
+     * The connections are started once the application has started and stopped as soon as it shuts down. A
+     * {@link RouterDevicesConnectedEvent} is published as soon as every router device has been tried to connect, so
+     * the endpoints can subscribe to their topics.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void connectAllExistingRouterDevices() {
+        var applications = new ArrayList<Application>();
         applicationRepository.findAll().forEach(application -> {
-            var existingRouterDevice = application.getApplicationSettings().getRouterDevice();
-            if (existingRouterDevice != null) {
-                log.info("Connecting router device for application: {}", application.getApplicationId());
-                try {
-                    var mqttClient = initMqttClient(existingRouterDevice);
-                    log.debug("Connected router device for application: {}", application.getApplicationId());
-                    mqttStatistics.increaseNumberOfConnects();
-                    final var newCachedMqttClient = new CachedMqttClient(existingRouterDevice.getDeviceAlternateId(), existingRouterDevice.getConnectionCriteria().getClientId(), Optional.of(mqttClient), new ArrayList<>());
-                    cachedMqttClients.put(existingRouterDevice.getConnectionCriteria().getClientId(), newCachedMqttClient);
-                    log.debug("Cached MQTT client for application has been created and is ready to be used: {}", application.getApplicationId());
-                } catch (BusinessException e) {
-                    log.warn("Could not connect router device for application '{}', skipping: {}", application.getApplicationId(), e.getErrorMessage().asLogMessage());
-                }
+            if (application.getApplicationSettings().getRouterDevice() != null) {
+                applications.add(application);
             } else {
                 log.warn("Router device not found for application: {}", application.getApplicationId());
             }
         });
+        var startupConnector = new StartupConnector<Application>(startupConcurrency, startupConnectsPerSecond, startupReadinessThreshold, mqttStatistics);
+        startupConnectorThread = Thread.ofVirtual().name("mqtt-startup-connector").start(() -> {
+            try {
+                var establishedConnections = startupConnector.connectAll(applications, this::connectRouterDevice, this::startupConnectionsAreReady);
+                log.info("Connected {} of {} router devices.", establishedConnections, applications.size());
+                applicationContext.publishEvent(new RouterDevicesConnectedEvent(this, establishedConnections));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.info("Stopped connecting the router devices.");
+            }
+        });
+    }
+
+    private synchronized void stopConnectingAllExistingRouterDevices() {
+        if (null != startupConnectorThread && startupConnectorThread.isAlive()) {
+            log.info("Stop connecting the router devices, since the application is shutting down.");
+            startupConnectorThread.interrupt();
+            try {
+                if (!startupConnectorThread.join(STARTUP_CONNECTOR_SHUTDOWN_TIMEOUT)) {
+                    log.warn("The router devices are still being connected after {} seconds, shutting down anyway.", STARTUP_CONNECTOR_SHUTDOWN_TIMEOUT.toSeconds());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Interrupted while waiting for the router devices to stop connecting.");
+            }
+        }
     }
 
     public void connectNewlyAddedRouterDevices() {
         applicationRepository.findAll().forEach(application -> {
             var existingRouterDevice = application.getApplicationSettings().getRouterDevice();
             if (existingRouterDevice != null) {
-                var cachedMqttClient = cachedMqttClients.get(existingRouterDevice.getConnectionCriteria().getClientId());
+                var cachedMqttClient = mqttClientRegistry.get(existingRouterDevice.getConnectionCriteria().getClientId());
                 if (null != cachedMqttClient && cachedMqttClient.mqttClient().isPresent()) {
                     log.debug("Router device already connected for application: {}", application.getApplicationId());
                 } else {
-                    log.info("Connecting router device for application: {}", application.getApplicationId());
-                    try {
-                        var mqttClient = initMqttClient(existingRouterDevice);
-                        log.debug("Connected router device for application: {}", application.getApplicationId());
-                        mqttStatistics.increaseNumberOfConnects();
-                        final var newCachedMqttClient = new CachedMqttClient(existingRouterDevice.getDeviceAlternateId(), existingRouterDevice.getConnectionCriteria().getClientId(), Optional.of(mqttClient), new ArrayList<>());
-                        cachedMqttClients.put(existingRouterDevice.getConnectionCriteria().getClientId(), newCachedMqttClient);
-                        log.debug("Cached MQTT client for application has been created and is ready to be used: {}", application.getApplicationId());
-                    } catch (BusinessException e) {
-                        log.warn("Could not connect router device for application '{}', skipping: {}", application.getApplicationId(), e.getErrorMessage().asLogMessage());
-                    }
+                    connectRouterDevice(application);
                 }
             } else {
                 log.warn("Router device not found for application: {}", application.getApplicationId());
@@ -109,15 +150,63 @@ public class MqttConnectionManager {
         });
     }
 
+    private boolean connectRouterDevice(Application application) {
+        var existingRouterDevice = application.getApplicationSettings().getRouterDevice();
+        var clientId = existingRouterDevice.getConnectionCriteria().getClientId();
+        if (!connectingRouterDevices.add(clientId)) {
+            log.debug("Router device for application '{}' is already being connected.", application.getApplicationId());
+            return false;
+        }
+        log.info("Connecting router device for application: {}", application.getApplicationId());
+        try {
+            var mqttClient = initMqttClient(existingRouterDevice);
+            log.debug("Connected router device for application: {}", application.getApplicationId());
+            mqttStatistics.increaseNumberOfConnects();
+            final var newCachedMqttClient = new CachedMqttClient(existingRouterDevice.getDeviceAlternateId(), clientId, Optional.of(mqttClient), new ArrayList<>());
+            mqttClientRegistry.put(clientId, newCachedMqttClient);
+            log.debug("Cached MQTT client for application has been created and is ready to be used: {}", application.getApplicationId());
+            return true;
+        } catch (BusinessException e) {
+            log.warn("Could not connect router device for application '{}', skipping: {}", application.getApplicationId(), e.getErrorMessage().asLogMessage());
+            return false;
+        } finally {
+            connectingRouterDevices.remove(clientId);
+        }
+    }
+
+    /**
+     * Spring Boot reports the application to be ready as soon as it has started. Hold back the readiness until enough
+     * router devices are connected.
+     *
+     * @param event The change of the readiness state.
+     */
+    @EventListener
+    public void holdBackReadinessUntilStartupConnectionsAreReady(AvailabilityChangeEvent<ReadinessState> event) {
+        synchronized (startupConnectionsReady) {
+            if (ReadinessState.ACCEPTING_TRAFFIC == event.getState() && !startupConnectionsReady.get()) {
+                log.info("Holding back the readiness until enough router devices are connected.");
+                readinessHeldBack = true;
+                AvailabilityChangeEvent.publish(applicationContext, ReadinessState.REFUSING_TRAFFIC);
+            }
+        }
+    }
+
+    private void startupConnectionsAreReady() {
+        synchronized (startupConnectionsReady) {
+            startupConnectionsReady.set(true);
+            if (readinessHeldBack) {
+                log.info("Enough router devices are connected, the application is ready to accept traffic.");
+                AvailabilityChangeEvent.publish(applicationContext, ReadinessState.ACCEPTING_TRAFFIC);
+            }
+        }
+    }
+
     CachedMqttClient getCachedMqttClient(OnboardingResponse onboardingResponse) {
-        final var cachedMqttClient = cachedMqttClients.get(onboardingResponse.getConnectionCriteria().getClientId());
-        if (null == cachedMqttClient) {
+        var existingCachedMqttClient = mqttClientRegistry.computeIfAbsent(onboardingResponse.getConnectionCriteria().getClientId(), () -> {
             mqttStatistics.increaseNumberOfCacheMisses();
             log.debug("Did not find a mqtt client for endpoint with the MQTT client ID '{}'. Creating a new one.", onboardingResponse.getConnectionCriteria().getClientId());
-            final var newCachedMqttClient = new CachedMqttClient(onboardingResponse.getSensorAlternateId(), onboardingResponse.getConnectionCriteria().getClientId(), Optional.empty(), new ArrayList<>());
-            cachedMqttClients.put(onboardingResponse.getConnectionCriteria().getClientId(), newCachedMqttClient);
-        }
-        var existingCachedMqttClient = cachedMqttClients.get(onboardingResponse.getConnectionCriteria().getClientId());
+            return new CachedMqttClient(onboardingResponse.getSensorAlternateId(), onboardingResponse.getConnectionCriteria().getClientId(), Optional.empty(), new ArrayList<>());
+        });
         existingCachedMqttClient.mqttClient().ifPresent(mqttClient -> subscribeIfNecessary(onboardingResponse, mqttClient));
         return existingCachedMqttClient;
     }
@@ -157,11 +246,26 @@ public class MqttConnectionManager {
 
     private Mqtt3AsyncClient initMqttClient(RouterDevice endpoint) {
         mqttStatistics.increaseNumberOfClientInitializations();
-        final var mqttClient = createMqttClient(endpoint);
+        var clientId = endpoint.getConnectionCriteria().getClientId();
         var messageHandlingCallback = applicationContext.getBean(MessageHandlingCallback.class);
+        var replacedMessageHandlingCallback = messageHandlingCallbacks.put(clientId, messageHandlingCallback);
+        if (null != replacedMessageHandlingCallback) {
+            log.debug("Shutting down the message handling of the replaced MQTT client: {}", clientId);
+            replacedMessageHandlingCallback.shutdown();
+        }
+        final Mqtt3AsyncClient mqttClient;
+        try {
+            mqttClient = createMqttClient(endpoint, messageHandlingCallback);
+            mqttClient.publishes(com.hivemq.client.mqtt.MqttGlobalPublishFilter.ALL, messageHandlingCallback, true);
+            connect(endpoint, mqttClient);
+        } catch (RuntimeException e) {
+            shutdownMessageHandling(clientId, messageHandlingCallback);
+            throw e;
+        }
+        return mqttClient;
+    }
 
-        mqttClient.publishes(com.hivemq.client.mqtt.MqttGlobalPublishFilter.ALL, messageHandlingCallback);
-
+    private void connect(RouterDevice endpoint, Mqtt3AsyncClient mqttClient) {
         final var connectFuture = mqttClient.connectWith()
                 .cleanSession(cleanSession)
                 .keepAlive(keepAliveInterval)
@@ -178,11 +282,31 @@ public class MqttConnectionManager {
             log.error("Could not connect MQTT client for application: {}", endpoint.getConnectionCriteria().getClientId(), e);
             throw new BusinessException(ErrorMessageFactory.couldNotConnectMqttClient(endpoint.getConnectionCriteria().getClientId()), e);
         }
+    }
 
-        return mqttClient;
+    /**
+     * Shut down the message handling of a disconnected MQTT client. The client is not reconnected, it is replaced by a
+     * new client with its own message handling.
+     *
+     * @param clientId                The MQTT client ID.
+     * @param messageHandlingCallback The message handling of the disconnected client.
+     */
+    private void shutdownMessageHandling(String clientId, MessageHandlingCallback messageHandlingCallback) {
+        messageHandlingCallbacks.remove(clientId, messageHandlingCallback);
+        messageHandlingCallback.shutdown();
     }
 
-    private Mqtt3AsyncClient createMqttClient(RouterDevice onboardingResponse) {
+    /**
+     * Stop connecting the router devices and shut down the message handling of all MQTT clients.
+     */
+    @PreDestroy
+    public void shutdownAllMessageHandling() {
+        stopConnectingAllExistingRouterDevices();
+        messageHandlingCallbacks.values().forEach(MessageHandlingCallback::shutdown);
+        messageHandlingCallbacks.clear();
+    }
+
+    private Mqtt3AsyncClient createMqttClient(RouterDevice onboardingResponse, MessageHandlingCallback messageHandlingCallback) {
         var host = onboardingResponse.getConnectionCriteria().getHost();
         var port = onboardingResponse.getConnectionCriteria().getPort();
         var clientId = onboardingResponse.getConnectionCriteria().getClientId();
@@ -194,7 +318,12 @@ public class MqttConnectionManager {
                         .identifier(clientId)
                         .serverHost(host)
                         .serverPort(Integer.parseInt(port))
-                        .sslConfig(createMqttClientSslConfig(onboardingResponse.getAuthentication()))
+                        .sslConfig(mqttClientSslConfigCache.get(clientId, onboardingResponse.getAuthentication(), () -> createMqttClientSslConfig(onboardingResponse.getAuthentication())))
+                        .addConnectedListener(context -> mqttClientRegistry.connected(clientId))
+                        .addDisconnectedListener(context -> {
+                            mqttClientRegistry.disconnected(clientId);
+                            shutdownMessageHandling(clientId, messageHandlingCallback);
+                        })
                         .buildAsync();
             } catch (Exception e) {
                 throw new CouldNotCreateMqttClientException("Could not create MQTT client.", e);
@@ -261,11 +390,10 @@ public class MqttConnectionManager {
      * @param endpoint The endpoint.
      */
     void clearConnectionErrors(Endpoint endpoint) {
-        final var cachedMqttClient = getCachedMqttClient(endpoint.asOnboardingResponse());
+        final var cachedMqttClient = getCachedMqttClient(onboardingResponseCache.get(endpoint));
         if (null != cachedMqttClient) {
             cachedMqttClient.clearConnectionErrors();
         }
-        cachedMqttClients.put(endpoint.asOnboardingResponse().getConnectionCriteria().getClientId(), cachedMqttClient);
     }
 
     /**
@@ -274,7 +402,7 @@ public class MqttConnectionManager {
      * @return The number of active connections.
      */
     long getNumberOfActiveConnections() {
-        return cachedMqttClients.values().stream().filter(cachedMqttClient -> cachedMqttClient.mqttClient().isPresent() && cachedMqttClient.mqttClient().get().getState().isConnected()).count();
+        return mqttClientRegistry.getNumberOfActiveConnections();
     }
 
     /**
@@ -283,7 +411,7 @@ public class MqttConnectionManager {
      * @return The number of inactive connections.
      */
     long getNumberOfInactiveConnections() {
-        return cachedMqttClients.values().stream().filter(cachedMqttClient -> cachedMqttClient.mqttClient().isEmpty() || !cachedMqttClient.mqttClient().get().getState().isConnected()).count();
+        return mqttClientRegistry.getNumberOfInactiveConnections();
     }
 
     /**
@@ -292,17 +420,7 @@ public class MqttConnectionManager {
      * @return The connection status for all MQTT clients.
      */
     List<MqttConnectionStatus> getMqttConnectionStatus() {
-        var mqttConnectionStatus = new ArrayList<MqttConnectionStatus>();
-        cachedMqttClients.forEach((key, cachedMqttClient) -> {
-            if (cachedMqttClient.mqttClient().isPresent()) {
-                var iMqttClient = cachedMqttClient.mqttClient().get();
-                var status = iMqttClient.getState().isConnected() ? "CONNECTED" : "DISCONNECTED";
-                mqttConnectionStatus.add(MqttConnectionStatus.builder().key(key).clientId(iMqttClient.getConfig().getClientIdentifier().get().toString()).connectionStatus(status).build());
-            } else {
-                mqttConnectionStatus.add(MqttConnectionStatus.builder().key(key).clientId("n.a.").connectionStatus("EMPTY").build());
-            }
-        });
-        return mqttConnectionStatus;
+        return mqttClientRegistry.getMqttConnectionStatus();
     }
 
     /**
@@ -313,8 +431,8 @@ public class MqttConnectionManager {
      */
     ConnectionState getState(Endpoint endpoint) {
         try {
-            var onboardingResponse = endpoint.asOnboardingResponse();
-            final var cachedMqttClient = cachedMqttClients.get(onboardingResponse.getConnectionCriteria().getClientId());
+            var onboardingResponse = onboardingResponseCache.get(endpoint);
+            final var cachedMqttClient = mqttClientRegistry.get(onboardingResponse.getConnectionCriteria().getClientId());
             if (null != cachedMqttClient) {
                 if (cachedMqttClient.mqttClient().isPresent()) {
                     var iMqttClient = cachedMqttClient.mqttClient().get();
@@ -1,8 +1,11 @@
 package de.agrirouter.middleware.integration.mqtt;
 
 import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 /**
  * Transient statistics for the MQTT connections.
  */
@@ -18,6 +21,8 @@ public class MqttStatistics {
     private static final String NUMBER_OF_CLOUD_REGISTRATIONS = "middleware.number_of_cloud_registrations";
     private static final String NUMBER_OF_ENDPOINT_LISTINGS = "middleware.number_of_endpoint_listings";
     private static final String NUMBER_OF_UNKNOWN_MESSAGES = "middleware.number_of_unknown_messages";
+    private static final String NUMBER_OF_BACKPRESSURE_EVENTS = "middleware.number_of_backpressure_events";
+    private static final String CONNECT_LATENCY = "middleware.connect_latency";
 
     public void increaseNumberOfCacheMisses() {
         Metrics.counter(NUMBER_OF_CACHE_MISSES).increment();
@@ -55,6 +60,18 @@ public class MqttStatistics {
         Metrics.counter(NUMBER_OF_UNKNOWN_MESSAGES).increment();
     }
 
+    public void increaseNumberOfBackpressureEvents() {
+        Metrics.counter(NUMBER_OF_BACKPRESSURE_EVENTS).increment();
+    }
+
+    public void recordConnectLatency(Duration latency, boolean connected) {
+        Timer.builder(CONNECT_LATENCY)
+                .tag("connected", String.valueOf(connected))
+                .publishPercentileHistogram()
+                .register(Metrics.globalRegistry)
+                .record(latency);
+    }
+
     public void increaseNumberOfContentMessagesReceived(String technicalMessageType) {
         Metrics.counter(NUMBER_OF_MESSAGES_ARRIVED + "." + technicalMessageType).increment();
     }
@@ -0,0 +1,103 @@
+package de.agrirouter.middleware.integration.mqtt;
+
+import io.github.bucket4j.Bucket;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Connects a number of MQTT clients concurrently. The number of parallel connection attempts is limited as well as the
+ * number of connection attempts per second, so a restart does not flood the broker. A single host that does not
+ * answer does only block one of the parallel connection attempts.
+ *
+ * @param <T> The type of the connections to establish.
+ */
+@Slf4j
+final class StartupConnector<T> {
+
+    private final int concurrency;
+    private final double readinessThreshold;
+    private final Bucket connectionAttempts;
+    private final MqttStatistics mqttStatistics;
+
+    /**
+     * Create a new connector.
+     *
+     * @param concurrency        The maximum number of parallel connection attempts.
+     * @param connectsPerSecond  The maximum number of connection attempts per second.
+     * @param readinessThreshold The fraction of connections that have to be established to be ready.
+     * @param mqttStatistics     The statistics.
+     */
+    StartupConnector(int concurrency, int connectsPerSecond, double readinessThreshold, MqttStatistics mqttStatistics) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("The concurrency for the startup connections has to be at least 1.");
+        }
+        if (connectsPerSecond < 1) {
+            throw new IllegalArgumentException("The number of connects per second for the startup connections has to be at least 1.");
+        }
+        if (readinessThreshold < 0 || readinessThreshold > 1) {
+            throw new IllegalArgumentException("The readiness threshold for the startup connections has to be between 0 and 1.");
+        }
+        this.concurrency = concurrency;
+        this.readinessThreshold = readinessThreshold;
+        this.connectionAttempts = Bucket.builder()
+                .addLimit(limit -> limit.capacity(connectsPerSecond).refillGreedy(connectsPerSecond, Duration.ofSeconds(1)))
+                .build();
+        this.mqttStatistics = mqttStatistics;
+    }
+
+    /**
+     * Connect all the given connections and wait until every connection attempt has finished.
+     *
+     * @param connections The connections to establish.
+     * @param connect     Establishes a single connection, returns true if the connection is up.
+     * @param onReady     Called once, as soon as the configured fraction of connections is up or every connection
+     *                    attempt has finished.
+     * @return The number of connections that are up.
+     * @throws InterruptedException If the thread was interrupted while waiting for a free slot.
+     */
+    int connectAll(List<T> connections, Predicate<T> connect, Runnable onReady) throws InterruptedException {
+        final var requiredConnections = (int) Math.ceil(connections.size() * readinessThreshold);
+        final var establishedConnections = new AtomicInteger();
+        final var ready = new AtomicBoolean(false);
+        if (requiredConnections == 0 && ready.compareAndSet(false, true)) {
+            onReady.run();
+        }
+        final var slots = new Semaphore(concurrency);
+        try (var executorService = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (T connection : connections) {
+                slots.acquire();
+                connectionAttempts.asBlocking().consume(1);
+                executorService.execute(() -> {
+                    final var start = System.nanoTime();
+                    var connected = false;
+                    try {
+                        connected = connect.test(connection);
+                    } catch (Exception e) {
+                        log.warn("Could not establish the connection for '{}'.", connection, e);
+                    } finally {
+                        mqttStatistics.recordConnectLatency(Duration.ofNanos(System.nanoTime() - start), connected);
+                        slots.release();
+                    }
+                    if (connected && establishedConnections.incrementAndGet() >= requiredConnections && ready.compareAndSet(false, true)) {
+                        log.info("{} of {} connections are up, which is enough to be ready.", requiredConnections, connections.size());
+                        onReady.run();
+                    }
+                });
+            }
+        }
+        if (ready.compareAndSet(false, true)) {
+            log.error("Only {} of {} connections are up, {} were expected. Every connection attempt has finished, therefore reporting to be ready anyway.",
+                    establishedConnections.get(), connections.size(), requiredConnections);
+            onReady.run();
+        }
+        return establishedConnections.get();
+    }
+
+}
@@ -1,24 +1,25 @@
 package de.agrirouter.middleware.integration.mqtt;
 
-import lombok.Getter;
+import de.agrirouter.middleware.integration.cache.BoundedCache;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The subscriptions for a MQTT client.
  * ¶
  */
-@Getter
 @Component
 public class SubscriptionsForMqttClient {
-    private final Map<String, Set<String>> subscriptions;
 
-    public SubscriptionsForMqttClient() {
-        subscriptions = new HashMap<>();
+    private final BoundedCache<String, Set<String>> subscriptions;
+
+    public SubscriptionsForMqttClient(@Value("${app.cache.subscriptions-for-mqtt-client.maximum-size:50000}") long maximumSize,
+                                      @Value("${app.cache.subscriptions-for-mqtt-client.time-to-live-in-seconds:0}") long timeToLiveInSeconds) {
+        subscriptions = BoundedCache.create("subscriptions_for_mqtt_client", maximumSize, timeToLiveInSeconds);
     }
 
     /**
@@ -28,12 +29,11 @@ public class SubscriptionsForMqttClient {
      * @param topic    The topic.
      */
     public void add(String clientId, String topic) {
-        var subscriptionsForClientId = subscriptions.get(clientId);
-        if (subscriptionsForClientId == null) {
-            subscriptionsForClientId = new HashSet<>();
-        }
-        subscriptionsForClientId.add(topic);
-        subscriptions.put(clientId, subscriptionsForClientId);
+        subscriptions.compute(clientId, (id, subscriptionsForClientId) -> {
+            final var topics = null != subscriptionsForClientId ? subscriptionsForClientId : ConcurrentHashMap.<String>newKeySet();
+            topics.add(topic);
+            return topics;
+        });
     }
 
     /**
@@ -43,11 +43,9 @@ public class SubscriptionsForMqttClient {
      * @param topic    The topic.
      */
     public boolean exists(String clientId, String topic) {
-        var subscriptionsForClientId = subscriptions.get(clientId);
-        if (subscriptionsForClientId == null) {
-            return false;
-        }
-        return subscriptionsForClientId.contains(topic);
+        return subscriptions.get(clientId)
+                .map(subscriptionsForClientId -> subscriptionsForClientId.contains(topic))
+                .orElse(false);
     }
 
     /**
@@ -58,4 +56,13 @@ public class SubscriptionsForMqttClient {
     public void clear(String clientId) {
         subscriptions.remove(clientId);
     }
+
+    /**
+     * A read-only view on the subscriptions, keyed by the client ID.
+     *
+     * @return The subscriptions.
+     */
+    public Map<String, Set<String>> getSubscriptions() {
+        return subscriptions.asMap();
+    }
 }
@@ -0,0 +1,85 @@
+package de.agrirouter.middleware.integration.mqtt;
+
+import agrirouter.request.Request;
+import com.dke.data.agrirouter.api.dto.onboard.OnboardingResponse;
+import com.dke.data.agrirouter.api.enums.SystemMessageType;
+import com.dke.data.agrirouter.api.service.messaging.encoding.EncodeMessageService;
+import com.dke.data.agrirouter.api.service.parameters.MessageHeaderParameters;
+import com.dke.data.agrirouter.api.service.parameters.PayloadParameters;
+import com.dke.data.agrirouter.api.service.parameters.SendMessageParameters;
+import com.dke.data.agrirouter.impl.common.MessageIdService;
+import com.dke.data.agrirouter.impl.messaging.MessageBodyCreator;
+import com.dke.data.agrirouter.impl.messaging.SequenceNumberService;
+import com.google.protobuf.ByteString;
+import com.hivemq.client.mqtt.mqtt3.Mqtt3AsyncClient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Publishes system messages with a message ID that is known before the message is sent, so the pending response can
+ * be registered before the agrirouter© is able to answer.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SystemMessagePublisher {
+
+    private final EncodeMessageService encodeMessageService;
+
+    /**
+     * Generate a new message ID.
+     *
+     * @return The message ID.
+     */
+    public String nextMessageId() {
+        return MessageIdService.generateMessageId();
+    }
+
+    /**
+     * Encode and publish a system message.
+     *
+     * @param mqttClient           The MQTT client of the endpoint.
+     * @param onboardingResponse   The onboarding response of the endpoint.
+     * @param messageId            The ID of the message.
+     * @param technicalMessageType The technical message type.
+     * @param payload              The payload.
+     * @return Completed as soon as the message has been published, completed exceptionally if publishing failed.
+     */
+    public CompletableFuture<Void> publish(Mqtt3AsyncClient mqttClient,
+                                           OnboardingResponse onboardingResponse,
+                                           String messageId,
+                                           SystemMessageType technicalMessageType,
+                                           ByteString payload) {
+        try {
+            final var messageHeaderParameters = new MessageHeaderParameters();
+            messageHeaderParameters.setApplicationMessageId(messageId);
+            messageHeaderParameters.setApplicationMessageSeqNo(SequenceNumberService.generateSequenceNumberForEndpoint(onboardingResponse));
+            messageHeaderParameters.setTechnicalMessageType(technicalMessageType);
+            messageHeaderParameters.setMode(Request.RequestEnvelope.Mode.DIRECT);
+
+            final var payloadParameters = new PayloadParameters();
+            payloadParameters.setTypeUrl(technicalMessageType.getTypeUrl());
+            payloadParameters.setValue(payload);
+
+            final var messageParameterTuples = encodeMessageService.chunkAndBase64EncodeEachChunk(messageHeaderParameters, payloadParameters, onboardingResponse);
+            final var sendMessageParameters = new SendMessageParameters();
+            sendMessageParameters.setOnboardingResponse(onboardingResponse);
+            sendMessageParameters.setEncodedMessages(encodeMessageService.encode(messageParameterTuples));
+
+            final var messageBodyCreator = new MessageBodyCreator() {
+            };
+            log.debug("Publishing the system message of type '{}' with the ID '{}'.", technicalMessageType.getKey(), messageId);
+            return mqttClient.publishWith()
+                    .topic(onboardingResponse.getConnectionCriteria().getMeasures())
+                    .payload(messageBodyCreator.createMessageBody(sendMessageParameters).getBytes())
+                    .send()
+                    .thenApply(mqtt3Publish -> null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+}
@@ -1,18 +1,21 @@
 package de.agrirouter.middleware.integration.mqtt.health;
 
-import com.dke.data.agrirouter.api.service.parameters.PingParameters;
-import com.dke.data.agrirouter.impl.messaging.mqtt.PingServiceImpl;
+import com.dke.data.agrirouter.api.enums.SystemMessageType;
+import com.google.protobuf.ByteString;
 import de.agrirouter.middleware.api.errorhandling.BusinessException;
 import de.agrirouter.middleware.api.errorhandling.error.ErrorMessageFactory;
 import de.agrirouter.middleware.domain.Endpoint;
+import de.agrirouter.middleware.integration.cache.OnboardingResponseCache;
+import de.agrirouter.middleware.integration.mqtt.MessageCorrelationRegistry;
 import de.agrirouter.middleware.integration.mqtt.MqttClientManagementService;
+import de.agrirouter.middleware.integration.mqtt.SystemMessagePublisher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service to check the health status of an endpoint.
@@ -25,35 +28,50 @@ public class HealthStatusIntegrationService {
     private final MqttClientManagementService mqttClientManagementService;
     private final HealthStatusMessages healthStatusMessages;
     private final LastKnownHealthyMessages lastKnownHealthyMessages;
+    private final MessageCorrelationRegistry messageCorrelationRegistry;
+    private final SystemMessagePublisher systemMessagePublisher;
+    private final OnboardingResponseCache onboardingResponseCache;
 
     /**
      * Publish a health status message to the internal topic.
      *
      * @param endpoint The endpoint.
+     * @return The health status message, completed as soon as the agrirouter has answered.
      */
-    public void publishHealthStatusMessage(Endpoint endpoint) {
+    public CompletableFuture<HealthStatusMessage> publishHealthStatusMessage(Endpoint endpoint) {
         var mqttClient = mqttClientManagementService.get(endpoint);
-        var messageId = new AtomicReference<>("not_set_yet");
-        mqttClient.ifPresentOrElse(client -> {
-            if (client.getState().isConnected()) {
-                        var pingService = new PingServiceImpl(client);
-                        var onboardingResponse = endpoint.asOnboardingResponse();
-                        var parameters = new PingParameters();
-                        parameters.setOnboardingResponse(onboardingResponse);
-                        log.info("Publishing the health check message to the topic, but not saving it as a message waiting for ACK to reduce overload.");
-                        messageId.set(pingService.send(parameters));
-                    } else {
-                        log.error("Could not publish the health check message. MQTT client is not connected.");
-                        throw new BusinessException(ErrorMessageFactory.couldNotPublishHealthMessageSinceClientIsNotConnected());
-                    }
-                }, () -> log.warn("Could not find or create a MQTT client for endpoint with the external endpoint ID '{}'.", endpoint.getExternalEndpointId())
-        );
-        healthStatusMessages.put(HealthStatusMessage.builder().
-                agrirouterEndpointId(endpoint.getAgrirouterEndpointId())
+        if (mqttClient.isEmpty()) {
+            log.warn("Could not find or create a MQTT client for endpoint with the external endpoint ID '{}'.", endpoint.getExternalEndpointId());
+            return CompletableFuture.failedFuture(new BusinessException(ErrorMessageFactory.couldNotConnectMqttClient(endpoint.getAgrirouterEndpointId())));
+        }
+        var client = mqttClient.get();
+        if (!client.getState().isConnected()) {
+            log.error("Could not publish the health check message. MQTT client is not connected.");
+            return CompletableFuture.failedFuture(new BusinessException(ErrorMessageFactory.couldNotPublishHealthMessageSinceClientIsNotConnected()));
+        }
+        log.info("Publishing the health check message to the topic, but not saving it as a message waiting for ACK to reduce overload.");
+        var messageId = systemMessagePublisher.nextMessageId();
+        var pendingResponse = messageCorrelationRegistry.register(messageId);
+        var healthStatusMessage = HealthStatusMessage.builder()
+                .agrirouterEndpointId(endpoint.getAgrirouterEndpointId())
                 .healthStatus(null)
                 .hasBeenReturned(false)
-                .messageId(messageId.get())
-                .build());
+                .messageId(messageId)
+                .build();
+        healthStatusMessages.put(healthStatusMessage);
+        systemMessagePublisher.publish(client, onboardingResponseCache.get(endpoint), messageId, SystemMessageType.DKE_PING, ByteString.EMPTY)
+                .whenComplete((ignored, throwable) -> {
+                    if (null != throwable) {
+                        log.error("Could not publish the health check message with the ID '{}'.", messageId, throwable);
+                        healthStatusMessages.remove(endpoint.getAgrirouterEndpointId());
+                        messageCorrelationRegistry.deregister(messageId, throwable);
+                    }
+                });
+        return pendingResponse.thenApply(decodeMessageResponse -> {
+            healthStatusMessage.setHealthStatus(decodeMessageResponse.getResponseEnvelope().getType());
+            healthStatusMessage.setHasBeenReturned(true);
+            return healthStatusMessage;
+        });
     }
 
     /**
@@ -84,30 +102,6 @@ public class HealthStatusIntegrationService {
         lastKnownHealthyMessages.put(agrirouterEndpointId);
     }
 
-    /**
-     * Check if there is a pending health status response for the given endpoint ID.
-     *
-     * @param agrirouterEndpointId The endpoint ID.
-     * @return True if there is a pending health status response, false otherwise.
-     */
-    public boolean hasPendingResponse(String agrirouterEndpointId) {
-        return healthStatusMessages.get(agrirouterEndpointId).isPresent();
-    }
-
-    /**
-     * Get the health status message for the given endpoint ID.
-     *
-     * @param agrirouterEndpointId The endpoint ID.
-     * @return The health status message.
-     */
-    public Optional<HealthStatusMessage> getHealthStatusMessage(String agrirouterEndpointId) {
-        var healthStatusMessage = healthStatusMessages.get(agrirouterEndpointId);
-        if (healthStatusMessage.isPresent() && healthStatusMessage.get().isHasBeenReturned()) {
-            return healthStatusMessage;
-        }
-        return Optional.empty();
-    }
-
     /**
      * Removes all pending health status messages for a given Agrirouter endpoint.
      *
@@ -1,20 +1,38 @@
 package de.agrirouter.middleware.integration.mqtt.health;
 
+import com.github.benmanes.caffeine.cache.Ticker;
+import de.agrirouter.middleware.integration.cache.BoundedCache;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Container for the health status messages.
+ * Container for the health status messages. The messages are indexed by their message ID as well, the index follows
+ * the container, so entries that have been removed, replaced or have expired cannot be found by their message ID. The
+ * index entry is written atomically with the message, before the message becomes visible, and removed as soon as the
+ * message has left the container.
  */
 @Slf4j
 @Component
 public class HealthStatusMessages {
 
-    private final Map<String, HealthStatusMessage> healthStatusMessages = new HashMap<>();
+    private final BoundedCache<String, HealthStatusMessage> healthStatusMessages;
+    private final Map<String, String> agrirouterEndpointIdsByMessageId = new ConcurrentHashMap<>();
+
+    @Autowired
+    public HealthStatusMessages(@Value("${app.cache.health-status-messages.maximum-size}") long maximumSize,
+                                @Value("${app.cache.health-status-messages.time-to-live-in-seconds}") long timeToLiveInSeconds) {
+        this(maximumSize, timeToLiveInSeconds, Ticker.systemTicker());
+    }
+
+    HealthStatusMessages(long maximumSize, long timeToLiveInSeconds, Ticker ticker) {
+        healthStatusMessages = BoundedCache.create("health_status_messages", maximumSize, timeToLiveInSeconds, this::removeFromIndex, ticker);
+    }
 
     /**
      * Place the health status message for the given endpoint ID within the container.
@@ -22,7 +40,13 @@ public class HealthStatusMessages {
      * @param healthStatusMessage The health status message.
      */
     public void put(HealthStatusMessage healthStatusMessage) {
-        healthStatusMessages.put(healthStatusMessage.getAgrirouterEndpointId(), healthStatusMessage);
+        healthStatusMessages.compute(healthStatusMessage.getAgrirouterEndpointId(), (agrirouterEndpointId, replacedHealthStatusMessage) -> {
+            // The replaced message is removed from the index by the removal listener.
+            if (null != healthStatusMessage.getMessageId()) {
+                agrirouterEndpointIdsByMessageId.put(healthStatusMessage.getMessageId(), agrirouterEndpointId);
+            }
+            return healthStatusMessage;
+        });
     }
 
     /**
@@ -41,13 +65,54 @@ public class HealthStatusMessages {
      * @return The health status message.
      */
     public Optional<HealthStatusMessage> get(String agrirouterEndpointId) {
-        return Optional.ofNullable(healthStatusMessages.get(agrirouterEndpointId));
+        return healthStatusMessages.get(agrirouterEndpointId);
     }
 
+    /**
+     * Get the health status message for the given message ID.
+     *
+     * @param messageId The message ID.
+     * @return The health status message.
+     */
     public Optional<HealthStatusMessage> getByMessageId(String messageId) {
-        return healthStatusMessages.values().stream()
-                .filter(healthStatusMessage -> healthStatusMessage.getMessageId().equals(messageId))
-                .findFirst();
+        if (null == messageId) {
+            return Optional.empty();
+        }
+        var agrirouterEndpointId = agrirouterEndpointIdsByMessageId.get(messageId);
+        if (null == agrirouterEndpointId) {
+            return Optional.empty();
+        }
+        // The index entry is written before the message, so the message may not be visible yet or may have left
+        // the container concurrently. The index entry is removed by the removal listener in that case.
+        return healthStatusMessages.get(agrirouterEndpointId)
+                .filter(message -> messageId.equals(message.getMessageId()));
+    }
+
+    /**
+     * The number of health status messages, expired messages are removed from the container and the index.
+     *
+     * @return The number of health status messages.
+     */
+    long size() {
+        return healthStatusMessages.size();
+    }
+
+    private void removeFromIndex(String agrirouterEndpointId, HealthStatusMessage healthStatusMessage) {
+        if (null != healthStatusMessage.getMessageId()) {
+            removeFromIndex(agrirouterEndpointId, healthStatusMessage.getMessageId());
+        }
+    }
+
+    private void removeFromIndex(String agrirouterEndpointId, String messageId) {
+        // Keep the index entry if the message has been put again, e.g. after the status has been updated.
+        agrirouterEndpointIdsByMessageId.computeIfPresent(messageId, (id, indexedAgrirouterEndpointId) ->
+                indexedAgrirouterEndpointId.equals(agrirouterEndpointId) && !isCurrent(agrirouterEndpointId, messageId) ? null : indexedAgrirouterEndpointId);
+    }
+
+    private boolean isCurrent(String agrirouterEndpointId, String messageId) {
+        return healthStatusMessages.get(agrirouterEndpointId)
+                .map(message -> messageId.equals(message.getMessageId()))
+                .orElse(false);
     }
 
 }
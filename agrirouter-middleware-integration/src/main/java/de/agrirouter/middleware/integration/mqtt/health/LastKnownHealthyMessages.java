@@ -1,11 +1,11 @@
 package de.agrirouter.middleware.integration.mqtt.health;
 
+import de.agrirouter.middleware.integration.cache.BoundedCache;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.time.Instant;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -15,7 +15,12 @@ import java.util.Optional;
 @Component
 public class LastKnownHealthyMessages {
 
-    private final Map<String, Instant> lastKnownHealthyStatus = new HashMap<>();
+    private final BoundedCache<String, Instant> lastKnownHealthyStatus;
+
+    public LastKnownHealthyMessages(@Value("${app.cache.last-known-healthy-messages.maximum-size:50000}") long maximumSize,
+                                    @Value("${app.cache.last-known-healthy-messages.time-to-live-in-seconds:604800}") long timeToLiveInSeconds) {
+        lastKnownHealthyStatus = BoundedCache.create("last_known_healthy_messages", maximumSize, timeToLiveInSeconds);
+    }
 
     /**
      * Get the last known healthy status for the given endpoint ID.
@@ -34,9 +39,9 @@ public class LastKnownHealthyMessages {
      */
     public Optional<Instant> get(String agrirouterEndpointId) {
         var instant = lastKnownHealthyStatus.get(agrirouterEndpointId);
-        if (instant == null) {
+        if (instant.isEmpty()) {
             log.warn("No last known healthy status found for endpoint ID {}.", agrirouterEndpointId);
         }
-        return Optional.ofNullable(instant);
+        return instant;
     }
 }
@@ -2,19 +2,22 @@ package de.agrirouter.middleware.integration.mqtt.list_endpoints;
 
 import agrirouter.request.payload.account.Endpoints;
 import com.dke.data.agrirouter.api.enums.SystemMessageType;
-import com.dke.data.agrirouter.api.service.parameters.ListEndpointsParameters;
-import com.dke.data.agrirouter.impl.messaging.mqtt.ListEndpointsServiceImpl;
 import de.agrirouter.middleware.domain.Endpoint;
 import de.agrirouter.middleware.integration.ack.MessageWaitingForAcknowledgement;
 import de.agrirouter.middleware.integration.ack.MessageWaitingForAcknowledgementService;
+import de.agrirouter.middleware.integration.cache.OnboardingResponseCache;
+import de.agrirouter.middleware.integration.mqtt.MessageCorrelationRegistry;
 import de.agrirouter.middleware.integration.mqtt.MqttClientManagementService;
+import de.agrirouter.middleware.integration.mqtt.SystemMessagePublisher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service to list all endpoints for a specific endpoint within the middleware.
@@ -27,49 +30,53 @@ public class ListEndpointsIntegrationService {
     private final MqttClientManagementService mqttClientManagementService;
     private final MessageWaitingForAcknowledgementService messageWaitingForAcknowledgementService;
     private final ListEndpointsMessages listEndpointsMessages;
+    private final MessageCorrelationRegistry messageCorrelationRegistry;
+    private final SystemMessagePublisher systemMessagePublisher;
+    private final OnboardingResponseCache onboardingResponseCache;
 
     /**
      * Publish a list endpoints message for the given onboarding response.
      *
      * @param endpoint The endpoint.
+     * @return The message recipients, completed as soon as the agrirouter has answered.
      */
-    public void publishListEndpointsMessage(Endpoint endpoint) {
+    public CompletableFuture<Collection<MessageRecipient>> publishListEndpointsMessage(Endpoint endpoint) {
         var iMqttClient = mqttClientManagementService.get(endpoint);
         if (iMqttClient.isPresent()) {
-            final var listEndpointsService = new ListEndpointsServiceImpl(iMqttClient.get());
-            final var parameters = new ListEndpointsParameters();
-            parameters.setOnboardingResponse(endpoint.asOnboardingResponse());
-            parameters.setDirection(Endpoints.ListEndpointsQuery.Direction.SEND);
-            parameters.setTechnicalMessageType(SystemMessageType.EMPTY);
-            parameters.setUnfilteredList(false);
-            final var messageId = listEndpointsService.send(parameters);
+            final var listEndpointsQuery = Endpoints.ListEndpointsQuery.newBuilder()
+                    .setDirection(Endpoints.ListEndpointsQuery.Direction.SEND)
+                    .setTechnicalMessageType(SystemMessageType.EMPTY.getKey())
+                    .build();
 
             var listEndpointsMessage = new ListEndpointsMessage();
             listEndpointsMessage.setTimestamp(Instant.now().toEpochMilli());
             listEndpointsMessage.setAgrirouterEndpointId(endpoint.getAgrirouterEndpointId());
             listEndpointsMessages.put(listEndpointsMessage);
 
+            final var messageId = systemMessagePublisher.nextMessageId();
+            final var pendingResponse = messageCorrelationRegistry.register(messageId);
+
             log.debug("Saving message with ID '{}'  waiting for ACK.", messageId);
             MessageWaitingForAcknowledgement messageWaitingForAcknowledgement = new MessageWaitingForAcknowledgement();
             messageWaitingForAcknowledgement.setAgrirouterEndpointId(endpoint.getAgrirouterEndpointId());
             messageWaitingForAcknowledgement.setMessageId(messageId);
             messageWaitingForAcknowledgement.setTechnicalMessageType(SystemMessageType.DKE_LIST_ENDPOINTS.getKey());
             messageWaitingForAcknowledgementService.save(messageWaitingForAcknowledgement);
+
+            systemMessagePublisher.publish(iMqttClient.get(), onboardingResponseCache.get(endpoint), messageId, SystemMessageType.DKE_LIST_ENDPOINTS, listEndpointsQuery.toByteString())
+                    .whenComplete((ignored, throwable) -> {
+                        if (null != throwable) {
+                            log.error("Could not publish the list endpoints message with the ID '{}'.", messageId, throwable);
+                            listEndpointsMessages.remove(endpoint.getAgrirouterEndpointId());
+                            messageWaitingForAcknowledgementService.delete(messageWaitingForAcknowledgement);
+                            messageCorrelationRegistry.deregister(messageId, throwable);
+                        }
+                    });
+            return pendingResponse.thenApply(decodeMessageResponse -> getRecipients(endpoint.getAgrirouterEndpointId()).orElse(Collections.emptyList()));
         } else {
             log.warn("Could not find MQTT client for endpoint with the external endpoint ID '{}'.", endpoint.getExternalEndpointId());
+            return CompletableFuture.completedFuture(Collections.emptyList());
         }
-
-    }
-
-    /**
-     * Check if there is a pending list endpoints response for the given endpoint ID.
-     *
-     * @param agrirouterEndpointId The endpoint ID.
-     * @return True if there is a pending list endpoints response, false otherwise.
-     */
-    public boolean hasPendingResponse(String agrirouterEndpointId) {
-        var listEndpointsMessage = listEndpointsMessages.get(agrirouterEndpointId);
-        return listEndpointsMessage != null;
     }
 
     /**
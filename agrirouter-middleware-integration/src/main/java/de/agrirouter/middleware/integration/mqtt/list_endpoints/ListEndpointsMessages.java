@@ -1,11 +1,10 @@
 package de.agrirouter.middleware.integration.mqtt.list_endpoints;
 
+import de.agrirouter.middleware.integration.cache.BoundedCache;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * Container for the health status messages.
  */
@@ -13,7 +12,12 @@ import java.util.Map;
 @Component
 public class ListEndpointsMessages {
 
-    private final Map<String, ListEndpointsMessage> listEndpointsMessages = new HashMap<>();
+    private final BoundedCache<String, ListEndpointsMessage> listEndpointsMessages;
+
+    public ListEndpointsMessages(@Value("${app.cache.list-endpoints-messages.maximum-size:50000}") long maximumSize,
+                                 @Value("${app.cache.list-endpoints-messages.time-to-live-in-seconds:3600}") long timeToLiveInSeconds) {
+        listEndpointsMessages = BoundedCache.create("list_endpoints_messages", maximumSize, timeToLiveInSeconds);
+    }
 
     /**
      * Place the health status message for the given endpoint ID within the container.
@@ -31,7 +35,7 @@ public class ListEndpointsMessages {
      */
     public void remove(String agrirouterEndpointId) {
         var listEndpointsMessage = listEndpointsMessages.remove(agrirouterEndpointId);
-        if (listEndpointsMessage == null) {
+        if (listEndpointsMessage.isEmpty()) {
             log.warn("No list endpoints message found for endpoint ID {}.", agrirouterEndpointId);
         }
     }
@@ -44,9 +48,9 @@ public class ListEndpointsMessages {
      */
     public ListEndpointsMessage get(String agrirouterEndpointId) {
         var listEndpointsMessage = listEndpointsMessages.get(agrirouterEndpointId);
-        if (listEndpointsMessage == null) {
+        if (listEndpointsMessage.isEmpty()) {
             log.warn("No list endpoints message found for endpoint ID {}.", agrirouterEndpointId);
         }
-        return listEndpointsMessage;
+        return listEndpointsMessage.orElse(null);
     }
 }
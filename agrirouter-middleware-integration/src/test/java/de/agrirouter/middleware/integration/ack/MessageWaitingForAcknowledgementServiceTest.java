@@ -1,14 +1,30 @@
 package de.agrirouter.middleware.integration.ack;
 
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
 import de.agrirouter.middleware.domain.Endpoint;
+import de.agrirouter.middleware.domain.documents.MessageWaitingForAcknowledgementEntry;
+import de.agrirouter.middleware.persistence.mongo.MessageWaitingForAcknowledgementEntryRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 class MessageWaitingForAcknowledgementServiceTest {
 
@@ -16,9 +32,7 @@ class MessageWaitingForAcknowledgementServiceTest {
 
     @BeforeEach
     void setUp() {
-        service = new MessageWaitingForAcknowledgementService();
-        // Clear the static map between tests by removing any entries added
-        // We use unique IDs per test to avoid cross-test contamination
+        service = new MessageWaitingForAcknowledgementService(mock(MessageWaitingForAcknowledgementEntryRepository.class), false);
     }
 
     private MessageWaitingForAcknowledgement buildMessage(String messageId, String endpointId) {
@@ -174,4 +188,151 @@ class MessageWaitingForAcknowledgementServiceTest {
         // cleanup
         service.delete(msg2);
     }
+
+    @Test
+    void findAllForAgrirouterEndpointId_withOneMillionOutstandingMessages_onlyVisitsTheMessagesOfTheEndpoint() {
+        var numberOfEndpoints = 100_000;
+        var messagesPerEndpoint = 10;
+        var logger = (Logger) LoggerFactory.getLogger(MessageWaitingForAcknowledgementService.class);
+        var level = logger.getLevel();
+        logger.setLevel(Level.INFO);
+        try {
+            for (int i = 0; i < numberOfEndpoints * messagesPerEndpoint; i++) {
+                service.save(buildMessage("m-" + i, "ar-ep-" + (i % numberOfEndpoints)));
+            }
+        } finally {
+            logger.setLevel(level);
+        }
+
+        var start = System.nanoTime();
+        for (int i = 0; i < numberOfEndpoints; i++) {
+            assertThat(service.findAllForAgrirouterEndpointId("ar-ep-" + i)).hasSize(messagesPerEndpoint);
+        }
+        var durationInMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Scanning one million entries for each of the 100.000 endpoints would take hours.
+        assertThat(durationInMillis).isLessThan(10_000);
+
+        var endpoint = new Endpoint();
+        endpoint.setAgrirouterEndpointId("ar-ep-42");
+        service.deleteAllForEndpoint(endpoint);
+        assertThat(service.findAllForAgrirouterEndpointId("ar-ep-42")).isEmpty();
+        assertThat(service.findAllForAgrirouterEndpointId("ar-ep-43")).hasSize(messagesPerEndpoint);
+    }
+
+    @Test
+    void save_overwritingTheEndpoint_movesTheMessageToTheNewEndpoint() {
+        var messageId = UUID.randomUUID().toString();
+
+        service.save(buildMessage(messageId, "ar-ep-move-a"));
+        service.save(buildMessage(messageId, "ar-ep-move-b"));
+
+        assertThat(service.findAllForAgrirouterEndpointId("ar-ep-move-a")).isEmpty();
+        assertThat(service.findAllForAgrirouterEndpointId("ar-ep-move-b")).hasSize(1);
+    }
+
+    @Test
+    void restore_afterRestart_recoversTheOutstandingMessages() {
+        var repository = mockRepositoryStoringTheEntries();
+        var beforeRestart = new MessageWaitingForAcknowledgementService(repository, true);
+        var acknowledged = buildMessage(UUID.randomUUID().toString(), "ar-ep-restart");
+        var outstanding = buildMessage(UUID.randomUUID().toString(), "ar-ep-restart");
+        outstanding.getDynamicProperties().put(DynamicMessageProperties.TEAM_SET_CONTEXT_ID, "team-set");
+        outstanding.getDynamicProperties().put(DynamicMessageProperties.EXTERNAL_VIRTUAL_ENDPOINT_IDS, List.of("virtual-1", "virtual-2"));
+        beforeRestart.save(acknowledged);
+        beforeRestart.save(outstanding);
+        beforeRestart.delete(acknowledged);
+
+        var afterRestart = new MessageWaitingForAcknowledgementService(repository, true);
+        afterRestart.restore();
+
+        assertThat(afterRestart.findByMessageId(acknowledged.getMessageId())).isEmpty();
+        var restored = afterRestart.findByMessageId(outstanding.getMessageId());
+        assertThat(restored).isPresent();
+        assertThat(restored.get().getCreated()).isEqualTo(outstanding.getCreated());
+        assertThat(restored.get().getTechnicalMessageType()).isEqualTo(outstanding.getTechnicalMessageType());
+        assertThat(restored.get().getDynamicPropertyAsString(DynamicMessageProperties.TEAM_SET_CONTEXT_ID)).isEqualTo("team-set");
+        assertThat(restored.get().getDynamicPropertyAsStringList(DynamicMessageProperties.EXTERNAL_VIRTUAL_ENDPOINT_IDS)).containsExactly("virtual-1", "virtual-2");
+        assertThat(afterRestart.findAllForAgrirouterEndpointId("ar-ep-restart")).hasSize(1);
+    }
+
+    @Test
+    void restore_skipsMessagesOlderThanOneWeek() {
+        var repository = mockRepositoryStoringTheEntries();
+        var beforeRestart = new MessageWaitingForAcknowledgementService(repository, true);
+        var oldMessage = buildMessage(UUID.randomUUID().toString(), "ar-ep-restart-old");
+        ReflectionTestUtils.setField(oldMessage, "created", Instant.now().minusSeconds(60L * 60 * 24 * 8).getEpochSecond());
+        beforeRestart.save(oldMessage);
+
+        var afterRestart = new MessageWaitingForAcknowledgementService(repository, true);
+        afterRestart.restore();
+
+        assertThat(afterRestart.findByMessageId(oldMessage.getMessageId())).isEmpty();
+    }
+
+    @Test
+    void clearAllThatAreOlderThanOneWeek_withPersistence_removesOnlyTheOldPersistedMessages() {
+        var repository = mockRepositoryStoringTheEntries();
+        var beforeRestart = new MessageWaitingForAcknowledgementService(repository, true);
+        var oldMessage = buildMessage(UUID.randomUUID().toString(), "ar-ep-persistent-clear");
+        ReflectionTestUtils.setField(oldMessage, "created", Instant.now().minusSeconds(60L * 60 * 24 * 8).getEpochSecond());
+        var freshMessage = buildMessage(UUID.randomUUID().toString(), "ar-ep-persistent-clear");
+        beforeRestart.save(oldMessage);
+        beforeRestart.save(freshMessage);
+
+        beforeRestart.clearAllThatAreOlderThanOneWeek();
+
+        verify(repository).deleteAllByCreatedAtBefore(any());
+        var afterRestart = new MessageWaitingForAcknowledgementService(repository, true);
+        afterRestart.restore();
+        assertThat(afterRestart.findByMessageId(oldMessage.getMessageId())).isEmpty();
+        assertThat(afterRestart.findByMessageId(freshMessage.getMessageId())).isPresent();
+    }
+
+    @Test
+    void deleteAllForEndpoint_withPersistence_removesThePersistedMessages() {
+        var repository = mockRepositoryStoringTheEntries();
+        var persistentService = new MessageWaitingForAcknowledgementService(repository, true);
+        persistentService.save(buildMessage(UUID.randomUUID().toString(), "ar-ep-persistent-delete"));
+
+        var endpoint = new Endpoint();
+        endpoint.setAgrirouterEndpointId("ar-ep-persistent-delete");
+        persistentService.deleteAllForEndpoint(endpoint);
+
+        verify(repository).deleteAllByAgrirouterEndpointId("ar-ep-persistent-delete");
+    }
+
+    @Test
+    void save_withoutPersistence_doesNotTouchTheRepository() {
+        var repository = mock(MessageWaitingForAcknowledgementEntryRepository.class);
+        var inMemoryService = new MessageWaitingForAcknowledgementService(repository, false);
+        var msg = buildMessage(UUID.randomUUID().toString(), "ar-ep-in-memory");
+
+        inMemoryService.restore();
+        inMemoryService.save(msg);
+        inMemoryService.delete(msg);
+
+        verify(repository, never()).streamAllByCreatedAtAfter(any());
+        verify(repository, never()).save(any());
+        verify(repository, never()).deleteById(anyString());
+    }
+
+    private static MessageWaitingForAcknowledgementEntryRepository mockRepositoryStoringTheEntries() {
+        var repository = mock(MessageWaitingForAcknowledgementEntryRepository.class);
+        Map<String, MessageWaitingForAcknowledgementEntry> entries = new ConcurrentHashMap<>();
+        when(repository.save(any(MessageWaitingForAcknowledgementEntry.class))).thenAnswer(invocation -> {
+            MessageWaitingForAcknowledgementEntry entry = invocation.getArgument(0);
+            entries.put(entry.getId(), entry);
+            return entry;
+        });
+        doAnswer(invocation -> entries.remove(invocation.<String>getArgument(0))).when(repository).deleteById(anyString());
+        when(repository.streamAllByCreatedAtAfter(any())).thenAnswer(invocation -> new ArrayList<>(entries.values()).stream()
+                .filter(entry -> entry.getCreatedAt().isAfter(invocation.getArgument(0))));
+        when(repository.deleteAllByCreatedAtBefore(any())).thenAnswer(invocation -> {
+            var oldEntries = entries.values().stream().filter(entry -> entry.getCreatedAt().isBefore(invocation.getArgument(0))).toList();
+            oldEntries.forEach(entry -> entries.remove(entry.getId()));
+            return (long) oldEntries.size();
+        });
+        return repository;
+    }
 }
@@ -0,0 +1,145 @@
+package de.agrirouter.middleware.integration.cache;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedCacheTest {
+
+    private static final int NUMBER_OF_KEYS = 1_000_000;
+    private static final int MAXIMUM_SIZE = 10_000;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        Metrics.addRegistry(meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.removeRegistry(meterRegistry);
+    }
+
+    @Test
+    void givenMoreEntriesThanTheMaximumSize_whenPutting_thenEntriesAreEvicted() {
+        BoundedCache<String, Integer> cache = BoundedCache.create("bounded_cache_test_size", 100, 0);
+
+        for (int i = 0; i < 1_000; i++) {
+            cache.put("key-" + i, i);
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(100);
+        assertThat(cache.asMap()).hasSizeLessThanOrEqualTo(100);
+    }
+
+    @Test
+    void givenAnExpiredEntry_whenGetting_thenTheEntryIsGone() {
+        var nanos = new AtomicLong();
+        BoundedCache<String, Integer> cache = BoundedCache.create("bounded_cache_test_ttl", 100, 1, (key, value) -> {
+        }, nanos::get);
+        cache.put("key", 1);
+
+        nanos.addAndGet(Duration.ofSeconds(2).toNanos());
+
+        assertThat(cache.get("key")).isEmpty();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void givenNullKeysOrValues_whenUsingTheCache_thenNothingIsStored() {
+        BoundedCache<String, Integer> cache = BoundedCache.create("bounded_cache_test_null", 100, 0);
+        cache.put("key", 1);
+
+        cache.put(null, 1);
+        cache.put("key", null);
+
+        assertThat(cache.get(null)).isEmpty();
+        assertThat(cache.remove(null)).isEmpty();
+        assertThat(cache.compute(null, (key, value) -> 1)).isEmpty();
+        assertThat(cache.get("key")).isEmpty();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void givenCacheAccesses_whenReadingTheMetrics_thenSizeHitsMissesAndEvictionsArePublished() {
+        BoundedCache<String, Integer> cache = BoundedCache.create("bounded_cache_test_metrics", 1, 0);
+
+        cache.put("key-1", 1);
+        cache.get("key-1");
+        cache.get("unknown");
+        cache.put("key-2", 2);
+
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "bounded_cache_test_metrics").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "bounded_cache_test_metrics").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.evictions").tag("cache", "bounded_cache_test_metrics").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.size").tag("cache", "bounded_cache_test_metrics").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void givenManyThreads_whenComputingTheSameKeys_thenNoUpdateIsLost() throws Exception {
+        BoundedCache<String, Integer> cache = BoundedCache.create("bounded_cache_test_concurrency", 100, 0);
+        var updates = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < 10_000; i++) {
+            var key = "key-" + (i % 10);
+            updates.add(() -> {
+                cache.compute(key, (k, value) -> null == value ? 1 : value + 1);
+                return null;
+            });
+        }
+
+        try (var executorService = Executors.newFixedThreadPool(8)) {
+            for (var update : executorService.invokeAll(updates)) {
+                update.get();
+            }
+        }
+
+        assertThat(cache.asMap().values()).hasSize(10).allMatch(count -> count == 1_000);
+    }
+
+    @Test
+    void givenManyThreads_whenLoadingTheSameKey_thenTheLoaderIsCalledOnce() throws Exception {
+        BoundedCache<String, Integer> cache = BoundedCache.create("bounded_cache_test_loader", 100, 0);
+        var loads = new AtomicInteger();
+        var lookups = new ArrayList<Callable<Integer>>();
+        for (int i = 0; i < 1_000; i++) {
+            lookups.add(() -> cache.get("key", key -> {
+                loads.incrementAndGet();
+                return 42;
+            }).orElseThrow());
+        }
+
+        try (var executorService = Executors.newFixedThreadPool(8)) {
+            for (var lookup : executorService.invokeAll(lookups)) {
+                assertThat(lookup.get()).isEqualTo(42);
+            }
+        }
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void givenOneMillionInsertedKeys_whenPutting_thenAllButTheMaximumSizeAreEvicted() {
+        BoundedCache<String, String> cache = BoundedCache.create("bounded_cache_test_memory", MAXIMUM_SIZE, 0);
+
+        for (int i = 0; i < NUMBER_OF_KEYS; i++) {
+            cache.put("key-" + i, "value-" + i);
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(MAXIMUM_SIZE);
+        assertThat(meterRegistry.get("cache.evictions").tag("cache", "bounded_cache_test_memory").functionCounter().count())
+                .isGreaterThanOrEqualTo(NUMBER_OF_KEYS - MAXIMUM_SIZE);
+    }
+
+}
@@ -0,0 +1,139 @@
+package de.agrirouter.middleware.integration.cache;
+
+import com.dke.data.agrirouter.api.dto.onboard.OnboardingResponse;
+import de.agrirouter.middleware.domain.Endpoint;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+class OnboardingResponseCacheTest {
+
+    private static final int WARMUP_ITERATIONS = 10_000;
+    private static final int BENCHMARK_ITERATIONS = 50_000;
+
+    private OnboardingResponseCache onboardingResponseCache;
+
+    @BeforeEach
+    void setUp() {
+        onboardingResponseCache = new OnboardingResponseCache(100, 0);
+    }
+
+    private static String onboardResponse(String clientId) {
+        return "{\"sensorAlternateId\":\"sensor-alternate-id\",\"connectionCriteria\":{\"clientId\":\"" + clientId + "\"}}";
+    }
+
+    private static Endpoint createEndpoint(String agrirouterEndpointId, String json) {
+        var endpoint = new Endpoint();
+        endpoint.setAgrirouterEndpointId(agrirouterEndpointId);
+        endpoint.setOnboardResponseForRouterDevice(json);
+        return endpoint;
+    }
+
+    @Test
+    void get_calledTwice_returnsCachedInstance() {
+        var endpoint = createEndpoint("agrirouter-endpoint-id", onboardResponse("client-1"));
+
+        var first = onboardingResponseCache.get(endpoint);
+        var second = onboardingResponseCache.get(endpoint);
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.getConnectionCriteria().getClientId()).isEqualTo("client-1");
+    }
+
+    @Test
+    void get_forDifferentEntityWithSameJson_returnsCachedInstance() {
+        var first = onboardingResponseCache.get(createEndpoint("agrirouter-endpoint-id", onboardResponse("client-1")));
+
+        var second = onboardingResponseCache.get(createEndpoint("agrirouter-endpoint-id", onboardResponse("client-1")));
+
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void get_afterOnboardResponseChanged_returnsFreshInstance() {
+        var endpoint = createEndpoint("agrirouter-endpoint-id", onboardResponse("client-1"));
+        var first = onboardingResponseCache.get(endpoint);
+
+        endpoint.setOnboardResponseForRouterDevice(onboardResponse("client-2"));
+        var second = onboardingResponseCache.get(endpoint);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getConnectionCriteria().getClientId()).isEqualTo("client-2");
+    }
+
+    @Test
+    void get_afterRemoval_returnsFreshInstance() {
+        var endpoint = createEndpoint("agrirouter-endpoint-id", onboardResponse("client-1"));
+        var first = onboardingResponseCache.get(endpoint);
+
+        onboardingResponseCache.remove("agrirouter-endpoint-id");
+        var second = onboardingResponseCache.get(endpoint);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getConnectionCriteria().getClientId()).isEqualTo("client-1");
+    }
+
+    @Test
+    void removeIfChanged_withTheCachedVersion_keepsTheEntry() {
+        var endpoint = createEndpoint("agrirouter-endpoint-id", onboardResponse("client-1"));
+        var first = onboardingResponseCache.get(endpoint);
+
+        onboardingResponseCache.removeIfChanged(endpoint);
+
+        assertThat(onboardingResponseCache.get(endpoint)).isSameAs(first);
+    }
+
+    @Test
+    void removeIfChanged_withAnotherVersion_removesTheEntry() {
+        var endpoint = createEndpoint("agrirouter-endpoint-id", onboardResponse("client-1"));
+        var first = onboardingResponseCache.get(endpoint);
+
+        onboardingResponseCache.removeIfChanged(createEndpoint("agrirouter-endpoint-id", onboardResponse("client-2")));
+
+        assertThat(onboardingResponseCache.get(endpoint)).isNotSameAs(first);
+    }
+
+    @Test
+    void get_withoutAgrirouterEndpointId_parsesWithoutCaching() {
+        var endpoint = createEndpoint(null, onboardResponse("client-1"));
+
+        var first = onboardingResponseCache.get(endpoint);
+        var second = onboardingResponseCache.get(endpoint);
+
+        assertThat(second).isNotSameAs(first);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void givenARealisticOnboardResponse_whenBenchmarking_thenTheCachedLookupIsCheaperThanParsing() {
+        var certificate = "-----BEGIN CERTIFICATE-----" + "A".repeat(4096) + "-----END CERTIFICATE-----";
+        var json = "{\"deviceAlternateId\":\"device-alternate-id\",\"capabilityAlternateId\":\"capability-alternate-id\",\"sensorAlternateId\":\"sensor-alternate-id\","
+                + "\"connectionCriteria\":{\"gatewayId\":\"2\",\"clientId\":\"client-1\",\"host\":\"host\",\"port\":\"8883\",\"commands\":\"commands\",\"measures\":\"measures\"},"
+                + "\"authentication\":{\"type\":\"PEM\",\"secret\":\"secret\",\"certificate\":\"" + certificate + "\"}}";
+        var endpoint = createEndpoint("agrirouter-endpoint-id", json);
+
+        var parsing = benchmark(endpoint::asOnboardingResponse);
+        var cached = benchmark(() -> onboardingResponseCache.get(endpoint));
+
+        log.info("Average time per lookup: parsing {} ns, cached {} ns.", parsing, cached);
+        assertThat(cached).isLessThan(parsing);
+    }
+
+    private static double benchmark(Supplier<OnboardingResponse> lookup) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            lookup.get();
+        }
+        var start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            lookup.get();
+        }
+        return (double) (System.nanoTime() - start) / BENCHMARK_ITERATIONS;
+    }
+
+}
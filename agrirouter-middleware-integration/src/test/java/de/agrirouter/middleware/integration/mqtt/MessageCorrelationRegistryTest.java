@@ -0,0 +1,91 @@
+package de.agrirouter.middleware.integration.mqtt;
+
+import agrirouter.response.Response;
+import com.dke.data.agrirouter.api.dto.encoding.DecodeMessageResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MessageCorrelationRegistryTest {
+
+    private MessageCorrelationRegistry messageCorrelationRegistry;
+
+    @BeforeEach
+    void setUp() {
+        messageCorrelationRegistry = new MessageCorrelationRegistry();
+        ReflectionTestUtils.setField(messageCorrelationRegistry, "responseTimeout", 1500L);
+    }
+
+    @Test
+    void complete_withMatchingMessageId_completesThePendingResponse() {
+        var pendingResponse = messageCorrelationRegistry.register("msg-id-1");
+        var decodeMessageResponse = createResponse("msg-id-1");
+
+        messageCorrelationRegistry.complete(decodeMessageResponse);
+
+        assertThat(pendingResponse).isCompletedWithValue(decodeMessageResponse);
+        assertThat(messageCorrelationRegistry.getNumberOfPendingResponses()).isZero();
+    }
+
+    @Test
+    void complete_withUnknownMessageId_leavesThePendingResponseUntouched() {
+        var pendingResponse = messageCorrelationRegistry.register("msg-id-1");
+
+        messageCorrelationRegistry.complete(createResponse("msg-id-unknown"));
+
+        assertThat(pendingResponse).isNotDone();
+        assertThat(messageCorrelationRegistry.getNumberOfPendingResponses()).isEqualTo(1);
+    }
+
+    @Test
+    void register_withoutResponse_timesOutAndRemovesThePendingResponse() {
+        ReflectionTestUtils.setField(messageCorrelationRegistry, "responseTimeout", 50L);
+
+        var pendingResponse = messageCorrelationRegistry.register("msg-id-timeout");
+
+        assertThatThrownBy(pendingResponse::join)
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(TimeoutException.class);
+        assertThat(messageCorrelationRegistry.getNumberOfPendingResponses()).isZero();
+    }
+
+    @Test
+    void deregister_afterFailedPublish_failsAndRemovesThePendingResponse() {
+        var pendingResponse = messageCorrelationRegistry.register("msg-id-failed");
+        var cause = new IllegalStateException("Publishing failed.");
+
+        messageCorrelationRegistry.deregister("msg-id-failed", cause);
+
+        assertThatThrownBy(pendingResponse::join)
+                .isInstanceOf(CompletionException.class)
+                .hasCause(cause);
+        assertThat(messageCorrelationRegistry.getNumberOfPendingResponses()).isZero();
+    }
+
+    @Test
+    void complete_afterRegisteringBeforePublishing_completesAnImmediateResponse() {
+        var pendingResponse = messageCorrelationRegistry.register("msg-id-fast");
+
+        messageCorrelationRegistry.complete(createResponse("msg-id-fast"));
+
+        assertThat(pendingResponse).isCompleted();
+    }
+
+    private static DecodeMessageResponse createResponse(String messageId) {
+        var decodeMessageResponse = mock(DecodeMessageResponse.class);
+        when(decodeMessageResponse.getResponseEnvelope()).thenReturn(Response.ResponseEnvelope.newBuilder()
+                .setApplicationMessageId(messageId)
+                .setType(Response.ResponseEnvelope.ResponseBodyType.ACK)
+                .build());
+        return decodeMessageResponse;
+    }
+
+}
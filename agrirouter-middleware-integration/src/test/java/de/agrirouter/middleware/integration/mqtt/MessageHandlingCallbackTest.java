@@ -0,0 +1,226 @@
+package de.agrirouter.middleware.integration.mqtt;
+
+import agrirouter.response.Response;
+import com.dke.data.agrirouter.api.dto.encoding.DecodeMessageResponse;
+import com.dke.data.agrirouter.api.service.messaging.encoding.DecodeMessageService;
+import com.hivemq.client.mqtt.mqtt3.message.publish.Mqtt3Publish;
+import de.agrirouter.middleware.api.events.PushMessageEvent;
+import de.agrirouter.middleware.integration.mqtt.health.HealthStatusMessages;
+import de.agrirouter.middleware.integration.mqtt.list_endpoints.ListEndpointsMessages;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class MessageHandlingCallbackTest {
+
+    private static final int NUMBER_OF_MESSAGES = 10_000;
+
+    private MessageHandlingCallback messageHandlingCallback;
+
+    @AfterEach
+    void tearDown() {
+        if (null != messageHandlingCallback) {
+            messageHandlingCallback.shutdown();
+        }
+    }
+
+    @Test
+    void accept_withManySyntheticPushNotifications_handlesAndAcknowledgesEveryMessageInOrder() throws InterruptedException {
+        var handledMessages = Collections.synchronizedList(new ArrayList<String>());
+        var acknowledgedMessages = new CountDownLatch(NUMBER_OF_MESSAGES);
+        messageHandlingCallback = createCallback(handledMessages::add, new IngestPipelineSettings(100, 4, 1));
+        var publishes = createPublishes(NUMBER_OF_MESSAGES, acknowledgedMessages);
+
+        publishes.forEach(messageHandlingCallback);
+
+        assertThat(acknowledgedMessages.await(30, TimeUnit.SECONDS)).isTrue();
+        assertThat(handledMessages).containsExactlyElementsOf(IntStream.range(0, NUMBER_OF_MESSAGES).mapToObj(i -> "sensor-" + i).toList());
+        publishes.forEach(publish -> verify(publish, times(1)).acknowledge());
+    }
+
+    @Test
+    void accept_whenQueuesAreFull_doesNotLoseMessages() throws InterruptedException {
+        var handledMessages = ConcurrentHashMap.<String>newKeySet();
+        var acknowledgedMessages = new CountDownLatch(NUMBER_OF_MESSAGES);
+        messageHandlingCallback = createCallback(handledMessages::add, new IngestPipelineSettings(1, 1, 1));
+        var publishes = createPublishes(NUMBER_OF_MESSAGES, acknowledgedMessages);
+
+        publishes.forEach(messageHandlingCallback);
+
+        assertThat(acknowledgedMessages.await(30, TimeUnit.SECONDS)).isTrue();
+        assertThat(handledMessages).hasSize(NUMBER_OF_MESSAGES);
+    }
+
+    @Test
+    void accept_withSeveralPersistenceWorkers_handlesTheMessagesOfEachEndpointInOrder() throws InterruptedException {
+        var handledMessages = new ConcurrentHashMap<String, List<String>>();
+        var acknowledgedMessages = new CountDownLatch(NUMBER_OF_MESSAGES);
+        var publishes = new ArrayList<Mqtt3Publish>(NUMBER_OF_MESSAGES);
+        for (int i = 0; i < NUMBER_OF_MESSAGES; i++) {
+            publishes.add(createPublish("sensor-" + (i % 10), "message-" + i, acknowledgedMessages));
+        }
+        messageHandlingCallback = createCallback((sensorAlternateId, message) -> handledMessages.computeIfAbsent(sensorAlternateId, k -> Collections.synchronizedList(new ArrayList<>())).add(message),
+                new IngestPipelineSettings(100, 4, 4));
+
+        publishes.forEach(messageHandlingCallback);
+
+        assertThat(acknowledgedMessages.await(30, TimeUnit.SECONDS)).isTrue();
+        assertThat(handledMessages).hasSize(10);
+        handledMessages.forEach((sensorAlternateId, messages) -> {
+            var sensor = Integer.parseInt(sensorAlternateId.substring("sensor-".length()));
+            assertThat(messages).containsExactlyElementsOf(IntStream.range(0, NUMBER_OF_MESSAGES).filter(i -> i % 10 == sensor).mapToObj(i -> "message-" + i).toList());
+        });
+    }
+
+    @Test
+    void accept_whenQueuesStayFull_blocksUntilThePipelineHasCaughtUp() throws InterruptedException {
+        var handlingStarted = new CountDownLatch(1);
+        var releaseHandling = new CountDownLatch(1);
+        messageHandlingCallback = createCallback(sensorAlternateId -> {
+            handlingStarted.countDown();
+            try {
+                releaseHandling.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, new IngestPipelineSettings(1, 1, 1));
+        var acknowledgedMessages = new CountDownLatch(10);
+        var publishes = createPublishes(10, acknowledgedMessages);
+
+        messageHandlingCallback.accept(publishes.getFirst());
+        assertThat(handlingStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        // The blocked pipeline holds at most a few messages, the MQTT client has to wait for the others.
+        var mqttClient = Thread.ofVirtual().start(() -> publishes.subList(1, 10).forEach(messageHandlingCallback));
+        assertThat(mqttClient.join(Duration.ofMillis(500))).isFalse();
+        releaseHandling.countDown();
+
+        assertThat(mqttClient.join(Duration.ofSeconds(5))).isTrue();
+        assertThat(acknowledgedMessages.await(5, TimeUnit.SECONDS)).isTrue();
+        publishes.forEach(publish -> verify(publish, times(1)).acknowledge());
+    }
+
+    @Test
+    void shutdown_releasesTheBlockedMqttClient() throws InterruptedException {
+        var handlingStarted = new CountDownLatch(1);
+        messageHandlingCallback = createCallback(sensorAlternateId -> {
+            handlingStarted.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, new IngestPipelineSettings(1, 1, 1));
+        var publishes = createPublishes(10, new CountDownLatch(10));
+        messageHandlingCallback.accept(publishes.getFirst());
+        assertThat(handlingStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        var mqttClient = Thread.ofVirtual().start(() -> publishes.subList(1, 10).forEach(messageHandlingCallback));
+        assertThat(mqttClient.join(Duration.ofMillis(500))).isFalse();
+
+        messageHandlingCallback.shutdown();
+
+        assertThat(mqttClient.join(Duration.ofSeconds(5))).isTrue();
+    }
+
+    @Test
+    void shutdown_stopsTheWorkersOfThePipeline() throws InterruptedException {
+        messageHandlingCallback = createCallback(sensorAlternateId -> {
+        }, new IngestPipelineSettings(10, 1, 1));
+        assertThat(messageHandlingCallback.isRunning()).isTrue();
+
+        messageHandlingCallback.shutdown();
+
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (messageHandlingCallback.isRunning() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(messageHandlingCallback.isRunning()).isFalse();
+    }
+
+    @Test
+    void accept_withInvalidPayload_acknowledgesTheMessage() throws InterruptedException {
+        var acknowledgedMessages = new CountDownLatch(1);
+        messageHandlingCallback = createCallback(sensorAlternateId -> {
+        }, new IngestPipelineSettings(10, 1, 1));
+        var publish = mock(Mqtt3Publish.class);
+        when(publish.getPayloadAsBytes()).thenReturn("not-a-json".getBytes(StandardCharsets.UTF_8));
+        doAnswer(invocation -> {
+            acknowledgedMessages.countDown();
+            return null;
+        }).when(publish).acknowledge();
+
+        messageHandlingCallback.accept(publish);
+
+        assertThat(acknowledgedMessages.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void ingestPipelineSettings_withoutQueueCapacity_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> new IngestPipelineSettings(0, 1, 1));
+    }
+
+    @Test
+    void ingestPipelineSettings_withoutWorkers_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> new IngestPipelineSettings(10, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new IngestPipelineSettings(10, 1, 0));
+    }
+
+    private MessageHandlingCallback createCallback(Consumer<String> handledMessages, IngestPipelineSettings ingestPipelineSettings) {
+        return createCallback((sensorAlternateId, message) -> handledMessages.accept(sensorAlternateId), ingestPipelineSettings);
+    }
+
+    private MessageHandlingCallback createCallback(BiConsumer<String, String> handledMessages, IngestPipelineSettings ingestPipelineSettings) {
+        var decodeMessageService = mock(DecodeMessageService.class);
+        var decodeMessageResponse = mock(DecodeMessageResponse.class);
+        when(decodeMessageResponse.getResponseEnvelope()).thenReturn(Response.ResponseEnvelope.newBuilder()
+                .setType(Response.ResponseEnvelope.ResponseBodyType.PUSH_NOTIFICATION)
+                .build());
+        when(decodeMessageService.decode(anyString())).thenReturn(decodeMessageResponse);
+        return new MessageHandlingCallback(event -> {
+            if (event instanceof PushMessageEvent pushMessageEvent) {
+                handledMessages.accept(pushMessageEvent.getFetchMessageResponse().getSensorAlternateId(), pushMessageEvent.getFetchMessageResponse().getCommand().getMessage());
+            }
+        },
+                decodeMessageService,
+                new MqttStatistics(),
+                new ListEndpointsMessages(1_000, 3600),
+                new HealthStatusMessages(1_000, 3600),
+                new MessageCorrelationRegistry(),
+                ingestPipelineSettings);
+    }
+
+    private static List<Mqtt3Publish> createPublishes(int numberOfMessages, CountDownLatch acknowledgedMessages) {
+        var publishes = new ArrayList<Mqtt3Publish>(numberOfMessages);
+        for (int i = 0; i < numberOfMessages; i++) {
+            publishes.add(createPublish("sensor-" + i, "message-" + i, acknowledgedMessages));
+        }
+        return publishes;
+    }
+
+    private static Mqtt3Publish createPublish(String sensorAlternateId, String message, CountDownLatch acknowledgedMessages) {
+        var payload = "{\"sensorAlternateId\":\"" + sensorAlternateId + "\",\"capabilityAlternateId\":\"capability\",\"command\":{\"message\":\"" + message + "\"}}";
+        var publish = mock(Mqtt3Publish.class);
+        when(publish.getPayloadAsBytes()).thenReturn(payload.getBytes(StandardCharsets.UTF_8));
+        doAnswer(invocation -> {
+            acknowledgedMessages.countDown();
+            return null;
+        }).when(publish).acknowledge();
+        return publish;
+    }
+
+}
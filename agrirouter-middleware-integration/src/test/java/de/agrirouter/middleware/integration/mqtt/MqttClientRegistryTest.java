@@ -0,0 +1,195 @@
+package de.agrirouter.middleware.integration.mqtt;
+
+import com.hivemq.client.mqtt.MqttClientState;
+import com.hivemq.client.mqtt.datatypes.MqttClientIdentifier;
+import com.hivemq.client.mqtt.mqtt3.Mqtt3AsyncClient;
+import com.hivemq.client.mqtt.mqtt3.Mqtt3ClientConfig;
+import de.agrirouter.middleware.api.errorhandling.BusinessException;
+import de.agrirouter.middleware.integration.mqtt.status.MqttConnectionStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MqttClientRegistryTest {
+
+    private static final int NUMBER_OF_THREADS = 8;
+    private static final int NUMBER_OF_OPERATIONS_PER_THREAD = 20_000;
+    private static final int NUMBER_OF_CLIENT_IDS = 100;
+
+    private MqttClientRegistry mqttClientRegistry;
+
+    @BeforeEach
+    void setUp() {
+        mqttClientRegistry = new MqttClientRegistry();
+        ReflectionTestUtils.setField(mqttClientRegistry, "maxClients", 10_000);
+    }
+
+    @Test
+    void givenPlaceholderWhenTheStateChangesThenTheCountersShouldFollow() {
+        mqttClientRegistry.computeIfAbsent("client-1", () -> emptyClient("client-1"));
+        assertThat(mqttClientRegistry.getNumberOfClients(MqttClientRegistry.State.EMPTY)).isEqualTo(1);
+
+        mqttClientRegistry.connected("client-1");
+        assertThat(mqttClientRegistry.getNumberOfClients(MqttClientRegistry.State.EMPTY)).isZero();
+        assertThat(mqttClientRegistry.getNumberOfActiveConnections()).isEqualTo(1);
+
+        mqttClientRegistry.put("client-1", client("client-1", MqttClientState.CONNECTED));
+        assertThat(mqttClientRegistry.getNumberOfActiveConnections()).isEqualTo(1);
+        assertThat(mqttClientRegistry.getNumberOfInactiveConnections()).isZero();
+
+        mqttClientRegistry.disconnected("client-1");
+        assertThat(mqttClientRegistry.getNumberOfActiveConnections()).isZero();
+        assertThat(mqttClientRegistry.getNumberOfClients(MqttClientRegistry.State.DISCONNECTED)).isEqualTo(1);
+        assertThat(mqttClientRegistry.getMqttConnectionStatus())
+                .extracting(MqttConnectionStatus::getConnectionStatus)
+                .containsExactly("DISCONNECTED");
+
+        mqttClientRegistry.connected("client-1");
+        assertThat(mqttClientRegistry.getNumberOfActiveConnections()).isEqualTo(1);
+        assertThat(mqttClientRegistry.size()).isEqualTo(1);
+    }
+
+    @Test
+    void givenPlaceholderWhenTheClientDisconnectsBeforeItIsRegisteredThenThePlaceholderShouldBeCountedAsDisconnected() {
+        mqttClientRegistry.computeIfAbsent("client-1", () -> emptyClient("client-1"));
+
+        mqttClientRegistry.disconnected("client-1");
+
+        assertThat(mqttClientRegistry.getNumberOfClients(MqttClientRegistry.State.EMPTY)).isZero();
+        assertThat(mqttClientRegistry.getNumberOfClients(MqttClientRegistry.State.DISCONNECTED)).isEqualTo(1);
+        assertThat(mqttClientRegistry.getNumberOfInactiveConnections()).isEqualTo(1);
+        assertThat(mqttClientRegistry.getMqttConnectionStatus())
+                .extracting(MqttConnectionStatus::getConnectionStatus)
+                .containsExactly("DISCONNECTED");
+        assertThat(mqttClientRegistry.get("client-1").mqttClient()).isEmpty();
+    }
+
+    @Test
+    void givenStateChangeForUnknownClientWhenUpdatingThenNothingShouldBeCounted() {
+        mqttClientRegistry.connected("unknown-client");
+
+        assertThat(mqttClientRegistry.size()).isZero();
+        assertThat(mqttClientRegistry.getNumberOfActiveConnections()).isZero();
+    }
+
+    @Test
+    void givenExistingClientWhenComputingIfAbsentThenTheExistingClientShouldBeReturned() {
+        var existing = client("client-1", MqttClientState.CONNECTED);
+        mqttClientRegistry.put("client-1", existing);
+
+        var cachedMqttClient = mqttClientRegistry.computeIfAbsent("client-1", () -> emptyClient("client-1"));
+
+        assertThat(cachedMqttClient).isSameAs(existing);
+        assertThat(mqttClientRegistry.size()).isEqualTo(1);
+    }
+
+    @Test
+    void givenChurnFromManyThreadsWhenTheWorkIsDoneThenTheCountersShouldMatchTheRegisteredClients() throws Exception {
+        var connectedClient = client("connected", MqttClientState.CONNECTED);
+        var disconnectedClient = client("disconnected", MqttClientState.DISCONNECTED);
+        var running = new AtomicBoolean(true);
+        var negativeCounterObserved = new AtomicBoolean(false);
+        var start = new CountDownLatch(1);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(NUMBER_OF_THREADS + 1);
+        try {
+            var reader = executorService.submit(() -> {
+                while (running.get()) {
+                    for (MqttClientRegistry.State state : MqttClientRegistry.State.values()) {
+                        if (mqttClientRegistry.getNumberOfClients(state) < 0) {
+                            negativeCounterObserved.set(true);
+                        }
+                    }
+                }
+            });
+            var writers = new ArrayList<Future<?>>();
+            for (int i = 0; i < NUMBER_OF_THREADS; i++) {
+                writers.add(executorService.submit(() -> {
+                    start.await();
+                    var random = ThreadLocalRandom.current();
+                    for (int operation = 0; operation < NUMBER_OF_OPERATIONS_PER_THREAD; operation++) {
+                        var clientId = "client-" + random.nextInt(NUMBER_OF_CLIENT_IDS);
+                        switch (random.nextInt(5)) {
+                            case 0 -> mqttClientRegistry.computeIfAbsent(clientId, () -> emptyClient(clientId));
+                            case 1 -> mqttClientRegistry.put(clientId, connectedClient);
+                            case 2 -> mqttClientRegistry.put(clientId, disconnectedClient);
+                            case 3 -> mqttClientRegistry.connected(clientId);
+                            default -> mqttClientRegistry.disconnected(clientId);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (var writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+            running.set(false);
+            reader.get(5, TimeUnit.SECONDS);
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        var mqttConnectionStatus = mqttClientRegistry.getMqttConnectionStatus();
+        assertThat(negativeCounterObserved).isFalse();
+        assertThat(mqttClientRegistry.size()).isEqualTo(mqttConnectionStatus.size());
+        for (MqttClientRegistry.State state : MqttClientRegistry.State.values()) {
+            assertThat(mqttClientRegistry.getNumberOfClients(state))
+                    .as("Number of clients in state %s", state)
+                    .isEqualTo(mqttConnectionStatus.stream().filter(status -> state.name().equals(status.getConnectionStatus())).count());
+        }
+        assertThat(mqttClientRegistry.getNumberOfActiveConnections() + mqttClientRegistry.getNumberOfInactiveConnections()).isEqualTo(mqttClientRegistry.size());
+    }
+
+    @Test
+    void givenLimitWhenManyThreadsRegisterClientsThenTheLimitShouldNotBeExceeded() throws Exception {
+        ReflectionTestUtils.setField(mqttClientRegistry, "maxClients", 10);
+        var rejected = new AtomicInteger();
+
+        try (var executorService = Executors.newFixedThreadPool(NUMBER_OF_THREADS)) {
+            for (int i = 0; i < 100; i++) {
+                var clientId = "client-" + i;
+                executorService.execute(() -> {
+                    try {
+                        mqttClientRegistry.computeIfAbsent(clientId, () -> emptyClient(clientId));
+                    } catch (BusinessException e) {
+                        rejected.incrementAndGet();
+                    }
+                });
+            }
+        }
+
+        assertThat(mqttClientRegistry.size()).isEqualTo(10);
+        assertThat(mqttClientRegistry.getNumberOfInactiveConnections()).isEqualTo(10);
+        assertThat(rejected.get()).isEqualTo(90);
+    }
+
+    private static CachedMqttClient emptyClient(String clientId) {
+        return new CachedMqttClient(clientId, clientId, Optional.empty(), new ArrayList<>());
+    }
+
+    private static CachedMqttClient client(String clientId, MqttClientState mqttClientState) {
+        var mqttClient = mock(Mqtt3AsyncClient.class);
+        var mqttClientConfig = mock(Mqtt3ClientConfig.class);
+        when(mqttClient.getState()).thenReturn(mqttClientState);
+        when(mqttClient.getConfig()).thenReturn(mqttClientConfig);
+        when(mqttClientConfig.getClientIdentifier()).thenReturn(Optional.of(MqttClientIdentifier.of(clientId)));
+        return new CachedMqttClient(clientId, clientId, Optional.of(mqttClient), new ArrayList<>());
+    }
+
+}
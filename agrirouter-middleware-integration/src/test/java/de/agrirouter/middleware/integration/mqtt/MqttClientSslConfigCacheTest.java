@@ -0,0 +1,94 @@
+package de.agrirouter.middleware.integration.mqtt;
+
+import com.dke.data.agrirouter.api.enums.CertificationType;
+import com.hivemq.client.mqtt.MqttClientSslConfig;
+import de.agrirouter.middleware.domain.Authentication;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MqttClientSslConfigCacheTest {
+
+    private final MqttClientSslConfigCache mqttClientSslConfigCache = new MqttClientSslConfigCache(100, 0);
+    private final AtomicInteger numberOfCreatedSslConfigs = new AtomicInteger();
+
+    @Test
+    void givenSameCertificateWhenCreatingClientsThenTheSslConfigShouldOnlyBeCreatedOnce() throws Exception {
+        var first = mqttClientSslConfigCache.get("client-1", authentication("certificate-1"), this::createSslConfig);
+        var second = mqttClientSslConfigCache.get("client-1", authentication("certificate-1"), this::createSslConfig);
+
+        assertThat(second).isSameAs(first);
+        assertThat(numberOfCreatedSslConfigs.get()).isEqualTo(1);
+    }
+
+    @Test
+    void givenRotatedCertificateWhenCreatingTheClientThenAFreshSslConfigShouldBeCreated() throws Exception {
+        var beforeRotation = mqttClientSslConfigCache.get("client-1", authentication("certificate-1"), this::createSslConfig);
+        var afterRotation = mqttClientSslConfigCache.get("client-1", authentication("certificate-2"), this::createSslConfig);
+
+        assertThat(afterRotation).isNotSameAs(beforeRotation);
+        assertThat(numberOfCreatedSslConfigs.get()).isEqualTo(2);
+        assertThat(mqttClientSslConfigCache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void givenChangedSecretWhenCreatingTheClientThenAFreshSslConfigShouldBeCreated() throws Exception {
+        var authentication = authentication("certificate-1");
+        var beforeChange = mqttClientSslConfigCache.get("client-1", authentication, this::createSslConfig);
+        authentication.setSecret("another-secret");
+        var afterChange = mqttClientSslConfigCache.get("client-1", authentication, this::createSslConfig);
+
+        assertThat(afterChange).isNotSameAs(beforeChange);
+    }
+
+    @Test
+    void givenRotationOfOneClientWhenAnotherClientUsesTheSameCertificateThenTheSharedSslConfigShouldBeKept() throws Exception {
+        var shared = mqttClientSslConfigCache.get("client-1", authentication("certificate-1"), this::createSslConfig);
+        mqttClientSslConfigCache.get("client-2", authentication("certificate-1"), this::createSslConfig);
+
+        mqttClientSslConfigCache.get("client-1", authentication("certificate-2"), this::createSslConfig);
+
+        assertThat(mqttClientSslConfigCache.get("client-2", authentication("certificate-1"), this::createSslConfig)).isSameAs(shared);
+        assertThat(numberOfCreatedSslConfigs.get()).isEqualTo(2);
+    }
+
+    @Test
+    void givenMoreClientsThanTheMaximumWhenCreatingTheClientsThenTheCacheShouldStayBounded() throws Exception {
+        var boundedMqttClientSslConfigCache = new MqttClientSslConfigCache(10, 0);
+
+        for (int i = 0; i < 1_000; i++) {
+            boundedMqttClientSslConfigCache.get("client-" + i, authentication("certificate-" + i), this::createSslConfig);
+        }
+
+        assertThat(boundedMqttClientSslConfigCache.size()).isLessThanOrEqualTo(10);
+    }
+
+    @Test
+    void givenInvalidCertificateWhenCreatingTheSslConfigThenNothingShouldBeCached() {
+        Callable<MqttClientSslConfig> failingSslConfig = () -> {
+            throw new IllegalArgumentException("No X.509 certificate found.");
+        };
+
+        assertThatThrownBy(() -> mqttClientSslConfigCache.get("client-1", authentication("invalid"), failingSslConfig))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(mqttClientSslConfigCache.size()).isZero();
+    }
+
+    private MqttClientSslConfig createSslConfig() {
+        numberOfCreatedSslConfigs.incrementAndGet();
+        return MqttClientSslConfig.builder().build();
+    }
+
+    private static Authentication authentication(String certificate) {
+        var authentication = new Authentication();
+        authentication.setType(CertificationType.PEM);
+        authentication.setSecret("secret");
+        authentication.setCertificate(certificate);
+        return authentication;
+    }
+
+}
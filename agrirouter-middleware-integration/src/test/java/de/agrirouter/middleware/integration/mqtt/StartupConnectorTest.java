@@ -0,0 +1,149 @@
+package de.agrirouter.middleware.integration.mqtt;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StartupConnectorTest {
+
+    private static final int NUMBER_OF_DEVICES = 500;
+
+    private final MqttStatistics mqttStatistics = new MqttStatistics();
+
+    @Test
+    void givenManyDevicesWhenConnectingThenTheConcurrencyLimitShouldNotBeExceeded() throws InterruptedException {
+        var startupConnector = new StartupConnector<Integer>(8, 10_000, 1.0, mqttStatistics);
+        var parallelConnects = new AtomicInteger();
+        var maxParallelConnects = new AtomicInteger();
+
+        var establishedConnections = startupConnector.connectAll(devices(NUMBER_OF_DEVICES), device -> {
+            var current = parallelConnects.incrementAndGet();
+            maxParallelConnects.accumulateAndGet(current, Math::max);
+            sleep(2);
+            parallelConnects.decrementAndGet();
+            return true;
+        }, () -> {
+        });
+
+        assertThat(establishedConnections).isEqualTo(NUMBER_OF_DEVICES);
+        assertThat(maxParallelConnects.get()).isLessThanOrEqualTo(8);
+    }
+
+    @Test
+    void givenRateLimitWhenConnectingThenTheNumberOfConnectsPerSecondShouldBeLimited() throws InterruptedException {
+        var startupConnector = new StartupConnector<Integer>(NUMBER_OF_DEVICES, 50, 1.0, mqttStatistics);
+
+        var start = System.nanoTime();
+        startupConnector.connectAll(devices(150), device -> true, () -> {
+        });
+        var durationInMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // The first 50 connects are covered by the initial capacity, the remaining 100 need two more seconds.
+        assertThat(durationInMillis).isGreaterThanOrEqualTo(1_900);
+    }
+
+    @Test
+    void givenReadinessThresholdWhenEnoughDevicesAreConnectedThenReadinessShouldBeReportedOnceBeforeAllAttemptsHaveFinished() throws InterruptedException {
+        var startupConnector = new StartupConnector<Integer>(16, 10_000, 0.8, mqttStatistics);
+        var readyCalls = new AtomicInteger();
+        var connectionsWhenReady = new AtomicInteger(-1);
+        var connected = new AtomicInteger();
+        var slowDevicesMayFinish = new CountDownLatch(1);
+
+        startupConnector.connectAll(devices(NUMBER_OF_DEVICES), device -> {
+            if (device >= NUMBER_OF_DEVICES - 10) {
+                await(slowDevicesMayFinish);
+            }
+            connected.incrementAndGet();
+            return true;
+        }, () -> {
+            readyCalls.incrementAndGet();
+            connectionsWhenReady.set(connected.get());
+            slowDevicesMayFinish.countDown();
+        });
+
+        assertThat(readyCalls.get()).isEqualTo(1);
+        assertThat(connectionsWhenReady.get()).isGreaterThanOrEqualTo(400).isLessThan(NUMBER_OF_DEVICES);
+    }
+
+    @Test
+    void givenDeadAndFailingDevicesWhenConnectingThenTheOtherDevicesShouldStillBeConnected() throws InterruptedException {
+        var startupConnector = new StartupConnector<Integer>(4, 10_000, 0.5, mqttStatistics);
+        var readyCalls = new AtomicInteger();
+        var deadDeviceMayFinish = new CountDownLatch(1);
+
+        var establishedConnections = startupConnector.connectAll(devices(NUMBER_OF_DEVICES), device -> {
+            if (device == 0) {
+                await(deadDeviceMayFinish);
+                return false;
+            }
+            if (device % 2 == 0) {
+                throw new IllegalStateException("Could not connect device " + device);
+            }
+            return true;
+        }, () -> {
+            readyCalls.incrementAndGet();
+            deadDeviceMayFinish.countDown();
+        });
+
+        assertThat(establishedConnections).isEqualTo(NUMBER_OF_DEVICES / 2);
+        assertThat(readyCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void givenTooManyFailingDevicesWhenAllAttemptsHaveFinishedThenReadinessShouldBeReportedAnyway() throws InterruptedException {
+        var startupConnector = new StartupConnector<Integer>(16, 10_000, 0.8, mqttStatistics);
+        var readyCalls = new AtomicInteger();
+
+        var establishedConnections = startupConnector.connectAll(devices(NUMBER_OF_DEVICES), device -> device % 2 == 0, readyCalls::incrementAndGet);
+
+        assertThat(establishedConnections).isEqualTo(NUMBER_OF_DEVICES / 2);
+        assertThat(readyCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void givenNoDevicesWhenConnectingThenReadinessShouldBeReportedImmediately() throws InterruptedException {
+        var startupConnector = new StartupConnector<Integer>(16, 25, 0.8, mqttStatistics);
+        var readyCalls = new AtomicInteger();
+
+        var establishedConnections = startupConnector.connectAll(List.of(), device -> true, readyCalls::incrementAndGet);
+
+        assertThat(establishedConnections).isZero();
+        assertThat(readyCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void givenInvalidSettingsWhenCreatingTheConnectorThenAnExceptionShouldBeThrown() {
+        assertThatThrownBy(() -> new StartupConnector<Integer>(0, 25, 0.8, mqttStatistics)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new StartupConnector<Integer>(16, 0, 0.8, mqttStatistics)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new StartupConnector<Integer>(16, 25, 1.5, mqttStatistics)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<Integer> devices(int numberOfDevices) {
+        return IntStream.range(0, numberOfDevices).boxed().toList();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -3,6 +3,11 @@ package de.agrirouter.middleware.integration.mqtt;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 class SubscriptionsForMqttClientTest {
@@ -11,7 +16,7 @@ class SubscriptionsForMqttClientTest {
 
     @BeforeEach
     void setUp() {
-        subscriptions = new SubscriptionsForMqttClient();
+        subscriptions = new SubscriptionsForMqttClient(1_000, 0);
     }
 
     @Test
@@ -94,4 +99,25 @@ class SubscriptionsForMqttClientTest {
     void getSubscriptions_initiallyEmpty() {
         assertThat(subscriptions.getSubscriptions()).isEmpty();
     }
+
+    @Test
+    void add_fromManyThreadsForTheSameClients_keepsEveryTopic() throws Exception {
+        var numberOfClients = 10;
+        var numberOfTopics = 20_000;
+        var tasks = new ArrayList<Future<?>>();
+        try (var executorService = Executors.newFixedThreadPool(8)) {
+            IntStream.range(0, numberOfTopics).forEach(i -> tasks.add(executorService.submit(() -> {
+                var clientId = "client-" + (i % numberOfClients);
+                subscriptions.add(clientId, "topic/" + i);
+                assertThat(subscriptions.exists(clientId, "topic/" + i)).isTrue();
+            })));
+        }
+        for (var task : tasks) {
+            task.get();
+        }
+
+        assertThat(subscriptions.getSubscriptions()).hasSize(numberOfClients);
+        IntStream.range(0, numberOfClients).forEach(i -> assertThat(subscriptions.getSubscriptions().get("client-" + i)).hasSize(numberOfTopics / numberOfClients));
+        IntStream.range(0, numberOfTopics).forEach(i -> assertThat(subscriptions.exists("client-" + (i % numberOfClients), "topic/" + i)).isTrue());
+    }
 }
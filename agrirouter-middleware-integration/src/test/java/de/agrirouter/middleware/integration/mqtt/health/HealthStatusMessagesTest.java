@@ -3,6 +3,16 @@ package de.agrirouter.middleware.integration.mqtt.health;
 import agrirouter.response.Response;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -12,7 +22,7 @@ class HealthStatusMessagesTest {
 
     @BeforeEach
     void setUp() {
-        healthStatusMessages = new HealthStatusMessages();
+        healthStatusMessages = new HealthStatusMessages(1_000, 3600);
     }
 
     private HealthStatusMessage buildMessage(String endpointId, String messageId) {
@@ -120,4 +130,126 @@ class HealthStatusMessagesTest {
         assertThat(message.isHasBeenReturned()).isTrue();
         assertThat(message.getHealthStatus()).isEqualTo(Response.ResponseEnvelope.ResponseBodyType.ACK);
     }
+
+    @Test
+    void getByMessageId_afterTheMessageHasBeenReplaced_returnsEmpty() {
+        healthStatusMessages.put(buildMessage("ar-ep-replaced", "msg-id-old"));
+        healthStatusMessages.put(buildMessage("ar-ep-replaced", "msg-id-new"));
+
+        assertThat(healthStatusMessages.getByMessageId("msg-id-old")).isEmpty();
+        assertThat(healthStatusMessages.getByMessageId("msg-id-new")).isPresent();
+        assertThat(index()).containsOnlyKeys("msg-id-new");
+    }
+
+    @Test
+    void getByMessageId_afterTheMessageHasBeenRemoved_returnsEmpty() {
+        healthStatusMessages.put(buildMessage("ar-ep-removed", "msg-id-removed"));
+
+        healthStatusMessages.remove("ar-ep-removed");
+
+        assertThat(healthStatusMessages.getByMessageId("msg-id-removed")).isEmpty();
+        assertThat(index()).isEmpty();
+    }
+
+    @Test
+    void getByMessageId_afterTheSameMessageHasBeenPutAgain_returnsTheUpdatedMessage() {
+        var message = buildMessage("ar-ep-updated", "msg-id-updated");
+        healthStatusMessages.put(message);
+
+        message.setHasBeenReturned(true);
+        healthStatusMessages.put(message);
+
+        assertThat(healthStatusMessages.getByMessageId("msg-id-updated")).hasValueSatisfying(result -> assertThat(result.isHasBeenReturned()).isTrue());
+    }
+
+    @Test
+    void getByMessageId_afterTheMessageHasExpired_returnsEmpty() {
+        var nanos = new AtomicLong();
+        var expiringHealthStatusMessages = new HealthStatusMessages(1_000, 1, nanos::get);
+        expiringHealthStatusMessages.put(buildMessage("ar-ep-expired", "msg-id-expired"));
+
+        nanos.addAndGet(Duration.ofSeconds(2).toNanos());
+
+        assertThat(expiringHealthStatusMessages.getByMessageId("msg-id-expired")).isEmpty();
+        assertThat(expiringHealthStatusMessages.size()).isZero();
+        assertThat(index(expiringHealthStatusMessages)).isEmpty();
+    }
+
+    @Test
+    void getByMessageId_withOneHundredThousandEntries_findsEachMessageByTheIndex() {
+        var numberOfEntries = 100_000;
+        var manyHealthStatusMessages = new HealthStatusMessages(2L * numberOfEntries, 3600);
+        IntStream.range(0, numberOfEntries).forEach(i -> manyHealthStatusMessages.put(buildMessage("ar-ep-" + i, "msg-id-" + i)));
+
+        IntStream.range(0, numberOfEntries).forEach(i -> assertThat(manyHealthStatusMessages.getByMessageId("msg-id-" + i))
+                .hasValueSatisfying(message -> assertThat(message.getAgrirouterEndpointId()).isEqualTo("ar-ep-" + i)));
+        assertThat(index(manyHealthStatusMessages)).hasSize(numberOfEntries);
+    }
+
+    @Test
+    void putLookupAndRemove_fromManyThreads_keepTheIndexConsistent() throws Exception {
+        var numberOfEndpoints = 100;
+        var tasks = new ArrayList<Future<?>>();
+        try (var executorService = Executors.newFixedThreadPool(8)) {
+            IntStream.range(0, 20_000).forEach(i -> tasks.add(executorService.submit(() -> {
+                var agrirouterEndpointId = "ar-ep-" + (i % numberOfEndpoints);
+                switch (i % 4) {
+                    case 0, 1 -> healthStatusMessages.put(buildMessage(agrirouterEndpointId, "msg-id-" + i));
+                    case 2 -> healthStatusMessages.getByMessageId("msg-id-" + (i - 2)).ifPresent(message ->
+                            assertThat(message.getMessageId()).isEqualTo("msg-id-" + (i - 2)));
+                    default -> healthStatusMessages.remove(agrirouterEndpointId);
+                }
+            })));
+        }
+        for (var task : tasks) {
+            task.get();
+        }
+
+        // The index is checked before any further lookup, so outdated entries are not hidden.
+        var currentMessageIds = IntStream.range(0, numberOfEndpoints)
+                .mapToObj(i -> healthStatusMessages.get("ar-ep-" + i))
+                .flatMap(Optional::stream)
+                .map(HealthStatusMessage::getMessageId)
+                .toList();
+        assertThat(index()).containsOnlyKeys(currentMessageIds);
+        currentMessageIds.forEach(messageId -> assertThat(healthStatusMessages.getByMessageId(messageId))
+                .hasValueSatisfying(message -> assertThat(message.getMessageId()).isEqualTo(messageId)));
+    }
+
+    @Test
+    void updateReturnedStatus_fromManyThreadsWhileReading_keepsEveryUpdate() throws Exception {
+        var numberOfEndpoints = 1_000;
+        IntStream.range(0, numberOfEndpoints).forEach(i -> healthStatusMessages.put(buildMessage("ar-ep-" + i, "msg-id-" + i)));
+        var tasks = new ArrayList<Future<?>>();
+        try (var executorService = Executors.newFixedThreadPool(8)) {
+            IntStream.range(0, numberOfEndpoints).forEach(i -> {
+                // Same as the message handling: look up the message by its ID, update it and put it again.
+                tasks.add(executorService.submit(() -> healthStatusMessages.getByMessageId("msg-id-" + i).ifPresent(message -> {
+                    message.setHealthStatus(Response.ResponseEnvelope.ResponseBodyType.ACK);
+                    message.setHasBeenReturned(true);
+                    healthStatusMessages.put(message);
+                })));
+                tasks.add(executorService.submit(() -> assertThat(healthStatusMessages.get("ar-ep-" + i)).isPresent()));
+            });
+        }
+        for (var task : tasks) {
+            task.get();
+        }
+
+        IntStream.range(0, numberOfEndpoints).forEach(i -> assertThat(healthStatusMessages.getByMessageId("msg-id-" + i))
+                .hasValueSatisfying(message -> {
+                    assertThat(message.isHasBeenReturned()).isTrue();
+                    assertThat(message.getHealthStatus()).isEqualTo(Response.ResponseEnvelope.ResponseBodyType.ACK);
+                }));
+        assertThat(index()).hasSize(numberOfEndpoints);
+    }
+
+    private Map<String, String> index() {
+        return index(healthStatusMessages);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, String> index(HealthStatusMessages healthStatusMessages) {
+        return (Map<String, String>) ReflectionTestUtils.getField(healthStatusMessages, "agrirouterEndpointIdsByMessageId");
+    }
 }
@@ -14,7 +14,7 @@ class LastKnownHealthyMessagesTest {
 
     @BeforeEach
     void setUp() {
-        lastKnownHealthyMessages = new LastKnownHealthyMessages();
+        lastKnownHealthyMessages = new LastKnownHealthyMessages(1_000, 3600);
     }
 
     @Test
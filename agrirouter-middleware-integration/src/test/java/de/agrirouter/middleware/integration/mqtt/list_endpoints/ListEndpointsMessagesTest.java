@@ -13,7 +13,7 @@ class ListEndpointsMessagesTest {
 
     @BeforeEach
     void setUp() {
-        listEndpointsMessages = new ListEndpointsMessages();
+        listEndpointsMessages = new ListEndpointsMessages(1_000, 3600);
     }
 
     private ListEndpointsMessage buildMessage(String endpointId) {
@@ -6,22 +6,26 @@ import de.agrirouter.middleware.isoxml.domain.Constants;
 import de.agrirouter.middleware.isoxml.domain.TimeStart;
 import de.agrirouter.middleware.isoxml.reader.ByteValueReader;
 import jakarta.xml.bind.JAXBContext;
-import jakarta.xml.bind.Unmarshaller;
+import jakarta.xml.bind.JAXBException;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Base64InputStream;
 import org.bson.Document;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.zip.ZipInputStream;
 
 /**
  * Service to handle time log values from the task data files.
+ * <p>
+ * The ZIP file is processed entry by entry while it is being decoded. Only the time log descriptors and those binary
+ * time logs that arrive before their descriptor are kept in memory, every other entry is parsed and released directly.
  */
 @Slf4j
 @Service
@@ -31,96 +35,140 @@ public class TaskDataTimeLogService {
     public static final String TIME_LOG_PREFIX = "tlg";
     public static final String BINARY_FILE_EXTENSION = "bin";
 
+    private static final JAXBContext JAXB_CONTEXT = createJaxbContext();
+
+    private static final String[] DATA_LOG_VALUE_KEYS = createDataLogValueKeys();
+
     /**
      * Parse the message content (represented as base64 encoded zip).
+     * <p>
+     * As before, there is one document for each time log within the ZIP, holding the values of its last record.
      *
      * @param base64EncodedZipFile The base 64 encoded zip file.
      */
     public List<Document> parseMessageContent(byte[] base64EncodedZipFile) {
         final var documents = new ArrayList<Document>();
-        final var decodedMessageContent = Base64.decodeBase64(base64EncodedZipFile);
-        log.debug("Message content successfully decoded.");
-        log.trace("Decoded message content >>> {}", decodedMessageContent);
-        try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(decodedMessageContent))) {
-            final var files = readFilesFromZipFile(zipInputStream);
-            files.forEach((s, bytes) -> {
-                log.debug("Processing file from ZIP.");
-                final var fileNameAndExtension = s.split("\\.");
-                if (BINARY_FILE_EXTENSION.equals(fileNameAndExtension[1].toLowerCase(Locale.ROOT))) {
-                    log.debug("Handling binary file from the ZIP.");
-                    if (fileNameAndExtension[0].toLowerCase(Locale.ROOT).contains(TIME_LOG_PREFIX)) {
-                        final var xmlDescriptor = findMatchingXmlDescriptorFileForTimeLog(fileNameAndExtension[0], files);
-                        final var document = handleTimeLogValue(xmlDescriptor, bytes);
-                        documents.add(document);
+        parseZipFile(new Base64InputStream(new ByteArrayInputStream(base64EncodedZipFile)), timeLogRecord -> {
+        }, documents::add);
+        return documents;
+    }
+
+    /**
+     * Parse the zip file, which has already been decoded.
+     * <p>
+     * There is one document for each time log within the ZIP, holding the values of its last record.
+     *
+     * @param zipFile The zip file.
+     * @return The documents.
+     */
+    public List<Document> parseZipFile(byte[] zipFile) {
+        final var documents = new ArrayList<Document>();
+        parseZipFile(new ByteArrayInputStream(zipFile), timeLogRecord -> {
+        }, documents::add);
+        return documents;
+    }
+
+    /**
+     * Parse the message content (represented as base64 encoded zip) and emit every single time log record.
+     *
+     * @param base64EncodedZipFile  The base 64 encoded zip file.
+     * @param timeLogRecordConsumer The consumer for the time log records.
+     */
+    public void parseMessageContent(byte[] base64EncodedZipFile, Consumer<Document> timeLogRecordConsumer) {
+        parseMessageContent(new ByteArrayInputStream(base64EncodedZipFile), timeLogRecordConsumer);
+    }
+
+    /**
+     * Parse the message content (represented as base64 encoded zip stream) and emit every single time log record.
+     *
+     * @param base64EncodedZipFile  The base 64 encoded zip file.
+     * @param timeLogRecordConsumer The consumer for the time log records.
+     */
+    public void parseMessageContent(InputStream base64EncodedZipFile, Consumer<Document> timeLogRecordConsumer) {
+        parseZipFile(new Base64InputStream(base64EncodedZipFile), timeLogRecordConsumer, lastTimeLogRecord -> {
+        });
+    }
+
+    private void parseZipFile(InputStream zipFile, Consumer<Document> timeLogRecordConsumer, Consumer<Document> lastTimeLogRecordConsumer) {
+        final var xmlDescriptors = new HashMap<String, TimeLogDescriptor>();
+        final var timeLogsWaitingForDescriptor = new HashMap<String, byte[]>();
+        try (ZipInputStream zipInputStream = new ZipInputStream(zipFile)) {
+            var zipEntry = zipInputStream.getNextEntry();
+            while (null != zipEntry) {
+                if (zipEntry.isDirectory()) {
+                    log.debug("Skipping the directory '{}'.", zipEntry.getName());
+                } else {
+                    log.debug("Processing next ZIP entry >>> {}", zipEntry.getName());
+                    final var fileNameAndExtension = zipEntry.getName().split("\\.");
+                    if (fileNameAndExtension.length < 2) {
+                        log.debug("Will not handle the following file '{}'. The file will be handled separately.", zipEntry.getName());
                     } else {
-                        log.debug("Will not handle the following file '{}'. The file will be handled separately.", s);
+                        final var fileName = fileNameAndExtension[0].toLowerCase(Locale.ROOT);
+                        final var extension = fileNameAndExtension[1].toLowerCase(Locale.ROOT);
+                        if (BINARY_FILE_EXTENSION.equals(extension) && fileName.contains(TIME_LOG_PREFIX)) {
+                            log.debug("Handling binary file from the ZIP.");
+                            final var timeLogBytes = zipInputStream.readAllBytes();
+                            final var xmlDescriptor = xmlDescriptors.get(fileName);
+                            if (null != xmlDescriptor) {
+                                lastTimeLogRecordConsumer.accept(handleTimeLogValue(xmlDescriptor, timeLogBytes, timeLogRecordConsumer));
+                            } else {
+                                log.debug("The descriptor for the time log '{}' has not been read yet, keeping the time log until it arrives.", fileName);
+                                timeLogsWaitingForDescriptor.put(fileName, timeLogBytes);
+                            }
+                        } else if (XML_FILE_EXTENSION.equals(extension) && fileName.contains(TIME_LOG_PREFIX)) {
+                            log.debug("Handling time log descriptor from the ZIP.");
+                            final var xmlDescriptor = readXmlDescriptor(zipInputStream.readAllBytes());
+                            final var timeLogBytes = timeLogsWaitingForDescriptor.remove(fileName);
+                            if (null != timeLogBytes) {
+                                lastTimeLogRecordConsumer.accept(handleTimeLogValue(xmlDescriptor, timeLogBytes, timeLogRecordConsumer));
+                            } else {
+                                xmlDescriptors.put(fileName, xmlDescriptor);
+                            }
+                        } else {
+                            log.debug("Will not handle the following file '{}'. The file will be handled separately.", zipEntry.getName());
+                        }
                     }
-                } else {
-                    log.debug("Will not handle the following file '{}'. The file will be handled separately.", s);
                 }
-            });
+                zipEntry = zipInputStream.getNextEntry();
+            }
         } catch (IOException e) {
             log.error("Could not open zipped file. Looks like the file is broken?", e);
             throw new BusinessException(ErrorMessageFactory.couldNotParseTaskData(), e);
         }
-        return documents;
-    }
-
-    private byte[] findMatchingXmlDescriptorFileForTimeLog(String fileNameOfTheTimeLog, Map<String, byte[]> files) {
-        for (Map.Entry<String, byte[]> entry : files.entrySet()) {
-            String s = entry.getKey();
-            byte[] bytes = entry.getValue();
-            log.debug("Processing file from ZIP to find the matching XML descriptor.");
-            final var fileNameAndExtension = s.split("\\.");
-            if (fileNameAndExtension[0].equalsIgnoreCase(fileNameOfTheTimeLog) && fileNameAndExtension[1].equalsIgnoreCase(XML_FILE_EXTENSION)) {
-                return bytes;
-            } else {
-                log.debug("Skipping file '{}', since this is not the descriptor for '{}'.", s, fileNameOfTheTimeLog);
-            }
+        if (!timeLogsWaitingForDescriptor.isEmpty()) {
+            log.error("Could not find the descriptor for the following time logs >>> {}", timeLogsWaitingForDescriptor.keySet());
+            throw new BusinessException(ErrorMessageFactory.couldNotFindDescriptorForTheTimeLog());
         }
-        throw new BusinessException(ErrorMessageFactory.couldNotFindDescriptorForTheTimeLog());
     }
 
-    private Map<String, byte[]> readFilesFromZipFile(ZipInputStream zipInputStream) throws IOException {
-        Map<String, byte[]> files = new HashMap<>();
-        var zipEntry = zipInputStream.getNextEntry();
-        while (null != zipEntry) {
-            if (zipEntry.isDirectory()) {
-                log.debug("Skipping the directory '{}'.", zipEntry.getName());
-            } else {
-                byte[] buffer = new byte[2048];
-                log.debug("Processing next ZIP entry >>> {}", zipEntry.getName());
-                try (final var byteArrayOutputStream = new ByteArrayOutputStream()) {
-                    int len;
-                    while ((len = zipInputStream.read(buffer)) > 0) {
-                        byteArrayOutputStream.write(buffer, 0, len);
-                    }
-                    log.debug("Saving the file content to the temporary map.");
-                    files.put(zipEntry.getName(), byteArrayOutputStream.toByteArray());
-                }
-            }
-            zipEntry = zipInputStream.getNextEntry();
+    private TimeLogDescriptor readXmlDescriptor(byte[] xmlDescriptorBytes) {
+        try {
+            final var xmlDescriptor = (TIM) JAXB_CONTEXT.createUnmarshaller().unmarshal(new ByteArrayInputStream(xmlDescriptorBytes));
+            final var ptn = xmlDescriptor.getPTNOrDLV().stream()
+                    .filter(o -> o instanceof PTN)
+                    .map(o -> (PTN) o)
+                    .findAny()
+                    .orElse(null);
+            return new TimeLogDescriptor(xmlDescriptor, ptn);
+        } catch (Exception e) {
+            log.error("There was an exception while parsing the task data.", e);
+            throw new BusinessException(ErrorMessageFactory.couldNotParseTaskData(), e);
         }
-        return files;
     }
 
-    private Document handleTimeLogValue(byte[] xmlDescriptorBytes, byte[] timeLogBytes) {
+    private Document handleTimeLogValue(TimeLogDescriptor xmlDescriptor, byte[] timeLogBytes, Consumer<Document> timeLogRecordConsumer) {
         try {
-            JAXBContext jaxbContext = JAXBContext.newInstance(TIM.class);
-            Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
-            final var xmlDescriptor = (TIM) jaxbUnmarshaller.unmarshal(new ByteArrayInputStream(xmlDescriptorBytes));
-            final var timeLog = new Document();
+            var timeLog = new Document();
             ByteBuffer timeLogByteBuffer = ByteBuffer.wrap(timeLogBytes).order(ByteOrder.LITTLE_ENDIAN);
             while (timeLogByteBuffer.hasRemaining()) {
-                readTimeInformation(xmlDescriptor, timeLog, timeLogByteBuffer);
-                final var optionalPtn = xmlDescriptor.getPTNOrDLV().stream().filter(o -> o instanceof PTN).findAny();
-                if (optionalPtn.isPresent()) {
-                    log.debug("Found PTN element.");
-                    final var ptn = (PTN) optionalPtn.get();
-                    readPositionInformation(ptn, timeLog, timeLogByteBuffer);
+                timeLog = new Document();
+                readTimeInformation(xmlDescriptor.tim(), timeLog, timeLogByteBuffer);
+                if (null != xmlDescriptor.ptn()) {
+                    log.trace("Found PTN element.");
+                    readPositionInformation(xmlDescriptor.ptn(), timeLog, timeLogByteBuffer);
                 }
                 final var numberOfDataLogValuesToFollow = readNumberOfDataLogValuesToFollow(timeLog, timeLogByteBuffer);
-                log.debug("There should be {} DLV elements to read.", numberOfDataLogValuesToFollow);
+                log.trace("There should be {} DLV elements to read.", numberOfDataLogValuesToFollow);
                 final var dataLogValues = new Document();
                 for (int i = 0; i < numberOfDataLogValuesToFollow; i++) {
                     final var dataLogValueOrderingNumber = ByteValueReader.readByte(timeLogByteBuffer);
@@ -128,10 +176,11 @@ public class TaskDataTimeLogService {
                     final var dataLogValue = new Document();
                     dataLogValue.append(Constants.DATA_LOG_VALUE_ORDERING_NUMBER, dataLogValueOrderingNumber);
                     dataLogValue.append(Constants.PROCESS_DATA_VALUE, processDataValue);
-                    dataLogValues.append(String.format("%s_%s", Constants.DATA_LOG_VALUE, dataLogValueOrderingNumber), dataLogValue);
+                    dataLogValues.append(DATA_LOG_VALUE_KEYS[dataLogValueOrderingNumber & 0xFF], dataLogValue);
                 }
                 append(timeLog, Constants.DATA_LOG_VALUES, dataLogValues);
                 logFinalResult(timeLog);
+                timeLogRecordConsumer.accept(timeLog);
             }
             return timeLog;
         } catch (Exception e) {
@@ -204,17 +253,44 @@ public class TaskDataTimeLogService {
     }
 
     private void append(Document timeLog, String key, Object value) {
-        log.debug("Appending the following key-value-pair to the time log document. | {} >>> {}", key, value);
+        log.trace("Appending the following key-value-pair to the time log document. | {} >>> {}", key, value);
         timeLog.append(key, value);
     }
 
     private void logFinalResult(Document timeLog) {
-        log.debug("These are the final values");
-        log.debug("###########################################################################################");
-        log.debug("");
-        log.debug("{}", timeLog.toJson());
-        log.debug("");
-        log.debug("###########################################################################################");
+        if (log.isTraceEnabled()) {
+            log.trace("These are the final values");
+            log.trace("###########################################################################################");
+            log.trace("");
+            log.trace("{}", timeLog.toJson());
+            log.trace("");
+            log.trace("###########################################################################################");
+        }
+    }
+
+    private static JAXBContext createJaxbContext() {
+        try {
+            return JAXBContext.newInstance(TIM.class);
+        } catch (JAXBException e) {
+            throw new IllegalStateException("Could not create the JAXB context for the time log descriptors.", e);
+        }
+    }
+
+    private static String[] createDataLogValueKeys() {
+        final var dataLogValueKeys = new String[256];
+        for (int i = 0; i < dataLogValueKeys.length; i++) {
+            dataLogValueKeys[i] = String.format("%s_%s", Constants.DATA_LOG_VALUE, (byte) i);
+        }
+        return dataLogValueKeys;
+    }
+
+    /**
+     * The parsed descriptor of a time log, including the already resolved position definition.
+     *
+     * @param tim The time definition.
+     * @param ptn The position definition, if there is any.
+     */
+    private record TimeLogDescriptor(TIM tim, PTN ptn) {
     }
 
 }
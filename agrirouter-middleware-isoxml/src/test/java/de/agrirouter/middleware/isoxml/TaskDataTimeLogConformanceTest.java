@@ -1,17 +1,28 @@
 package de.agrirouter.middleware.isoxml;
 
+import de.agrirouter.middleware.isoxml.domain.Constants;
+import org.bson.Document;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Base64;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
 
 @Disabled("Only necessary for conformance testing, takes a LONG time.s")
 class TaskDataTimeLogConformanceTest {
 
+    private static final long MAX_ALLOCATED_BYTES_PER_RECORD = 4 * 1024;
+    private static final long MAX_ALLOCATED_BYTES_PER_DATA_LOG_VALUE = 1024;
+
     @ParameterizedTest
     @ValueSource(strings = {"5c0ad7b4-598f-45c3-a0c1-47e781a6c51f.zip",
             "ecdc65b8-0d93-4804-8234-5948624e2f52.zip",
@@ -22,7 +33,42 @@ class TaskDataTimeLogConformanceTest {
     void givenValidTaskDataFileWhenParsingTimeLogsFromBinariesThenTheDocumentsShouldBeParsedWithoutProblems(String fileName) throws IOException {
         final var taskDataTimeLogService = new TaskDataTimeLogService();
         final var zipFileAsBase64EncodedValue = getZipFileAsBase64EncodedValue(fileName);
-        taskDataTimeLogService.parseMessageContent(zipFileAsBase64EncodedValue);
+        final var documents = taskDataTimeLogService.parseMessageContent(zipFileAsBase64EncodedValue);
+        assertThat(documents).hasSize(countTimeLogs(fileName));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"5c0ad7b4-598f-45c3-a0c1-47e781a6c51f.zip",
+            "ecdc65b8-0d93-4804-8234-5948624e2f52.zip",
+            "1fe5b512-088b-45d8-848a-9cfc61ad19e4.zip",
+            "b49660be-0749-4e1f-90cc-a3cc6800a305.zip",
+            "4fc231c3-b989-4831-968b-fc86c9aeb744.zip",
+            "186abefa-91f5-4f02-8927-62092bb5020c.zip"})
+    void givenValidTaskDataFileWhenStreamingTimeLogRecordsThenTheAllocationsShouldStayProportionalToTheRecords(String fileName) throws IOException {
+        final var taskDataTimeLogService = new TaskDataTimeLogService();
+        final var zipFileAsBase64EncodedValue = getZipFileAsBase64EncodedValue(fileName);
+        final var threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final var numberOfRecords = new AtomicLong();
+        final var numberOfDataLogValues = new AtomicLong();
+
+        final var allocatedBytesBefore = threadMXBean.getCurrentThreadAllocatedBytes();
+        taskDataTimeLogService.parseMessageContent(zipFileAsBase64EncodedValue, timeLogRecord -> {
+            numberOfRecords.incrementAndGet();
+            numberOfDataLogValues.addAndGet(timeLogRecord.get(Constants.DATA_LOG_VALUES, Document.class).size());
+        });
+        final var allocatedBytes = threadMXBean.getCurrentThreadAllocatedBytes() - allocatedBytesBefore;
+
+        assertThat(numberOfRecords.get()).isPositive();
+        assertThat(allocatedBytes).isLessThan(zipFileAsBase64EncodedValue.length + MAX_ALLOCATED_BYTES_PER_RECORD * numberOfRecords.get() + MAX_ALLOCATED_BYTES_PER_DATA_LOG_VALUE * numberOfDataLogValues.get());
+    }
+
+    private int countTimeLogs(String fileName) throws IOException {
+        try (final var zipFile = new ZipFile(Path.of("", "src/test/resources").resolve("examples/" + fileName).toFile())) {
+            return (int) zipFile.stream()
+                    .map(zipEntry -> zipEntry.getName().toLowerCase(Locale.ROOT))
+                    .filter(name -> name.contains(TaskDataTimeLogService.TIME_LOG_PREFIX) && name.endsWith("." + TaskDataTimeLogService.BINARY_FILE_EXTENSION))
+                    .count();
+        }
     }
 
     private byte[] getZipFileAsBase64EncodedValue(String fileName) throws IOException {
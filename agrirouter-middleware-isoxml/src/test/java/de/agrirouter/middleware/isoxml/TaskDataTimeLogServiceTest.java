@@ -0,0 +1,150 @@
+package de.agrirouter.middleware.isoxml;
+
+import de.agrirouter.middleware.api.errorhandling.BusinessException;
+import de.agrirouter.middleware.isoxml.domain.Constants;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TaskDataTimeLogServiceTest {
+
+    private static final String TIME_LOG_DESCRIPTOR = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <TIM A="" D="4">
+            <PTN A="" B=""/>
+            <DLV A="0043" B="" C="DET-1"/>
+            <DLV A="0074" B="" C="DET-1"/>
+            </TIM>
+            """;
+
+    private final TaskDataTimeLogService taskDataTimeLogService = new TaskDataTimeLogService();
+
+    @Test
+    void givenTimeLogBeforeDescriptorWhenParsingThenEveryRecordShouldBeEmitted() throws IOException {
+        final var files = new LinkedHashMap<String, byte[]>();
+        files.put("TASKDATA/TLG00001.BIN", createTimeLog(3));
+        files.put("TASKDATA/TLG00001.XML", TIME_LOG_DESCRIPTOR.getBytes(StandardCharsets.UTF_8));
+        final var timeLogRecords = new ArrayList<Document>();
+
+        taskDataTimeLogService.parseMessageContent(createBase64EncodedZipFile(files), timeLogRecords::add);
+
+        assertThat(timeLogRecords).hasSize(3);
+        for (int i = 0; i < timeLogRecords.size(); i++) {
+            final var timeLogRecord = timeLogRecords.get(i);
+            assertThat(timeLogRecord.get(Constants.TIME_START, Document.class).getInteger(Constants.TIME_START_TIME_OF_DAY)).isEqualTo(1000 * i);
+            assertThat(timeLogRecord.getDouble(Constants.POSITION_NORTH)).isCloseTo(52.0, within(1e-6));
+            assertThat(timeLogRecord.getDouble(Constants.POSITION_EAST)).isCloseTo(8.0, within(1e-6));
+            final var dataLogValues = timeLogRecord.get(Constants.DATA_LOG_VALUES, Document.class);
+            assertThat(dataLogValues.keySet()).containsExactly("data_log_value_0", "data_log_value_1");
+            assertThat(dataLogValues.get("data_log_value_1", Document.class).getInteger(Constants.PROCESS_DATA_VALUE)).isEqualTo(i);
+        }
+    }
+
+    @Test
+    void givenDescriptorBeforeTimeLogWhenParsingThenTheLastRecordOfEachTimeLogShouldBeReturned() throws IOException {
+        final var files = new LinkedHashMap<String, byte[]>();
+        files.put("TASKDATA/TLG00001.xml", TIME_LOG_DESCRIPTOR.getBytes(StandardCharsets.UTF_8));
+        files.put("TASKDATA/TLG00001.bin", createTimeLog(5));
+        files.put("TASKDATA/TLG00002.bin", createTimeLog(2));
+        files.put("TASKDATA/TLG00002.xml", TIME_LOG_DESCRIPTOR.getBytes(StandardCharsets.UTF_8));
+
+        final var documents = taskDataTimeLogService.parseMessageContent(createBase64EncodedZipFile(files));
+
+        assertThat(documents).hasSize(2);
+        assertThat(documents.get(0).get(Constants.DATA_LOG_VALUES, Document.class).get("data_log_value_1", Document.class).getInteger(Constants.PROCESS_DATA_VALUE)).isEqualTo(4);
+        assertThat(documents.get(1).get(Constants.DATA_LOG_VALUES, Document.class).get("data_log_value_1", Document.class).getInteger(Constants.PROCESS_DATA_VALUE)).isEqualTo(1);
+    }
+
+    @Test
+    void givenDecodedZipFileWhenParsingThenTheDocumentsShouldBeTheSameAsForTheBase64EncodedZipFile() throws IOException {
+        final var files = new LinkedHashMap<String, byte[]>();
+        files.put("TASKDATA/TLG00001.xml", TIME_LOG_DESCRIPTOR.getBytes(StandardCharsets.UTF_8));
+        files.put("TASKDATA/TLG00001.bin", createTimeLog(5));
+        final var base64EncodedZipFile = createBase64EncodedZipFile(files);
+
+        final var documents = taskDataTimeLogService.parseZipFile(Base64.getDecoder().decode(base64EncodedZipFile));
+
+        assertThat(documents).hasSize(1).isEqualTo(taskDataTimeLogService.parseMessageContent(base64EncodedZipFile));
+    }
+
+    @Test
+    void givenTimeLogWithoutDescriptorWhenParsingThenThereShouldBeAnException() throws IOException {
+        final var files = new LinkedHashMap<String, byte[]>();
+        files.put("TASKDATA/TLG00001.bin", createTimeLog(1));
+        final var base64EncodedZipFile = createBase64EncodedZipFile(files);
+
+        assertThrows(BusinessException.class, () -> taskDataTimeLogService.parseMessageContent(base64EncodedZipFile));
+    }
+
+    @Test
+    void givenLargeZipFileWhenParsingThenRecordsShouldBeEmittedBeforeTheWholeFileHasBeenRead() throws IOException {
+        final var files = new LinkedHashMap<String, byte[]>();
+        files.put("TASKDATA/TLG00001.xml", TIME_LOG_DESCRIPTOR.getBytes(StandardCharsets.UTF_8));
+        files.put("TASKDATA/TLG00001.bin", createTimeLog(10));
+        final var image = new byte[1024 * 1024];
+        new Random(42).nextBytes(image);
+        files.put("TASKDATA/IMAGE.png", image);
+        final var base64EncodedZipFile = createBase64EncodedZipFile(files);
+        final var bytesRead = new AtomicLong();
+        final var bytesReadWhenTheFirstRecordWasEmitted = new AtomicLong(-1);
+        final var inputStream = new ByteArrayInputStream(base64EncodedZipFile) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                final var read = super.read(b, off, len);
+                bytesRead.addAndGet(Math.max(0, read));
+                return read;
+            }
+        };
+
+        taskDataTimeLogService.parseMessageContent(inputStream, timeLogRecord -> bytesReadWhenTheFirstRecordWasEmitted.compareAndSet(-1, bytesRead.get()));
+
+        assertThat(bytesReadWhenTheFirstRecordWasEmitted.get()).isPositive().isLessThan(base64EncodedZipFile.length);
+    }
+
+    private static byte[] createTimeLog(int numberOfRecords) {
+        final var byteBuffer = ByteBuffer.allocate(numberOfRecords * 25).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < numberOfRecords; i++) {
+            byteBuffer.putInt(1000 * i);
+            byteBuffer.putShort((short) 15000);
+            byteBuffer.putInt(520000000);
+            byteBuffer.putInt(80000000);
+            byteBuffer.put((byte) 2);
+            byteBuffer.put((byte) 0);
+            byteBuffer.putInt(42);
+            byteBuffer.put((byte) 1);
+            byteBuffer.putInt(i);
+        }
+        return byteBuffer.array();
+    }
+
+    private static byte[] createBase64EncodedZipFile(Map<String, byte[]> files) throws IOException {
+        final var byteArrayOutputStream = new ByteArrayOutputStream();
+        try (final var zipOutputStream = new ZipOutputStream(byteArrayOutputStream)) {
+            for (Map.Entry<String, byte[]> file : files.entrySet()) {
+                zipOutputStream.putNextEntry(new ZipEntry(file.getKey()));
+                zipOutputStream.write(file.getValue());
+                zipOutputStream.closeEntry();
+            }
+        }
+        return Base64.getEncoder().encode(byteArrayOutputStream.toByteArray());
+    }
+
+}
@@ -2,11 +2,14 @@ package de.agrirouter.middleware.persistence.jpa;
 
 import de.agrirouter.middleware.domain.ContentMessage;
 import de.agrirouter.middleware.domain.ContentMessageMetadata;
+import de.agrirouter.middleware.persistence.payload.StoredPayload;
 import de.agrirouter.middleware.persistence.projections.MessageCountForTechnicalMessageType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -15,7 +18,7 @@ import java.util.Optional;
  * Repository to access the content messages.
  */
 @Repository
-public interface ContentMessageRepository extends JpaRepository<ContentMessage, Long> {
+public interface ContentMessageRepository extends JpaRepository<ContentMessage, Long>, ContentMessageRepositoryCustom {
 
     /**
      * Remove all content messages by the agrirouter© endpoint id.
@@ -33,6 +36,45 @@ public interface ContentMessageRepository extends JpaRepository<ContentMessage,
      */
     Optional<ContentMessage> findFirstByAgrirouterEndpointIdAndContentMessageMetadataMessageId(String agrirouterEndpointId, String messageId);
 
+    /**
+     * Find the payloads stored outside the database for the given endpoint.
+     *
+     * @param agrirouterEndpointId The endpoint ID.
+     * @return -
+     */
+    @Query("select new de.agrirouter.middleware.persistence.payload.StoredPayload(c.payloadStore, c.id, c.payloadKey) from ContentMessage c " +
+            "where c.agrirouterEndpointId = :agrirouterEndpointId " +
+            "and c.payloadKey is not null")
+    List<StoredPayload> findStoredPayloads(@Param("agrirouterEndpointId") String agrirouterEndpointId);
+
+    /**
+     * Find the payloads stored outside the database for the given endpoint and message ID.
+     *
+     * @param agrirouterEndpointId The endpoint ID.
+     * @param messageId            The message ID.
+     * @return -
+     */
+    @Query("select new de.agrirouter.middleware.persistence.payload.StoredPayload(c.payloadStore, c.id, c.payloadKey) from ContentMessage c " +
+            "where c.agrirouterEndpointId = :agrirouterEndpointId " +
+            "and c.contentMessageMetadata.messageId = :messageId " +
+            "and c.payloadKey is not null")
+    List<StoredPayload> findStoredPayloadsForMessage(@Param("agrirouterEndpointId") String agrirouterEndpointId,
+                                                     @Param("messageId") String messageId);
+
+    /**
+     * Find the payloads stored outside the database for the given endpoint and chunk context ID.
+     *
+     * @param agrirouterEndpointId The endpoint ID.
+     * @param chunkContextId       The chunk context ID.
+     * @return -
+     */
+    @Query("select new de.agrirouter.middleware.persistence.payload.StoredPayload(c.payloadStore, c.id, c.payloadKey) from ContentMessage c " +
+            "where c.agrirouterEndpointId = :agrirouterEndpointId " +
+            "and c.contentMessageMetadata.chunkContextId = :chunkContextId " +
+            "and c.payloadKey is not null")
+    List<StoredPayload> findStoredPayloadsForChunkContext(@Param("agrirouterEndpointId") String agrirouterEndpointId,
+                                                          @Param("chunkContextId") String chunkContextId);
+
     /**
      * Delete a content message for the given endpoint.
      *
@@ -42,13 +84,18 @@ public interface ContentMessageRepository extends JpaRepository<ContentMessage,
     int deleteByAgrirouterEndpointIdAndContentMessageMetadataMessageId(String agrirouterEndpointId, String messageId);
 
     /**
-     * Find all messages for the given endpoint and chunk context ID.
+     * Find the IDs of all chunks for the given endpoint and chunk context ID, ordered by the number of the chunk.
      *
      * @param agrirouterEndpointId The endpoint ID.
      * @param chunkContextId       The chunk context ID.
      * @return -
      */
-    List<ContentMessage> findByAgrirouterEndpointIdAndContentMessageMetadataChunkContextId(String agrirouterEndpointId, String chunkContextId);
+    @Query("select c.id from ContentMessage c " +
+            "where c.agrirouterEndpointId = :agrirouterEndpointId " +
+            "and c.contentMessageMetadata.chunkContextId = :chunkContextId " +
+            "order by c.contentMessageMetadata.currentChunk")
+    List<Long> findChunkIds(@Param("agrirouterEndpointId") String agrirouterEndpointId,
+                            @Param("chunkContextId") String chunkContextId);
 
     /**
      * Find all messages for the given endpoint and chunk context ID.
@@ -98,6 +145,23 @@ public interface ContentMessageRepository extends JpaRepository<ContentMessage,
                                               @Param("searchFrom") long searchFrom,
                                               @Param("searchTo") long searchTo);
 
+    /**
+     * Convert the base64 encoded message content of the next content messages to binary. Content that is not valid
+     * base64 is kept as it is.
+     *
+     * @param batchSize The maximum number of content messages to convert.
+     * @return The number of converted content messages.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "update content_message " +
+            "set message_content = from_base64(message_content), content_encoding = 'BINARY' " +
+            "where content_encoding = 'BASE64' " +
+            "and payload_store = 'jpa' " +
+            "and from_base64(message_content) is not null " +
+            "limit :batchSize", nativeQuery = true)
+    int convertBase64MessageContentToBinary(@Param("batchSize") int batchSize);
+
     /**
      * Count the number of messages for the given endpoint.
      *
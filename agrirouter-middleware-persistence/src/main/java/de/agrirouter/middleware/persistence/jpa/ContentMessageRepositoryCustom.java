@@ -0,0 +1,58 @@
+package de.agrirouter.middleware.persistence.jpa;
+
+import de.agrirouter.middleware.domain.enums.ContentMessageEncoding;
+import de.agrirouter.middleware.persistence.payload.StoredPayload;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+
+/**
+ * Access to the message content of content messages without loading the whole entity, wherever the payload is stored.
+ */
+public interface ContentMessageRepositoryCustom {
+
+    /**
+     * Read the message content of the content message as stream. The stream is only valid while the reader is
+     * running and must not be used afterward.
+     *
+     * @param contentMessageId The ID of the content message.
+     * @param reader           The reader for the message content.
+     * @throws IOException If the message content could not be read.
+     */
+    void readMessageContent(long contentMessageId, MessageContentReader reader) throws IOException;
+
+    /**
+     * Delete the payloads that are no longer referenced by any content message. Within a transaction the payloads
+     * are deleted after the commit, so they are kept if the deletion of the content messages is rolled back.
+     *
+     * @param storedPayloads The payloads of the deleted content messages.
+     */
+    void deleteUnreferencedPayloads(Collection<StoredPayload> storedPayloads);
+
+    /**
+     * Delete all payloads that are no longer referenced by any content message, incl. the payloads of transactions
+     * that have never been committed. Recently written payloads are kept until their grace period has passed.
+     *
+     * @throws IOException If the payloads could not be swept.
+     */
+    void sweepUnreferencedPayloads() throws IOException;
+
+    /**
+     * Reader for the message content.
+     */
+    @FunctionalInterface
+    interface MessageContentReader {
+
+        /**
+         * Read the message content.
+         *
+         * @param messageContent  The message content, as stored within the database.
+         * @param contentEncoding The encoding of the stored message content.
+         * @throws IOException If the message content could not be read.
+         */
+        void read(InputStream messageContent, ContentMessageEncoding contentEncoding) throws IOException;
+
+    }
+
+}
@@ -0,0 +1,82 @@
+package de.agrirouter.middleware.persistence.jpa;
+
+import de.agrirouter.middleware.domain.enums.ContentMessageEncoding;
+import de.agrirouter.middleware.persistence.payload.PayloadStores;
+import de.agrirouter.middleware.persistence.payload.StoredPayload;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Implementation reading the message content from the payload store of the content message, so the content is read
+ * as stream.
+ */
+@Slf4j
+@RequiredArgsConstructor
+class ContentMessageRepositoryCustomImpl implements ContentMessageRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PayloadStores payloadStores;
+
+    @Override
+    public void readMessageContent(long contentMessageId, MessageContentReader reader) throws IOException {
+        final var storedMessageContent = jdbcTemplate.queryForObject("select content_encoding, payload_store, payload_key from content_message where id = ?",
+                (resultSet, rowNumber) -> new StoredMessageContent(ContentMessageEncoding.valueOf(resultSet.getString(1)),
+                        new StoredPayload(resultSet.getString(2), contentMessageId, resultSet.getString(3))),
+                contentMessageId);
+        payloadStores.read(storedMessageContent.storedPayload(), messageContent -> reader.read(messageContent, storedMessageContent.contentEncoding()));
+    }
+
+    @Override
+    public void deleteUnreferencedPayloads(Collection<StoredPayload> storedPayloads) {
+        final var payloadsToDelete = List.copyOf(storedPayloads);
+        if (payloadsToDelete.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deletePayloads(payloadsToDelete);
+                }
+            });
+        } else {
+            deletePayloads(payloadsToDelete);
+        }
+    }
+
+    @Override
+    public void sweepUnreferencedPayloads() throws IOException {
+        payloadStores.sweep(this::isReferenced);
+    }
+
+    private void deletePayloads(List<StoredPayload> storedPayloads) {
+        storedPayloads.forEach(storedPayload -> {
+            try {
+                payloadStores.delete(storedPayload, this::isReferenced);
+            } catch (IOException e) {
+                log.error("Could not delete the payload '{}' from the store '{}'.", storedPayload.payloadKey(), storedPayload.payloadStore(), e);
+            }
+        });
+    }
+
+    private boolean isReferenced(StoredPayload storedPayload) {
+        final var numberOfReferences = jdbcTemplate.queryForObject("select count(*) from content_message where payload_store = ? and payload_key = ?",
+                Long.class, storedPayload.payloadStore(), storedPayload.payloadKey());
+        if (null != numberOfReferences && numberOfReferences > 0) {
+            log.debug("The payload '{}' is still referenced by {} content messages.", storedPayload.payloadKey(), numberOfReferences);
+            return true;
+        }
+        return false;
+    }
+
+    private record StoredMessageContent(ContentMessageEncoding contentEncoding, StoredPayload storedPayload) {
+    }
+
+}
@@ -1,9 +1,13 @@
 package de.agrirouter.middleware.persistence.mongo;
 
 import de.agrirouter.middleware.domain.documents.MessageCacheEntry;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
+
 /**
  * Repository to access the message cache entries within the MongoDB.
  */
@@ -17,4 +21,13 @@ public interface MessageCacheEntryRepository extends MongoRepository<MessageCach
      * @return the count of message cache entries that match the given external endpoint ID.
      */
     long countAllByExternalEndpointId(String externalEndpointId);
+
+    /**
+     * Find the message cache entries that have been created before the given point in time.
+     *
+     * @param createdAt the point in time.
+     * @param pageable  the page to fetch.
+     * @return the message cache entries.
+     */
+    List<MessageCacheEntry> findAllByCreatedAtBefore(Instant createdAt, Pageable pageable);
 }
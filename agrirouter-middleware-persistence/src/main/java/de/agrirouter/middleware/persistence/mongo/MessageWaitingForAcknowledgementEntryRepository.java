@@ -0,0 +1,40 @@
+package de.agrirouter.middleware.persistence.mongo;
+
+import de.agrirouter.middleware.domain.documents.MessageWaitingForAcknowledgementEntry;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.stream.Stream;
+
+/**
+ * Repository to access the messages waiting for acknowledgement within the MongoDB.
+ */
+@Repository
+public interface MessageWaitingForAcknowledgementEntryRepository extends MongoRepository<MessageWaitingForAcknowledgementEntry, String> {
+
+    /**
+     * Stream all messages waiting for acknowledgement created after the given point in time, the stream has to be
+     * closed after reading.
+     *
+     * @param createdAt The point in time.
+     * @return All entries created afterwards.
+     */
+    Stream<MessageWaitingForAcknowledgementEntry> streamAllByCreatedAtAfter(Instant createdAt);
+
+    /**
+     * Delete all messages waiting for acknowledgement created before the given point in time.
+     *
+     * @param createdAt The point in time.
+     * @return The number of deleted entries.
+     */
+    long deleteAllByCreatedAtBefore(Instant createdAt);
+
+    /**
+     * Delete all messages waiting for acknowledgement for the endpoint.
+     *
+     * @param agrirouterEndpointId The internal endpoint ID.
+     */
+    void deleteAllByAgrirouterEndpointId(String agrirouterEndpointId);
+
+}
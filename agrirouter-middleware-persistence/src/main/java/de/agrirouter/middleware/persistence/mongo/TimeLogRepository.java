@@ -1,16 +1,28 @@
 package de.agrirouter.middleware.persistence.mongo;
 
 import de.agrirouter.middleware.domain.documents.TimeLog;
+import de.agrirouter.middleware.persistence.projections.TimeLogPeriodForTeamSet;
+import org.springframework.data.mongodb.repository.Aggregation;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
  * Repository to access the time logs within the MongoDB.
  */
 @Repository
-public interface TimeLogRepository extends MongoRepository<TimeLog, String> {
+public interface TimeLogRepository extends MongoRepository<TimeLog, String>, TimeLogRepositoryCustom {
+
+    /**
+     * Stage to remove all data log values that do not belong to the DDIs given as third parameter. Time entries
+     * without data log values are not changed.
+     */
+    String FILTER_DATA_LOG_VALUES_BY_DDI = "{ '$set': { 'document.time': { '$cond': [ { '$isArray': '$document.time' }, { '$map': { 'input': '$document.time', 'as': 'time', 'in': { '$cond': [ { '$isArray': '$$time.dataLogValue' }, { '$mergeObjects': [ '$$time', { 'dataLogValue': { '$filter': { 'input': '$$time.dataLogValue', 'as': 'dataLogValue', 'cond': { '$in': [ '$$dataLogValue.processDataDdi', ?2 ] } } } } ] }, '$$time' ] } } }, '$document.time' ] } } }";
 
     /**
      * Delete all time logs by agrirouter© ID.
@@ -31,19 +43,74 @@ public interface TimeLogRepository extends MongoRepository<TimeLog, String> {
     /**
      * Fetch all time logs are within the timestamp and have the given team set context ID.
      *
+     * @param searchFrom                 The start of the search interval.
+     * @param searchTo                   The end of the search interval.
+     * @param normalizedTeamSetContextId The normalized team set context ID.
+     * @return The time logs.
+     */
+    List<TimeLog> findAllByTimestampBetweenAndNormalizedTeamSetContextId(long searchFrom, long searchTo, String normalizedTeamSetContextId);
+
+    /**
+     * Fetch all time logs that are within the timestamp, the data log values are reduced to the given DDIs within
+     * the database.
+     *
+     * @param searchFrom The start of the search interval.
+     * @param searchTo   The end of the search interval.
+     * @param ddis       The DDIs to keep.
+     * @return The time logs.
+     */
+    @Aggregation(pipeline = {
+            "{ '$match': { 'timestamp': { '$gt': ?0, '$lt': ?1 } } }",
+            FILTER_DATA_LOG_VALUES_BY_DDI
+    })
+    List<TimeLog> findAllByTimestampBetweenWithDdis(long searchFrom, long searchTo, Collection<Integer> ddis);
+
+    /**
+     * Fetch all time logs that are within the timestamp and match the team set context ID, the data log values are
+     * reduced to the given DDIs within the database.
+     *
      * @param searchFrom       The start of the search interval.
      * @param searchTo         The end of the search interval.
-     * @param teamSetContextId The team set context ID.
+     * @param ddis                       The DDIs to keep.
+     * @param normalizedTeamSetContextId The normalized team set context ID.
      * @return The time logs.
      */
-    List<TimeLog> findAllByTimestampBetweenAndTeamSetContextIdEqualsIgnoreCase(long searchFrom, long searchTo, String teamSetContextId);
+    @Aggregation(pipeline = {
+            "{ '$match': { 'normalizedTeamSetContextId': ?3, 'timestamp': { '$gt': ?0, '$lt': ?1 } } }",
+            FILTER_DATA_LOG_VALUES_BY_DDI
+    })
+    List<TimeLog> findAllByTimestampBetweenAndNormalizedTeamSetContextIdWithDdis(long searchFrom, long searchTo, Collection<Integer> ddis, String normalizedTeamSetContextId);
 
     /**
-     * Find all by team set context ID.
+     * Calculate the time log periods for the given team sets. A new period starts if the gap to the previous time log
+     * of the team set is larger than the period offset. Only the timestamps and message IDs are read, the documents
+     * themselves are not loaded. The team set context IDs of the result are the normalized ones.
      *
-     * @param teamSetContextId The team set context ID.
-     * @return The time logs.
+     * @param searchFrom                  The start of the search interval.
+     * @param searchTo                    The end of the search interval.
+     * @param normalizedTeamSetContextIds The normalized team set context IDs.
+     * @param periodOffset                The maximum gap between two time logs of the same period.
+     * @return The time log periods, ordered by team set and begin of the period.
+     */
+    @Meta(allowDiskUse = true)
+    @Aggregation(pipeline = {
+            "{ '$match': { 'normalizedTeamSetContextId': { '$in': ?2 }, 'timestamp': { '$gt': ?0, '$lt': ?1 } } }",
+            "{ '$project': { '_id': 0, 'teamSetContextId': '$normalizedTeamSetContextId', 'timestamp': 1, 'messageId': 1 } }",
+            "{ '$setWindowFields': { 'partitionBy': '$teamSetContextId', 'sortBy': { 'timestamp': 1 }, 'output': { 'previousTimestamp': { '$shift': { 'output': '$timestamp', 'by': -1 } } } } }",
+            "{ '$setWindowFields': { 'partitionBy': '$teamSetContextId', 'sortBy': { 'timestamp': 1 }, 'output': { 'period': { '$sum': { '$cond': [ { '$or': [ { '$eq': [ '$previousTimestamp', null ] }, { '$gt': [ { '$subtract': [ '$timestamp', '$previousTimestamp' ] }, ?3 ] } ] }, 1, 0 ] }, 'window': { 'documents': [ 'unbounded', 'current' ] } } } } }",
+            "{ '$group': { '_id': { 'teamSetContextId': '$teamSetContextId', 'period': '$period' }, 'begin': { '$min': '$timestamp' }, 'end': { '$max': '$timestamp' }, 'numberOfTimeLogs': { '$sum': 1 }, 'messageIds': { '$addToSet': '$messageId' } } }",
+            "{ '$project': { '_id': 0, 'teamSetContextId': '$_id.teamSetContextId', 'begin': 1, 'end': 1, 'numberOfTimeLogs': 1, 'messageIds': 1 } }",
+            "{ '$sort': { 'teamSetContextId': 1, 'begin': 1 } }"
+    })
+    List<TimeLogPeriodForTeamSet> findTimeLogPeriods(long searchFrom, long searchTo, Collection<String> normalizedTeamSetContextIds, long periodOffset);
+
+    /**
+     * Set the normalized team set context ID for all time logs that have been stored without it.
+     *
+     * @return The number of updated time logs.
      */
-    List<TimeLog> findAllByTeamSetContextIdEqualsIgnoreCase(String teamSetContextId);
+    @Query("{ 'normalizedTeamSetContextId': { '$exists': false }, 'teamSetContextId': { '$type': 'string' } }")
+    @Update(pipeline = {"{ '$set': { 'normalizedTeamSetContextId': { '$toLower': '$teamSetContextId' } } }"})
+    long normalizeTeamSetContextIds();
 
 }
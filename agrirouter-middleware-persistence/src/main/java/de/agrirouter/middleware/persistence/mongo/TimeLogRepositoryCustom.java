@@ -0,0 +1,54 @@
+package de.agrirouter.middleware.persistence.mongo;
+
+import de.agrirouter.middleware.domain.documents.TimeLog;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Queries for time logs that can not be expressed by derived or annotated queries, since the filters are optional.
+ * The time logs are always ordered by timestamp and ID, which makes the order stable for paging.
+ */
+public interface TimeLogRepositoryCustom {
+
+    /**
+     * Fetch a page of time logs, starting after the given position.
+     *
+     * @param searchFrom                 The start of the search interval.
+     * @param searchTo                   The end of the search interval.
+     * @param normalizedTeamSetContextId The normalized team set context ID, null to search for all team sets.
+     * @param ddis                       The DDIs to keep, null or empty to keep all data log values.
+     * @param afterTimestamp             The timestamp of the last time log of the previous page, null for the first page.
+     * @param afterId                    The ID of the last time log of the previous page, null for the first page.
+     * @param pageSize                   The maximum number of time logs.
+     * @return The time logs.
+     */
+    List<TimeLog> findPage(long searchFrom, long searchTo, String normalizedTeamSetContextId, Collection<Integer> ddis, Long afterTimestamp, String afterId, int pageSize);
+
+    /**
+     * Stream all time logs using a database cursor. The stream has to be closed after usage.
+     *
+     * @param searchFrom                 The start of the search interval.
+     * @param searchTo                   The end of the search interval.
+     * @param normalizedTeamSetContextId The normalized team set context ID, null to search for all team sets.
+     * @param ddis                       The DDIs to keep, null or empty to keep all data log values.
+     * @return The time logs.
+     */
+    Stream<TimeLog> stream(long searchFrom, long searchTo, String normalizedTeamSetContextId, Collection<Integer> ddis);
+
+    /**
+     * Create the indexes declared for the time logs, since the indexes are not created automatically. Existing indexes
+     * are left untouched.
+     */
+    void ensureIndexes();
+
+    /**
+     * Drop an index of the time logs that is no longer declared, e.g. after it has been replaced by another index.
+     *
+     * @param indexName The name of the index.
+     * @return True if the index existed and has been dropped, false otherwise.
+     */
+    boolean dropIndexIfExists(String indexName);
+
+}
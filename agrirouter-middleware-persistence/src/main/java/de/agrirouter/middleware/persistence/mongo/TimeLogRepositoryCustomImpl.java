@@ -0,0 +1,101 @@
+package de.agrirouter.middleware.persistence.mongo;
+
+import de.agrirouter.middleware.domain.documents.TimeLog;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of the custom time log queries, using aggregations to reduce the data log values within the database.
+ */
+@RequiredArgsConstructor
+class TimeLogRepositoryCustomImpl implements TimeLogRepositoryCustom {
+
+    private final MongoOperations mongoOperations;
+
+    @Override
+    public List<TimeLog> findPage(long searchFrom, long searchTo, String normalizedTeamSetContextId, Collection<Integer> ddis, Long afterTimestamp, String afterId, int pageSize) {
+        final var criteria = criteria(searchFrom, searchTo, normalizedTeamSetContextId);
+        if (null != afterTimestamp && null != afterId) {
+            criteria.orOperator(
+                    Criteria.where("timestamp").gt(afterTimestamp),
+                    Criteria.where("timestamp").is(afterTimestamp).and("id").gt(afterId));
+        }
+        final var stages = new ArrayList<AggregationOperation>();
+        stages.add(Aggregation.match(criteria));
+        stages.add(Aggregation.sort(Sort.by("timestamp", "id")));
+        stages.add(Aggregation.limit(pageSize));
+        addFilterForDdis(stages, ddis);
+        return mongoOperations.aggregate(Aggregation.newAggregation(TimeLog.class, stages), TimeLog.class).getMappedResults();
+    }
+
+    @Override
+    public Stream<TimeLog> stream(long searchFrom, long searchTo, String normalizedTeamSetContextId, Collection<Integer> ddis) {
+        final var stages = new ArrayList<AggregationOperation>();
+        stages.add(Aggregation.match(criteria(searchFrom, searchTo, normalizedTeamSetContextId)));
+        stages.add(Aggregation.sort(Sort.by("timestamp", "id")));
+        addFilterForDdis(stages, ddis);
+        final var aggregation = Aggregation.newAggregation(TimeLog.class, stages).withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        return mongoOperations.aggregateStream(aggregation, TimeLog.class);
+    }
+
+    @Override
+    public void ensureIndexes() {
+        final var indexOperations = mongoOperations.indexOps(TimeLog.class);
+        IndexResolver.create(mongoOperations.getConverter().getMappingContext())
+                .resolveIndexFor(TimeLog.class)
+                .forEach(indexOperations::createIndex);
+    }
+
+    @Override
+    public boolean dropIndexIfExists(String indexName) {
+        final var indexOperations = mongoOperations.indexOps(TimeLog.class);
+        final var exists = indexOperations.getIndexInfo().stream().anyMatch(indexInfo -> indexName.equals(indexInfo.getName()));
+        if (exists) {
+            indexOperations.dropIndex(indexName);
+        }
+        return exists;
+    }
+
+    private static Criteria criteria(long searchFrom, long searchTo, String normalizedTeamSetContextId) {
+        final var criteria = new Criteria();
+        if (null != normalizedTeamSetContextId) {
+            criteria.and("normalizedTeamSetContextId").is(normalizedTeamSetContextId);
+        }
+        return criteria.and("timestamp").gt(searchFrom).lt(searchTo);
+    }
+
+    /**
+     * Reduce the data log values to the given DDIs, same as {@link TimeLogRepository#FILTER_DATA_LOG_VALUES_BY_DDI}.
+     * The stage is built as document, so the DDIs are passed as values and not as part of a JSON string.
+     */
+    private static void addFilterForDdis(List<AggregationOperation> stages, Collection<Integer> ddis) {
+        if (null != ddis && !ddis.isEmpty()) {
+            final var filteredDataLogValues = new Document("$filter", new Document("input", "$$time.dataLogValue")
+                    .append("as", "dataLogValue")
+                    .append("cond", new Document("$in", List.of("$$dataLogValue.processDataDdi", List.copyOf(ddis)))));
+            final var filteredTime = new Document("$cond", List.of(
+                    new Document("$isArray", "$$time.dataLogValue"),
+                    new Document("$mergeObjects", List.of("$$time", new Document("dataLogValue", filteredDataLogValues))),
+                    "$$time"));
+            final var filteredTimes = new Document("$cond", List.of(
+                    new Document("$isArray", "$document.time"),
+                    new Document("$map", new Document("input", "$document.time").append("as", "time").append("in", filteredTime)),
+                    "$document.time"));
+            final var filterForDdis = new Document("$set", new Document("document.time", filteredTimes));
+            stages.add(context -> filterForDdis);
+        }
+    }
+
+}
@@ -0,0 +1,205 @@
+package de.agrirouter.middleware.persistence.payload;
+
+import de.agrirouter.middleware.domain.ContentMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the payload within the local file system. The payloads are content-addressed by their SHA-256 hash, so
+ * identical payloads are stored only once. A payload is written to a temporary file, synced to the disk and renamed
+ * afterward, therefore a crash while writing never leaves an incomplete payload behind the key.
+ * <p>
+ * Writing and deleting the same payload is serialized. A writer reusing an existing payload touches it, and a payload
+ * is only deleted once it has not been touched within the grace period, so the content message of the writer is
+ * committed before the payload can be deleted. Payloads of transactions that have never been committed are removed by
+ * the sweep after the grace period.
+ */
+@Slf4j
+@Component
+public class FileSystemPayloadStore implements PayloadStore {
+
+    /**
+     * The name of the store.
+     */
+    public static final String NAME = "file-system";
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+    private static final int NUMBER_OF_LOCKS = 64;
+
+    private final Path directory;
+    private final Duration gracePeriod;
+    private final Lock[] locks = new Lock[NUMBER_OF_LOCKS];
+
+    public FileSystemPayloadStore(@Value("${app.payload-store.file-system.directory:payloads}") Path directory,
+                                  @Value("${app.payload-store.file-system.grace-period-in-minutes:60}") long gracePeriodInMinutes) {
+        this.directory = directory;
+        this.gracePeriod = Duration.ofMinutes(gracePeriodInMinutes);
+        for (int i = 0; i < NUMBER_OF_LOCKS; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void write(ContentMessage contentMessage, byte[] payload) throws IOException {
+        final var payloadKey = hash(payload);
+        final var path = path(payloadKey);
+        final var lock = lock(payloadKey);
+        lock.lock();
+        try {
+            if (touch(path)) {
+                log.debug("The payload '{}' is already stored, therefore it is not written again.", payloadKey);
+            } else {
+                write(path, payload);
+            }
+        } finally {
+            lock.unlock();
+        }
+        contentMessage.setPayloadStore(NAME);
+        contentMessage.setPayloadKey(payloadKey);
+        contentMessage.setMessageContent(new byte[0]);
+    }
+
+    /**
+     * Touch the payload, so it is not deleted within the grace period.
+     *
+     * @return False if there is no payload.
+     */
+    private static boolean touch(Path path) throws IOException {
+        try {
+            Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private void write(Path path, byte[] payload) throws IOException {
+        final var parent = path.getParent();
+        Files.createDirectories(parent);
+        final var temporaryFile = Files.createTempFile(parent, path.getFileName().toString(), TEMPORARY_FILE_SUFFIX);
+        try {
+            try (var fileChannel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+                final var buffer = ByteBuffer.wrap(payload);
+                while (buffer.hasRemaining()) {
+                    fileChannel.write(buffer);
+                }
+                fileChannel.force(true);
+            }
+            Files.move(temporaryFile, path, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory(parent);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    private static void syncDirectory(Path directory) {
+        try (var fileChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            fileChannel.force(true);
+        } catch (IOException e) {
+            log.debug("Could not sync the directory '{}', the file system does not support it.", directory, e);
+        }
+    }
+
+    @Override
+    public void read(StoredPayload storedPayload, PayloadReader reader) throws IOException {
+        try (var inputStream = Files.newInputStream(path(storedPayload.payloadKey()))) {
+            reader.read(inputStream);
+        }
+    }
+
+    @Override
+    public void delete(StoredPayload storedPayload, PayloadReferences payloadReferences) throws IOException {
+        final var payloadKey = storedPayload.payloadKey();
+        final var path = path(payloadKey);
+        final var lock = lock(payloadKey);
+        lock.lock();
+        try {
+            if (!Files.exists(path)) {
+                return;
+            }
+            if (isWithinGracePeriod(path)) {
+                log.debug("The payload '{}' has been written recently, therefore it is left for the sweep.", payloadKey);
+            } else if (payloadReferences.isReferenced(storedPayload)) {
+                log.debug("The payload '{}' is still referenced.", payloadKey);
+            } else {
+                Files.deleteIfExists(path);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void sweep(PayloadReferences payloadReferences) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        final List<Path> files;
+        try (var paths = Files.walk(directory, 2)) {
+            files = paths.filter(Files::isRegularFile).toList();
+        }
+        log.debug("Sweeping {} files of the payload store.", files.size());
+        for (var file : files) {
+            final var fileName = file.getFileName().toString();
+            if (fileName.endsWith(TEMPORARY_FILE_SUFFIX)) {
+                if (!isWithinGracePeriod(file)) {
+                    log.debug("Removing the temporary file '{}' left behind by a failed write.", fileName);
+                    Files.deleteIfExists(file);
+                }
+            } else if (fileName.length() > 2 && file.equals(path(fileName))) {
+                delete(new StoredPayload(NAME, 0L, fileName), payloadReferences);
+            }
+        }
+    }
+
+    private boolean isWithinGracePeriod(Path path) throws IOException {
+        try {
+            return Files.getLastModifiedTime(path).toInstant().isAfter(Instant.now().minus(gracePeriod));
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private Lock lock(String payloadKey) {
+        return locks[Math.floorMod(payloadKey.hashCode(), NUMBER_OF_LOCKS)];
+    }
+
+    private static String hash(byte[] payload) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance(HASH_ALGORITHM).digest(payload));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Path path(String payloadKey) {
+        return directory.resolve(payloadKey.substring(0, 2)).resolve(payloadKey);
+    }
+
+}
@@ -0,0 +1,60 @@
+package de.agrirouter.middleware.persistence.payload;
+
+import de.agrirouter.middleware.domain.ContentMessage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Keeps the payload within the content message itself, which is the relational database.
+ */
+@Component
+@RequiredArgsConstructor
+public class JpaPayloadStore implements PayloadStore {
+
+    /**
+     * The name of the store.
+     */
+    public static final String NAME = "jpa";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void write(ContentMessage contentMessage, byte[] payload) {
+        contentMessage.setPayloadStore(NAME);
+        contentMessage.setPayloadKey(null);
+        contentMessage.setMessageContent(payload);
+    }
+
+    @Override
+    public void read(StoredPayload storedPayload, PayloadReader reader) throws IOException {
+        try {
+            jdbcTemplate.query("select message_content from content_message where id = ?", resultSet -> {
+                final var messageContent = resultSet.getBlob(1);
+                try (var inputStream = messageContent.getBinaryStream()) {
+                    reader.read(inputStream);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    messageContent.free();
+                }
+            }, storedPayload.contentMessageId());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public void delete(StoredPayload storedPayload, PayloadReferences payloadReferences) {
+        // The payload is deleted together with the content message.
+    }
+
+}
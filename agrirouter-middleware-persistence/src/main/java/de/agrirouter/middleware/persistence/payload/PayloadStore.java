@@ -0,0 +1,92 @@
+package de.agrirouter.middleware.persistence.payload;
+
+import de.agrirouter.middleware.domain.ContentMessage;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Storage for the payloads of content messages. The name of the store and the key of the payload are saved with the
+ * content message, so the payload can be read from the same store later on.
+ */
+public interface PayloadStore {
+
+    /**
+     * The name of the store, saved with the content message.
+     *
+     * @return The name.
+     */
+    String getName();
+
+    /**
+     * Store the payload and link it to the content message. This has to be done before the content message is saved.
+     *
+     * @param contentMessage The content message.
+     * @param payload        The payload.
+     * @throws IOException If the payload could not be stored.
+     */
+    void write(ContentMessage contentMessage, byte[] payload) throws IOException;
+
+    /**
+     * Read the payload as stream. The stream is only valid while the reader is running.
+     *
+     * @param storedPayload The stored payload.
+     * @param reader        The reader for the payload.
+     * @throws IOException If the payload could not be read.
+     */
+    void read(StoredPayload storedPayload, PayloadReader reader) throws IOException;
+
+    /**
+     * Delete the payload if it is no longer referenced. The content messages referencing the payload have to be
+     * deleted before.
+     *
+     * @param storedPayload     The stored payload.
+     * @param payloadReferences Checks if the payload is still referenced by a content message.
+     * @throws IOException If the payload could not be deleted.
+     */
+    void delete(StoredPayload storedPayload, PayloadReferences payloadReferences) throws IOException;
+
+    /**
+     * Delete all payloads that are no longer referenced, e.g. payloads written by a transaction that has never been
+     * committed. Stores that keep the payload with the content message have nothing to sweep.
+     *
+     * @param payloadReferences Checks if a payload is still referenced by a content message.
+     * @throws IOException If the payloads could not be swept.
+     */
+    default void sweep(PayloadReferences payloadReferences) throws IOException {
+        // Nothing to sweep.
+    }
+
+    /**
+     * Check for the references of a payload.
+     */
+    @FunctionalInterface
+    interface PayloadReferences {
+
+        /**
+         * Check if the payload is referenced by a content message.
+         *
+         * @param storedPayload The stored payload.
+         * @return True if there is at least one content message referencing the payload.
+         */
+        boolean isReferenced(StoredPayload storedPayload);
+
+    }
+
+    /**
+     * Reader for a payload.
+     */
+    @FunctionalInterface
+    interface PayloadReader {
+
+        /**
+         * Read the payload.
+         *
+         * @param payload The payload.
+         * @throws IOException If the payload could not be read.
+         */
+        void read(InputStream payload) throws IOException;
+
+    }
+
+}
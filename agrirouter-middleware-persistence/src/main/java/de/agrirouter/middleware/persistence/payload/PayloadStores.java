@@ -0,0 +1,112 @@
+package de.agrirouter.middleware.persistence.payload;
+
+import de.agrirouter.middleware.domain.ContentMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * All available payload stores. Payloads above the configured threshold are routed to the file system, all other
+ * payloads are kept within the database.
+ */
+@Component
+public class PayloadStores {
+
+    /**
+     * Threshold to keep all payloads within the database.
+     */
+    public static final long NO_THRESHOLD = -1;
+
+    private final Map<String, PayloadStore> payloadStores;
+    private final long fileSystemThreshold;
+
+    public PayloadStores(List<PayloadStore> payloadStores,
+                         @Value("${app.payload-store.file-system.threshold-in-bytes:-1}") long fileSystemThreshold) {
+        this.payloadStores = payloadStores.stream().collect(Collectors.toUnmodifiableMap(PayloadStore::getName, Function.identity()));
+        this.fileSystemThreshold = fileSystemThreshold;
+    }
+
+    /**
+     * Store the payload within the matching store and link it to the content message.
+     *
+     * @param contentMessage The content message.
+     * @param payload        The payload.
+     * @throws IOException If the payload could not be stored.
+     */
+    public void write(ContentMessage contentMessage, byte[] payload) throws IOException {
+        if (fileSystemThreshold != NO_THRESHOLD && payload.length > fileSystemThreshold) {
+            get(FileSystemPayloadStore.NAME).write(contentMessage, payload);
+        } else {
+            get(JpaPayloadStore.NAME).write(contentMessage, payload);
+        }
+    }
+
+    /**
+     * Store the payload within the database, regardless of the size.
+     *
+     * @param contentMessage The content message.
+     * @param payload        The payload.
+     * @throws IOException If the payload could not be stored.
+     */
+    public void writeToDatabase(ContentMessage contentMessage, byte[] payload) throws IOException {
+        get(JpaPayloadStore.NAME).write(contentMessage, payload);
+    }
+
+    /**
+     * Read the payload from the store it has been written to.
+     *
+     * @param storedPayload The stored payload.
+     * @param reader        The reader for the payload.
+     * @throws IOException If the payload could not be read.
+     */
+    public void read(StoredPayload storedPayload, PayloadStore.PayloadReader reader) throws IOException {
+        get(storedPayload.payloadStore()).read(storedPayload, reader);
+    }
+
+    /**
+     * Delete the payload from the store it has been written to, if it is no longer referenced.
+     *
+     * @param storedPayload     The stored payload.
+     * @param payloadReferences Checks if the payload is still referenced by a content message.
+     * @throws IOException If the payload could not be deleted.
+     */
+    public void delete(StoredPayload storedPayload, PayloadStore.PayloadReferences payloadReferences) throws IOException {
+        get(storedPayload.payloadStore()).delete(storedPayload, payloadReferences);
+    }
+
+    /**
+     * Delete the payloads that are no longer referenced from all stores.
+     *
+     * @param payloadReferences Checks if a payload is still referenced by a content message.
+     * @throws IOException If the payloads could not be swept.
+     */
+    public void sweep(PayloadStore.PayloadReferences payloadReferences) throws IOException {
+        for (var payloadStore : payloadStores.values()) {
+            payloadStore.sweep(payloadReferences);
+        }
+    }
+
+    /**
+     * Check if the payload of the content message is kept within the content message itself.
+     *
+     * @param contentMessage The content message.
+     * @return True if the message content of the entity is the payload.
+     */
+    public static boolean isStoredWithin(ContentMessage contentMessage) {
+        return null == contentMessage.getPayloadStore() || JpaPayloadStore.NAME.equals(contentMessage.getPayloadStore());
+    }
+
+    private PayloadStore get(String name) {
+        final var payloadStore = payloadStores.get(null != name ? name : JpaPayloadStore.NAME);
+        if (null == payloadStore) {
+            throw new IllegalStateException(String.format("There is no payload store with the name '%s'.", name));
+        }
+        return payloadStore;
+    }
+
+}
@@ -0,0 +1,12 @@
+package de.agrirouter.middleware.persistence.payload;
+
+/**
+ * Reference to the payload of a content message.
+ *
+ * @param payloadStore     The name of the store.
+ * @param contentMessageId The ID of the content message.
+ * @param payloadKey       The key of the payload within the store, null if the store does not use keys.
+ */
+public record StoredPayload(String payloadStore, long contentMessageId, String payloadKey) {
+
+}
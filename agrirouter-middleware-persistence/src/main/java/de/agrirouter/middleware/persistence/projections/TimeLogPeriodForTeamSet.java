@@ -0,0 +1,21 @@
+package de.agrirouter.middleware.persistence.projections;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Set;
+
+/**
+ * Projection for a time log period of a team set, the boundaries are calculated within the database.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class TimeLogPeriodForTeamSet {
+    private String teamSetContextId;
+    private long begin;
+    private long end;
+    private int numberOfTimeLogs;
+    private Set<String> messageIds;
+}
@@ -0,0 +1,58 @@
+package de.agrirouter.middleware.persistence.mongo;
+
+import de.agrirouter.middleware.domain.documents.TimeLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class TimeLogRepositoryCustomImplTest {
+
+    private IndexOperations indexOperations;
+    private TimeLogRepositoryCustomImpl timeLogRepositoryCustom;
+
+    @BeforeEach
+    void setUp() {
+        var mongoOperations = mock(MongoOperations.class);
+        var mongoConverter = mock(MongoConverter.class);
+        indexOperations = mock(IndexOperations.class);
+        when(mongoOperations.indexOps(TimeLog.class)).thenReturn(indexOperations);
+        when(mongoOperations.getConverter()).thenReturn(mongoConverter);
+        doReturn(new MongoMappingContext()).when(mongoConverter).getMappingContext();
+        timeLogRepositoryCustom = new TimeLogRepositoryCustomImpl(mongoOperations);
+    }
+
+    @Test
+    void ensureIndexes_createsTheIndexOnTheNormalizedTeamSetContextId() {
+        timeLogRepositoryCustom.ensureIndexes();
+
+        assertThat(createdIndexKeys("normalizedTeamSetContextId_timestamp_id_idx")).containsExactly("normalizedTeamSetContextId", "timestamp", "_id");
+    }
+
+    @Test
+    void ensureIndexes_createsTheIndexOnTimestampAndId() {
+        timeLogRepositoryCustom.ensureIndexes();
+
+        assertThat(createdIndexKeys("timestamp_id_idx")).containsExactly("timestamp", "_id");
+    }
+
+    private Set<String> createdIndexKeys(String indexName) {
+        var indexDefinitions = ArgumentCaptor.forClass(IndexDefinition.class);
+        verify(indexOperations, atLeastOnce()).createIndex(indexDefinitions.capture());
+        return indexDefinitions.getAllValues().stream()
+                .filter(indexDefinition -> indexName.equals(indexDefinition.getIndexOptions().get("name")))
+                .findFirst()
+                .map(indexDefinition -> indexDefinition.getIndexKeys().keySet())
+                .orElseThrow(() -> new AssertionError("The index '" + indexName + "' has not been created."));
+    }
+
+}
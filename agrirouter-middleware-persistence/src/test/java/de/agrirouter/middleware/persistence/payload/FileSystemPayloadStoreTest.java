@@ -0,0 +1,225 @@
+package de.agrirouter.middleware.persistence.payload;
+
+import de.agrirouter.middleware.domain.ContentMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class FileSystemPayloadStoreTest {
+
+    private static final long GRACE_PERIOD_IN_MINUTES = 60;
+    private static final FileTime OUTSIDE_OF_THE_GRACE_PERIOD = FileTime.from(Instant.now().minus(Duration.ofHours(2)));
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void givenPayload_whenWriting_thenThePayloadCanBeReadAndNoTemporaryFileIsLeft() throws IOException {
+        var fileSystemPayloadStore = new FileSystemPayloadStore(directory, GRACE_PERIOD_IN_MINUTES);
+        var payload = createPayload(1024);
+        var contentMessage = new ContentMessage();
+
+        fileSystemPayloadStore.write(contentMessage, payload);
+
+        assertThat(contentMessage.getPayloadStore()).isEqualTo(FileSystemPayloadStore.NAME);
+        assertThat(contentMessage.getPayloadKey()).hasSize(64);
+        assertThat(contentMessage.getMessageContent()).isEmpty();
+        assertThat(read(fileSystemPayloadStore, contentMessage)).isEqualTo(payload);
+        assertThat(files()).hasSize(1).noneMatch(file -> file.toString().endsWith(".tmp"));
+    }
+
+    @Test
+    void givenTemporaryFileLeftByACrash_whenWriting_thenTheStoredPayloadIsComplete() throws IOException {
+        var fileSystemPayloadStore = new FileSystemPayloadStore(directory, GRACE_PERIOD_IN_MINUTES);
+        var payload = createPayload(1024 * 1024);
+        var contentMessage = new ContentMessage();
+        fileSystemPayloadStore.write(contentMessage, payload);
+        var path = directory.resolve(contentMessage.getPayloadKey().substring(0, 2)).resolve(contentMessage.getPayloadKey());
+        Files.delete(path);
+        var temporaryFile = path.resolveSibling(contentMessage.getPayloadKey() + "42.tmp");
+        Files.write(temporaryFile, new byte[]{1, 2, 3});
+
+        var otherContentMessage = new ContentMessage();
+        fileSystemPayloadStore.write(otherContentMessage, payload);
+
+        assertThat(otherContentMessage.getPayloadKey()).isEqualTo(contentMessage.getPayloadKey());
+        assertThat(Files.readAllBytes(path)).isEqualTo(payload);
+        assertThat(read(fileSystemPayloadStore, otherContentMessage)).isEqualTo(payload);
+    }
+
+    @Test
+    void givenFailingWrite_whenWriting_thenThereIsNoPayloadForTheKey() throws IOException {
+        var fileSystemPayloadStore = new FileSystemPayloadStore(directory, GRACE_PERIOD_IN_MINUTES);
+        var payload = createPayload(1024);
+        var contentMessage = new ContentMessage();
+        fileSystemPayloadStore.write(contentMessage, payload);
+        var shard = directory.resolve(contentMessage.getPayloadKey().substring(0, 2));
+        Files.delete(shard.resolve(contentMessage.getPayloadKey()));
+        Files.delete(shard);
+        Files.write(shard, new byte[0]);
+
+        var otherContentMessage = new ContentMessage();
+        assertThrows(IOException.class, () -> fileSystemPayloadStore.write(otherContentMessage, payload));
+
+        assertThat(otherContentMessage.getPayloadKey()).isNull();
+        assertThat(files()).containsExactly(shard);
+    }
+
+    @Test
+    void givenIdenticalPayloads_whenWriting_thenThePayloadIsStoredOnceAndTouched() throws IOException {
+        var fileSystemPayloadStore = new FileSystemPayloadStore(directory, GRACE_PERIOD_IN_MINUTES);
+        var payload = createPayload(1024 * 1024);
+        var contentMessage = new ContentMessage();
+        var otherContentMessage = new ContentMessage();
+
+        fileSystemPayloadStore.write(contentMessage, payload);
+        var path = files().getFirst();
+        Files.setLastModifiedTime(path, OUTSIDE_OF_THE_GRACE_PERIOD);
+        fileSystemPayloadStore.write(otherContentMessage, payload.clone());
+
+        assertThat(otherContentMessage.getPayloadKey()).isEqualTo(contentMessage.getPayloadKey());
+        assertThat(files()).containsExactly(path);
+        assertThat(Files.readAllBytes(path)).isEqualTo(payload);
+        assertThat(Files.getLastModifiedTime(path)).isGreaterThan(OUTSIDE_OF_THE_GRACE_PERIOD);
+    }
+
+    @Test
+    void givenDifferentPayloads_whenWriting_thenBothPayloadsAreStored() throws IOException {
+        var fileSystemPayloadStore = new FileSystemPayloadStore(directory, GRACE_PERIOD_IN_MINUTES);
+        var contentMessage = new ContentMessage();
+        var otherContentMessage = new ContentMessage();
+
+        fileSystemPayloadStore.write(contentMessage, createPayload(1024));
+        fileSystemPayloadStore.write(otherContentMessage, createPayload(1025));
+
+        assertThat(otherContentMessage.getPayloadKey()).isNotEqualTo(contentMessage.getPayloadKey());
+        assertThat(files()).hasSize(2);
+    }
+
+    @Test
+    void givenUnreferencedPayload_whenDeleting_thenThePayloadIsRemoved() throws IOException {
+        var fileSystemPayloadStore = new FileSystemPayloadStore(directory, GRACE_PERIOD_IN_MINUTES);
+        var contentMessage = new ContentMessage();
+        fileSystemPayloadStore.write(contentMessage, createPayload(1024));
+        Files.setLastModifiedTime(files().getFirst(), OUTSIDE_OF_THE_GRACE_PERIOD);
+
+        fileSystemPayloadStore.delete(new StoredPayload(FileSystemPayloadStore.NAME, 1L, contentMessage.getPayloadKey()), storedPayload -> false);
+
+        assertThat(files()).isEmpty();
+    }
+
+    @Test
+    void givenReferencedPayload_whenDeleting_thenThePayloadIsKept() throws IOException {
+        var fileSystemPayloadStore = new FileSystemPayloadStore(directory, GRACE_PERIOD_IN_MINUTES);
+        var contentMessage = new ContentMessage();
+        fileSystemPayloadStore.write(contentMessage, createPayload(1024));
+        Files.setLastModifiedTime(files().getFirst(), OUTSIDE_OF_THE_GRACE_PERIOD);
+
+        fileSystemPayloadStore.delete(new StoredPayload(FileSystemPayloadStore.NAME, 1L, contentMessage.getPayloadKey()), storedPayload -> true);
+
+        assertThat(files()).hasSize(1);
+    }
+
+    @Test
+    void givenPayloadReusedByAWriterThatHasNotCommittedYet_whenDeleting_thenThePayloadIsKept() throws IOException {
+        var fileSystemPayloadStore = new FileSystemPayloadStore(directory, GRACE_PERIOD_IN_MINUTES);
+        var payload = createPayload(1024);
+        var contentMessage = new ContentMessage();
+        fileSystemPayloadStore.write(contentMessage, payload);
+        Files.setLastModifiedTime(files().getFirst(), OUTSIDE_OF_THE_GRACE_PERIOD);
+
+        fileSystemPayloadStore.write(new ContentMessage(), payload.clone());
+        fileSystemPayloadStore.delete(new StoredPayload(FileSystemPayloadStore.NAME, 1L, contentMessage.getPayloadKey()), storedPayload -> false);
+
+        assertThat(files()).hasSize(1);
+    }
+
+    @Test
+    void givenPayloadsOfTransactionsThatHaveNeverBeenCommitted_whenSweeping_thenOnlyTheOnesOutsideOfTheGracePeriodAreRemoved() throws IOException {
+        var fileSystemPayloadStore = new FileSystemPayloadStore(directory, GRACE_PERIOD_IN_MINUTES);
+        var orphanedContentMessage = new ContentMessage();
+        var recentContentMessage = new ContentMessage();
+        var referencedContentMessage = new ContentMessage();
+        fileSystemPayloadStore.write(orphanedContentMessage, createPayload(1024));
+        fileSystemPayloadStore.write(recentContentMessage, createPayload(1025));
+        fileSystemPayloadStore.write(referencedContentMessage, createPayload(1026));
+        var orphanedPath = directory.resolve(orphanedContentMessage.getPayloadKey().substring(0, 2)).resolve(orphanedContentMessage.getPayloadKey());
+        var referencedPath = directory.resolve(referencedContentMessage.getPayloadKey().substring(0, 2)).resolve(referencedContentMessage.getPayloadKey());
+        Files.setLastModifiedTime(orphanedPath, OUTSIDE_OF_THE_GRACE_PERIOD);
+        Files.setLastModifiedTime(referencedPath, OUTSIDE_OF_THE_GRACE_PERIOD);
+        var temporaryFile = orphanedPath.resolveSibling(orphanedContentMessage.getPayloadKey() + "42.tmp");
+        Files.write(temporaryFile, new byte[]{1, 2, 3});
+        Files.setLastModifiedTime(temporaryFile, OUTSIDE_OF_THE_GRACE_PERIOD);
+
+        fileSystemPayloadStore.sweep(storedPayload -> referencedContentMessage.getPayloadKey().equals(storedPayload.payloadKey()));
+
+        assertThat(files()).containsExactlyInAnyOrder(
+                directory.resolve(recentContentMessage.getPayloadKey().substring(0, 2)).resolve(recentContentMessage.getPayloadKey()),
+                referencedPath);
+    }
+
+    @Test
+    void givenLargePayload_whenReadingRepeatedly_thenAllBytesAreReadInTime() throws IOException {
+        var fileSystemPayloadStore = new FileSystemPayloadStore(directory, GRACE_PERIOD_IN_MINUTES);
+        var payloadSize = 64 * 1024 * 1024;
+        var numberOfReads = 16;
+        var contentMessage = new ContentMessage();
+        fileSystemPayloadStore.write(contentMessage, createPayload(payloadSize));
+        var storedPayload = new StoredPayload(FileSystemPayloadStore.NAME, 1L, contentMessage.getPayloadKey());
+        var numberOfBytes = new AtomicLong();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            for (int i = 0; i < numberOfReads; i++) {
+                fileSystemPayloadStore.read(storedPayload, payload -> numberOfBytes.addAndGet(skipAll(payload)));
+            }
+        });
+
+        assertThat(numberOfBytes).hasValue((long) payloadSize * numberOfReads);
+    }
+
+    private static long skipAll(InputStream inputStream) throws IOException {
+        var buffer = new byte[64 * 1024];
+        var numberOfBytes = 0L;
+        var read = inputStream.read(buffer);
+        while (read != -1) {
+            numberOfBytes += read;
+            read = inputStream.read(buffer);
+        }
+        return numberOfBytes;
+    }
+
+    private static byte[] read(FileSystemPayloadStore fileSystemPayloadStore, ContentMessage contentMessage) throws IOException {
+        var content = new AtomicReference<byte[]>();
+        fileSystemPayloadStore.read(new StoredPayload(contentMessage.getPayloadStore(), contentMessage.getId(), contentMessage.getPayloadKey()),
+                payload -> content.set(payload.readAllBytes()));
+        return content.get();
+    }
+
+    private List<Path> files() throws IOException {
+        try (var files = Files.walk(directory)) {
+            return files.filter(file -> !Files.isDirectory(file)).toList();
+        }
+    }
+
+    private static byte[] createPayload(int size) {
+        var payload = new byte[size];
+        new Random(size).nextBytes(payload);
+        return payload;
+    }
+
+}